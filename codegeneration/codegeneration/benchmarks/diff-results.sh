@@ -0,0 +1,13 @@
+#!/usr/bin/env sh
+# Compare a JMH result file against a baseline, exits non-zero when a benchmark regressed past the threshold.
+#   ./diff-results.sh baseline.json [current.json, default target/jmh-result.json] [threshold percent, default 10]
+set -e
+dir=$(dirname "$0")
+if [ $# -lt 1 ]; then
+    echo "Usage: $0 baseline.json [current.json] [threshold-percent]" >&2
+    exit 2
+fi
+baseline=$1
+current=${2:-$dir/target/jmh-result.json}
+threshold=${3:-10}
+exec java -cp "$dir/target/benchmarks.jar" com.codegeneration.banking.benchmarks.ResultsDiff "$baseline" "$current" "$threshold"
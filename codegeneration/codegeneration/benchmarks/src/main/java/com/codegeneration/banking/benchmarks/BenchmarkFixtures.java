@@ -0,0 +1,99 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Transaction;
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.service.implementations.AccountLimitServiceImpl;
+import com.codegeneration.banking.api.service.implementations.CurrencyExchangeServiceImpl;
+import com.codegeneration.banking.api.service.implementations.ExchangeRateRefresher;
+import com.codegeneration.banking.api.service.implementations.FileRateProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.objenesis.Objenesis;
+import org.springframework.objenesis.ObjenesisStd;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds application beans by hand so benchmarks measure the code under test, not a Spring context.
+ * Fields normally injected through @Value are set to the defaults from application.properties.
+ */
+public final class BenchmarkFixtures {
+
+    private static final Objenesis OBJENESIS = new ObjenesisStd();
+
+    private BenchmarkFixtures() {
+    }
+
+    public static ExchangeRateRefresher exchangeRateRefresher() {
+        FileRateProvider provider = new FileRateProvider(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(provider, "location", "classpath:exchange-rates.properties");
+
+        ExchangeRateRefresher refresher = new ExchangeRateRefresher(List.of(provider));
+        ReflectionTestUtils.setField(refresher, "providerName", FileRateProvider.NAME);
+        ReflectionTestUtils.setField(refresher, "maxChangeRatio", new BigDecimal("0.5"));
+        refresher.init();
+        return refresher;
+    }
+
+    public static CurrencyExchangeServiceImpl currencyExchangeService() {
+        return new CurrencyExchangeServiceImpl(exchangeRateRefresher());
+    }
+
+    public static AccountLimitServiceImpl accountLimitService(ExchangeRateRefresher refresher) {
+        return new AccountLimitServiceImpl(refresher);
+    }
+
+    /**
+     * Instance of a bean without calling its constructor, for benchmarks of methods that do not use its dependencies
+     */
+    public static <T> T withoutDependencies(Class<T> type) {
+        return OBJENESIS.newInstance(type);
+    }
+
+    /**
+     * Transactions between a small pool of accounts with mixed currencies, types, statuses and amounts, the same
+     * for every call with the same count
+     */
+    public static List<Transaction> transactions(int count) {
+        Random random = new Random(42);
+        Currency[] currencies = Currency.values();
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            accounts.add(Account.builder()
+                    .id((long) i + 1)
+                    .accountNumber(String.format("NL99BANK%010d", i))
+                    .accountName("Account " + i)
+                    .accountType(i % 3 == 0 ? "SAVINGS" : "CHECKING")
+                    .currency(currencies[i % currencies.length])
+                    .build());
+        }
+
+        Transaction.TransactionType[] types = Transaction.TransactionType.values();
+        Transaction.TransactionStatus[] statuses = Transaction.TransactionStatus.values();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Account source = accounts.get(random.nextInt(accounts.size()));
+            LocalDateTime createdAt = start.plusMinutes(random.nextInt(365 * 24 * 60));
+            transactions.add(Transaction.builder()
+                    .id((long) i + 1)
+                    .transactionReference("TRX-" + Integer.toHexString(random.nextInt()).toUpperCase())
+                    .sourceAccount(source)
+                    .destinationAccount(accounts.get(random.nextInt(accounts.size())))
+                    .amount(BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2))
+                    .currency(source.getCurrency())
+                    .description(i % 4 == 0 ? "Rent payment" : "Transfer " + i)
+                    .type(types[random.nextInt(types.length)])
+                    .status(statuses[random.nextInt(statuses.length)])
+                    .createdAt(createdAt)
+                    .completedAt(createdAt.plusSeconds(5))
+                    .build());
+        }
+        return transactions;
+    }
+}
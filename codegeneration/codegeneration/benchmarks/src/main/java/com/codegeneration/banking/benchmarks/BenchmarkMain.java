@@ -0,0 +1,50 @@
+package com.codegeneration.banking.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Entry point of the benchmarks jar. Takes the usual JMH command line, adds the GC profiler so every run reports
+ * allocations per operation, and writes JSON results to target/jmh-result.json for {@link ResultsDiff}.
+ * Pass -nogc to run without the profiler, or -rff to write results elsewhere.
+ */
+public final class BenchmarkMain {
+
+    private static final String NO_GC = "-nogc";
+    private static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean gc = !Arrays.asList(args).contains(NO_GC);
+        String[] jmhArgs = Arrays.stream(args).filter(arg -> !NO_GC.equals(arg)).toArray(String[]::new);
+
+        CommandLineOptions options = new CommandLineOptions(jmhArgs);
+        if (options.shouldHelp() || options.shouldList() || options.shouldListWithParams()
+                || options.shouldListProfilers() || options.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(jmhArgs);
+            return;
+        }
+
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+        boolean gcRequested = options.getProfilers().stream()
+                .anyMatch(profiler -> profiler.getKlass().equals("gc") || profiler.getKlass().equals(GCProfiler.class.getName()));
+        if (gc && !gcRequested) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!options.getResult().hasValue()) {
+            builder.result(DEFAULT_RESULT);
+        }
+        if (!options.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.dto.currency.BatchConversionRequest;
+import com.codegeneration.banking.api.dto.currency.CurrencyConversionRequest;
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.controllers.CurrencyController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Converts the same set of amounts through N calls to /api/currency/convert and through one call to
+ * /api/currency/convert/batch. Both go through the MVC dispatcher and JSON handling, network time is excluded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrencyBatchBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int items;
+
+    private MockMvc mockMvc;
+    private List<CurrencyConversionRequest> conversions;
+    private String batchJson;
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        CurrencyController controller = new CurrencyController(BenchmarkFixtures.currencyExchangeService(), objectMapper,
+                new MappingJackson2CborHttpMessageConverter());
+        ReflectionTestUtils.setField(controller, "maxBatchSize", 100_000);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        Random random = new Random(42);
+        Currency[] currencies = Currency.values();
+        conversions = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            conversions.add(CurrencyConversionRequest.builder()
+                    .amount(BigDecimal.valueOf(1 + random.nextInt(100_000), 2))
+                    .fromCurrency(currencies[random.nextInt(currencies.length)])
+                    .toCurrency(currencies[random.nextInt(currencies.length)])
+                    .build());
+        }
+        batchJson = objectMapper.writeValueAsString(new BatchConversionRequest(conversions));
+    }
+
+    @Benchmark
+    public void perItemCalls(Blackhole blackhole) throws Exception {
+        for (CurrencyConversionRequest conversion : conversions) {
+            MvcResult result = mockMvc.perform(post("/api/currency/convert")
+                            .param("fromCurrency", conversion.getFromCurrency().name())
+                            .param("toCurrency", conversion.getToCurrency().name())
+                            .param("amount", conversion.getAmount().toPlainString()))
+                    .andReturn();
+            blackhole.consume(result.getResponse().getContentAsByteArray());
+        }
+    }
+
+    @Benchmark
+    public void batchCall(Blackhole blackhole) throws Exception {
+        MvcResult started = mockMvc.perform(post("/api/currency/convert/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batchJson))
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started)).andReturn();
+        blackhole.consume(result.getResponse().getContentAsByteArray());
+    }
+}
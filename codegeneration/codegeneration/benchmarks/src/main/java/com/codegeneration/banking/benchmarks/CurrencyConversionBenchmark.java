@@ -0,0 +1,42 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.service.implementations.CurrencyExchangeServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single amount conversion for a same-currency pair, a pair quoted against EUR and a pair triangulated through EUR
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrencyConversionBenchmark {
+
+    @Param({"EUR_EUR", "PLN_EUR", "PLN_USD"})
+    private String pair;
+
+    private CurrencyExchangeServiceImpl currencyExchangeService;
+    private Currency from;
+    private Currency to;
+    private BigDecimal amount;
+
+    @Setup
+    public void setup() {
+        currencyExchangeService = BenchmarkFixtures.currencyExchangeService();
+        String[] currencies = pair.split("_");
+        from = Currency.valueOf(currencies[0]);
+        to = Currency.valueOf(currencies[1]);
+        amount = new BigDecimal("1234.56");
+    }
+
+    @Benchmark
+    public BigDecimal convertAmount() {
+        return currencyExchangeService.convertAmount(amount, from, to);
+    }
+}
@@ -0,0 +1,81 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.entity.Transaction.TransactionType;
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.events.DomainEvent;
+import com.codegeneration.banking.api.events.DomainEventBus;
+import com.codegeneration.banking.api.events.DomainEventListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Events published per second from 4 threads into a {@link DomainEventBus} of 65536 slots with 1 to 8 subscribers
+ * that sum the balances they receive. With slowSubscriber one more subscriber sleeps a millisecond per batch, the
+ * publishing rate should not change, that subscriber loses events instead. Delivered and lost counts per subscriber are
+ * printed after every trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(4)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventBusBenchmark {
+
+    @Param({"1", "4", "8"})
+    int subscribers;
+
+    @Param({"false", "true"})
+    boolean slowSubscriber;
+
+    private DomainEventBus bus;
+
+    @Setup
+    public void setup() {
+        bus = new DomainEventBus(65_536, 256);
+        for (int i = 0; i < subscribers; i++) {
+            bus.subscribe("sum-" + i, new BalanceSum());
+        }
+        if (slowSubscriber) {
+            bus.subscribe("slow", (event, endOfBatch) -> {
+                if (endOfBatch) {
+                    LockSupport.parkNanos(1_000_000);
+                }
+            });
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        bus.close();
+        for (DomainEventBus.Subscription subscription : bus.getSubscriptions()) {
+            System.out.printf("%n%s: %d delivered, %d lost%n", subscription.getName(),
+                    subscription.getDeliveredCount(), subscription.getLostCount());
+        }
+    }
+
+    @Benchmark
+    public long publish() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long sequence = bus.claim();
+        bus.get(sequence).transactionPosted(sequence, "TRX-TRF-BENCH", TransactionType.TRANSFER,
+                random.nextInt(1000), random.nextInt(1000), 1, 2, 10_000, Currency.EUR, 10_000, Currency.EUR,
+                random.nextLong(1_000_000_000L), random.nextLong(1_000_000_000L));
+        bus.publish(sequence);
+        return sequence;
+    }
+
+    private static final class BalanceSum implements DomainEventListener {
+
+        private long sum;
+
+        @Override
+        public void onEvent(DomainEvent event, boolean endOfBatch) {
+            sum += event.getSourceBalanceUnits() + event.getDestinationBalanceUnits();
+        }
+    }
+}
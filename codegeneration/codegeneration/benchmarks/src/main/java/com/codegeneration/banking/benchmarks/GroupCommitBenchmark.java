@@ -0,0 +1,135 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.groupcommit.GroupCommitter;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Transfers per second from 16 threads against an H2 file database that writes every commit to disk. A window of -1
+ * commits every transfer in its own transaction on a pooled connection, the other windows queue the transfers to a
+ * {@link GroupCommitter} that waits that many microseconds for more requests before committing a batch. A transfer is
+ * a conditional debit, a credit and an insert, like a transfer of the application without its postings.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(16)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GroupCommitBenchmark {
+
+    private static final int ACCOUNTS = 1000;
+    private static final String DEBIT_SQL = "UPDATE accounts SET balance = balance - ? WHERE id = ? AND balance >= ?";
+    private static final String CREDIT_SQL = "UPDATE accounts SET balance = balance + ? WHERE id = ?";
+    private static final String INSERT_SQL = "INSERT INTO transfers (source_id, destination_id, amount) VALUES (?, ?, ?)";
+
+    @Param({"-1", "0", "50", "200", "1000"})
+    long windowMicros;
+
+    private Path directory;
+    private HikariDataSource pool;
+    private JdbcTemplate pooledJdbc;
+    private TransactionTemplate pooledTransactions;
+    private Connection writerConnection;
+    private GroupCommitter<long[], Boolean> committer;
+
+    @Setup
+    public void setup() throws IOException, SQLException {
+        directory = Files.createTempDirectory("group-commit");
+        HikariConfig config = new HikariConfig();
+        // Commits are written to the file right away instead of once a second
+        config.setJdbcUrl("jdbc:h2:file:" + directory.resolve("bench") + ";WRITE_DELAY=0");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(17);
+        pool = new HikariDataSource(config);
+        pooledJdbc = new JdbcTemplate(pool);
+        pooledTransactions = new TransactionTemplate(new DataSourceTransactionManager(pool));
+
+        pooledJdbc.execute("CREATE TABLE accounts (id INT PRIMARY KEY, balance BIGINT NOT NULL)");
+        pooledJdbc.execute("CREATE TABLE transfers (id BIGINT AUTO_INCREMENT PRIMARY KEY, source_id INT, "
+                + "destination_id INT, amount BIGINT)");
+        List<Object[]> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(new Object[]{i, 1_000_000_000L});
+        }
+        pooledJdbc.batchUpdate("INSERT INTO accounts VALUES (?, ?)", accounts);
+
+        if (windowMicros >= 0) {
+            writerConnection = pool.getConnection();
+            SingleConnectionDataSource writerDataSource = new SingleConnectionDataSource(writerConnection, true);
+            JdbcTemplate writerJdbc = new JdbcTemplate(writerDataSource);
+            committer = new GroupCommitter<>("benchmark-writer",
+                    new TransactionTemplate(new DataSourceTransactionManager(writerDataSource)),
+                    new GroupCommitter.BatchHandler<>() {
+                        @Override
+                        public void apply(long[] transfer) {
+                            debitAndCredit(writerJdbc, transfer);
+                        }
+
+                        @Override
+                        public List<Boolean> complete(List<long[]> applied) {
+                            writerJdbc.batchUpdate(INSERT_SQL, applied.stream()
+                                    .map(transfer -> new Object[]{transfer[0], transfer[1], transfer[2]}).toList());
+                            return applied.stream().map(transfer -> Boolean.TRUE).toList();
+                        }
+                    }, TimeUnit.MICROSECONDS.toNanos(windowMicros), 256, 4096);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, SQLException {
+        if (committer != null) {
+            committer.close();
+            System.out.printf("%n%.1f transfers per transaction%n",
+                    (double) committer.getRequestCount() / Math.max(1, committer.getBatchCount()));
+            writerConnection.close();
+        }
+        pool.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long source = random.nextInt(ACCOUNTS);
+        long destination = (source + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        long[] transfer = {source, destination, 1 + random.nextInt(100)};
+        if (committer != null) {
+            return committer.submit(transfer);
+        }
+        return Boolean.TRUE.equals(pooledTransactions.execute(status -> {
+            debitAndCredit(pooledJdbc, transfer);
+            pooledJdbc.update(INSERT_SQL, transfer[0], transfer[1], transfer[2]);
+            return true;
+        }));
+    }
+
+    private static void debitAndCredit(JdbcTemplate jdbc, long[] transfer) {
+        if (jdbc.update(DEBIT_SQL, transfer[2], transfer[0], transfer[2]) == 0) {
+            throw new IllegalStateException("Insufficient balance");
+        }
+        jdbc.update(CREDIT_SQL, transfer[2], transfer[1]);
+    }
+}
@@ -0,0 +1,53 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.security.JwtTokenProvider;
+import com.codegeneration.banking.api.service.implementations.TokenBlacklistService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token validation done by the JWT filter on every authenticated request, with an empty and a filled blacklist
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    // Same length as app.jwt.secret, the key size decides the HMAC variant
+    private static final String SECRET = "0123456789abcdef".repeat(64);
+
+    @Param({"0", "10000"})
+    private int blacklisted;
+
+    private JwtTokenProvider jwtTokenProvider;
+    private String token;
+
+    @Setup
+    public void setup() {
+        TokenBlacklistService blacklist = new TokenBlacklistService();
+        jwtTokenProvider = new JwtTokenProvider(blacklist);
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpirationInMs", 86_400_000);
+
+        token = jwtTokenProvider.generateToken(new UsernamePasswordAuthenticationToken(
+                "user1", null, List.of(new SimpleGrantedAuthority("ROLE_CLIENT"))));
+        Instant expiry = Instant.now().plusSeconds(3600);
+        for (int i = 0; i < blacklisted; i++) {
+            blacklist.blacklistToken("revoked-token-" + i, expiry);
+        }
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtTokenProvider.validateToken(token);
+    }
+}
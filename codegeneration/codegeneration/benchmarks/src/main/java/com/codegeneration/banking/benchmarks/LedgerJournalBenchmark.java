@@ -0,0 +1,138 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.enums.PostingKind;
+import com.codegeneration.banking.api.journal.BalanceSnapshotStore;
+import com.codegeneration.banking.api.journal.BalanceSnapshotStore.BalanceSnapshot;
+import com.codegeneration.banking.api.journal.LedgerJournal;
+import com.codegeneration.banking.api.journal.LedgerJournal.Posting;
+import com.codegeneration.banking.api.journal.LedgerRecovery;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time per million postings to append to the ledger journal, as single deposits and as transfer groups of two, and to
+ * recover the balances from it on startup with no snapshot or with a snapshot covering all but the last 100k postings.
+ * Appends are not forced to disk, with app.journal.force every append additionally costs a disk flush.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LedgerJournalBenchmark {
+
+    private static final int POSTINGS = 1_000_000;
+    private static final int ACCOUNTS = 10_000;
+    private static final int SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    @State(Scope.Benchmark)
+    public static class Postings {
+
+        Posting[] postings;
+
+        @Setup
+        public void setup() {
+            Random random = new Random(42);
+            String[] accounts = new String[ACCOUNTS];
+            for (int i = 0; i < ACCOUNTS; i++) {
+                accounts[i] = String.format("NL%02dBANK%010d", i % 100, i);
+            }
+            postings = new Posting[POSTINGS];
+            for (int i = 0; i < POSTINGS; i += 2) {
+                long amount = 1 + random.nextInt(1_000_000);
+                postings[i] = new Posting(PostingKind.TRANSFER_DEBIT, accounts[random.nextInt(ACCOUNTS)], -amount,
+                        random.nextInt(100_000_000));
+                postings[i + 1] = new Posting(PostingKind.TRANSFER_CREDIT, accounts[random.nextInt(ACCOUNTS)], amount,
+                        random.nextInt(100_000_000));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EmptyJournal {
+
+        Path directory;
+        LedgerJournal journal;
+
+        @Setup(Level.Iteration)
+        public void open() throws IOException {
+            directory = Files.createTempDirectory("ledger-journal");
+            journal = LedgerJournal.open(directory, SEGMENT_BYTES, false);
+        }
+
+        @TearDown(Level.Iteration)
+        public void delete() throws IOException {
+            journal.close();
+            deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FilledJournal {
+
+        @Param({"0", "900000"})
+        int snapshotAt;
+
+        Path directory;
+
+        @Setup
+        public void fill(Postings postings) throws IOException {
+            directory = Files.createTempDirectory("ledger-journal");
+            BalanceSnapshotStore snapshots = new BalanceSnapshotStore(directory, 2);
+            try (LedgerJournal journal = LedgerJournal.open(directory, SEGMENT_BYTES, false)) {
+                for (int i = 0; i < POSTINGS; i += 2) {
+                    if (i == snapshotAt && i > 0) {
+                        snapshots.write(LedgerRecovery.recover(journal, snapshots));
+                    }
+                    journal.appendCommitted(List.of(postings.postings[i], postings.postings[i + 1]));
+                }
+            }
+        }
+
+        @TearDown
+        public void delete() throws IOException {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    public long appendMillionDeposits(Postings postings, EmptyJournal empty) {
+        long sequence = 0;
+        for (Posting posting : postings.postings) {
+            sequence = empty.journal.appendCommitted(List.of(posting));
+        }
+        return sequence;
+    }
+
+    @Benchmark
+    public long appendMillionAsTransfers(Postings postings, EmptyJournal empty) {
+        long sequence = 0;
+        for (int i = 0; i < POSTINGS; i += 2) {
+            sequence = empty.journal.appendCommitted(List.of(postings.postings[i], postings.postings[i + 1]));
+        }
+        return sequence;
+    }
+
+    @Benchmark
+    public BalanceSnapshot recoverMillion(FilledJournal filled) throws IOException {
+        try (LedgerJournal journal = LedgerJournal.open(filled.directory, SEGMENT_BYTES, false)) {
+            return LedgerRecovery.recover(journal, new BalanceSnapshotStore(filled.directory, 2));
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.dto.account.AccountLimitSnapshot;
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.enums.LimitType;
+import com.codegeneration.banking.api.service.implementations.AccountLimitServiceImpl;
+import com.codegeneration.banking.api.service.implementations.CurrencyExchangeServiceImpl;
+import com.codegeneration.banking.api.service.implementations.ExchangeRateRefresher;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ATM withdrawal limit check on a non-EUR account: converting the amount, both limits and today's usage to EUR on
+ * every request, against comparing with the cached EUR normalized limit snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LimitCheckBenchmark {
+
+    private CurrencyExchangeServiceImpl currencyExchangeService;
+    private AccountLimitServiceImpl accountLimitService;
+    private Account account;
+    private BigDecimal amount;
+
+    @Setup
+    public void setup() {
+        ExchangeRateRefresher refresher = BenchmarkFixtures.exchangeRateRefresher();
+        currencyExchangeService = new CurrencyExchangeServiceImpl(refresher);
+        accountLimitService = BenchmarkFixtures.accountLimitService(refresher);
+
+        account = Account.builder()
+                .id(1L)
+                .currency(Currency.PLN)
+                .withdrawalUsedToday(new BigDecimal("120.5000"))
+                .build();
+        amount = new BigDecimal("250.00");
+    }
+
+    @Benchmark
+    public boolean convertPerRequest() {
+        BigDecimal amountInEur = currencyExchangeService.convertAmount(amount, account.getCurrency(), Currency.EUR);
+        BigDecimal singleLimitInEur = currencyExchangeService.convertAmount(
+                account.getSingleWithdrawalLimit(), account.getCurrency(), Currency.EUR);
+        BigDecimal dailyLimitInEur = currencyExchangeService.convertAmount(
+                account.getDailyWithdrawalLimit(), account.getCurrency(), Currency.EUR);
+        BigDecimal usedInEur = currencyExchangeService.convertAmount(
+                account.getWithdrawalUsedToday(), account.getCurrency(), Currency.EUR);
+        return amountInEur.compareTo(singleLimitInEur) <= 0
+                && usedInEur.add(amountInEur).compareTo(dailyLimitInEur) <= 0;
+    }
+
+    @Benchmark
+    public boolean limitSnapshot() {
+        AccountLimitSnapshot limits = accountLimitService.getLimitSnapshot(account);
+        Money money = Money.of(amount, account.getCurrency());
+        return limits.isWithinSingleLimit(LimitType.WITHDRAWAL, money)
+                && limits.isWithinDailyLimit(LimitType.WITHDRAWAL,
+                Money.toUnits(account.getWithdrawalUsedToday()) + money.getUnits());
+    }
+}
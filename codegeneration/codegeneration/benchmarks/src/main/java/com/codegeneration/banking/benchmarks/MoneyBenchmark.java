@@ -0,0 +1,120 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.dto.account.AccountLimitSnapshot;
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.enums.LimitType;
+import com.codegeneration.banking.api.service.implementations.CurrencyExchangeServiceImpl;
+import com.codegeneration.banking.api.service.implementations.ExchangeRateRefresher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot path money math in BigDecimal against {@link Money} units: the ATM limit check on a non-EUR account, the
+ * transfer conversion and the transaction list amount filter. Run with {@code -prof gc} to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final int TRANSACTIONS = 1000;
+
+    private CurrencyExchangeServiceImpl currencyExchangeService;
+    private AccountLimitSnapshot limits;
+    private BigDecimal toEurRate;
+    private BigDecimal singleLimitEur;
+    private BigDecimal dailyLimitEur;
+    private BigDecimal usedToday;
+    private Money usedTodayMoney;
+    private BigDecimal amount;
+    private BigDecimal[] transactionAmounts;
+    private BigDecimal lowerBound;
+    private BigDecimal upperBound;
+
+    @Setup
+    public void setup() {
+        ExchangeRateRefresher refresher = BenchmarkFixtures.exchangeRateRefresher();
+        currencyExchangeService = new CurrencyExchangeServiceImpl(refresher);
+
+        Account account = Account.builder()
+                .id(1L)
+                .currency(Currency.PLN)
+                .build();
+        limits = AccountLimitSnapshot.of(account, refresher.current());
+        toEurRate = refresher.current().getRate(Currency.PLN, Currency.EUR);
+        singleLimitEur = limits.getSingleLimitEur(LimitType.WITHDRAWAL).toBigDecimal();
+        dailyLimitEur = limits.getDailyLimitEur(LimitType.WITHDRAWAL).toBigDecimal();
+        usedToday = new BigDecimal("120.5000");
+        usedTodayMoney = Money.of(usedToday, Currency.PLN);
+        amount = new BigDecimal("250.00");
+
+        // Amounts as loaded from the NUMERIC(19, 4) column
+        Random random = new Random(42);
+        transactionAmounts = new BigDecimal[TRANSACTIONS];
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            transactionAmounts[i] = BigDecimal.valueOf(random.nextInt(10_000_000), Money.SCALE);
+        }
+        lowerBound = new BigDecimal("100");
+        upperBound = new BigDecimal("500");
+    }
+
+    @Benchmark
+    public boolean limitCheckBigDecimal() {
+        BigDecimal amountInEur = amount.multiply(toEurRate).setScale(Money.SCALE, RoundingMode.HALF_UP);
+        BigDecimal totalInEur = usedToday.add(amount).multiply(toEurRate).setScale(Money.SCALE, RoundingMode.HALF_UP);
+        return amountInEur.compareTo(singleLimitEur) <= 0 && totalInEur.compareTo(dailyLimitEur) <= 0;
+    }
+
+    @Benchmark
+    public boolean limitCheckMoney() {
+        Money money = Money.of(amount, Currency.PLN);
+        return limits.isTransferAllowed(money, usedTodayMoney);
+    }
+
+    @Benchmark
+    public BigDecimal transferMathBigDecimal() {
+        return currencyExchangeService.convertAmount(amount, Currency.PLN, Currency.EUR);
+    }
+
+    @Benchmark
+    public Money transferMathMoney() {
+        return currencyExchangeService.convert(Money.of(amount, Currency.PLN), Currency.EUR);
+    }
+
+    @Benchmark
+    public void filterBigDecimal(Blackhole blackhole) {
+        for (BigDecimal transactionAmount : transactionAmounts) {
+            blackhole.consume(transactionAmount.compareTo(lowerBound) > 0 && transactionAmount.compareTo(upperBound) < 0);
+        }
+    }
+
+    @Benchmark
+    public void filterMoney(Blackhole blackhole) {
+        long lower = Money.toUnits(lowerBound);
+        long upper = Money.toUnits(upperBound);
+        for (BigDecimal transactionAmount : transactionAmounts) {
+            long units = Money.toUnits(transactionAmount);
+            blackhole.consume(units > lower && units < upper);
+        }
+    }
+
+    @Benchmark
+    public void filterScaledBounds(Blackhole blackhole) {
+        // Bounds at the scale of the amounts, as TransactionFilterServiceImpl compares them
+        BigDecimal lower = lowerBound.setScale(Money.SCALE, RoundingMode.FLOOR);
+        BigDecimal upper = upperBound.setScale(Money.SCALE, RoundingMode.CEILING);
+        for (BigDecimal transactionAmount : transactionAmounts) {
+            blackhole.consume(transactionAmount.compareTo(lower) > 0 && transactionAmount.compareTo(upper) < 0);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.dto.transaction.TransactionDTO;
+import com.codegeneration.banking.api.dto.transaction.TransactionResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Encoding and decoding a transaction listing as JSON and as CBOR, the formats the listings negotiate. The payload
+ * size of each format is printed before the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    @Param({"10000"})
+    private int transactions;
+
+    @Param({"json", "cbor"})
+    private String format;
+
+    private TransactionResponse response;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] payload;
+
+    @Setup
+    public void setup() throws Exception {
+        response = TransactionResponse.builder()
+                .transactions(BenchmarkFixtures.transactions(transactions).stream()
+                        .map(TransactionDTO::fromEntity)
+                        .collect(Collectors.toList()))
+                .build();
+        ObjectMapper objectMapper = new ObjectMapper(format.equals("cbor") ? new CBORFactory() : new JsonFactory())
+                .setFilterProvider(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+        writer = objectMapper.writerFor(TransactionResponse.class);
+        reader = objectMapper.readerFor(TransactionResponse.class);
+        payload = encode();
+        System.out.printf("%n%d transactions as %s: %d bytes%n", transactions, format, payload.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return writer.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public TransactionResponse decode() throws Exception {
+        return reader.readValue(payload);
+    }
+}
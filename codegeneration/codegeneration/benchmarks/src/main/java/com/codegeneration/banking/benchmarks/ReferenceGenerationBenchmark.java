@@ -0,0 +1,51 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.entity.Transaction.TransactionType;
+import com.codegeneration.banking.api.service.implementations.TransactionServiceImpl;
+import com.codegeneration.banking.controllers.TransactionController;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction reference generation for ATM transactions in the service and for transfers in the controller.
+ * Both are private, they are called through method handles resolved once so reflection stays out of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReferenceGenerationBenchmark {
+
+    private MethodHandle atmReference;
+    private MethodHandle transferReference;
+
+    @Setup
+    public void setup() throws Exception {
+        atmReference = privateMethod(TransactionServiceImpl.class, "generateTransactionReference",
+                MethodType.methodType(String.class, TransactionType.class))
+                .bindTo(BenchmarkFixtures.withoutDependencies(TransactionServiceImpl.class));
+        transferReference = privateMethod(TransactionController.class, "generateTransactionReference",
+                MethodType.methodType(String.class))
+                .bindTo(BenchmarkFixtures.withoutDependencies(TransactionController.class));
+    }
+
+    @Benchmark
+    public String atmReference() throws Throwable {
+        return (String) atmReference.invokeExact(TransactionType.ATM_WITHDRAWAL);
+    }
+
+    @Benchmark
+    public String transferReference() throws Throwable {
+        return (String) transferReference.invokeExact();
+    }
+
+    private static MethodHandle privateMethod(Class<?> type, String name, MethodType methodType) throws Exception {
+        return MethodHandles.privateLookupIn(type, MethodHandles.lookup()).findVirtual(type, name, methodType);
+    }
+}
@@ -0,0 +1,117 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files benchmark by benchmark, on score and on allocated bytes per operation.
+ * Exits with status 1 when a benchmark got slower or allocates more by more than the threshold percentage,
+ * so it can fail a build step.
+ * <p>
+ * Usage: ResultsDiff baseline.json current.json [threshold-percent, default 10]
+ */
+public final class ResultsDiff {
+
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+    // Allocation changes below this many bytes per operation are noise, not regressions
+    private static final double ALLOC_NOISE_BYTES = 8;
+
+    private ResultsDiff() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ResultsDiff baseline.json current.json [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> current = read(new File(args[1]));
+
+        System.out.printf("%-70s %14s %14s %8s %12s %12s %8s%n",
+                "Benchmark", "Base score", "New score", "Change", "Base B/op", "New B/op", "Change");
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode base = baseline.get(entry.getKey());
+            JsonNode now = entry.getValue();
+            double newScore = now.path("primaryMetric").path("score").asDouble();
+            double newAlloc = alloc(now);
+            if (base == null) {
+                System.out.printf("%-70s %14s %14.3f %8s %12s %12s %8s%n",
+                        entry.getKey(), "-", newScore, "new", "-", format(newAlloc), "");
+                continue;
+            }
+
+            double baseScore = base.path("primaryMetric").path("score").asDouble();
+            double baseAlloc = alloc(base);
+            double scoreChange = percent(baseScore, newScore);
+            double allocChange = percent(baseAlloc, newAlloc);
+
+            // Throughput modes are better when higher, time modes when lower
+            boolean higherIsBetter = "thrpt".equals(now.path("mode").asText());
+            boolean slower = higherIsBetter ? scoreChange < -threshold : scoreChange > threshold;
+            boolean allocates = !Double.isNaN(newAlloc) && !Double.isNaN(baseAlloc)
+                    && allocChange > threshold && newAlloc - baseAlloc >= ALLOC_NOISE_BYTES;
+            if (slower || allocates) {
+                regressions++;
+            }
+
+            System.out.printf("%-70s %14.3f %14.3f %7.1f%% %12s %12s %7s%s%n",
+                    entry.getKey(), baseScore, newScore, scoreChange, format(baseAlloc), format(newAlloc),
+                    Double.isNaN(allocChange) ? "-" : String.format("%.1f%%", allocChange),
+                    slower || allocates ? "  REGRESSION" : "");
+        }
+
+        System.out.printf("%n%d regression(s) past %.1f%%%n", regressions, threshold);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * Results keyed by benchmark name plus parameters, in name order
+     */
+    private static Map<String, JsonNode> read(File file) throws Exception {
+        Map<String, JsonNode> results = new TreeMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                    .replace("com.codegeneration.banking.benchmarks.", ""));
+            Map<String, String> params = new LinkedHashMap<>();
+            result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static double alloc(JsonNode result) {
+        Iterator<Map.Entry<String, JsonNode>> metrics = result.path("secondaryMetrics").fields();
+        while (metrics.hasNext()) {
+            Map.Entry<String, JsonNode> metric = metrics.next();
+            // Older JMH versions prefix secondary metric names with a middle dot
+            if (metric.getKey().endsWith(ALLOC_METRIC)) {
+                return metric.getValue().path("score").asDouble();
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static double percent(double base, double now) {
+        if (Double.isNaN(base) || Double.isNaN(now)) {
+            return Double.NaN;
+        }
+        if (base == 0) {
+            return now == 0 ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return (now - base) / base * 100;
+    }
+
+    private static String format(double bytes) {
+        return Double.isNaN(bytes) ? "-" : String.format("%.1f", bytes);
+    }
+}
@@ -0,0 +1,101 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.benchmarks.sharding.ShardRouter;
+import com.codegeneration.banking.benchmarks.sharding.ShardedLedger;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Transfers per second from 16 threads against a {@link ShardedLedger} over 1 to 8 H2 file databases that write
+ * every commit to disk. crossShardPercent of the transfers go to an account on another shard and take three commits,
+ * the rest stay on the shard of their source account.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(16)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardingBenchmark {
+
+    private static final int ACCOUNTS_PER_SHARD = 250;
+
+    @Param({"1", "2", "4", "8"})
+    int shards;
+
+    @Param({"0", "20"})
+    int crossShardPercent;
+
+    private Path directory;
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private ShardedLedger ledger;
+    private List<List<String>> accounts;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("sharding");
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            HikariConfig config = new HikariConfig();
+            // Commits are written to the file right away instead of once a second
+            config.setJdbcUrl("jdbc:h2:file:" + directory.resolve("shard" + i) + ";WRITE_DELAY=0");
+            config.setUsername("sa");
+            config.setMaximumPoolSize(16);
+            HikariDataSource pool = new HikariDataSource(config);
+            pools.add(pool);
+            dataSources.add(pool);
+        }
+        ledger = new ShardedLedger(dataSources);
+        ledger.createSchema();
+
+        ShardRouter router = ledger.getRouter();
+        accounts = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            accounts.add(new ArrayList<>());
+        }
+        for (long i = 0; accounts.stream().anyMatch(shard -> shard.size() < ACCOUNTS_PER_SHARD); i++) {
+            String accountNumber = String.format("NL99BANK%010d", i);
+            List<String> shard = accounts.get(router.shardOf(accountNumber));
+            if (shard.size() < ACCOUNTS_PER_SHARD) {
+                shard.add(accountNumber);
+                ledger.openAccount(accountNumber, 1_000_000_000L);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pools.forEach(HikariDataSource::close);
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public ShardedLedger.TransferResult transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sourceShard = random.nextInt(shards);
+        int destinationShard = shards > 1 && random.nextInt(100) < crossShardPercent
+                ? (sourceShard + 1 + random.nextInt(shards - 1)) % shards : sourceShard;
+        List<String> sources = accounts.get(sourceShard);
+        List<String> destinations = accounts.get(destinationShard);
+        int source = random.nextInt(ACCOUNTS_PER_SHARD);
+        int destination = (source + 1 + random.nextInt(ACCOUNTS_PER_SHARD - 1)) % ACCOUNTS_PER_SHARD;
+        return ledger.transfer(sources.get(source), destinations.get(destination), 1 + random.nextInt(100), null);
+    }
+}
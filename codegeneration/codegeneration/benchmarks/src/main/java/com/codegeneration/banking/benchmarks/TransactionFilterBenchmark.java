@@ -0,0 +1,57 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.dto.transactionfilter.TransactionFilterRequest;
+import com.codegeneration.banking.api.entity.Transaction;
+import com.codegeneration.banking.api.service.implementations.TransactionFilterServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory filtering of a transaction list, as done for the filtered transaction endpoints, with a date range,
+ * amount range and type filter combined and with no filter at all.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionFilterBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int transactions;
+
+    private TransactionFilterServiceImpl filterService;
+    private List<Transaction> list;
+    private TransactionFilterRequest combinedFilter;
+    private TransactionFilterRequest emptyFilter;
+
+    @Setup
+    public void setup() {
+        // Only filterTransactions is measured, it does not use the injected services
+        filterService = BenchmarkFixtures.withoutDependencies(TransactionFilterServiceImpl.class);
+        list = BenchmarkFixtures.transactions(transactions);
+        combinedFilter = TransactionFilterRequest.builder()
+                .startDate(LocalDate.of(2025, 3, 1))
+                .endDate(LocalDate.of(2025, 8, 31))
+                .amountGreaterThan(new BigDecimal("100"))
+                .amountLessThan(new BigDecimal("5000"))
+                .transactionType("TRANSFER")
+                .build();
+        emptyFilter = new TransactionFilterRequest();
+    }
+
+    @Benchmark
+    public List<Transaction> combinedFilter() {
+        return filterService.filterTransactions(list, combinedFilter);
+    }
+
+    @Benchmark
+    public List<Transaction> emptyFilter() {
+        return filterService.filterTransactions(list, emptyFilter);
+    }
+}
@@ -0,0 +1,38 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.dto.transaction.TransactionDTO;
+import com.codegeneration.banking.api.entity.Transaction;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping of a transaction listing page
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionMappingBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int transactions;
+
+    private List<Transaction> list;
+
+    @Setup
+    public void setup() {
+        list = BenchmarkFixtures.transactions(transactions);
+    }
+
+    @Benchmark
+    public void fromEntity(Blackhole blackhole) {
+        for (Transaction transaction : list) {
+            blackhole.consume(TransactionDTO.fromEntity(transaction));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.dto.FieldSelection;
+import com.codegeneration.banking.api.dto.transaction.TransactionDTO;
+import com.codegeneration.banking.api.dto.transaction.TransactionResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JSON serialization of a transaction listing in the shapes the listings support: every field nested, a typical
+ * selection of fields, and every field with the accounts written once. The payload size of each shape is printed
+ * before the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionSerializationBenchmark {
+
+    private static final String SELECTED = "id,amount,currency,description,createAt,transactionStatus";
+
+    @Param({"100", "1000", "10000"})
+    private int transactions;
+
+    @Param({"nested", "selected", "normalized"})
+    private String shape;
+
+    private ObjectWriter writer;
+    private Object response;
+
+    @Setup
+    public void setup() throws Exception {
+        List<TransactionDTO> dtos = BenchmarkFixtures.transactions(transactions).stream()
+                .map(TransactionDTO::fromEntity)
+                .collect(Collectors.toList());
+        FieldSelection fields = FieldSelection.parse(shape.equals("selected") ? SELECTED : null, TransactionDTO.FIELDS);
+        MappingJacksonValue value = switch (shape) {
+            case "normalized" -> fields.expand(TransactionDTO.FIELDS)
+                    .rename("sourceAccount", "sourceAccountId")
+                    .rename("destinationAccount", "destinationAccountId")
+                    .apply(TransactionResponse.normalized(dtos), TransactionDTO.FILTER);
+            default -> fields.apply(TransactionResponse.builder().transactions(dtos).build(), TransactionDTO.FILTER);
+        };
+        // What the message converter does with a MappingJacksonValue
+        ObjectMapper objectMapper = new ObjectMapper()
+                .setFilterProvider(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+        writer = objectMapper.writer(value.getFilters());
+        response = value.getValue();
+        System.out.printf("%n%d transactions, %s: %d bytes%n", transactions, shape, serialize().length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return writer.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,121 @@
+package com.codegeneration.banking.benchmarks;
+
+import com.codegeneration.banking.api.directory.UserDirectory;
+import com.codegeneration.banking.api.dto.user.UserDirectoryEntryDTO;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A page of 50 users from an H2 in-memory users table. The searches look for a first and last name that about one
+ * user in a thousand has, with a case-insensitive LIKE over name, username and email as the users repository did and
+ * through the {@link UserDirectory} index. The pages start halfway through the users, with OFFSET and after the id
+ * of the previous page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDirectoryBenchmark {
+
+    private static final int PAGE = 50;
+    private static final String SEARCH = "jan kowalski";
+    private static final String COLUMNS = "id, username, name, email, role, enabled";
+    private static final String[] FIRST_NAMES = {"Jan", "Anna", "Piotr", "Maria", "Tomasz", "Eva", "Lukas", "Sophie",
+            "Daan", "Emma", "Noah", "Julia", "Liam", "Zoë", "Mateo", "Léa", "Oliver", "Mila", "Finn", "Saar",
+            "Jakub", "Nora", "Sem", "Tess", "Lars", "Iris", "Milan", "Fleur", "Bram", "Lotte", "Hugo", "Sara"};
+    private static final String[] LAST_NAMES = {"Kowalski", "Nowak", "de Jong", "Jansen", "de Vries", "van den Berg",
+            "Bakker", "Visser", "Smit", "Meijer", "Müller", "Schmidt", "Schneider", "Fischer", "Weber", "Dubois",
+            "Lefèvre", "Moreau", "García", "Martínez", "Rossi", "Russo", "Smith", "Johnson", "Brown", "Wilson",
+            "Wiśniewski", "Wójcik", "Kamiński", "Lewandowski"};
+
+    @Param({"100000"})
+    private int users;
+
+    private HikariDataSource pool;
+    private JdbcTemplate jdbcTemplate;
+    private UserDirectory directory;
+    private long middleId;
+    private int middleOffset;
+
+    @Setup
+    public void setup() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:directory;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        pool = new HikariDataSource(config);
+        jdbcTemplate = new JdbcTemplate(pool);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(255) NOT NULL, "
+                + "name VARCHAR(255) NOT NULL, email VARCHAR(255) NOT NULL, role VARCHAR(255) NOT NULL, "
+                + "enabled BOOLEAN NOT NULL)");
+
+        SplittableRandom random = new SplittableRandom(42);
+        List<Object[]> rows = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            rows.add(new Object[]{"user" + i, first + " " + last,
+                    (first + "." + last).replace(' ', '.') + i + "@example.com", "CLIENT", true});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, name, email, role, enabled) VALUES (?, ?, ?, ?, ?)",
+                rows);
+
+        directory = new UserDirectory(jdbcTemplate);
+        directory.createSchema();
+        long after = 0;
+        List<UserDirectoryEntryDTO> indexed;
+        while (!(indexed = directory.indexUnindexed(after, 10_000)).isEmpty()) {
+            after = indexed.get(indexed.size() - 1).getId();
+        }
+
+        middleOffset = users / 2;
+        middleId = jdbcTemplate.queryForObject("SELECT id FROM users ORDER BY id LIMIT 1 OFFSET ?", Long.class,
+                middleOffset - 1);
+        Map<String, Object> counts = jdbcTemplate.queryForMap("SELECT COUNT(*) AS terms, "
+                + "COUNT(DISTINCT term) AS distinct_terms FROM user_search_terms");
+        System.out.printf("%n%d users, %s index entries, %s distinct terms, %d match '%s'%n", users,
+                counts.get("TERMS"), counts.get("DISTINCT_TERMS"), directory.find(SEARCH, 0, users).size(), SEARCH);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+        pool.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> likeSearch() {
+        String[] words = SEARCH.split(" ");
+        String first = "%" + words[0] + "%";
+        String last = "%" + words[1] + "%";
+        return jdbcTemplate.queryForList("SELECT " + COLUMNS + " FROM users WHERE "
+                + "(LOWER(name) LIKE ? OR LOWER(username) LIKE ? OR LOWER(email) LIKE ?) AND "
+                + "(LOWER(name) LIKE ? OR LOWER(username) LIKE ? OR LOWER(email) LIKE ?) ORDER BY id LIMIT ?",
+                first, first, first, last, last, last, PAGE);
+    }
+
+    @Benchmark
+    public List<UserDirectoryEntryDTO> indexedSearch() {
+        return directory.find(SEARCH, 0, PAGE);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> offsetPage() {
+        return jdbcTemplate.queryForList("SELECT " + COLUMNS + " FROM users ORDER BY id LIMIT ? OFFSET ?",
+                PAGE, middleOffset);
+    }
+
+    @Benchmark
+    public List<UserDirectoryEntryDTO> keysetPage() {
+        return directory.find(null, middleId, PAGE);
+    }
+}
@@ -0,0 +1,34 @@
+package com.codegeneration.banking.benchmarks.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Places an account on one of a fixed number of shards by hashing its account number. The placement only depends on
+ * the account number and the shard count, so changing the number of shards moves accounts and needs a migration.
+ */
+public final class ShardRouter {
+
+    private final int shards;
+
+    public ShardRouter(int shards) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("At least one shard is needed");
+        }
+        this.shards = shards;
+    }
+
+    /**
+     * Index of the shard that holds the account and the transactions it is the source of
+     */
+    public int shardOf(String accountNumber) {
+        // Account numbers share their country and bank prefix, CRC32 spreads them better than String.hashCode
+        CRC32 crc = new CRC32();
+        crc.update(accountNumber.getBytes(StandardCharsets.US_ASCII));
+        return (int) (crc.getValue() % shards);
+    }
+
+    public int getShardCount() {
+        return shards;
+    }
+}
@@ -0,0 +1,265 @@
+package com.codegeneration.banking.benchmarks.sharding;
+
+import com.codegeneration.banking.api.entity.Transaction.TransactionStatus;
+import com.codegeneration.banking.api.exception.InsufficientFundsException;
+import com.codegeneration.banking.api.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Accounts and transfers spread over several databases. Every account lives on the shard its account number hashes
+ * to, together with the transactions it is the source of.
+ * <p>
+ * A transfer between two accounts of one shard is a single local transaction. A transfer between shards runs in
+ * three local transactions, each of which commits on its own:
+ * <ol>
+ *     <li>The source shard debits the source account and records the transaction as PENDING. From here on the
+ *     transfer is durable and will be finished, the pending row is its outbox entry.</li>
+ *     <li>The destination shard credits the destination account and records the reference in its inbox, in one
+ *     transaction. The inbox makes the delivery idempotent: a reference is credited at most once, a second delivery
+ *     only reads whether the first one was accepted.</li>
+ *     <li>The source shard marks the transaction COMPLETED, or FAILED with the debit refunded when the destination
+ *     rejected it.</li>
+ * </ol>
+ * If the process stops between the steps the transaction stays PENDING, {@link #recover(Duration)} finds such
+ * transactions and repeats steps 2 and 3 for them.
+ * <p>
+ * The ledger keeps its own tables and is not used by the application, whose accounts and transactions stay in the
+ * primary database. It lives next to {@code ShardingBenchmark}, which measures what spreading the writes would gain.
+ */
+@Slf4j
+public class ShardedLedger {
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS shard_accounts (account_number VARCHAR(34) PRIMARY KEY, "
+                    + "balance BIGINT NOT NULL, disabled BOOLEAN DEFAULT FALSE NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS shard_transactions (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "reference VARCHAR(36) NOT NULL UNIQUE, source_account VARCHAR(34) NOT NULL, "
+                    + "destination_account VARCHAR(34) NOT NULL, amount BIGINT NOT NULL, description VARCHAR(255), "
+                    + "status VARCHAR(16) NOT NULL, created_at TIMESTAMP NOT NULL, completed_at TIMESTAMP)",
+            "CREATE INDEX IF NOT EXISTS shard_transactions_status ON shard_transactions (status, id)",
+            "CREATE TABLE IF NOT EXISTS shard_inbox (reference VARCHAR(36) PRIMARY KEY, accepted BOOLEAN NOT NULL, "
+                    + "received_at TIMESTAMP NOT NULL)"
+    };
+
+    private static final String DEBIT_SQL = "UPDATE shard_accounts SET balance = balance - ? "
+            + "WHERE account_number = ? AND balance >= ? AND disabled = FALSE";
+    private static final String CREDIT_SQL = "UPDATE shard_accounts SET balance = balance + ? "
+            + "WHERE account_number = ? AND disabled = FALSE";
+    private static final String INSERT_TRANSACTION_SQL = "INSERT INTO shard_transactions (reference, source_account, "
+            + "destination_account, amount, description, status, created_at, completed_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String FINISH_SQL = "UPDATE shard_transactions SET status = ?, completed_at = ? "
+            + "WHERE reference = ? AND status = 'PENDING'";
+    private static final String PENDING_SQL = "SELECT id, reference, source_account, destination_account, amount "
+            + "FROM shard_transactions WHERE status = 'PENDING' AND created_at < ? AND id > ? ORDER BY id LIMIT ?";
+
+    private static final int RECOVERY_BATCH = 500;
+
+    private final ShardRouter router;
+    private final List<Shard> shards = new ArrayList<>();
+
+    public ShardedLedger(List<DataSource> dataSources) {
+        this.router = new ShardRouter(dataSources.size());
+        for (DataSource dataSource : dataSources) {
+            shards.add(new Shard(new JdbcTemplate(dataSource),
+                    new TransactionTemplate(new DataSourceTransactionManager(dataSource))));
+        }
+    }
+
+    /**
+     * Create the tables of every shard that does not have them yet
+     */
+    public void createSchema() {
+        for (Shard shard : shards) {
+            for (String statement : SCHEMA) {
+                shard.jdbc().execute(statement);
+            }
+        }
+    }
+
+    public void openAccount(String accountNumber, long balanceUnits) {
+        shardOf(accountNumber).jdbc().update(
+                "INSERT INTO shard_accounts (account_number, balance) VALUES (?, ?)", accountNumber, balanceUnits);
+    }
+
+    /**
+     * @throws ResourceNotFoundException if the account does not exist on its shard
+     */
+    public long getBalance(String accountNumber) {
+        List<Long> balance = shardOf(accountNumber).jdbc().queryForList(
+                "SELECT balance FROM shard_accounts WHERE account_number = ?", Long.class, accountNumber);
+        if (balance.isEmpty()) {
+            throw new ResourceNotFoundException("Account not found: " + accountNumber);
+        }
+        return balance.get(0);
+    }
+
+    /**
+     * Move money between two accounts of the same currency
+     *
+     * @return The transaction reference and its status. A cross-shard transfer is PENDING when the destination
+     * shard could not be reached, it is finished by {@link #recover(Duration)}.
+     * @throws InsufficientFundsException if the source account cannot cover the amount or is disabled
+     * @throws IllegalArgumentException if the destination account does not exist or is disabled
+     */
+    public TransferResult transfer(String sourceAccount, String destinationAccount, long amountUnits,
+                                   String description) {
+        if (amountUnits <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive");
+        }
+        String reference = UUID.randomUUID().toString();
+        Shard source = shardOf(sourceAccount);
+        Shard destination = shardOf(destinationAccount);
+
+        if (source == destination) {
+            source.transactions().executeWithoutResult(status -> {
+                debit(source, sourceAccount, amountUnits);
+                if (source.jdbc().update(CREDIT_SQL, amountUnits, destinationAccount) == 0) {
+                    throw new IllegalArgumentException("Destination account not found or disabled: " + destinationAccount);
+                }
+                LocalDateTime now = LocalDateTime.now();
+                source.jdbc().update(INSERT_TRANSACTION_SQL, reference, sourceAccount, destinationAccount, amountUnits,
+                        description, TransactionStatus.COMPLETED.name(), now, now);
+            });
+            return new TransferResult(reference, TransactionStatus.COMPLETED);
+        }
+
+        source.transactions().executeWithoutResult(status -> {
+            debit(source, sourceAccount, amountUnits);
+            source.jdbc().update(INSERT_TRANSACTION_SQL, reference, sourceAccount, destinationAccount, amountUnits,
+                    description, TransactionStatus.PENDING.name(), LocalDateTime.now(), null);
+        });
+        TransactionStatus outcome;
+        try {
+            outcome = complete(reference, sourceAccount, destinationAccount, amountUnits);
+        } catch (RuntimeException e) {
+            // The debit is committed, recovery delivers the credit once the destination shard is back
+            log.warn("Cross-shard transfer {} left pending: {}", reference, e.getMessage());
+            return new TransferResult(reference, TransactionStatus.PENDING);
+        }
+        if (outcome == TransactionStatus.FAILED) {
+            throw new IllegalArgumentException("Destination account not found or disabled: " + destinationAccount);
+        }
+        return new TransferResult(reference, outcome);
+    }
+
+    /**
+     * Finish cross-shard transfers that have been pending for longer than the given age. Transfers younger than that
+     * may still be finished by the request that started them. A transfer whose destination cannot be reached is left
+     * pending for the next run, the other transfers and shards are recovered regardless.
+     *
+     * @return The number of transfers finished
+     */
+    public int recover(Duration olderThan) {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(olderThan));
+        int recovered = 0;
+        int failed = 0;
+        for (int i = 0; i < shards.size(); i++) {
+            Shard shard = shards.get(i);
+            List<Map<String, Object>> pending;
+            // Pages continue after the last row read, rows that failed stay pending without being read again
+            long after = 0;
+            do {
+                try {
+                    pending = shard.jdbc().queryForList(PENDING_SQL, cutoff, after, RECOVERY_BATCH);
+                } catch (RuntimeException e) {
+                    log.warn("Could not read pending transfers of shard {}: {}", i, e.getMessage());
+                    break;
+                }
+                for (Map<String, Object> row : pending) {
+                    after = ((Number) row.get("ID")).longValue();
+                    String reference = (String) row.get("REFERENCE");
+                    try {
+                        complete(reference, (String) row.get("SOURCE_ACCOUNT"),
+                                (String) row.get("DESTINATION_ACCOUNT"), ((Number) row.get("AMOUNT")).longValue());
+                        recovered++;
+                    } catch (RuntimeException e) {
+                        log.debug("Could not recover cross-shard transfer {}: {}", reference, e.getMessage());
+                        failed++;
+                    }
+                }
+            } while (pending.size() == RECOVERY_BATCH);
+        }
+        if (recovered > 0 || failed > 0) {
+            log.info("Recovered {} pending cross-shard transfers, {} left pending", recovered, failed);
+        }
+        return recovered;
+    }
+
+    /**
+     * Number of transactions in the given status on every shard, in shard order
+     */
+    public List<Long> countTransactions(TransactionStatus status) {
+        return shards.stream()
+                .map(shard -> shard.jdbc().queryForObject(
+                        "SELECT COUNT(*) FROM shard_transactions WHERE status = ?", Long.class, status.name()))
+                .toList();
+    }
+
+    public ShardRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * Steps 2 and 3 of a cross-shard transfer, both may be repeated any number of times
+     */
+    private TransactionStatus complete(String reference, String sourceAccount, String destinationAccount,
+                                       long amountUnits) {
+        boolean accepted = deliver(shardOf(destinationAccount), reference, destinationAccount, amountUnits);
+        TransactionStatus outcome = accepted ? TransactionStatus.COMPLETED : TransactionStatus.FAILED;
+        Shard source = shardOf(sourceAccount);
+        source.transactions().executeWithoutResult(status -> {
+            int finished = source.jdbc().update(FINISH_SQL, outcome.name(), LocalDateTime.now(), reference);
+            if (finished == 1 && !accepted) {
+                // Refund without the disabled check, the debit has to be undone either way
+                source.jdbc().update("UPDATE shard_accounts SET balance = balance + ? WHERE account_number = ?",
+                        amountUnits, sourceAccount);
+            }
+        });
+        return outcome;
+    }
+
+    private boolean deliver(Shard destination, String reference, String destinationAccount, long amountUnits) {
+        try {
+            return Boolean.TRUE.equals(destination.transactions().execute(status -> {
+                boolean credited = destination.jdbc().update(CREDIT_SQL, amountUnits, destinationAccount) == 1;
+                destination.jdbc().update("INSERT INTO shard_inbox (reference, accepted, received_at) VALUES (?, ?, ?)",
+                        reference, credited, LocalDateTime.now());
+                return credited;
+            }));
+        } catch (DuplicateKeyException e) {
+            // Delivered before, the credit of this attempt was rolled back with the failed insert
+            return Boolean.TRUE.equals(destination.jdbc().queryForObject(
+                    "SELECT accepted FROM shard_inbox WHERE reference = ?", Boolean.class, reference));
+        }
+    }
+
+    private void debit(Shard shard, String accountNumber, long amountUnits) {
+        if (shard.jdbc().update(DEBIT_SQL, amountUnits, accountNumber, amountUnits) == 0) {
+            throw new InsufficientFundsException("Insufficient balance or disabled account: " + accountNumber);
+        }
+    }
+
+    private Shard shardOf(String accountNumber) {
+        return shards.get(router.shardOf(accountNumber));
+    }
+
+    public record TransferResult(String reference, TransactionStatus status) {
+    }
+
+    private record Shard(JdbcTemplate jdbc, TransactionTemplate transactions) {
+    }
+}
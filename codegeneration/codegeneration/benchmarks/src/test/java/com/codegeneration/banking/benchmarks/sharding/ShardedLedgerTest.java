@@ -0,0 +1,166 @@
+package com.codegeneration.banking.benchmarks.sharding;
+
+import com.codegeneration.banking.api.entity.Transaction.TransactionStatus;
+import com.codegeneration.banking.api.exception.InsufficientFundsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Three H2 databases stand in for the shards, the last one can be taken offline
+ */
+public class ShardedLedgerTest {
+
+    private static final int SHARDS = 3;
+
+    private final List<DriverManagerDataSource> databases = new ArrayList<>();
+    private OfflineDataSource lastShard;
+    private ShardedLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString();
+        for (int i = 0; i < SHARDS; i++) {
+            databases.add(new DriverManagerDataSource("jdbc:h2:mem:shard" + i + "-" + run + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        }
+        lastShard = new OfflineDataSource(databases.get(SHARDS - 1));
+        ledger = new ShardedLedger(List.of(databases.get(0), databases.get(1), lastShard));
+        ledger.createSchema();
+    }
+
+    @AfterEach
+    void tearDown() {
+        databases.forEach(database -> new JdbcTemplate(database).execute("SHUTDOWN"));
+    }
+
+    @Test
+    void transfersWithinAndAcrossShards() {
+        String first = account(0, 1);
+        String second = account(0, 2);
+        String remote = account(1, 1);
+        ledger.openAccount(first, 100_0000);
+        ledger.openAccount(second, 0);
+        ledger.openAccount(remote, 0);
+
+        assertEquals(TransactionStatus.COMPLETED, ledger.transfer(first, second, 30_0000, "local").status());
+        assertEquals(TransactionStatus.COMPLETED, ledger.transfer(first, remote, 20_0000, "remote").status());
+        assertThrows(InsufficientFundsException.class, () -> ledger.transfer(first, remote, 60_0000, "too much"));
+
+        assertEquals(50_0000, ledger.getBalance(first));
+        assertEquals(30_0000, ledger.getBalance(second));
+        assertEquals(20_0000, ledger.getBalance(remote));
+        // Both transactions are stored with their source account
+        assertEquals(List.of(2L, 0L, 0L), ledger.countTransactions(TransactionStatus.COMPLETED));
+    }
+
+    @Test
+    void rejectedCrossShardTransfersAreRefunded() {
+        String source = account(0, 1);
+        String disabled = account(1, 1);
+        ledger.openAccount(source, 100_0000);
+        ledger.openAccount(disabled, 0);
+        new JdbcTemplate(databases.get(1)).update("UPDATE shard_accounts SET disabled = TRUE");
+
+        assertThrows(IllegalArgumentException.class, () -> ledger.transfer(source, disabled, 10_0000, "rejected"));
+
+        assertEquals(100_0000, ledger.getBalance(source));
+        assertEquals(0, ledger.getBalance(disabled));
+        assertEquals(List.of(1L, 0L, 0L), ledger.countTransactions(TransactionStatus.FAILED));
+    }
+
+    @Test
+    void pendingTransfersAreRecoveredExactlyOnce() {
+        String source = account(0, 1);
+        String destination = account(SHARDS - 1, 1);
+        ledger.openAccount(source, 100_0000);
+        ledger.openAccount(destination, 0);
+
+        lastShard.offline = true;
+        assertEquals(TransactionStatus.PENDING, ledger.transfer(source, destination, 10_0000, "delayed").status());
+        assertEquals(90_0000, ledger.getBalance(source));
+        assertEquals(0, ledger.recover(Duration.ZERO), "Recovered while the destination was offline");
+
+        lastShard.offline = false;
+        assertEquals(0, ledger.getBalance(destination));
+        assertEquals(1, ledger.recover(Duration.ZERO));
+        assertEquals(10_0000, ledger.getBalance(destination));
+        assertEquals(0, ledger.recover(Duration.ZERO));
+
+        // Delivering again after the credit committed but before the source was marked credits nothing
+        new JdbcTemplate(databases.get(0)).update("UPDATE shard_transactions SET status = 'PENDING'");
+        assertEquals(1, ledger.recover(Duration.ZERO));
+        assertEquals(10_0000, ledger.getBalance(destination));
+        assertEquals(90_0000, ledger.getBalance(source));
+        assertEquals(List.of(1L, 0L, 0L), ledger.countTransactions(TransactionStatus.COMPLETED));
+    }
+
+    @Test
+    void anUnreachableShardDoesNotHoldUpRecoveryOfTheOthers() {
+        String first = account(0, 1);
+        String second = account(1, 1);
+        String offline = account(SHARDS - 1, 1);
+        ledger.openAccount(first, 100_0000);
+        ledger.openAccount(second, 100_0000);
+        ledger.openAccount(offline, 0);
+
+        lastShard.offline = true;
+        assertEquals(TransactionStatus.PENDING, ledger.transfer(first, offline, 10_0000, "blocked").status());
+        // Delivered already, left pending after the transfer that cannot be delivered and on another shard
+        ledger.transfer(first, second, 20_0000, "behind the blocked one");
+        ledger.transfer(second, first, 5_0000, "other shard");
+        new JdbcTemplate(databases.get(0)).update("UPDATE shard_transactions SET status = 'PENDING'");
+        new JdbcTemplate(databases.get(1)).update("UPDATE shard_transactions SET status = 'PENDING'");
+
+        assertEquals(2, ledger.recover(Duration.ZERO));
+
+        lastShard.offline = false;
+        assertEquals(List.of(1L, 0L, 0L), ledger.countTransactions(TransactionStatus.PENDING));
+        assertEquals(1, ledger.recover(Duration.ZERO));
+        assertEquals(10_0000, ledger.getBalance(offline));
+        assertEquals(75_0000, ledger.getBalance(first));
+        assertEquals(115_0000, ledger.getBalance(second));
+    }
+
+    /**
+     * An account number that the ledger places on the given shard
+     */
+    private String account(int shard, int nth) {
+        int found = 0;
+        for (long i = 0; ; i++) {
+            String accountNumber = String.format("NL99BANK%010d", i);
+            if (ledger.getRouter().shardOf(accountNumber) == shard && ++found == nth) {
+                return accountNumber;
+            }
+        }
+    }
+
+    private static class OfflineDataSource extends DelegatingDataSource {
+
+        volatile boolean offline;
+
+        OfflineDataSource(DriverManagerDataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (offline) {
+                throw new SQLException("Shard is offline");
+            }
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.codegeneration.banking.loadtest;
+
+import java.util.Locale;
+
+/**
+ * API endpoints the harness can put in a mix, latency is recorded separately for each
+ */
+public enum Endpoint {
+    TRANSFER("POST /api/transaction/transfer"),
+    WITHDRAW("POST /api/atm/withdraw"),
+    FILTER("GET /api/transaction/filter"),
+    ACCOUNTS("GET /api/account/getall");
+
+    private final String route;
+
+    Endpoint(String route) {
+        this.route = route;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    /**
+     * Name used in the mix setting and the report
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static Endpoint fromName(String name) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key().equalsIgnoreCase(name)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint: " + name);
+    }
+}
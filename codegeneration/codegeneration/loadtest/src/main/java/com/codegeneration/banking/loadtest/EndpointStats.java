@@ -0,0 +1,89 @@
+package com.codegeneration.banking.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and outcome counts of one endpoint, safe to record into from any thread.
+ * Latency is kept in microseconds with three significant digits up to one minute, slower requests are clamped.
+ */
+public final class EndpointStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Endpoint endpoint;
+    private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    public EndpointStats(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Record a request that received a response
+     *
+     * @param latencyNanos Time from the intended start of the request to the response
+     */
+    public void recordResponse(long latencyNanos, int status) {
+        recordLatency(latencyNanos);
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Record a request that failed without a response, such as a timeout or a refused connection
+     */
+    public void recordFailure(long latencyNanos, Throwable failure) {
+        recordLatency(latencyNanos);
+        failures.computeIfAbsent(failure.getClass().getSimpleName(), key -> new LongAdder()).increment();
+    }
+
+    private void recordLatency(long latencyNanos) {
+        latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    public long getCount() {
+        return latency.getTotalCount();
+    }
+
+    /**
+     * Requests answered with a status outside 2xx or that got no response at all
+     */
+    public long getErrorCount() {
+        long errors = failures.values().stream().mapToLong(LongAdder::sum).sum();
+        for (Map.Entry<Integer, LongAdder> status : statuses.entrySet()) {
+            if (status.getKey() < 200 || status.getKey() >= 300) {
+                errors += status.getValue().sum();
+            }
+        }
+        return errors;
+    }
+
+    public Map<Integer, Long> getStatuses() {
+        return snapshot(statuses);
+    }
+
+    public Map<String, Long> getFailures() {
+        return snapshot(failures);
+    }
+
+    private static <K> Map<K, Long> snapshot(Map<K, LongAdder> counts) {
+        Map<K, Long> snapshot = new TreeMap<>();
+        counts.forEach((key, count) -> snapshot.put(key, count.sum()));
+        return snapshot;
+    }
+}
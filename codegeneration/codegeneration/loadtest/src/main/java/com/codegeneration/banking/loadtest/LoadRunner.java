@@ -0,0 +1,143 @@
+package com.codegeneration.banking.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the request mix against the application in closed loop or constant arrival rate mode.
+ * Requests started during the warmup are sent but not recorded.
+ */
+public final class LoadRunner {
+
+    private final LoadTestConfig config;
+    private final HttpClient client;
+    private final RequestFactory requests;
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+
+    private long measureStart;
+    private long end;
+    private volatile long maxScheduleLagNanos;
+
+    public LoadRunner(LoadTestConfig config, HttpClient client, RequestFactory requests) {
+        this.config = config;
+        this.client = client;
+        this.requests = requests;
+        for (Endpoint endpoint : config.getMix().keySet()) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+    }
+
+    /**
+     * Run the warmup and the measured duration, blocking until every started request has completed
+     */
+    public Map<Endpoint, EndpointStats> run() throws InterruptedException {
+        long start = System.nanoTime();
+        measureStart = start + config.getWarmup().toNanos();
+        end = measureStart + config.getDuration().toNanos();
+        if (config.getMode() == LoadTestConfig.Mode.CLOSED) {
+            runClosedLoop();
+        } else {
+            runConstantRate(start);
+        }
+        return stats;
+    }
+
+    /**
+     * How far the constant rate schedule fell behind at worst, because max-in-flight requests were outstanding
+     */
+    public long getMaxScheduleLagNanos() {
+        return maxScheduleLagNanos;
+    }
+
+    /**
+     * Every worker sends its next request as soon as the previous one completes. Throughput follows the latency of
+     * the application, so a slow server also slows down the load it receives.
+     */
+    private void runClosedLoop() throws InterruptedException {
+        SplittableRandom seeds = new SplittableRandom(config.getSeed());
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < config.getConcurrency(); i++) {
+            SplittableRandom random = seeds.split();
+            Thread worker = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    Endpoint endpoint = requests.nextEndpoint(random);
+                    HttpRequest request = requests.build(endpoint, random);
+                    long started = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        record(endpoint, started, response.statusCode(), null);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        record(endpoint, started, 0, e);
+                    }
+                }
+            }, "loadtest-worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    /**
+     * Requests start on a fixed schedule and latency is measured from the scheduled start, so time a request waited
+     * because the server or the client fell behind counts against it instead of silently lowering the offered load.
+     */
+    private void runConstantRate(long start) throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(config.getSeed());
+        Semaphore inFlight = new Semaphore(config.getMaxInFlight());
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.getRate();
+
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.acquire();
+            maxScheduleLagNanos = Math.max(maxScheduleLagNanos, System.nanoTime() - intended);
+
+            Endpoint endpoint = requests.nextEndpoint(random);
+            client.sendAsync(requests.build(endpoint, random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        record(endpoint, intended, response == null ? 0 : response.statusCode(), failure);
+                        inFlight.release();
+                    });
+        }
+
+        long drainTimeout = config.getRequestTimeout().toNanos() + TimeUnit.SECONDS.toNanos(1);
+        if (!inFlight.tryAcquire(config.getMaxInFlight(), drainTimeout, TimeUnit.NANOSECONDS)) {
+            System.err.println("Some requests were still in flight when the run ended");
+        }
+    }
+
+    private void record(Endpoint endpoint, long started, int status, Throwable failure) {
+        if (started < measureStart) {
+            return;
+        }
+        long latency = System.nanoTime() - started;
+        if (failure != null) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+            stats.get(endpoint).recordFailure(latency, cause);
+        } else {
+            stats.get(endpoint).recordResponse(latency, status);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.codegeneration.banking.loadtest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Settings of one load test run, read from --key=value arguments and an optional --config properties file.
+ * Arguments override the file, see the loadtest README for every key and its default.
+ */
+public final class LoadTestConfig {
+
+    public enum Mode {
+        /** Fixed number of workers, each sends its next request when the previous one completes */
+        CLOSED,
+        /** Requests start on a fixed schedule regardless of how long earlier requests take */
+        CONSTANT
+    }
+
+    private static final String LOAD_USER_PREFIX = "loaduser";
+    private static final String LOAD_USER_PASSWORD = "loaduser123";
+
+    private final String baseUrl;
+    private final Mode mode;
+    private final int concurrency;
+    private final double rate;
+    private final int maxInFlight;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration requestTimeout;
+    private final Map<Endpoint, Integer> mix;
+    private final List<Credentials> users;
+    private final long seed;
+    private final Path report;
+
+    private LoadTestConfig(Properties properties) {
+        this.baseUrl = stripTrailingSlash(properties.getProperty("base-url", "http://localhost:8080"));
+        this.mode = Mode.valueOf(properties.getProperty("mode", "closed").toUpperCase(Locale.ROOT));
+        this.concurrency = positive(properties, "concurrency", "16");
+        this.rate = Double.parseDouble(properties.getProperty("rate", "200"));
+        this.maxInFlight = positive(properties, "max-in-flight", "1024");
+        this.warmup = Duration.ofSeconds(Long.parseLong(properties.getProperty("warmup", "10")));
+        this.duration = Duration.ofSeconds(Long.parseLong(properties.getProperty("duration", "60")));
+        this.requestTimeout = Duration.ofMillis(Long.parseLong(properties.getProperty("request-timeout-ms", "10000")));
+        this.mix = parseMix(properties.getProperty("mix", "transfer:20,withdraw:20,filter:30,accounts:30"));
+        this.users = parseUsers(properties.getProperty("users", "user1:user123,user2:user123"),
+                Integer.parseInt(properties.getProperty("load-users", "0")));
+        this.seed = Long.parseLong(properties.getProperty("seed", "42"));
+        this.report = Path.of(properties.getProperty("report", "target/loadtest-report.json"));
+        if (mode == Mode.CONSTANT && rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive in constant mode");
+        }
+    }
+
+    /**
+     * Parse command line arguments of the form --key=value
+     *
+     * @throws IllegalArgumentException if an argument is malformed or a value is invalid
+     */
+    public static LoadTestConfig fromArgs(String[] args) throws IOException {
+        Properties arguments = new Properties();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            arguments.setProperty(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        Properties properties = new Properties();
+        String configFile = arguments.getProperty("config");
+        if (configFile != null) {
+            try (Reader reader = Files.newBufferedReader(Path.of(configFile))) {
+                properties.load(reader);
+            }
+        }
+        properties.putAll(arguments);
+        return new LoadTestConfig(properties);
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String value) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected endpoint:weight in mix but got: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Mix weight must not be negative: " + entry);
+            }
+            if (weight > 0) {
+                mix.put(Endpoint.fromName(parts[0].trim()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Mix must contain at least one endpoint with a positive weight");
+        }
+        return mix;
+    }
+
+    private static List<Credentials> parseUsers(String value, int loadUsers) {
+        List<Credentials> users = new ArrayList<>();
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split(":", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected username:password in users but got: " + entry);
+            }
+            users.add(new Credentials(parts[0], parts[1]));
+        }
+        // Users created by the loadgen profile, see LoadDataGenerator
+        for (int i = 0; i < loadUsers; i++) {
+            users.add(new Credentials(LOAD_USER_PREFIX + String.format("%09d", i), LOAD_USER_PASSWORD));
+        }
+        if (users.isEmpty()) {
+            throw new IllegalArgumentException("At least one user is needed, set users or load-users");
+        }
+        return users;
+    }
+
+    private static int positive(Properties properties, String key, String defaultValue) {
+        int value = Integer.parseInt(properties.getProperty(key, defaultValue));
+        if (value <= 0) {
+            throw new IllegalArgumentException(key + " must be positive");
+        }
+        return value;
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public Map<Endpoint, Integer> getMix() {
+        return mix;
+    }
+
+    public List<Credentials> getUsers() {
+        return users;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Path getReport() {
+        return report;
+    }
+
+    public record Credentials(String username, String password) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.codegeneration.banking.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Entry point of the load test jar. Logs the configured users in against a running application, drives the request
+ * mix for the warmup and measured duration, then prints a summary and writes the JSON report.
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        ObjectMapper objectMapper = new ObjectMapper();
+        // HTTP/1.1 keeps the client from attempting an h2c upgrade on every new connection
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        RequestFactory requests = new RequestFactory(config, objectMapper);
+        requests.login(client);
+        System.out.printf("Logged in %d of %d users, running %s mode for %ds after %ds warmup against %s%n",
+                requests.sessionCount(), config.getUsers().size(), config.getMode().name().toLowerCase(Locale.ROOT),
+                config.getDuration().toSeconds(), config.getWarmup().toSeconds(), config.getBaseUrl());
+
+        Instant startedAt = Instant.now();
+        LoadRunner runner = new LoadRunner(config, client, requests);
+        Map<Endpoint, EndpointStats> stats = runner.run();
+
+        LoadTestReport report = new LoadTestReport(config, requests.sessionCount(), startedAt, stats,
+                runner.getMaxScheduleLagNanos());
+        report.print(System.out);
+        report.write(objectMapper, config.getReport());
+        System.out.println("Report written to " + config.getReport().toAbsolutePath());
+    }
+}
@@ -0,0 +1,137 @@
+package com.codegeneration.banking.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Machine readable report of a run. Every endpoint gets its counts, throughput and latency percentiles in
+ * milliseconds, plus the full histogram in HdrHistogram's compressed base64 form so runs can be merged or plotted.
+ */
+public final class LoadTestReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, Object> report = new LinkedHashMap<>();
+    private final Map<Endpoint, EndpointStats> stats;
+    private final double seconds;
+
+    public LoadTestReport(LoadTestConfig config, int sessions, Instant startedAt, Map<Endpoint, EndpointStats> stats,
+                          long maxScheduleLagNanos) {
+        this.stats = stats;
+        this.seconds = config.getDuration().toMillis() / 1000.0;
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("baseUrl", config.getBaseUrl());
+        run.put("mode", config.getMode().name().toLowerCase(Locale.ROOT));
+        if (config.getMode() == LoadTestConfig.Mode.CLOSED) {
+            run.put("concurrency", config.getConcurrency());
+        } else {
+            run.put("targetRate", config.getRate());
+            run.put("maxInFlight", config.getMaxInFlight());
+            run.put("maxScheduleLagMs", millis(TimeUnit.NANOSECONDS.toMicros(maxScheduleLagNanos)));
+        }
+        run.put("startedAt", startedAt.toString());
+        run.put("warmupSeconds", config.getWarmup().toSeconds());
+        run.put("durationSeconds", config.getDuration().toSeconds());
+        run.put("users", sessions);
+        run.put("seed", config.getSeed());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        config.getMix().forEach((endpoint, weight) -> mix.put(endpoint.key(), weight));
+        run.put("mix", mix);
+        report.put("run", run);
+
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (EndpointStats endpoint : stats.values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("route", endpoint.getEndpoint().getRoute());
+            entry.put("count", endpoint.getCount());
+            entry.put("errors", endpoint.getErrorCount());
+            entry.put("throughput", round(endpoint.getCount() / seconds));
+            entry.put("statuses", endpoint.getStatuses());
+            entry.put("failures", endpoint.getFailures());
+            entry.put("latencyMs", latency(endpoint.getLatency()));
+            entry.put("histogram", encode(endpoint.getLatency()));
+            endpoints.put(endpoint.getEndpoint().key(), entry);
+            total.add(endpoint.getLatency());
+            totalErrors += endpoint.getErrorCount();
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", total.getTotalCount());
+        summary.put("errors", totalErrors);
+        summary.put("throughput", round(total.getTotalCount() / seconds));
+        summary.put("latencyMs", latency(total));
+        report.put("total", summary);
+        report.put("endpoints", endpoints);
+    }
+
+    public void write(ObjectMapper objectMapper, Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), report);
+    }
+
+    /**
+     * Print a one line summary per endpoint
+     */
+    public void print(PrintStream out) {
+        out.printf("%-10s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (EndpointStats endpoint : stats.values()) {
+            Histogram latency = endpoint.getLatency();
+            out.printf("%-10s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    endpoint.getEndpoint().key(), endpoint.getCount(), endpoint.getErrorCount(),
+                    endpoint.getCount() / seconds,
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)),
+                    millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+                    millis(latency.getMaxValue()));
+        }
+    }
+
+    private static Map<String, Object> latency(Histogram histogram) {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        if (histogram.getTotalCount() == 0) {
+            return latency;
+        }
+        latency.put("min", millis(histogram.getMinValue()));
+        latency.put("mean", round(histogram.getMean() / 1000.0));
+        for (double percentile : PERCENTILES) {
+            String key = "p" + (percentile == Math.rint(percentile)
+                    ? String.valueOf((int) percentile) : String.valueOf(percentile).replace(".", ""));
+            latency.put(key, millis(histogram.getValueAtPercentile(percentile)));
+        }
+        latency.put("max", millis(histogram.getMaxValue()));
+        return latency;
+    }
+
+    private static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
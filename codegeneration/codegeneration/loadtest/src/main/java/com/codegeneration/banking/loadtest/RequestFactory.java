@@ -0,0 +1,176 @@
+package com.codegeneration.banking.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Logs the configured users in and builds the requests of a mix. Requests are picked by weight and filled with the
+ * accounts of the logged in users, so transfers move money between seeded accounts instead of failing validation.
+ */
+public final class RequestFactory {
+
+    private static final String[] TRANSACTION_TYPES = {"TRANSFER", "ATM_WITHDRAWAL", "ATM_DEPOSIT"};
+
+    private final LoadTestConfig config;
+    private final ObjectMapper objectMapper;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+    private final List<Session> sessions = new ArrayList<>();
+    private final List<String> allAccounts = new ArrayList<>();
+
+    public RequestFactory(LoadTestConfig config, ObjectMapper objectMapper) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.endpoints = config.getMix().keySet().toArray(Endpoint[]::new);
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += config.getMix().get(endpoints[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Log every configured user in and load their accounts. Users that cannot log in or have no account are skipped.
+     *
+     * @throws IllegalStateException if no user could be used
+     */
+    public void login(HttpClient client) throws IOException, InterruptedException {
+        for (LoadTestConfig.Credentials credentials : config.getUsers()) {
+            String body = objectMapper.writeValueAsString(Map.of(
+                    "username", credentials.username(),
+                    "password", credentials.password()));
+            HttpResponse<String> login = client.send(json("/api/auth/login")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+            if (login.statusCode() != 200) {
+                System.err.printf("Login failed for %s with status %d%n", credentials.username(), login.statusCode());
+                continue;
+            }
+            String token = objectMapper.readTree(login.body()).path("token").asText();
+
+            HttpResponse<String> accounts = client.send(authorized("/api/account/getall", token).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            List<String> accountNumbers = new ArrayList<>();
+            for (JsonNode account : objectMapper.readTree(accounts.body()).path("accounts")) {
+                accountNumbers.add(account.path("accountNumber").asText());
+            }
+            if (accountNumbers.isEmpty()) {
+                System.err.printf("Skipping %s, the user has no accounts%n", credentials.username());
+                continue;
+            }
+            sessions.add(new Session(credentials.username(), token, List.copyOf(accountNumbers)));
+            allAccounts.addAll(accountNumbers);
+        }
+        if (sessions.isEmpty()) {
+            throw new IllegalStateException("None of the configured users could log in");
+        }
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Pick the next endpoint by mix weight
+     */
+    public Endpoint nextEndpoint(SplittableRandom random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        throw new IllegalStateException("Mix weights do not cover " + pick);
+    }
+
+    /**
+     * Build a request for the endpoint on behalf of one of the logged in users
+     */
+    public HttpRequest build(Endpoint endpoint, SplittableRandom random) {
+        Session session = sessions.get(random.nextInt(sessions.size()));
+        String account = session.accounts().get(random.nextInt(session.accounts().size()));
+        return switch (endpoint) {
+            case TRANSFER -> post(session, "/api/transaction/transfer", Map.of(
+                    "fromAccount", account,
+                    "toAccount", otherAccount(account, random),
+                    "amount", amount(random, 1, 50),
+                    "description", "Load test transfer",
+                    "acceptExchangeRate", true));
+            case WITHDRAW -> post(session, "/api/atm/withdraw", Map.of(
+                    "accountNumber", account,
+                    "amount", amount(random, 1, 20).doubleValue(),
+                    "description", "Load test withdrawal"));
+            case FILTER -> authorized("/api/transaction/filter?" + filterQuery(random), session.token()).GET().build();
+            case ACCOUNTS -> authorized("/api/account/getall", session.token()).GET().build();
+        };
+    }
+
+    private String otherAccount(String account, SplittableRandom random) {
+        if (allAccounts.size() == 1) {
+            return account;
+        }
+        String other;
+        do {
+            other = allAccounts.get(random.nextInt(allAccounts.size()));
+        } while (other.equals(account));
+        return other;
+    }
+
+    /**
+     * A date range combined with one other criterion, close to what the transaction history screen sends
+     */
+    private static String filterQuery(SplittableRandom random) {
+        LocalDate end = LocalDate.now();
+        String query = "startDate=" + end.minusDays(1 + random.nextInt(90)) + "&endDate=" + end;
+        return switch (random.nextInt(4)) {
+            case 0 -> query + "&amountGreaterThan=" + amount(random, 10, 500);
+            case 1 -> query + "&amountLessThan=" + amount(random, 10, 500);
+            case 2 -> query + "&transactionType=" + TRANSACTION_TYPES[random.nextInt(TRANSACTION_TYPES.length)];
+            default -> query;
+        };
+    }
+
+    private static BigDecimal amount(SplittableRandom random, int min, int max) {
+        return BigDecimal.valueOf(random.nextLong(min * 100L, max * 100L + 1), 2);
+    }
+
+    private HttpRequest post(Session session, String path, Map<String, Object> body) {
+        try {
+            return authorized(path, session.token())
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize request body for " + path, e);
+        }
+    }
+
+    private HttpRequest.Builder json(String path) {
+        return HttpRequest.newBuilder(URI.create(config.getBaseUrl() + path))
+                .timeout(config.getRequestTimeout())
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+    }
+
+    private HttpRequest.Builder authorized(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(config.getBaseUrl() + path))
+                .timeout(config.getRequestTimeout())
+                .header("Accept", "application/json")
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private record Session(String username, String token, List<String> accounts) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.codegeneration.banking.api.config;
+
+import com.codegeneration.banking.api.metrics.SqlStatementListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource in a JDBC proxy that reports every statement to {@link SqlStatementListener}.
+ * Replaces spring.jpa.show-sql: instead of printing every statement it counts them per request and only logs the
+ * slow ones.
+ */
+@Component
+public class DataSourceProxyConfig implements BeanPostProcessor {
+
+    @Value("${app.sql.stats.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.sql.slow-query-threshold-ms:100}")
+    private long slowQueryThresholdMs;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled || !(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        SqlStatementListener listener = new SqlStatementListener(slowQueryThresholdMs);
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .listener(listener)
+                .methodListener(listener)
+                .proxyResultSet()
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.codegeneration.banking.api.config;
+
+import com.codegeneration.banking.api.datasource.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the application DataSource from a primary pool and, when enabled, a replica pool that serves read-only
+ * transactions. The pools are sized independently and are not beans themselves, so the statement accounting of
+ * {@link DataSourceProxyConfig} wraps only the DataSource the application uses.
+ */
+@Slf4j
+@Configuration
+public class DataSourceRoutingConfig {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 @Value("${app.datasource.primary.maximum-pool-size:10}") int primaryPoolSize,
+                                 @Value("${app.datasource.replica.enabled:false}") boolean replicaEnabled,
+                                 @Value("${app.datasource.replica.url:}") String replicaUrl,
+                                 @Value("${app.datasource.replica.username:}") String replicaUsername,
+                                 @Value("${app.datasource.replica.password:}") String replicaPassword,
+                                 @Value("${app.datasource.replica.maximum-pool-size:10}") int replicaPoolSize,
+                                 @Value("${app.datasource.replica.read-your-writes-ms:2000}") long readYourWritesMs) {
+        HikariDataSource primary = pool(properties, "primary", properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), primaryPoolSize);
+        if (!replicaEnabled) {
+            return primary;
+        }
+        // Without a replica of its own the pool reads the primary database, which keeps routing testable locally
+        String url = replicaUrl.isBlank() ? properties.determineUrl() : replicaUrl;
+        String username = replicaUsername.isBlank() ? properties.determineUsername() : replicaUsername;
+        String password = replicaUsername.isBlank() ? properties.determinePassword() : replicaPassword;
+        HikariDataSource replica = pool(properties, "replica", url, username, password, replicaPoolSize);
+        replica.setReadOnly(true);
+        log.info("Read-only transactions are routed to the replica pool at {}", url);
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica, readYourWritesMs));
+    }
+
+    @PreDestroy
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private HikariDataSource pool(DataSourceProperties properties, String name, String url, String username,
+                                  String password, int maximumPoolSize) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        pool.setPoolName(name);
+        pool.setMaximumPoolSize(maximumPoolSize);
+        pools.add(pool);
+        return pool;
+    }
+}
@@ -0,0 +1,24 @@
+package com.codegeneration.banking.api.config;
+
+import com.codegeneration.banking.api.service.interfaces.LedgerJournalService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Restores journaled balances on startup, after the DataLoader has created the sample accounts they belong to
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class JournalRecoveryRunner implements CommandLineRunner {
+
+    private final LedgerJournalService ledgerJournalService;
+
+    @Override
+    public void run(String... args) {
+        ledgerJournalService.recoverBalances();
+    }
+}
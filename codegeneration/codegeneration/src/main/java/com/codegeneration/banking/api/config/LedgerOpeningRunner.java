@@ -0,0 +1,25 @@
+package com.codegeneration.banking.api.config;
+
+import com.codegeneration.banking.api.service.interfaces.PostingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Posts the balances of seeded accounts that have no postings yet as opening balances, after the journal has restored
+ * them, so the verifier can reconcile every account against the ledger
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@RequiredArgsConstructor
+public class LedgerOpeningRunner implements CommandLineRunner {
+
+    private final PostingService postingService;
+
+    @Override
+    public void run(String... args) {
+        postingService.postOpeningBalances();
+    }
+}
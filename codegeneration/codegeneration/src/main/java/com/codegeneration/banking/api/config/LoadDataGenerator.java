@@ -0,0 +1,375 @@
+package com.codegeneration.banking.api.config;
+
+import com.codegeneration.banking.api.entity.Transaction.TransactionStatus;
+import com.codegeneration.banking.api.entity.Transaction.TransactionType;
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.enums.LimitWindowMode;
+import com.codegeneration.banking.api.enums.UserRole;
+import com.codegeneration.banking.api.service.interfaces.PostingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates users, accounts and transactions at load test scale when the loadgen profile is active.
+ * Rows are written with JDBC batch inserts from several threads. Every chunk of rows draws from its own random
+ * generator derived from app.loadgen.seed, so the same settings always produce the same data whatever the thread
+ * count. Timestamps are relative to app.loadgen.end-date, pin it to reproduce a data set on another day.
+ * <p>
+ * Account traffic is skewed so a small share of hot accounts takes most transactions, currencies are mixed and
+ * transaction times follow daily, weekly and payday peaks. Balances are drawn independently and do not
+ * reconcile with the generated transactions, they are posted to the ledger as opening balances instead.
+ */
+@Component
+@Profile("loadgen")
+// Runs after DataLoader, which only seeds the sample users into an empty users table
+@Order(Ordered.LOWEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class LoadDataGenerator implements CommandLineRunner {
+
+    private static final String USERNAME_PREFIX = "loaduser";
+    private static final String ACCOUNT_PREFIX = "NL00LOAD";
+    private static final String PASSWORD = "loaduser123";
+    private static final int CHUNK_SIZE = 50_000;
+
+    private static final String USER_SQL = "INSERT INTO users (username, password, name, email, role, enabled) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String ACCOUNT_SQL = "INSERT INTO accounts (account_number, account_name, account_type, "
+            + "balance, currency, daily_transfer_limit, daily_withdrawal_limit, single_transfer_limit, "
+            + "single_withdrawal_limit, transfer_used_today, withdrawal_used_today, last_limit_reset_date, "
+            + "limit_window_mode, disabled, user_id, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0, ?, ?, FALSE, ?, ?, ?)";
+    private static final String TRANSACTION_SQL = "INSERT INTO transactions (transaction_reference, amount, currency, "
+            + "description, status, type, source_account_id, destination_account_id, created_at, completed_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final BigDecimal DAILY_LIMIT = new BigDecimal("5000.00");
+    private static final BigDecimal SINGLE_TRANSFER_LIMIT = new BigDecimal("3000.00");
+    private static final BigDecimal SINGLE_WITHDRAWAL_LIMIT = new BigDecimal("500.00");
+
+    private static final double[] CURRENCY_WEIGHTS = weights(Currency.class, Map.of(
+            Currency.EUR, 0.55, Currency.USD, 0.15, Currency.GBP, 0.10, Currency.CHF, 0.08, Currency.PLN, 0.12));
+    private static final double[] TYPE_WEIGHTS = weights(TransactionType.class, Map.of(
+            TransactionType.TRANSFER, 0.60, TransactionType.ATM_WITHDRAWAL, 0.20,
+            TransactionType.ATM_DEPOSIT, 0.08, TransactionType.PAYMENT, 0.12));
+    private static final double[] STATUS_WEIGHTS = weights(TransactionStatus.class, Map.of(
+            TransactionStatus.COMPLETED, 0.96, TransactionStatus.FAILED, 0.02,
+            TransactionStatus.PENDING, 0.01, TransactionStatus.CANCELLED, 0.01));
+    // Relative activity per hour of day, quiet at night with lunch and evening peaks
+    private static final double[] HOUR_WEIGHTS = {
+            0.10, 0.05, 0.03, 0.03, 0.05, 0.15, 0.35, 0.60, 0.80, 0.85, 0.90, 0.95,
+            1.00, 0.95, 0.85, 0.80, 0.85, 0.95, 1.00, 0.90, 0.70, 0.50, 0.30, 0.20};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final PostingService postingService;
+
+    @Value("${app.loadgen.users:10000}")
+    private int userCount;
+
+    @Value("${app.loadgen.accounts:20000}")
+    private int accountCount;
+
+    @Value("${app.loadgen.transactions:1000000}")
+    private long transactionCount;
+
+    @Value("${app.loadgen.seed:42}")
+    private long seed;
+
+    @Value("${app.loadgen.threads:0}")
+    private int threads;
+
+    @Value("${app.loadgen.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.loadgen.hot-account-skew:3.0}")
+    private double hotAccountSkew;
+
+    @Value("${app.loadgen.days:365}")
+    private int days;
+
+    @Value("${app.loadgen.end-date:}")
+    private String endDate;
+
+    @Override
+    public void run(String... args) throws Exception {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE username LIKE ?", Integer.class, USERNAME_PREFIX + "%");
+        if (existing != null && existing > 0) {
+            log.info("Load data already present ({} generated users), skipping generation", existing);
+            return;
+        }
+
+        int workers = threads > 0 ? threads : Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        LocalDateTime end = (endDate == null || endDate.isBlank() ? LocalDate.now() : LocalDate.parse(endDate))
+                .plusDays(1).atStartOfDay();
+        log.info("Generating {} users, {} accounts and {} transactions with seed {} on {} threads",
+                userCount, accountCount, transactionCount, seed, workers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            long started = System.nanoTime();
+            insertUsers(executor);
+            long[] userIds = queryIds("SELECT id FROM users WHERE username LIKE ? ORDER BY username", USERNAME_PREFIX);
+            report("users", userIds.length, started);
+
+            started = System.nanoTime();
+            insertAccounts(executor, userIds, end);
+            long[] accountIds = queryIds(
+                    "SELECT id FROM accounts WHERE account_number LIKE ? ORDER BY account_number", ACCOUNT_PREFIX);
+            report("accounts", accountIds.length, started);
+
+            started = System.nanoTime();
+            insertTransactions(executor, accountIds, end);
+            report("transactions", transactionCount, started);
+
+            started = System.nanoTime();
+            report("opening balance postings", postingService.postOpeningBalances(), started);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void insertUsers(ExecutorService executor) throws Exception {
+        // Hashing is deliberately slow, every generated user shares one encoded password
+        String encodedPassword = passwordEncoder.encode(PASSWORD);
+        runChunks(executor, userCount, "users", (random, from, to) -> insertBatches(USER_SQL, from, to, (ps, i) -> {
+            String username = USERNAME_PREFIX + String.format("%09d", i);
+            ps.setString(1, username);
+            ps.setString(2, encodedPassword);
+            ps.setString(3, "Load User " + i);
+            ps.setString(4, username + "@loadtest.example.com");
+            ps.setString(5, UserRole.CLIENT.name());
+            ps.setBoolean(6, true);
+        }));
+    }
+
+    private void insertAccounts(ExecutorService executor, long[] userIds, LocalDateTime end) throws Exception {
+        Timestamp now = Timestamp.valueOf(end.minusDays(1));
+        runChunks(executor, accountCount, "accounts", (random, from, to) -> insertBatches(ACCOUNT_SQL, from, to, (ps, i) -> {
+            // Every user gets one account before anyone gets a second one
+            long userId = i < userIds.length ? userIds[(int) i] : userIds[random.nextInt(userIds.length)];
+            Currency currency = pick(random, Currency.values(), CURRENCY_WEIGHTS);
+            boolean savings = random.nextDouble() < 0.3;
+            ps.setString(1, ACCOUNT_PREFIX + String.format("%010d", i));
+            ps.setString(2, (savings ? "Savings " : "Checking ") + currency);
+            ps.setString(3, savings ? "SAVINGS" : "CHECKING");
+            ps.setBigDecimal(4, logNormal(random, 2_500, 1.5, 1_000_000));
+            ps.setInt(5, currency.ordinal());
+            ps.setBigDecimal(6, DAILY_LIMIT);
+            ps.setBigDecimal(7, DAILY_LIMIT);
+            ps.setBigDecimal(8, SINGLE_TRANSFER_LIMIT);
+            ps.setBigDecimal(9, SINGLE_WITHDRAWAL_LIMIT);
+            ps.setTimestamp(10, now);
+            ps.setString(11, (random.nextDouble() < 0.1 ? LimitWindowMode.ROLLING_24H : LimitWindowMode.CALENDAR_DAY).name());
+            ps.setLong(12, userId);
+            ps.setTimestamp(13, now);
+            ps.setTimestamp(14, now);
+        }));
+    }
+
+    private void insertTransactions(ExecutorService executor, long[] accountIds, LocalDateTime end) throws Exception {
+        int[] currencies = queryCurrencies();
+        long endSecond = end.toEpochSecond(ZoneOffset.UTC);
+        long startSecond = end.minusDays(days).toEpochSecond(ZoneOffset.UTC);
+
+        runChunks(executor, transactionCount, "transactions", (random, from, to) ->
+                insertBatches(TRANSACTION_SQL, from, to, (ps, i) -> {
+                    int source = hotAccount(random, accountIds.length);
+                    TransactionType type = pick(random, TransactionType.values(), TYPE_WEIGHTS);
+                    int destination = type == TransactionType.TRANSFER || type == TransactionType.PAYMENT
+                            ? otherAccount(random, source, accountIds.length) : source;
+                    TransactionStatus status = pick(random, TransactionStatus.values(), STATUS_WEIGHTS);
+                    LocalDateTime createdAt = seasonalTime(random, startSecond, endSecond);
+
+                    ps.setString(1, "TRX-LOAD-" + i);
+                    ps.setBigDecimal(2, type == TransactionType.ATM_WITHDRAWAL
+                            ? BigDecimal.valueOf(20L + 10L * random.nextInt(49)) : logNormal(random, 40, 1.2, 50_000));
+                    ps.setInt(3, currencies[source]);
+                    ps.setString(4, type == TransactionType.TRANSFER ? "Transfer" : type.name().replace('_', ' '));
+                    ps.setString(5, status.name());
+                    ps.setString(6, type.name());
+                    ps.setLong(7, accountIds[source]);
+                    ps.setLong(8, accountIds[destination]);
+                    ps.setTimestamp(9, Timestamp.valueOf(createdAt));
+                    ps.setTimestamp(10, status == TransactionStatus.COMPLETED
+                            ? Timestamp.valueOf(createdAt.plusSeconds(1 + random.nextInt(30))) : null);
+                }));
+    }
+
+    /**
+     * Split rows into fixed size chunks with their own seeded random generator, so output is independent of
+     * scheduling. Logs progress until every chunk is written.
+     */
+    private void runChunks(ExecutorService executor, long rows, String table, ChunkWriter writer) throws Exception {
+        AtomicLong written = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        for (long from = 0, chunk = 0; from < rows; from += CHUNK_SIZE, chunk++) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(rows, from + CHUNK_SIZE);
+            SplittableRandom random = new SplittableRandom(mix(seed, table.hashCode(), chunk));
+            futures.add(executor.submit(() -> {
+                writer.write(random, chunkFrom, chunkTo);
+                written.addAndGet(chunkTo - chunkFrom);
+                return null;
+            }));
+        }
+
+        long started = System.nanoTime();
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    log.info("{}: {} of {} rows, {} rows/sec", table, written.get(), rows,
+                            rate(written.get(), started));
+                }
+            }
+        }
+    }
+
+    private void insertBatches(String sql, long from, long to, RowWriter rowWriter) {
+        for (long batchFrom = from; batchFrom < to; batchFrom += batchSize) {
+            long start = batchFrom;
+            int size = (int) Math.min(batchSize, to - batchFrom);
+            // One commit per batch, in auto-commit mode every row of the batch is committed on its own
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    rowWriter.write(ps, start + i);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            }));
+        }
+    }
+
+    private long[] queryIds(String sql, String prefix) {
+        return jdbcTemplate.queryForList(sql, Long.class, prefix + "%").stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private int[] queryCurrencies() {
+        return jdbcTemplate.queryForList("SELECT currency FROM accounts WHERE account_number LIKE ? "
+                + "ORDER BY account_number", Integer.class, ACCOUNT_PREFIX + "%").stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Account index skewed towards low indexes: with skew 3 the first 1% of accounts takes about a fifth of traffic
+     */
+    private int hotAccount(SplittableRandom random, int accounts) {
+        return (int) (accounts * Math.pow(random.nextDouble(), hotAccountSkew));
+    }
+
+    private int otherAccount(SplittableRandom random, int source, int accounts) {
+        if (accounts < 2) {
+            return source;
+        }
+        int destination = hotAccount(random, accounts - 1);
+        return destination >= source ? destination + 1 : destination;
+    }
+
+    /**
+     * Draw a time between start and end, weighted by hour of day, weekday, payday and December peaks
+     */
+    private static LocalDateTime seasonalTime(SplittableRandom random, long startSecond, long endSecond) {
+        while (true) {
+            LocalDateTime candidate = LocalDateTime.ofEpochSecond(
+                    random.nextLong(startSecond, endSecond), 0, ZoneOffset.UTC);
+            double weight = HOUR_WEIGHTS[candidate.getHour()];
+            DayOfWeek day = candidate.getDayOfWeek();
+            weight *= day == DayOfWeek.SUNDAY ? 0.5 : day == DayOfWeek.SATURDAY ? 0.7 : 1.0;
+            int dayOfMonth = candidate.getDayOfMonth();
+            weight *= dayOfMonth >= 25 || dayOfMonth == 1 ? 1.0 : 0.7;
+            weight *= candidate.getMonthValue() == 12 ? 1.0 : 0.8;
+            // Weights peak at 1.0, accept the candidate with probability equal to its weight
+            if (random.nextDouble() < weight) {
+                return candidate;
+            }
+        }
+    }
+
+    private static BigDecimal logNormal(SplittableRandom random, double median, double sigma, double max) {
+        // Box-Muller on the chunk's generator keeps draws deterministic
+        double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+        double value = Math.min(max, Math.max(0.01, median * Math.exp(sigma * gaussian)));
+        return BigDecimal.valueOf(Math.round(value * 100), 2);
+    }
+
+    private static <T> T pick(SplittableRandom random, T[] values, double[] weights) {
+        double draw = random.nextDouble();
+        for (int i = 0; i < weights.length; i++) {
+            draw -= weights[i];
+            if (draw < 0) {
+                return values[i];
+            }
+        }
+        return values[weights.length - 1];
+    }
+
+    private static <E extends Enum<E>> double[] weights(Class<E> type, Map<E, Double> shares) {
+        double[] weights = new double[type.getEnumConstants().length];
+        shares.forEach((value, share) -> weights[value.ordinal()] = share);
+        return weights;
+    }
+
+    private static long mix(long seed, int table, long chunk) {
+        long z = seed + 0x9E3779B97F4A7C15L * (chunk + 1) + table;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static void report(String table, long rows, long startedNanos) {
+        log.info("Generated {} {} in {} ms, {} rows/sec", rows, table,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos), rate(rows, startedNanos));
+    }
+
+    private static long rate(long rows, long startedNanos) {
+        long elapsed = Math.max(1, System.nanoTime() - startedNanos);
+        return rows * TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(SplittableRandom random, long from, long to);
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(PreparedStatement ps, long row) throws SQLException;
+    }
+}
@@ -0,0 +1,23 @@
+package com.codegeneration.banking.api.config;
+
+import com.codegeneration.banking.api.service.interfaces.UserDirectoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indexes the users that have no user directory entries once the application is ready, which is after DataLoader and
+ * LoadDataGenerator inserted theirs
+ */
+@Component
+@RequiredArgsConstructor
+public class UserDirectoryIndexRunner implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final UserDirectoryService userDirectoryService;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        userDirectoryService.indexUnindexedUsers();
+    }
+}
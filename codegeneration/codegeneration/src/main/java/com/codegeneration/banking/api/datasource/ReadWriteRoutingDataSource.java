@@ -0,0 +1,107 @@
+package com.codegeneration.banking.api.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends connections of read-only transactions to the replica pool and everything else to the primary pool.
+ * <p>
+ * The route is decided when a connection is taken from a pool, so this data source has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction manager asks for its
+ * connection before the transaction is marked read-only, the lazy proxy only fetches it at the first statement.
+ * <p>
+ * A replica can lag behind the primary. After a user commits a read-write transaction their read-only transactions
+ * stay on the primary for the read-your-writes window, so a balance read right after a transfer sees the transfer.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    /** Pins are only dropped on lookup, past this size the expired ones are swept on the next write */
+    private static final int SWEEP_THRESHOLD = 10_000;
+
+    private final long readYourWritesNanos;
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    /**
+     * @param primary Pool of the primary database, takes every write
+     * @param replica Pool of the replica, takes read-only transactions
+     * @param readYourWritesMs How long a user's reads stay on the primary after they write, 0 turns pinning off
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, long readYourWritesMs) {
+        this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(readYourWritesMs);
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Route.PRIMARY;
+        }
+        String username = currentUsername();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (username != null && readYourWritesNanos > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new PinAfterCommit(username));
+            }
+            return Route.PRIMARY;
+        }
+        return username != null && isPinned(username) ? Route.PRIMARY : Route.REPLICA;
+    }
+
+    /**
+     * Whether the user's reads are held on the primary because they wrote within the read-your-writes window
+     */
+    public boolean isPinned(String username) {
+        Long until = pinnedUntil.get(username);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        pinnedUntil.remove(username, until);
+        return false;
+    }
+
+    private void pin(String username) {
+        long now = System.nanoTime();
+        if (pinnedUntil.size() > SWEEP_THRESHOLD) {
+            pinnedUntil.values().removeIf(until -> until - now <= 0);
+        }
+        pinnedUntil.put(username, now + readYourWritesNanos);
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || authentication instanceof AnonymousAuthenticationToken
+                ? null : authentication.getName();
+    }
+
+    private class PinAfterCommit implements TransactionSynchronization {
+
+        private final String username;
+
+        PinAfterCommit(String username) {
+            this.username = username;
+        }
+
+        @Override
+        public void afterCommit() {
+            pin(username);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.codegeneration.banking.api.directory;
+
+import com.codegeneration.banking.api.dto.user.UserDirectoryEntryDTO;
+import com.codegeneration.banking.api.enums.UserRole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Search index over the name, username and email of the users, kept in its own table next to the users table.
+ * <p>
+ * Values are folded to lower case without accents and split into words. Every word is stored with its first one
+ * and two characters and every three-character sequence in it. A search word of one or two characters matches the
+ * start of a word, a longer one matches anywhere in a word: it is looked up by some of its trigrams and the users
+ * found are checked against the word itself, since sharing trigrams does not make it a substring. Every word of a
+ * search has to match.
+ * <p>
+ * Results are ordered by user id and paged by the last id seen, so each page is read from the index where the
+ * previous one stopped instead of counting past the earlier pages.
+ */
+public class UserDirectory {
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS user_search_terms (term VARCHAR(12) NOT NULL, user_id BIGINT NOT NULL, "
+                    + "PRIMARY KEY (term, user_id))",
+            "CREATE INDEX IF NOT EXISTS idx_user_search_terms_user ON user_search_terms (user_id)"
+    };
+
+    private static final String COLUMNS = "u.id, u.username, u.name, u.email, u.role, u.enabled";
+    private static final String ALL_SQL = "SELECT " + COLUMNS + " FROM users u WHERE u.id > ? ORDER BY u.id LIMIT ?";
+    private static final String UNINDEXED_SQL = "SELECT " + COLUMNS + " FROM users u WHERE u.id > ? "
+            + "AND NOT EXISTS (SELECT 1 FROM user_search_terms t WHERE t.user_id = u.id) ORDER BY u.id LIMIT ?";
+    private static final String DELETE_SQL = "DELETE FROM user_search_terms WHERE user_id = ?";
+    private static final String INSERT_SQL = "INSERT INTO user_search_terms (term, user_id) VALUES (?, ?)";
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int GRAM = 3;
+    // Trigrams of a long search word overlap, a few of them narrow the candidates about as well as all of them
+    private static final int MAX_SEARCH_TERMS = 8;
+    // Candidates read per query while a page is filled, the check against the search words drops a few of them
+    private static final int MIN_CANDIDATE_BATCH = 100;
+
+    private static final RowMapper<UserDirectoryEntryDTO> ENTRY = (rs, row) -> UserDirectoryEntryDTO.builder()
+            .id(rs.getLong(1))
+            .username(rs.getString(2))
+            .name(rs.getString(3))
+            .email(rs.getString(4))
+            .role(UserRole.valueOf(rs.getString(5)))
+            .enabled(rs.getBoolean(6))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserDirectory(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Create the index table if it does not exist yet
+     */
+    public void createSchema() {
+        for (String statement : SCHEMA) {
+            jdbcTemplate.execute(statement);
+        }
+    }
+
+    /**
+     * Replace the index entries of the given users
+     */
+    public void index(List<UserDirectoryEntryDTO> users) {
+        List<Object[]> ids = new ArrayList<>(users.size());
+        List<Object[]> rows = new ArrayList<>();
+        for (UserDirectoryEntryDTO user : users) {
+            ids.add(new Object[]{user.getId()});
+            for (String term : terms(user.getUsername(), user.getName(), user.getEmail())) {
+                rows.add(new Object[]{term, user.getId()});
+            }
+        }
+        jdbcTemplate.batchUpdate(DELETE_SQL, ids);
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /**
+     * Index the users with an id above the given one that have no index entries, for users inserted without the
+     * application
+     *
+     * @return The users indexed, in id order
+     */
+    public List<UserDirectoryEntryDTO> indexUnindexed(long after, int limit) {
+        List<UserDirectoryEntryDTO> users = jdbcTemplate.query(UNINDEXED_SQL, ENTRY, after, limit);
+        if (!users.isEmpty()) {
+            index(users);
+        }
+        return users;
+    }
+
+    /**
+     * Find the users matching every word of the search, in id order
+     *
+     * @param search The search words, every user when it has none
+     * @param after Only users with a higher id are returned
+     * @param limit The maximum number of users returned
+     */
+    public List<UserDirectoryEntryDTO> find(String search, long after, int limit) {
+        List<String> words = words(search);
+        if (words.isEmpty()) {
+            return jdbcTemplate.query(ALL_SQL, ENTRY, after, limit);
+        }
+
+        List<String> terms = searchTerms(words);
+        String sql = searchSql(terms.size());
+        int batch = Math.max(limit, MIN_CANDIDATE_BATCH);
+        // The first term, the cursor, the other terms and the batch size, in the order of the placeholders
+        Object[] args = new Object[terms.size() + 2];
+        args[0] = terms.get(0);
+        for (int i = 1; i < terms.size(); i++) {
+            args[i + 1] = terms.get(i);
+        }
+        args[args.length - 1] = batch;
+
+        List<UserDirectoryEntryDTO> found = new ArrayList<>(limit);
+        long cursor = after;
+        while (true) {
+            args[1] = cursor;
+            List<UserDirectoryEntryDTO> candidates = jdbcTemplate.query(sql, ENTRY, args);
+            for (UserDirectoryEntryDTO candidate : candidates) {
+                if (matches(words, candidate)) {
+                    found.add(candidate);
+                    if (found.size() == limit) {
+                        return found;
+                    }
+                }
+            }
+            if (candidates.size() < batch) {
+                return found;
+            }
+            cursor = candidates.get(candidates.size() - 1).getId();
+        }
+    }
+
+    /**
+     * The index terms of the given values
+     */
+    public static Set<String> terms(String... values) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String value : values) {
+            for (String word : words(value)) {
+                terms.add(word.substring(0, 1));
+                if (word.length() > 1) {
+                    terms.add(word.substring(0, 2));
+                }
+                for (int i = 0; i + GRAM <= word.length(); i++) {
+                    terms.add(word.substring(i, i + GRAM));
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * The words of a value folded to lower case without accents
+     */
+    public static List<String> words(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFKD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        for (String word : SEPARATORS.split(folded)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Terms to look the search words up by, trigrams first since they select fewer users than short prefixes.
+     * Words are covered by trigrams that do not overlap, plus the last one.
+     */
+    static List<String> searchTerms(List<String> words) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        Set<String> prefixes = new LinkedHashSet<>();
+        for (String word : words) {
+            if (word.length() < GRAM) {
+                prefixes.add(word);
+                continue;
+            }
+            for (int i = 0; i + GRAM <= word.length(); i += GRAM) {
+                trigrams.add(word.substring(i, i + GRAM));
+            }
+            trigrams.add(word.substring(word.length() - GRAM));
+        }
+        List<String> terms = new ArrayList<>(trigrams);
+        terms.addAll(prefixes);
+        return terms.size() > MAX_SEARCH_TERMS ? terms.subList(0, MAX_SEARCH_TERMS) : terms;
+    }
+
+    /**
+     * Reads the users having every term from the entries of the first term, checking the others per user
+     */
+    private static String searchSql(int terms) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS)
+                .append(" FROM user_search_terms t0 JOIN users u ON u.id = t0.user_id")
+                .append(" WHERE t0.term = ? AND t0.user_id > ?");
+        for (int i = 1; i < terms; i++) {
+            sql.append(" AND EXISTS (SELECT 1 FROM user_search_terms t").append(i)
+                    .append(" WHERE t").append(i).append(".term = ? AND t").append(i)
+                    .append(".user_id = t0.user_id)");
+        }
+        return sql.append(" ORDER BY t0.user_id LIMIT ?").toString();
+    }
+
+    private static boolean matches(List<String> words, UserDirectoryEntryDTO user) {
+        List<String> userWords = new ArrayList<>(words(user.getUsername()));
+        userWords.addAll(words(user.getName()));
+        userWords.addAll(words(user.getEmail()));
+        for (String word : words) {
+            boolean found = false;
+            for (String userWord : userWords) {
+                if (word.length() < GRAM ? userWord.startsWith(word) : userWord.contains(word)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,103 @@
+package com.codegeneration.banking.api.dto;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The properties a client asked for with the fields parameter of a listing, a comma separated list of property names
+ * of the listed DTO. Without the parameter every property is selected.
+ * <p>
+ * DTOs that support it are annotated with {@code @JsonFilter} and the application mapper serializes every property
+ * of an unknown filter, so the selection only applies to responses wrapped with {@link #apply}.
+ */
+public final class FieldSelection {
+
+    private static final FieldSelection ALL = new FieldSelection(null);
+
+    /** Null when every property is selected */
+    private final Set<String> names;
+
+    private FieldSelection(Set<String> names) {
+        this.names = names;
+    }
+
+    /**
+     * @param fields Value of the fields parameter, may be null
+     * @param allowed Property names that can be selected
+     * @throws IllegalArgumentException When a name is not one of the allowed ones
+     */
+    public static FieldSelection parse(String fields, Collection<String> allowed) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!allowed.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            names.add(name);
+        }
+        return names.isEmpty() ? ALL : new FieldSelection(Collections.unmodifiableSet(names));
+    }
+
+    public boolean isAll() {
+        return names == null;
+    }
+
+    public boolean includes(String name) {
+        return names == null || names.contains(name);
+    }
+
+    /**
+     * The selected property names sorted and comma separated, * when every property is selected. Selections that
+     * write the same properties have the same canonical form.
+     */
+    public String canonical() {
+        return names == null ? "*" : String.join(",", new TreeSet<>(names));
+    }
+
+    /**
+     * The same selection with every allowed property listed, so it can be changed with {@link #rename}
+     */
+    public FieldSelection expand(Collection<String> allowed) {
+        return names != null ? this : new FieldSelection(Collections.unmodifiableSet(new LinkedHashSet<>(allowed)));
+    }
+
+    /**
+     * The same selection with a property renamed, for shapes that write a property under another name
+     */
+    public FieldSelection rename(String from, String to) {
+        if (names == null || !names.contains(from)) {
+            return this;
+        }
+        Set<String> renamed = new LinkedHashSet<>(names);
+        renamed.remove(from);
+        renamed.add(to);
+        return new FieldSelection(Collections.unmodifiableSet(renamed));
+    }
+
+    /**
+     * Wrap a response body so the DTOs with the given filter id are written with the selected properties only
+     */
+    public MappingJacksonValue apply(Object body, String filterId) {
+        SimpleFilterProvider filters = new SimpleFilterProvider()
+                .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+        if (names != null) {
+            filters.addFilter(filterId, SimpleBeanPropertyFilter.filterOutAllExcept(names));
+        }
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(filters);
+        return value;
+    }
+}
@@ -1,6 +1,7 @@
 
 package com.codegeneration.banking.api.dto;
 
+import com.codegeneration.banking.api.enums.LimitWindowMode;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -23,6 +24,8 @@ public class LimitUpdateRequest {
     private int dailyWithdrawalLimit;
     @NotNull(message = "value is required")
     private int singleWithdrawalLimit;
+    // Optional, keeps the current mode when omitted
+    private LimitWindowMode limitWindowMode;
 
     // Getters and Setters
 }
\ No newline at end of file
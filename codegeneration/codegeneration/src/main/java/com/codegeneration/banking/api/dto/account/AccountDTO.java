@@ -2,6 +2,8 @@ package com.codegeneration.banking.api.dto.account;
 
 import com.codegeneration.banking.api.entity.Account;
 import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.enums.LimitWindowMode;
+import com.fasterxml.jackson.annotation.JsonFilter;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -9,12 +11,25 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonFilter(AccountDTO.FILTER)
 public class AccountDTO {
+
+    public static final String FILTER = "accountFields";
+
+    /**
+     * Properties that can be selected with the fields parameter of a listing
+     */
+    public static final List<String> FIELDS = List.of("id", "accountNumber", "accountName", "accountType", "balance",
+            "currency", "dailyTransferLimit", "dailyWithdrawalLimit", "singleTransferLimit", "singleWithdrawalLimit",
+            "transferUsedToday", "withdrawalUsedToday", "limitWindowMode", "lastLimitResetDate", "createdAt",
+            "updatedAt");
+
     private Long id;
     private String accountNumber;
     private String accountName;
@@ -27,6 +42,7 @@ public class AccountDTO {
     private BigDecimal singleWithdrawalLimit;
     private BigDecimal transferUsedToday;
     private BigDecimal withdrawalUsedToday;
+    private LimitWindowMode limitWindowMode;
     private String lastLimitResetDate;
     private String createdAt;
     private String updatedAt;
@@ -47,6 +63,7 @@ public class AccountDTO {
                 .singleWithdrawalLimit(account.getSingleWithdrawalLimit())
                 .transferUsedToday(account.getTransferUsedToday())
                 .withdrawalUsedToday(account.getWithdrawalUsedToday())
+                .limitWindowMode(account.getLimitWindowMode())
                 .lastLimitResetDate(account.getLastLimitResetDate().format(formatter))
                 .createdAt(account.getCreatedAt().format(formatter))
                 .updatedAt(account.getUpdatedAt().format(formatter))
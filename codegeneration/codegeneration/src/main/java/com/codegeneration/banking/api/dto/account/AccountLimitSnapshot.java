@@ -0,0 +1,130 @@
+package com.codegeneration.banking.api.dto.account;
+
+import com.codegeneration.banking.api.dto.currency.RateSnapshot;
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.enums.LimitType;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable view of an account's limits normalized to EUR against one rate snapshot.
+ * Limits only change through editLimits, so they are converted once instead of on every ATM or transfer request.
+ * Limits are kept in money units so checks compare longs and allocate nothing.
+ * The limits it was built from are kept to tell whether an account still has them.
+ */
+public final class AccountLimitSnapshot {
+
+    private final RateSnapshot rates;
+    private final Currency currency;
+    private final BigDecimal singleTransferLimit;
+    private final BigDecimal dailyTransferLimit;
+    private final BigDecimal singleWithdrawalLimit;
+    private final BigDecimal dailyWithdrawalLimit;
+    private final long singleTransferLimitEur;
+    private final long dailyTransferLimitEur;
+    private final long singleWithdrawalLimitEur;
+    private final long dailyWithdrawalLimitEur;
+
+    private AccountLimitSnapshot(RateSnapshot rates, Account account) {
+        this.rates = rates;
+        this.currency = account.getCurrency();
+        this.singleTransferLimit = account.getSingleTransferLimit();
+        this.dailyTransferLimit = account.getDailyTransferLimit();
+        this.singleWithdrawalLimit = account.getSingleWithdrawalLimit();
+        this.dailyWithdrawalLimit = account.getDailyWithdrawalLimit();
+        this.singleTransferLimitEur = toEurUnits(Money.toUnits(singleTransferLimit));
+        this.dailyTransferLimitEur = toEurUnits(Money.toUnits(dailyTransferLimit));
+        this.singleWithdrawalLimitEur = toEurUnits(Money.toUnits(singleWithdrawalLimit));
+        this.dailyWithdrawalLimitEur = toEurUnits(Money.toUnits(dailyWithdrawalLimit));
+    }
+
+    /**
+     * Build a snapshot of the account's current limits.
+     *
+     * @param rates Rate snapshot used to normalize the limits and the amounts checked against them
+     */
+    public static AccountLimitSnapshot of(Account account, RateSnapshot rates) {
+        return new AccountLimitSnapshot(rates, account);
+    }
+
+    /**
+     * Convert money units in the account currency to EUR units, rounded like CurrencyExchangeService.convertAmount
+     */
+    public long toEurUnits(long units) {
+        return rates.convertUnits(units, currency, Currency.EUR);
+    }
+
+    /**
+     * Checks an amount against the single transaction limit
+     *
+     * @param type The limit to check
+     * @param amount Amount in the account currency
+     */
+    public boolean isWithinSingleLimit(LimitType type, Money amount) {
+        return toEurUnits(amount.getUnits()) <= singleLimitUnits(type);
+    }
+
+    /**
+     * Checks a window total against the daily limit
+     *
+     * @param type The limit to check
+     * @param totalUnits Usage in the current limit window including the new amount, in account currency units
+     */
+    public boolean isWithinDailyLimit(LimitType type, long totalUnits) {
+        return toEurUnits(totalUnits) <= dailyLimitUnits(type);
+    }
+
+    /**
+     * Checks a transfer against the single and daily transfer limits
+     *
+     * @param amount Transfer amount in the account currency
+     * @param usedToday Transfers already made in the current limit window, in the account currency
+     * @return true if transfer is allowed, false otherwise
+     */
+    public boolean isTransferAllowed(Money amount, Money usedToday) {
+        return isWithinSingleLimit(LimitType.TRANSFER, amount)
+                && isWithinDailyLimit(LimitType.TRANSFER, Math.addExact(usedToday.getUnits(), amount.getUnits()));
+    }
+
+    /**
+     * Whether the account has the currency and limits this snapshot was built from
+     */
+    public boolean hasLimitsOf(Account account) {
+        return currency == account.getCurrency()
+                && sameAmount(singleTransferLimit, account.getSingleTransferLimit())
+                && sameAmount(dailyTransferLimit, account.getDailyTransferLimit())
+                && sameAmount(singleWithdrawalLimit, account.getSingleWithdrawalLimit())
+                && sameAmount(dailyWithdrawalLimit, account.getDailyWithdrawalLimit());
+    }
+
+    public long getRateVersion() {
+        return rates.getVersion();
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public Money getSingleLimitEur(LimitType type) {
+        return Money.ofUnits(singleLimitUnits(type), Currency.EUR);
+    }
+
+    public Money getDailyLimitEur(LimitType type) {
+        return Money.ofUnits(dailyLimitUnits(type), Currency.EUR);
+    }
+
+    private static boolean sameAmount(BigDecimal snapshot, BigDecimal account) {
+        // The same instance unless the account was loaded again, then 5000.00 and 5000.0000 are equal
+        return snapshot == account || (snapshot != null && account != null && snapshot.compareTo(account) == 0);
+    }
+
+    private long singleLimitUnits(LimitType type) {
+        return type == LimitType.TRANSFER ? singleTransferLimitEur : singleWithdrawalLimitEur;
+    }
+
+    private long dailyLimitUnits(LimitType type) {
+        return type == LimitType.TRANSFER ? dailyTransferLimitEur : dailyWithdrawalLimitEur;
+    }
+}
@@ -0,0 +1,23 @@
+package com.codegeneration.banking.api.dto.currency;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for converting many amounts against one rate snapshot
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Batch of amounts to convert")
+public class BatchConversionRequest {
+
+    @Schema(description = "Conversions to perform, results are returned in the same order")
+    private List<CurrencyConversionRequest> conversions;
+}
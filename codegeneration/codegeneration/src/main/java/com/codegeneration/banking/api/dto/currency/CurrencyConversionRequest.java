@@ -0,0 +1,30 @@
+package com.codegeneration.banking.api.dto.currency;
+
+import com.codegeneration.banking.api.enums.Currency;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Single (amount, from, to) tuple of a batch conversion
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Amount to convert between two currencies")
+public class CurrencyConversionRequest {
+
+    @Schema(description = "Amount to convert", example = "100.00")
+    private BigDecimal amount;
+
+    @Schema(description = "Source currency", example = "EUR")
+    private Currency fromCurrency;
+
+    @Schema(description = "Target currency", example = "USD")
+    private Currency toCurrency;
+}
@@ -0,0 +1,173 @@
+package com.codegeneration.banking.api.dto.currency;
+
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.enums.Currency;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable, validated exchange rate table.
+ * A snapshot is published as a whole so every lookup made against it sees one consistent set of rates.
+ * Pairs that are not quoted directly are triangulated through EUR on first use and cached in the snapshot.
+ * Quoted rates are kept to at most 10 decimals, however many a provider sends.
+ */
+public final class RateSnapshot {
+
+    private static final Currency[] CURRENCIES = Currency.values();
+    private static final int SIZE = CURRENCIES.length;
+    private static final int TRIANGULATION_SCALE = 6;
+    // Quoted rates are rounded to this many decimals, the unscaled rate and its power of ten divisor must fit a long
+    private static final int MAX_RATE_SCALE = 10;
+
+    private final long version;
+    private final Instant fetchedAt;
+    private final String source;
+    private final BigDecimal[] quoted;
+    private final AtomicReferenceArray<BigDecimal> resolved;
+    // Unscaled rate and power of ten divisor per pair, so amounts in money units convert without BigDecimal math
+    private final AtomicReferenceArray<long[]> fixedPoint;
+
+    private RateSnapshot(long version, Instant fetchedAt, String source, BigDecimal[] quoted) {
+        this.version = version;
+        this.fetchedAt = fetchedAt;
+        this.source = source;
+        this.quoted = quoted;
+        this.resolved = new AtomicReferenceArray<>(SIZE * SIZE);
+        this.fixedPoint = new AtomicReferenceArray<>(SIZE * SIZE);
+    }
+
+    /**
+     * Build a snapshot from a FROM_TO keyed rate table.
+     *
+     * @throws IllegalArgumentException if a key or rate is invalid, or a currency cannot reach EUR
+     */
+    public static RateSnapshot of(long version, Instant fetchedAt, String source, Map<String, BigDecimal> rates) {
+        BigDecimal[] quoted = new BigDecimal[SIZE * SIZE];
+
+        for (Map.Entry<String, BigDecimal> entry : rates.entrySet()) {
+            String[] pair = entry.getKey().split("_");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid rate key: " + entry.getKey());
+            }
+            Currency from = Currency.valueOf(pair[0].trim());
+            Currency to = Currency.valueOf(pair[1].trim());
+            BigDecimal rate = entry.getValue();
+            if (rate != null && rate.scale() > MAX_RATE_SCALE) {
+                rate = rate.setScale(MAX_RATE_SCALE, RoundingMode.HALF_UP);
+            } else if (rate != null && rate.scale() < 0) {
+                rate = rate.setScale(0);
+            }
+            if (rate == null || rate.signum() <= 0) {
+                throw new IllegalArgumentException("Rate must be positive for " + entry.getKey());
+            }
+            if (rate.unscaledValue().bitLength() >= Long.SIZE) {
+                throw new IllegalArgumentException("Rate out of range for " + entry.getKey() + ": " + rate);
+            }
+            if (from != to) {
+                quoted[index(from, to)] = rate;
+            }
+        }
+
+        RateSnapshot snapshot = new RateSnapshot(version, fetchedAt, source, quoted);
+        for (Currency currency : CURRENCIES) {
+            if (currency != Currency.EUR
+                    && (snapshot.leg(currency, Currency.EUR) == null || snapshot.leg(Currency.EUR, currency) == null)) {
+                throw new IllegalArgumentException("No EUR rate available for " + currency);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Get the rate from one currency to another, triangulating through EUR when the pair is not quoted
+     *
+     * @return The rate, never null for a snapshot built through {@link #of}
+     */
+    public BigDecimal getRate(Currency from, Currency to) {
+        if (from == to) {
+            return BigDecimal.ONE;
+        }
+
+        int index = index(from, to);
+        BigDecimal rate = resolved.get(index);
+        if (rate == null) {
+            rate = quoted[index];
+            if (rate == null) {
+                rate = leg(from, Currency.EUR)
+                        .multiply(leg(Currency.EUR, to))
+                        .setScale(TRIANGULATION_SCALE, RoundingMode.HALF_UP);
+            }
+            resolved.compareAndSet(index, null, rate);
+        }
+        return rate;
+    }
+
+    /**
+     * Convert an amount in money units with the rate of the pair, rounded half up like
+     * CurrencyExchangeService.convertAmount
+     *
+     * @see Money#convertUnits
+     */
+    public long convertUnits(long units, Currency from, Currency to) {
+        if (from == to) {
+            return units;
+        }
+
+        int index = index(from, to);
+        long[] rate = fixedPoint.get(index);
+        if (rate == null) {
+            BigDecimal decimal = getRate(from, to);
+            if (decimal.scale() < 0) {
+                decimal = decimal.setScale(0);
+            }
+            rate = new long[]{
+                    decimal.unscaledValue().longValueExact(),
+                    BigDecimal.TEN.pow(decimal.scale()).longValueExact()
+            };
+            fixedPoint.compareAndSet(index, null, rate);
+        }
+        return Money.convertUnits(units, rate[0], rate[1]);
+    }
+
+    /**
+     * Whether the pair is quoted directly by the provider
+     */
+    public boolean isQuoted(Currency from, Currency to) {
+        return from == to || quoted[index(from, to)] != null;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Direct leg towards or from EUR, falling back to the inverse of the opposite quote
+     */
+    private BigDecimal leg(Currency from, Currency to) {
+        if (from == to) {
+            return BigDecimal.ONE;
+        }
+        BigDecimal direct = quoted[index(from, to)];
+        if (direct != null) {
+            return direct;
+        }
+        BigDecimal inverse = quoted[index(to, from)];
+        return inverse == null ? null : BigDecimal.ONE.divide(inverse, TRIANGULATION_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private static int index(Currency from, Currency to) {
+        return from.ordinal() * SIZE + to.ordinal();
+    }
+}
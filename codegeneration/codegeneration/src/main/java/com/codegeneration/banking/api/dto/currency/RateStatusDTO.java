@@ -0,0 +1,24 @@
+package com.codegeneration.banking.api.dto.currency;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateStatusDTO {
+    private String provider;
+    private long version;
+    private String source;
+    private Instant fetchedAt;
+    private long ageMillis;
+    private double lastRefreshLatencyMillis;
+    private Instant lastAttemptAt;
+    private long refreshFailures;
+    private String lastError;
+}
@@ -0,0 +1,19 @@
+package com.codegeneration.banking.api.dto.ledger;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalanceMismatch {
+    private Long accountId;
+    private String accountNumber;
+    private BigDecimal cachedBalance;
+    private BigDecimal ledgerBalance;
+}
@@ -0,0 +1,24 @@
+package com.codegeneration.banking.api.dto.ledger;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerVerificationResult {
+    private long accountsChecked;
+    // Accounts whose cached balance differs from the sum of their customer legs
+    private List<AccountBalanceMismatch> mismatches;
+    // Transactions whose legs do not balance in one of their currencies
+    private List<Long> unbalancedTransactionIds;
+
+    public boolean isConsistent() {
+        return mismatches.isEmpty() && unbalancedTransactionIds.isEmpty();
+    }
+}
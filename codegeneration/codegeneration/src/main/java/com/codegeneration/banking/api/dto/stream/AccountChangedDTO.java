@@ -0,0 +1,15 @@
+package com.codegeneration.banking.api.dto.stream;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountChangedDTO {
+    private Long accountId;
+    private String change;
+}
@@ -0,0 +1,19 @@
+package com.codegeneration.banking.api.dto.stream;
+
+import com.codegeneration.banking.api.enums.Currency;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceUpdateDTO {
+    private String accountNumber;
+    private BigDecimal balance;
+    private Currency currency;
+}
@@ -0,0 +1,21 @@
+package com.codegeneration.banking.api.dto.stream;
+
+import com.codegeneration.banking.api.dto.transaction.TransactionDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data of a transaction event on the account stream, with the new balances of the accounts of the receiving user
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPostedDTO {
+    private TransactionDTO transaction;
+    private List<BalanceUpdateDTO> balances;
+}
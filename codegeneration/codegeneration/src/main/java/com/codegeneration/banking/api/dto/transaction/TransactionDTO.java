@@ -2,6 +2,8 @@ package com.codegeneration.banking.api.dto.transaction;
 
 import com.codegeneration.banking.api.entity.Transaction;
 import com.codegeneration.banking.api.enums.Currency;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -10,16 +12,33 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonFilter(TransactionDTO.FILTER)
 public class TransactionDTO {
+
+    public static final String FILTER = "transactionFields";
+
+    /**
+     * Properties that can be selected with the fields parameter of a listing
+     */
+    public static final List<String> FIELDS = List.of("id", "transactionReference", "sourceAccount",
+            "destinationAccount", "amount", "currency", "description", "transactionStatus", "transactionType",
+            "createAt", "completedAt", "isCurrencyExchange");
+
     private Long id;
     private String transactionReference;
     private AccountDTO sourceAccount;
     private AccountDTO destinationAccount;
+    // Set instead of the accounts in the normalized shape of a listing
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long sourceAccountId;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long destinationAccountId;
     private BigDecimal amount;
     private Currency currency;
     private String description;
@@ -1,11 +1,14 @@
 package com.codegeneration.banking.api.dto.transaction;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -13,4 +16,33 @@ import java.util.List;
 @AllArgsConstructor
 public class TransactionResponse {
     private List<TransactionDTO> transactions;
-}
\ No newline at end of file
+
+    /**
+     * Accounts by id in the normalized shape, the transactions only reference them
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<Long, TransactionDTO.AccountDTO> accounts;
+
+    /**
+     * Response in the normalized shape: every account is written once instead of with every transaction it is in
+     */
+    public static TransactionResponse normalized(List<TransactionDTO> transactions) {
+        Map<Long, TransactionDTO.AccountDTO> accounts = new LinkedHashMap<>();
+        for (TransactionDTO transaction : transactions) {
+            if (transaction.getSourceAccount() != null) {
+                transaction.setSourceAccountId(transaction.getSourceAccount().getId());
+                accounts.putIfAbsent(transaction.getSourceAccountId(), transaction.getSourceAccount());
+                transaction.setSourceAccount(null);
+            }
+            if (transaction.getDestinationAccount() != null) {
+                transaction.setDestinationAccountId(transaction.getDestinationAccount().getId());
+                accounts.putIfAbsent(transaction.getDestinationAccountId(), transaction.getDestinationAccount());
+                transaction.setDestinationAccount(null);
+            }
+        }
+        return TransactionResponse.builder()
+                .transactions(transactions)
+                .accounts(accounts)
+                .build();
+    }
+}
@@ -0,0 +1,35 @@
+package com.codegeneration.banking.api.dto.user;
+
+import com.codegeneration.banking.api.entity.User;
+import com.codegeneration.banking.api.enums.UserRole;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user as the employee directory lists them, without their accounts
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDirectoryEntryDTO {
+    private Long id;
+    private String username;
+    private String name;
+    private String email;
+    private UserRole role;
+    private boolean enabled;
+
+    public static UserDirectoryEntryDTO fromEntity(User user) {
+        return UserDirectoryEntryDTO.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .name(user.getName())
+                .email(user.getEmail())
+                .role(user.getRole())
+                .enabled(user.isEnabled())
+                .build();
+    }
+}
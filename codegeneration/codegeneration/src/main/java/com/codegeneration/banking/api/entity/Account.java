@@ -1,8 +1,10 @@
 package com.codegeneration.banking.api.entity;
 
 import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.enums.LimitWindowMode;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -28,8 +30,11 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 public class Account {
 
+    // Pooled sequence ids let Hibernate batch inserts, the column default numbers rows inserted with plain JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_seq")
+    @SequenceGenerator(name = "accounts_seq", sequenceName = "accounts_seq", allocationSize = 50)
+    @ColumnDefault("next value for accounts_seq")
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -42,7 +47,8 @@ public class Account {
     private boolean disabled = false;
 
     @Column(nullable = false)
-    private String accountType;    @Column(nullable = false, precision = 19, scale = 4)
+    private String accountType;    // Balance changes go through the conditional debit/credit updates, never through entity updates
+    @Column(nullable = false, precision = 19, scale = 4, updatable = false)
     @Builder.Default
     private BigDecimal balance = BigDecimal.ZERO;    @Column(nullable = false)
     @Builder.Default
@@ -57,14 +63,36 @@ public class Account {
     private BigDecimal singleTransferLimit = new BigDecimal("3000.00");    @Column(nullable = false, precision = 19, scale = 4)
     @Builder.Default
     private BigDecimal singleWithdrawalLimit = new BigDecimal("500.00");    // Current period usage tracking
-    @Column(nullable = false, precision = 19, scale = 4)
+    // Usage columns are written by UsageCounterService in batches, never by entity updates
+    @Column(nullable = false, precision = 19, scale = 4, updatable = false)
     @Builder.Default
-    private BigDecimal transferUsedToday = BigDecimal.ZERO;    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal transferUsedToday = BigDecimal.ZERO;    @Column(nullable = false, precision = 19, scale = 4, updatable = false)
     @Builder.Default
-    private BigDecimal withdrawalUsedToday = BigDecimal.ZERO;    @Column(nullable = false)
+    private BigDecimal withdrawalUsedToday = BigDecimal.ZERO;    @Column(nullable = false, updatable = false)
     @Builder.Default
     private LocalDateTime lastLimitResetDate = LocalDateTime.now();
 
+    @Enumerated(EnumType.STRING)
+    @Column
+    @Builder.Default
+    private LimitWindowMode limitWindowMode = LimitWindowMode.CALENDAR_DAY;
+
+    // Hourly usage buckets for the rolling window, written by UsageCounterService in both modes so switching loses no
+    // history, and read back by it when it first uses the account after a restart
+    @Convert(converter = UsageWindowConverter.class)
+    @Column(length = 256, updatable = false)
+    @Builder.Default
+    private UsageWindow transferWindow = UsageWindow.empty();
+
+    @Convert(converter = UsageWindowConverter.class)
+    @Column(length = 256, updatable = false)
+    @Builder.Default
+    private UsageWindow withdrawalWindow = UsageWindow.empty();
+
+    // When UsageCounterService last wrote the usage columns and windows, null if it never did
+    @Column(updatable = false)
+    private LocalDateTime usageFlushedAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonBackReference   // This pairs with @JsonManagedReference on User.accounts
@@ -107,56 +135,36 @@ public class Account {
     }
 
     /**
-     * Checks if a transfer amount is within limits
+     * Transfers counted against the daily transfer limit in the account's window mode
      *
-     * @param amount Transfer amount
-     * @return true if transfer is allowed, false otherwise
+     * @return Usage of the current calendar day or of the last 24 hours
      */
-    public boolean isTransferAllowed(BigDecimal amount) {
-        resetDailyLimitsIfNeeded();
-
-        if (amount.compareTo(singleTransferLimit) > 0) {
-            return false;
+    public BigDecimal transferUsedInWindow() {
+        if (isRollingWindow()) {
+            return usageWindow(transferWindow).total(System.currentTimeMillis());
         }
-
-        BigDecimal newTotal = transferUsedToday.add(amount);
-        return newTotal.compareTo(dailyTransferLimit) <= 0;
+        resetDailyLimitsIfNeeded();
+        return transferUsedToday;
     }
 
     /**
-     * Checks if a withdrawal amount is within limits
+     * Withdrawals counted against the daily withdrawal limit in the account's window mode
      *
-     * @param amount Withdrawal amount
-     * @return true if withdrawal is allowed, false otherwise
+     * @return Usage of the current calendar day or of the last 24 hours
      */
-    public boolean isWithdrawalAllowed(BigDecimal amount) {
-        resetDailyLimitsIfNeeded();
-
-        if (amount.compareTo(singleWithdrawalLimit) > 0) {
-            return false;
+    public BigDecimal withdrawalUsedInWindow() {
+        if (isRollingWindow()) {
+            return usageWindow(withdrawalWindow).total(System.currentTimeMillis());
         }
-
-        BigDecimal newTotal = withdrawalUsedToday.add(amount);
-        return newTotal.compareTo(dailyWithdrawalLimit) <= 0;
+        resetDailyLimitsIfNeeded();
+        return withdrawalUsedToday;
     }
 
-    /**
-     * Updates the transfer used amount for today
-     *
-     * @param amount Transfer amount
-     */
-    public void updateTransferUsed(BigDecimal amount) {
-        resetDailyLimitsIfNeeded();
-        transferUsedToday = transferUsedToday.add(amount);
+    private boolean isRollingWindow() {
+        return limitWindowMode == LimitWindowMode.ROLLING_24H;
     }
 
-    /**
-     * Updates the withdrawal used amount for today
-     *
-     * @param amount Withdrawal amount
-     */
-    public void updateWithdrawalUsed(BigDecimal amount) {
-        resetDailyLimitsIfNeeded();
-        withdrawalUsedToday = withdrawalUsedToday.add(amount);
+    private static UsageWindow usageWindow(UsageWindow window) {
+        return window == null ? UsageWindow.empty() : window;
     }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.codegeneration.banking.api.entity;
+
+import com.codegeneration.banking.api.enums.Currency;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+/**
+ * Amount of money held as a whole number of units of 0.0001 plus its currency.
+ * The scale matches the NUMERIC(19, 4) money columns, so amounts read from or written to them round-trip exactly.
+ * Arithmetic stays in long and throws ArithmeticException on overflow instead of losing precision.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 4;
+
+    private final long units;
+    private final Currency currency;
+
+    private Money(long units, Currency currency) {
+        this.units = units;
+        this.currency = Objects.requireNonNull(currency, "currency");
+    }
+
+    /**
+     * Create money from a decimal amount, rounded half up to the money scale
+     *
+     * @throws ArithmeticException if the amount does not fit in a long number of units
+     */
+    public static Money of(BigDecimal amount, Currency currency) {
+        return new Money(toUnits(amount), currency);
+    }
+
+    public static Money ofUnits(long units, Currency currency) {
+        return new Money(units, currency);
+    }
+
+    public static Money zero(Currency currency) {
+        return new Money(0, currency);
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(units, other.units), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(units, other.units), currency);
+    }
+
+    public boolean isGreaterThan(Money other) {
+        return compareTo(other) > 0;
+    }
+
+    public boolean isNegative() {
+        return units < 0;
+    }
+
+    /**
+     * Convert to another currency, rounded half up to the money scale like CurrencyExchangeService.convertAmount
+     *
+     * @param target Currency of the result
+     * @param rateUnscaled Rate as an unscaled integer, 1.08 is 108
+     * @param rateDivisor Power of ten the unscaled rate is divided by, 100 for 1.08
+     */
+    public Money convert(Currency target, long rateUnscaled, long rateDivisor) {
+        return new Money(convertUnits(units, rateUnscaled, rateDivisor), target);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return fromUnits(units);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(units, other.units);
+    }
+
+    /**
+     * Convert a decimal amount to whole units of 0.0001, rounding half up
+     *
+     * @throws ArithmeticException if the amount does not fit in a long number of units
+     */
+    public static long toUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).scaleByPowerOfTen(SCALE).longValueExact();
+    }
+
+    /**
+     * Convert whole units of 0.0001 back to a decimal amount at the money scale
+     */
+    public static BigDecimal fromUnits(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    /**
+     * Multiply units by a fixed point rate and round half up to whole units, without allocating unless the product
+     * overflows a long
+     */
+    public static long convertUnits(long units, long rateUnscaled, long rateDivisor) {
+        long product;
+        try {
+            product = Math.multiplyExact(units, rateUnscaled);
+        } catch (ArithmeticException e) {
+            return BigDecimal.valueOf(units)
+                    .multiply(BigDecimal.valueOf(rateUnscaled))
+                    .divide(BigDecimal.valueOf(rateDivisor), 0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        }
+        long quotient = product / rateDivisor;
+        long remainder = product % rateDivisor;
+        if (Math.abs(remainder) * 2 >= rateDivisor) {
+            quotient += Long.signum(product);
+        }
+        return quotient;
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (currency != other.currency) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money other)) {
+            return false;
+        }
+        return units == other.units && currency == other.currency;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(units) + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+}
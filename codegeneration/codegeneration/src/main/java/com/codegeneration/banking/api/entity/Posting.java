@@ -0,0 +1,65 @@
+package com.codegeneration.banking.api.entity;
+
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.enums.LedgerAccount;
+import com.codegeneration.banking.api.enums.PostingSide;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One leg of a double-entry posting. The legs of a transaction balance per currency: their debits add up to their
+ * credits. The credits minus the debits of an account's customer legs are its balance, Account.balance caches that
+ * total and is updated in the same database transaction as the legs.
+ */
+@Entity
+@Table(
+        name = "postings",
+        indexes = {
+                @Index(name = "idx_posting_account", columnList = "account_id"),
+                @Index(name = "idx_posting_transaction", columnList = "transaction_id")
+        }
+)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class Posting {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Empty for opening balances, which have no transaction
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "transaction_id")
+    private Transaction transaction;
+
+    // Only set on customer legs
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id")
+    private Account account;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private LedgerAccount ledger;
+
+    @Column(nullable = false, length = 6)
+    @Enumerated(EnumType.STRING)
+    private PostingSide side;
+
+    @Column(nullable = false)
+    private Currency currency;
+
+    // Always positive, the side gives the direction
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -7,6 +7,7 @@ package com.codegeneration.banking.api.entity;
 
 import com.codegeneration.banking.api.enums.Currency;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -37,8 +38,11 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 public class Transaction {
+    // Pooled sequence ids let Hibernate batch inserts, the column default numbers rows inserted with plain JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
+    @ColumnDefault("next value for transactions_seq")
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -0,0 +1,184 @@
+package com.codegeneration.banking.api.entity;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Usage over the last 24 hours, kept as a ring of hourly buckets indexed by epoch hour.
+ * Amounts are stored as {@link Money} units of 0.0001, matching the scale of the account columns.
+ * Instances are immutable, {@link #add} returns a new window so Hibernate sees the change on the owning entity.
+ */
+public final class UsageWindow {
+
+    public static final int HOURS = 24;
+
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    private static final byte FORMAT_VERSION = 1;
+    // Version, newest hour and slot count, then age and units per live slot
+    private static final int HEADER_BYTES = 1 + Long.BYTES + 1;
+    private static final int SLOT_BYTES = 1 + Long.BYTES;
+    private static final UsageWindow EMPTY = new UsageWindow(new long[HOURS], new long[HOURS]);
+
+    // Epoch hour each slot currently holds, slot = hour % HOURS
+    private final long[] hours;
+    private final long[] units;
+
+    private UsageWindow(long[] hours, long[] units) {
+        this.hours = hours;
+        this.units = units;
+    }
+
+    public static UsageWindow empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Build a window from bucket contents, slots whose hour does not map to their index are ignored
+     *
+     * @param hours Epoch hour held by each slot
+     * @param units Usage of each slot in units of 0.0001
+     */
+    public static UsageWindow of(long[] hours, long[] units) {
+        long[] newHours = new long[HOURS];
+        long[] newUnits = new long[HOURS];
+        for (int i = 0; i < HOURS; i++) {
+            if (hours[i] % HOURS == i) {
+                newHours[i] = hours[i];
+                newUnits[i] = units[i];
+            }
+        }
+        return new UsageWindow(newHours, newUnits);
+    }
+
+    /**
+     * Record usage in the bucket of the given time, replacing whatever the slot held 24 hours earlier
+     *
+     * @param amount Amount used (positive value)
+     * @param epochMillis Time of the usage
+     * @return Window including the usage
+     */
+    public UsageWindow add(BigDecimal amount, long epochMillis) {
+        long hour = hourOf(epochMillis);
+        int slot = (int) (hour % HOURS);
+        long[] newHours = hours.clone();
+        long[] newUnits = units.clone();
+        if (newHours[slot] != hour) {
+            newHours[slot] = hour;
+            newUnits[slot] = 0;
+        }
+        newUnits[slot] = Math.addExact(newUnits[slot], Money.toUnits(amount));
+        return new UsageWindow(newHours, newUnits);
+    }
+
+    /**
+     * Sum of the buckets for the current hour and the 23 hours before it
+     *
+     * @param epochMillis Current time
+     * @return Usage in the window
+     */
+    public BigDecimal total(long epochMillis) {
+        long hour = hourOf(epochMillis);
+        long sum = 0;
+        for (int i = 0; i < HOURS; i++) {
+            if (units[i] != 0 && hour - hours[i] < HOURS && hours[i] <= hour) {
+                sum += units[i];
+            }
+        }
+        return Money.fromUnits(sum);
+    }
+
+    /**
+     * Usage recorded in one epoch hour
+     *
+     * @return Units of 0.0001, 0 if the slot of the hour holds another hour
+     */
+    public long unitsOf(long hour) {
+        int slot = (int) (hour % HOURS);
+        return hours[slot] == hour ? units[slot] : 0;
+    }
+
+    /**
+     * Compact binary form: version, newest hour, slot count, then per live slot its age in hours and its units
+     */
+    public byte[] toBytes() {
+        long newest = 0;
+        for (long hour : hours) {
+            newest = Math.max(newest, hour);
+        }
+        int live = 0;
+        for (int i = 0; i < HOURS; i++) {
+            if (isLive(i, newest)) {
+                live++;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + live * SLOT_BYTES);
+        buffer.put(FORMAT_VERSION).putLong(newest).put((byte) live);
+        for (int i = 0; i < HOURS; i++) {
+            if (isLive(i, newest)) {
+                buffer.put((byte) (newest - hours[i])).putLong(units[i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Read a window written by {@link #toBytes}
+     *
+     * @throws IllegalArgumentException if the data is not a usage window
+     */
+    public static UsageWindow fromBytes(byte[] data) {
+        if (data == null || data.length == 0) {
+            return EMPTY;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (buffer.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported usage window format");
+        }
+        if (data.length < HEADER_BYTES) {
+            throw new IllegalArgumentException("Usage window data is truncated");
+        }
+        long newest = buffer.getLong();
+        int live = buffer.get();
+        if (live < 0 || live > HOURS || data.length != HEADER_BYTES + live * SLOT_BYTES) {
+            throw new IllegalArgumentException("Usage window data has the wrong length");
+        }
+        long[] hours = new long[HOURS];
+        long[] units = new long[HOURS];
+        for (int i = 0; i < live; i++) {
+            long hour = newest - buffer.get();
+            int slot = (int) (hour % HOURS);
+            hours[slot] = hour;
+            units[slot] = buffer.getLong();
+        }
+        return new UsageWindow(hours, units);
+    }
+
+    private boolean isLive(int slot, long newest) {
+        return units[slot] != 0 && newest - hours[slot] < HOURS;
+    }
+
+    /**
+     * Epoch hour a point in time falls in, the index space of the buckets
+     */
+    public static long hourOf(long epochMillis) {
+        return epochMillis / MILLIS_PER_HOUR;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UsageWindow other)) {
+            return false;
+        }
+        return Arrays.equals(hours, other.hours) && Arrays.equals(units, other.units);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(hours) + Arrays.hashCode(units);
+    }
+}
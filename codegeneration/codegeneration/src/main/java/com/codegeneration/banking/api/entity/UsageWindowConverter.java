@@ -0,0 +1,21 @@
+package com.codegeneration.banking.api.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a {@link UsageWindow} in a single binary column, at most 226 bytes for a full window
+ */
+@Converter
+public class UsageWindowConverter implements AttributeConverter<UsageWindow, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(UsageWindow window) {
+        return window == null ? null : window.toBytes();
+    }
+
+    @Override
+    public UsageWindow convertToEntityAttribute(byte[] data) {
+        return UsageWindow.fromBytes(data);
+    }
+}
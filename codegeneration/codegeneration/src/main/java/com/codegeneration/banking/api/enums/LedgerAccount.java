@@ -0,0 +1,16 @@
+package com.codegeneration.banking.api.enums;
+
+/**
+ * The ledger side of a posting leg. Customer legs belong to an account, the bank's own ledgers take the other side of
+ * money entering or leaving customer accounts.
+ */
+public enum LedgerAccount {
+    // A customer account, the leg references it
+    CUSTOMER,
+    // Cash paid in and out at ATMs
+    ATM_CASH,
+    // Currency bought and sold by cross-currency transfers
+    FX_POSITION,
+    // Balances that existed before the account's first posting
+    OPENING_BALANCE
+}
@@ -0,0 +1,11 @@
+package com.codegeneration.banking.api.enums;
+
+/**
+ * Daily limit a posting is counted against
+ */
+public enum LimitType {
+    // Transfers and ATM deposits
+    TRANSFER,
+    // ATM withdrawals
+    WITHDRAWAL
+}
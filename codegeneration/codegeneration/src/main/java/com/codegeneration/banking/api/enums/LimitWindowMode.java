@@ -0,0 +1,11 @@
+package com.codegeneration.banking.api.enums;
+
+/**
+ * How daily transfer and withdrawal usage is counted against an account's limits
+ */
+public enum LimitWindowMode {
+    // Usage resets at the first check after midnight following the last reset
+    CALENDAR_DAY,
+    // Usage is the sum of the last 24 hourly buckets
+    ROLLING_24H
+}
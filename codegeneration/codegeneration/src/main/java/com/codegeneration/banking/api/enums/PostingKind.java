@@ -0,0 +1,11 @@
+package com.codegeneration.banking.api.enums;
+
+/**
+ * The operation a ledger journal posting comes from, stored as its ordinal so the order must not change
+ */
+public enum PostingKind {
+    TRANSFER_DEBIT,
+    TRANSFER_CREDIT,
+    DEPOSIT,
+    WITHDRAWAL
+}
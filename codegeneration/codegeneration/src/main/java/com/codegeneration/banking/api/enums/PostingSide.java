@@ -0,0 +1,9 @@
+package com.codegeneration.banking.api.enums;
+
+/**
+ * Side of a posting leg, a credit raises a customer balance and a debit lowers it
+ */
+public enum PostingSide {
+    DEBIT,
+    CREDIT
+}
@@ -0,0 +1,146 @@
+package com.codegeneration.banking.api.events;
+
+import com.codegeneration.banking.api.entity.Transaction.TransactionType;
+import com.codegeneration.banking.api.enums.Currency;
+import lombok.Getter;
+
+/**
+ * A slot of the {@link DomainEventBus} ring, reused for every event that lands on it. Listeners get a copy owned by
+ * their consumer thread that is overwritten with the next event, so they must copy out what they keep.
+ * <p>
+ * Amounts and balances are {@link com.codegeneration.banking.api.entity.Money} units. A leg that does not exist, like
+ * the debit of an ATM deposit, has the currency null.
+ */
+@Getter
+public final class DomainEvent {
+
+    public enum Type {
+        /** A transfer or ATM transaction committed and changed the balances of its accounts */
+        TRANSACTION_POSTED,
+        /** An account was opened, disabled or got new limits, its balance is unchanged */
+        ACCOUNT_CHANGED
+    }
+
+    public enum AccountChange {
+        OPENED,
+        DISABLED,
+        LIMITS_CHANGED
+    }
+
+    /**
+     * Position in the stream, ascending in commit order for every account
+     */
+    private long sequence;
+    private Type type;
+    private long timestamp;
+
+    private long transactionId;
+    private String transactionReference;
+    private TransactionType transactionType;
+    private long sourceAccountId;
+    private long destinationAccountId;
+    private long sourceUserId;
+    private long destinationUserId;
+    private long debitUnits;
+    private Currency debitCurrency;
+    private long creditUnits;
+    private Currency creditCurrency;
+    private long sourceBalanceUnits;
+    private long destinationBalanceUnits;
+
+    private long accountId;
+    private long userId;
+    private AccountChange accountChange;
+
+    /**
+     * Fill the slot with a posted transaction
+     */
+    public DomainEvent transactionPosted(long transactionId, String transactionReference, TransactionType transactionType,
+                                         long sourceAccountId, long destinationAccountId,
+                                         long sourceUserId, long destinationUserId,
+                                         long debitUnits, Currency debitCurrency, long creditUnits, Currency creditCurrency,
+                                         long sourceBalanceUnits, long destinationBalanceUnits) {
+        clear(Type.TRANSACTION_POSTED);
+        this.transactionId = transactionId;
+        this.transactionReference = transactionReference;
+        this.transactionType = transactionType;
+        this.sourceAccountId = sourceAccountId;
+        this.destinationAccountId = destinationAccountId;
+        this.sourceUserId = sourceUserId;
+        this.destinationUserId = destinationUserId;
+        this.debitUnits = debitUnits;
+        this.debitCurrency = debitCurrency;
+        this.creditUnits = creditUnits;
+        this.creditCurrency = creditCurrency;
+        this.sourceBalanceUnits = sourceBalanceUnits;
+        this.destinationBalanceUnits = destinationBalanceUnits;
+        return this;
+    }
+
+    /**
+     * Fill the slot with a changed account
+     */
+    public DomainEvent accountChanged(long accountId, long userId, AccountChange accountChange) {
+        clear(Type.ACCOUNT_CHANGED);
+        this.accountId = accountId;
+        this.userId = userId;
+        this.accountChange = accountChange;
+        return this;
+    }
+
+    /**
+     * Whether the event changes the given account
+     */
+    public boolean concerns(long account) {
+        return type == Type.TRANSACTION_POSTED
+                ? sourceAccountId == account || destinationAccountId == account
+                : accountId == account;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    void copyFrom(DomainEvent other) {
+        sequence = other.sequence;
+        type = other.type;
+        timestamp = other.timestamp;
+        transactionId = other.transactionId;
+        transactionReference = other.transactionReference;
+        transactionType = other.transactionType;
+        sourceAccountId = other.sourceAccountId;
+        destinationAccountId = other.destinationAccountId;
+        sourceUserId = other.sourceUserId;
+        destinationUserId = other.destinationUserId;
+        debitUnits = other.debitUnits;
+        debitCurrency = other.debitCurrency;
+        creditUnits = other.creditUnits;
+        creditCurrency = other.creditCurrency;
+        sourceBalanceUnits = other.sourceBalanceUnits;
+        destinationBalanceUnits = other.destinationBalanceUnits;
+        accountId = other.accountId;
+        userId = other.userId;
+        accountChange = other.accountChange;
+    }
+
+    private void clear(Type type) {
+        this.type = type;
+        this.timestamp = System.currentTimeMillis();
+        transactionId = 0;
+        transactionReference = null;
+        transactionType = null;
+        sourceAccountId = 0;
+        destinationAccountId = 0;
+        sourceUserId = 0;
+        destinationUserId = 0;
+        debitUnits = 0;
+        debitCurrency = null;
+        creditUnits = 0;
+        creditCurrency = null;
+        sourceBalanceUnits = 0;
+        destinationBalanceUnits = 0;
+        accountId = 0;
+        userId = 0;
+        accountChange = null;
+    }
+}
@@ -0,0 +1,302 @@
+package com.codegeneration.banking.api.events;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands domain events from the threads that commit them to any number of subscribers over a ring of preallocated
+ * {@link DomainEvent} slots, so publishing allocates nothing and never waits for a subscriber.
+ * <p>
+ * A producer claims the next sequence, fills the slot of that sequence and then publishes or cancels it. Claiming may
+ * happen well before publishing: a transaction claims while it still holds its row locks and publishes once it has
+ * committed. Every subscriber has a consumer thread of its own that reads the slots in sequence order, takes
+ * everything published so far as one batch of at most maxBatch events and skips cancelled slots.
+ * <p>
+ * Ordering: all subscribers see the events in the same order, the order in which they were claimed. Two transactions
+ * that change the same account hold its row lock from the change until the commit, so the one that commits first also
+ * claims first, and the events of one account arrive in commit order. A slot that is claimed but not yet published
+ * holds up the events behind it until its transaction has completed.
+ * <p>
+ * Nothing waits for a slow subscriber. Once the producers are a whole ring ahead of a consumer they overwrite the slots
+ * it has not read yet, the consumer notices, skips to the oldest event still in the ring and tells its listener how
+ * many events it lost. A producer only waits for the producer of the same slot one lap earlier to publish.
+ */
+@Slf4j
+public final class DomainEventBus implements AutoCloseable {
+
+    private static final long IN_PROGRESS = Long.MIN_VALUE;
+    private static final long IDLE_PARK_NANOS = 50_000;
+    private static final int SPINS_BEFORE_PARK = 100;
+
+    private final Slot[] ring;
+    private final int mask;
+    private final int maxBatch;
+    private final AtomicLong claimed = new AtomicLong();
+    private final LongAdder published = new LongAdder();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean running = true;
+
+    /**
+     * @param capacity Slots in the ring, a power of two. A consumer may fall this many events behind before it loses any.
+     * @param maxBatch Events a consumer takes at most before it calls its listener with endOfBatch
+     */
+    public DomainEventBus(int capacity, int maxBatch) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1 || maxBatch <= 0) {
+            throw new IllegalArgumentException("Capacity must be a power of two and the batch size positive");
+        }
+        this.ring = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            // As if the lap before the first had been published, so the first claims need not wait
+            ring[i] = new Slot(i - capacity);
+        }
+        this.mask = capacity - 1;
+        this.maxBatch = maxBatch;
+    }
+
+    /**
+     * Start a consumer thread for the listener. It receives the events claimed from now on.
+     */
+    public Subscription subscribe(String name, DomainEventListener listener) {
+        if (!running) {
+            throw new IllegalStateException("Event bus is closed");
+        }
+        Subscription subscription = new Subscription(name, listener, claimed.get());
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    /**
+     * Reserve the next sequence. The slot has to be filled through {@link #get(long)} and then published or cancelled,
+     * until then no subscriber gets past it.
+     */
+    public long claim() {
+        long sequence = claimed.getAndIncrement();
+        Slot slot = ring[index(sequence)];
+        long previous = sequence - ring.length;
+        for (int spins = 0; slot.published != previous; spins++) {
+            if (spins < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        slot.published = IN_PROGRESS;
+        // Consumers must see the slot as in progress before any of the new values
+        VarHandle.storeStoreFence();
+        slot.event.setSequence(sequence);
+        return sequence;
+    }
+
+    /**
+     * The slot of a claimed sequence, to be filled before it is published
+     */
+    public DomainEvent get(long sequence) {
+        return ring[index(sequence)].event;
+    }
+
+    /**
+     * Hand a claimed and filled slot to the subscribers
+     */
+    public void publish(long sequence) {
+        complete(sequence, false);
+        published.increment();
+    }
+
+    /**
+     * Give a claimed slot up, subscribers skip it
+     */
+    public void cancel(long sequence) {
+        complete(sequence, true);
+    }
+
+    /**
+     * Number of events published so far
+     */
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    public List<Subscription> getSubscriptions() {
+        return List.copyOf(subscriptions);
+    }
+
+    /**
+     * Stop the consumers once they have handled what is published, events published after this reach nobody
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Subscription subscription : subscriptions) {
+            try {
+                subscription.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void complete(long sequence, boolean cancelled) {
+        Slot slot = ring[index(sequence)];
+        slot.cancelled = cancelled;
+        slot.published = sequence;
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence & mask);
+    }
+
+    private static final class Slot {
+
+        final DomainEvent event = new DomainEvent();
+        /** Sequence of the event in the slot once published, IN_PROGRESS while a producer owns it */
+        volatile long published;
+        boolean cancelled;
+
+        Slot(long published) {
+            this.published = published;
+        }
+    }
+
+    /**
+     * A listener and the consumer thread that feeds it
+     */
+    public final class Subscription {
+
+        private final String name;
+        private final DomainEventListener listener;
+        private final Thread thread;
+        // Only the consumer thread writes these
+        private volatile long cursor;
+        private volatile long delivered;
+        private volatile long lost;
+
+        // The consumer reads into one copy while the listener may still get the other as the last of the batch
+        private DomainEvent current = new DomainEvent();
+        private DomainEvent pending = new DomainEvent();
+        private boolean hasPending;
+
+        private Subscription(String name, DomainEventListener listener, long cursor) {
+            this.name = name;
+            this.listener = listener;
+            this.cursor = cursor;
+            this.thread = new Thread(this::run, "events-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Events handed to the listener
+         */
+        public long getDeliveredCount() {
+            return delivered;
+        }
+
+        /**
+         * Events overwritten before the consumer read them
+         */
+        public long getLostCount() {
+            return lost;
+        }
+
+        /**
+         * Claimed events the consumer has not read yet
+         */
+        public long getLag() {
+            return Math.max(0, claimed.get() - cursor);
+        }
+
+        private void run() {
+            while (true) {
+                boolean stopping = !running;
+                if (drain() == 0) {
+                    if (stopping) {
+                        return;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        }
+
+        /**
+         * Hand one batch to the listener
+         *
+         * @return Number of sequences the consumer moved past
+         */
+        private long drain() {
+            long start = cursor;
+            long sequence = start;
+            while (sequence < start + maxBatch) {
+                Slot slot = ring[index(sequence)];
+                long state = slot.published;
+                if (state != sequence) {
+                    if (state != IN_PROGRESS && state > sequence) {
+                        return skipLapped(start, sequence);
+                    }
+                    // Not published yet
+                    break;
+                }
+                boolean cancelled = slot.cancelled;
+                current.copyFrom(slot.event);
+                // The copy is only valid if no producer took the slot over while it was read
+                VarHandle.acquireFence();
+                if (slot.published != sequence) {
+                    return skipLapped(start, sequence);
+                }
+                if (!cancelled) {
+                    if (hasPending) {
+                        deliver(pending, false);
+                    }
+                    DomainEvent read = current;
+                    current = pending;
+                    pending = read;
+                    hasPending = true;
+                }
+                sequence++;
+            }
+            flush();
+            cursor = sequence;
+            return sequence - start;
+        }
+
+        private long skipLapped(long start, long sequence) {
+            flush();
+            // Every slot before this one has been claimed again since
+            long resume = Math.max(sequence + 1, claimed.get() - ring.length);
+            lost += resume - sequence;
+            cursor = resume;
+            try {
+                listener.onEventsLost(resume - sequence);
+            } catch (RuntimeException e) {
+                log.warn("Event listener {} failed on lost events", name, e);
+            }
+            return resume - start;
+        }
+
+        private void flush() {
+            if (hasPending) {
+                hasPending = false;
+                deliver(pending, true);
+            }
+        }
+
+        private void deliver(DomainEvent event, boolean endOfBatch) {
+            try {
+                listener.onEvent(event, endOfBatch);
+            } catch (RuntimeException e) {
+                log.warn("Event listener {} failed on event {}", name, event.getSequence(), e);
+            }
+            delivered++;
+        }
+    }
+}
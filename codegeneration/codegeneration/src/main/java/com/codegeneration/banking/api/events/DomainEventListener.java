@@ -0,0 +1,25 @@
+package com.codegeneration.banking.api.events;
+
+/**
+ * Subscriber of the {@link DomainEventBus}. Every listener is called from a consumer thread of its own, one event at a
+ * time and in sequence order.
+ */
+@FunctionalInterface
+public interface DomainEventListener {
+
+    /**
+     * Handle one event. Work that can be shared, like writing a batch, is best done when endOfBatch is set: it marks
+     * the last event of what the consumer took in one go, either everything published so far or maxBatch events.
+     *
+     * @param event Valid until this method returns
+     * @param endOfBatch Whether this is the last event of the batch
+     */
+    void onEvent(DomainEvent event, boolean endOfBatch);
+
+    /**
+     * Called when the consumer fell more than the ring size behind and the given number of events were overwritten
+     * before it could read them. State derived from the stream, like a cached balance, has to be rebuilt.
+     */
+    default void onEventsLost(long count) {
+    }
+}
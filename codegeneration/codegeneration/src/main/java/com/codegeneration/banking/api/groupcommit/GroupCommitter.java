@@ -0,0 +1,232 @@
+package com.codegeneration.banking.api.groupcommit;
+
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Funnels requests from many threads into one writer thread that applies them many per database transaction, so the
+ * commit cost is shared by the whole batch instead of paid by every request.
+ * <p>
+ * The writer takes the first queued request, keeps collecting until the window has passed or the batch is full, and
+ * applies the batch in one transaction. Every request is applied behind its own savepoint: a request that throws is
+ * rolled back and fails alone while the rest of the batch commits. If the batch as a whole cannot be written or
+ * committed, every request in it is retried in a transaction of its own. Callers block until their batch has
+ * committed, so a returned result is durable in the same way as a regular commit.
+ *
+ * @param <T> Request type
+ * @param <R> Result type
+ */
+public final class GroupCommitter<T, R> implements AutoCloseable {
+
+    /**
+     * What the writer does with a batch. Both methods run in the batch transaction on the writer thread.
+     */
+    public interface BatchHandler<T, R> {
+
+        /**
+         * Apply one request. Throwing fails only this request, its changes are rolled back to its savepoint.
+         */
+        void apply(T request);
+
+        /**
+         * Write what the applied requests share, for example their inserts as one JDBC batch
+         *
+         * @return The result of every applied request, in the same order
+         */
+        List<R> complete(List<T> applied);
+    }
+
+    private static final long IDLE_POLL_MS = 100;
+
+    private final BlockingQueue<Pending<T, R>> queue;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchHandler<T, R> handler;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final Thread writer;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private volatile boolean running = true;
+
+    /**
+     * Start the writer thread
+     *
+     * @param name Name of the writer thread
+     * @param transactionTemplate Transactions of the connection the writer owns, it must support savepoints
+     * @param windowNanos How long the writer waits for more requests after the first one, 0 takes what is queued
+     * @param maxBatch Requests per transaction at most
+     * @param queueCapacity Requests waiting at most, submitting blocks while the queue is full
+     */
+    public GroupCommitter(String name, TransactionTemplate transactionTemplate, BatchHandler<T, R> handler,
+                          long windowNanos, int maxBatch, int queueCapacity) {
+        if (maxBatch <= 0 || queueCapacity <= 0 || windowNanos < 0) {
+            throw new IllegalArgumentException("Batch size and queue capacity must be positive, the window not negative");
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.transactionTemplate = transactionTemplate;
+        this.handler = handler;
+        this.windowNanos = windowNanos;
+        this.maxBatch = maxBatch;
+        this.writer = new Thread(this::run, name);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queue the request and wait until the batch it was applied in has committed
+     *
+     * @return The result the handler produced for the request
+     * @throws RuntimeException whatever applying or committing the request threw
+     * @throws IllegalStateException if the committer is closed
+     */
+    public R submit(T request) {
+        Pending<T, R> pending = new Pending<>(request);
+        if (!running) {
+            throw new IllegalStateException("Group commit writer is closed");
+        }
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing for the group commit writer", e);
+        }
+        // The writer may have drained the queue for the last time just before the put
+        if (!running && queue.remove(pending)) {
+            throw new IllegalStateException("Group commit writer is closed");
+        }
+        try {
+            return pending.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Number of transactions the writer has committed or attempted
+     */
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * Number of requests the writer has completed, successfully or not
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Stop taking requests, let the writer finish what is queued and wait for it
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Pending<T, R>> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending<T, R> first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+            } catch (InterruptedException e) {
+                // Only close stops the writer, whatever was collected is still processed
+                Thread.interrupted();
+            }
+            if (!batch.isEmpty()) {
+                process(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<Pending<T, R>> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatch) {
+            long remaining = deadline - System.nanoTime();
+            Pending<T, R> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void process(List<Pending<T, R>> batch) {
+        batches.increment();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Pending<T, R>> applied = new ArrayList<>(batch.size());
+                for (Pending<T, R> pending : batch) {
+                    pending.failure = null;
+                    Object savepoint = status.createSavepoint();
+                    try {
+                        handler.apply(pending.request);
+                        status.releaseSavepoint(savepoint);
+                        applied.add(pending);
+                    } catch (RuntimeException e) {
+                        status.rollbackToSavepoint(savepoint);
+                        pending.failure = e;
+                    }
+                }
+                if (applied.isEmpty()) {
+                    return;
+                }
+                List<R> results = handler.complete(applied.stream().map(pending -> pending.request).toList());
+                for (int i = 0; i < applied.size(); i++) {
+                    applied.get(i).result = results.get(i);
+                }
+            });
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                // Nothing of the batch was committed, on their own only the request that causes this fails
+                for (Pending<T, R> pending : batch) {
+                    process(List.of(pending));
+                }
+                return;
+            }
+            batch.get(0).failure = e;
+        }
+        for (Pending<T, R> pending : batch) {
+            requests.increment();
+            if (pending.failure != null) {
+                pending.future.completeExceptionally(pending.failure);
+            } else {
+                pending.future.complete(pending.result);
+            }
+        }
+    }
+
+    private static final class Pending<T, R> {
+
+        private final T request;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+        // Only touched by the writer thread
+        private R result;
+        private RuntimeException failure;
+
+        private Pending(T request) {
+            this.request = request;
+        }
+    }
+}
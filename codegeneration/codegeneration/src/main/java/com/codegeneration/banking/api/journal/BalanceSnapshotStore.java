@@ -0,0 +1,149 @@
+package com.codegeneration.banking.api.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Balance snapshots next to the ledger journal, each holding the balance of every account after a journal sequence.
+ * A snapshot is written to a temporary file, flushed and then renamed, so a file with the snapshot name is always
+ * complete. The newest few are kept, reading falls back to an older one if the newest fails its checksum.
+ */
+@Slf4j
+public final class BalanceSnapshotStore {
+
+    /**
+     * Balances in money units by account number after the posting with the given sequence
+     */
+    public record BalanceSnapshot(long sequence, Map<String, Long> balances) {
+
+        public static BalanceSnapshot empty() {
+            return new BalanceSnapshot(0, Map.of());
+        }
+    }
+
+    private static final int MAGIC = 0x42534E50;
+    private static final int VERSION = 1;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+
+    private final Path directory;
+    private final int retained;
+
+    public BalanceSnapshotStore(Path directory, int retained) {
+        if (retained < 1) {
+            throw new IllegalArgumentException("At least one snapshot must be retained");
+        }
+        this.directory = directory;
+        this.retained = retained;
+    }
+
+    /**
+     * Write a snapshot and delete the snapshots older than the retained ones
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void write(BalanceSnapshot snapshot) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, snapshot.sequence(), SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel)), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshot.sequence());
+            out.writeInt(snapshot.balances().size());
+            for (Map.Entry<String, Long> balance : snapshot.balances().entrySet()) {
+                out.writeUTF(balance.getKey());
+                out.writeLong(balance.getValue());
+            }
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        List<Path> snapshots = snapshots();
+        for (Path old : snapshots.subList(0, Math.max(0, snapshots.size() - retained))) {
+            Files.deleteIfExists(old);
+        }
+    }
+
+    /**
+     * Read the newest snapshot that passes its checksum
+     *
+     * @return The snapshot, empty if there is no readable snapshot
+     * @throws IOException if the directory cannot be listed
+     */
+    public Optional<BalanceSnapshot> latest() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Optional.empty();
+        }
+        List<Path> snapshots = snapshots();
+        Collections.reverse(snapshots);
+        for (Path file : snapshots) {
+            try {
+                return Optional.of(read(file));
+            } catch (IOException e) {
+                log.warn("Skipping unreadable balance snapshot {}: {}", file, e.getMessage());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static BalanceSnapshot read(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(stream), new CRC32C());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a version " + VERSION + " balance snapshot");
+            }
+            long sequence = in.readLong();
+            int count = in.readInt();
+            Map<String, Long> balances = new HashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                balances.put(in.readUTF(), in.readLong());
+            }
+            int expected = (int) checked.getChecksum().getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("Checksum mismatch");
+            }
+            return new BalanceSnapshot(sequence, balances);
+        }
+    }
+
+    private List<Path> snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+}
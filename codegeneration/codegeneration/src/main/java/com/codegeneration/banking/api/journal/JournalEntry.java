@@ -0,0 +1,28 @@
+package com.codegeneration.banking.api.journal;
+
+import com.codegeneration.banking.api.enums.PostingKind;
+
+/**
+ * One record of the ledger journal: a balance change, or the outcome of the transaction of an earlier group of balance
+ * changes. Amounts are money units, see {@link com.codegeneration.banking.api.entity.Money}: the signed change and the
+ * account balance right after it.
+ *
+ * @param sequence Position in the journal, starting at 1 without gaps
+ * @param timestamp Epoch milliseconds of the append
+ * @param kind Operation the posting comes from, null for a marker
+ * @param accountNumber Account the posting applies to, null for a marker
+ * @param amountUnits Signed balance change
+ * @param balanceUnits Balance after the change
+ * @param lastOfGroup Whether this is the last posting of an atomic group, a transfer writes its debit and credit as
+ *                    one group and recovery skips a group that was not completely written
+ * @param committed On the last posting of a group, whether the group was appended after its transaction committed.
+ *                  On a marker, whether the transaction of the group committed or rolled back.
+ * @param resolvedGroup Sequence of the group a marker resolves, 0 for a posting
+ */
+public record JournalEntry(long sequence, long timestamp, PostingKind kind, String accountNumber, long amountUnits,
+                           long balanceUnits, boolean lastOfGroup, boolean committed, long resolvedGroup) {
+
+    public boolean isMarker() {
+        return resolvedGroup > 0;
+    }
+}
@@ -0,0 +1,475 @@
+package com.codegeneration.banking.api.journal;
+
+import com.codegeneration.banking.api.enums.PostingKind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of balance postings in fixed size binary records, written through memory mapped segment files
+ * named after the sequence of their first record. Records are never updated, a segment is full when the next group of
+ * postings does not fit, so a group never spans two segments.
+ * <p>
+ * A group appended inside a database transaction only counts once a commit marker naming it follows, see
+ * {@link #resolve(long, boolean)}. Groups of transactions that already committed are appended as committed.
+ * <p>
+ * An append is in the page cache when it returns and survives the process being killed. With force enabled every
+ * append is also flushed to disk, which survives the machine going down at the cost of a disk flush per posting.
+ * Every record carries a CRC32C, the tail left by an interrupted append is detected and discarded on open.
+ * Appends are serialized, reads run concurrently with them on their own mappings.
+ * <p>
+ * Only one journal can be open on a directory at a time, it holds a lock on a lock file in the directory until closed.
+ */
+public final class LedgerJournal implements Closeable {
+
+    /**
+     * One balance change to append
+     *
+     * @param kind Operation the posting comes from
+     * @param accountNumber Account the posting applies to, at most 34 ASCII characters
+     * @param amountUnits Signed balance change in money units
+     * @param balanceUnits Balance after the change in money units
+     */
+    public record Posting(PostingKind kind, String accountNumber, long amountUnits, long balanceUnits) {
+    }
+
+    static final int RECORD_SIZE = 80;
+    static final int MAX_ACCOUNT_NUMBER_LENGTH = 34;
+
+    private static final int SEQUENCE = 0;
+    private static final int TIMESTAMP = 8;
+    private static final int AMOUNT = 16;
+    private static final int BALANCE = 24;
+    private static final int KIND = 32;
+    private static final int FLAGS = 33;
+    private static final int ACCOUNT_LENGTH = 34;
+    private static final int ACCOUNT = 35;
+    private static final int CHECKSUM = 76;
+    private static final byte LAST_OF_GROUP = 1;
+    private static final byte COMMITTED = 2;
+    private static final byte MARKER = 4;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String LOCK_FILE = "journal.lock";
+    private static final PostingKind[] KINDS = PostingKind.values();
+
+    // Directories locked by this process. A second lock on the same file in one process throws instead of failing,
+    // and closing its channel would release the first lock on some systems, so they are checked before locking.
+    private static final Set<Path> LOCKED = ConcurrentHashMap.newKeySet();
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final boolean force;
+
+    // Guarded by this
+    private final ByteBuffer encoded = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32C checksum = new CRC32C();
+    private MappedByteBuffer segment;
+    private int segmentRecords;
+    private int position;
+    private long nextSequence;
+
+    // Last sequence of a completely written group, readers never go past it
+    private volatile long lastSequence;
+
+    // Last sequence when the journal was opened, groups up to it that are not resolved never will be
+    private long openedAt;
+
+    // Held from open to close, null once closed
+    private Path lockedDirectory;
+    private FileChannel lockChannel;
+    private FileLock lock;
+
+    private LedgerJournal(Path directory, int segmentBytes, boolean force) {
+        if (segmentBytes < RECORD_SIZE) {
+            throw new IllegalArgumentException("Journal segments must hold at least one record of "
+                    + RECORD_SIZE + " bytes");
+        }
+        this.directory = directory;
+        this.recordsPerSegment = segmentBytes / RECORD_SIZE;
+        this.force = force;
+    }
+
+    /**
+     * Open the journal in the directory, creating it if needed, and continue after the last complete group
+     *
+     * @param directory Directory holding the segment files
+     * @param segmentBytes Size of new segment files, rounded down to whole records
+     * @param force Whether every append is flushed to disk before it returns
+     * @throws IOException if the directory or the last segment cannot be read
+     * @throws IllegalStateException if another journal, in this or another process, has the directory open
+     */
+    public static LedgerJournal open(Path directory, int segmentBytes, boolean force) throws IOException {
+        LedgerJournal journal = new LedgerJournal(directory, segmentBytes, force);
+        Files.createDirectories(directory);
+        journal.lock();
+        try {
+            journal.recover();
+        } catch (IOException | RuntimeException e) {
+            journal.unlock();
+            throw e;
+        }
+        journal.openedAt = journal.lastSequence;
+        return journal;
+    }
+
+    // Two journals appending to the same directory would write postings with the same sequences
+    private void lock() throws IOException {
+        Path real = directory.toRealPath();
+        if (!LOCKED.add(real)) {
+            throw new IllegalStateException("Journal in " + real + " is already open");
+        }
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(real.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock acquired = channel.tryLock();
+            if (acquired == null) {
+                throw new IllegalStateException("Journal in " + real + " is already open in another process");
+            }
+            lockedDirectory = real;
+            lockChannel = channel;
+            lock = acquired;
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            LOCKED.remove(real);
+            throw e;
+        }
+    }
+
+    private void unlock() {
+        if (lock == null) {
+            return;
+        }
+        try {
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not release the journal lock in " + lockedDirectory, e);
+        } finally {
+            LOCKED.remove(lockedDirectory);
+            lock = null;
+            lockChannel = null;
+            lockedDirectory = null;
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            nextSequence = 1;
+            lastSequence = 0;
+            return;
+        }
+
+        Path last = segments.get(segments.size() - 1);
+        long first = firstSequence(last);
+        segment = map(last, FileChannel.MapMode.READ_WRITE, Files.size(last));
+        segmentRecords = segment.capacity() / RECORD_SIZE;
+
+        int complete = 0;
+        for (int index = 0; index < segmentRecords; index++) {
+            segment.get(index * RECORD_SIZE, encoded.array());
+            if (!isValid(encoded, first + index, checksum)) {
+                break;
+            }
+            if ((encoded.get(FLAGS) & LAST_OF_GROUP) != 0) {
+                complete = index + 1;
+            }
+        }
+
+        // Clear whatever an interrupted append left behind the last complete group, so a stale record can never
+        // pass for one appended later
+        int clearFrom = complete * RECORD_SIZE;
+        boolean dirty = false;
+        for (int offset = clearFrom; offset + Long.BYTES <= segment.capacity() && !dirty; offset += Long.BYTES) {
+            dirty = segment.getLong(offset) != 0;
+        }
+        if (dirty) {
+            for (int offset = clearFrom; offset < segment.capacity(); offset++) {
+                segment.put(offset, (byte) 0);
+            }
+            segment.force();
+        }
+
+        position = complete;
+        nextSequence = first + complete;
+        lastSequence = nextSequence - 1;
+    }
+
+    /**
+     * Append postings as one group with consecutive sequences, readers see all of them or none. Recovery only applies
+     * the group once it is resolved as committed.
+     *
+     * @param postings Postings to append, at least one
+     * @return Sequence of the last appended posting, which names the group
+     * @throws UncheckedIOException if a new segment file cannot be created
+     * @throws IllegalStateException if the journal is closed
+     */
+    public long append(List<Posting> postings) {
+        return append(postings, LAST_OF_GROUP);
+    }
+
+    /**
+     * Append the postings of a transaction that already committed as one group, recovery applies it as it is
+     *
+     * @return Sequence of the last appended posting
+     */
+    public long appendCommitted(List<Posting> postings) {
+        return append(postings, (byte) (LAST_OF_GROUP | COMMITTED));
+    }
+
+    /**
+     * Append the outcome of the transaction of a group appended with {@link #append(List)}
+     *
+     * @param group Sequence returned by the append
+     * @param committed Whether the transaction committed or rolled back
+     * @return Sequence of the marker
+     */
+    public synchronized long resolve(long group, boolean committed) {
+        requireOpen();
+        if (segment == null || position + 1 > segmentRecords) {
+            roll();
+        }
+        encodeMarker(group, nextSequence++, System.currentTimeMillis(), committed);
+        segment.put(position * RECORD_SIZE, encoded.array());
+        if (force) {
+            segment.force(position * RECORD_SIZE, RECORD_SIZE);
+        }
+        position++;
+        lastSequence = nextSequence - 1;
+        return lastSequence;
+    }
+
+    private synchronized long append(List<Posting> postings, byte lastFlags) {
+        int count = postings.size();
+        if (count == 0 || count > recordsPerSegment) {
+            throw new IllegalArgumentException("A group must hold between 1 and " + recordsPerSegment + " postings");
+        }
+        requireOpen();
+        if (segment == null || position + count > segmentRecords) {
+            roll();
+        }
+
+        long timestamp = System.currentTimeMillis();
+        int start = position;
+        for (int i = 0; i < count; i++) {
+            encode(postings.get(i), nextSequence++, timestamp, i == count - 1 ? lastFlags : 0);
+            segment.put(position * RECORD_SIZE, encoded.array());
+            position++;
+        }
+        if (force) {
+            segment.force(start * RECORD_SIZE, count * RECORD_SIZE);
+        }
+        lastSequence = nextSequence - 1;
+        return lastSequence;
+    }
+
+    private void requireOpen() {
+        if (lock == null) {
+            throw new IllegalStateException("Journal in " + directory + " is closed");
+        }
+    }
+
+    private void encode(Posting posting, long sequence, long timestamp, byte flags) {
+        String accountNumber = posting.accountNumber();
+        if (accountNumber.length() > MAX_ACCOUNT_NUMBER_LENGTH) {
+            throw new IllegalArgumentException("Account number is longer than " + MAX_ACCOUNT_NUMBER_LENGTH
+                    + " characters: " + accountNumber);
+        }
+        encoded.putLong(SEQUENCE, sequence)
+                .putLong(TIMESTAMP, timestamp)
+                .putLong(AMOUNT, posting.amountUnits())
+                .putLong(BALANCE, posting.balanceUnits())
+                .put(KIND, (byte) posting.kind().ordinal())
+                .put(FLAGS, flags)
+                .put(ACCOUNT_LENGTH, (byte) accountNumber.length());
+        for (int i = 0; i < MAX_ACCOUNT_NUMBER_LENGTH; i++) {
+            char c = i < accountNumber.length() ? accountNumber.charAt(i) : 0;
+            if (c > 127) {
+                throw new IllegalArgumentException("Account number is not ASCII: " + accountNumber);
+            }
+            encoded.put(ACCOUNT + i, (byte) c);
+        }
+        sign();
+    }
+
+    // A marker keeps the sequence of the group it resolves where postings keep their amount
+    private void encodeMarker(long group, long sequence, long timestamp, boolean committed) {
+        encoded.putLong(SEQUENCE, sequence)
+                .putLong(TIMESTAMP, timestamp)
+                .putLong(AMOUNT, group)
+                .putLong(BALANCE, 0)
+                .put(KIND, (byte) 0)
+                .put(FLAGS, (byte) (LAST_OF_GROUP | MARKER | (committed ? COMMITTED : 0)))
+                .put(ACCOUNT_LENGTH, (byte) 0);
+        for (int i = 0; i < MAX_ACCOUNT_NUMBER_LENGTH; i++) {
+            encoded.put(ACCOUNT + i, (byte) 0);
+        }
+        sign();
+    }
+
+    private void sign() {
+        checksum.reset();
+        checksum.update(encoded.array(), 0, CHECKSUM);
+        encoded.putInt(CHECKSUM, (int) checksum.getValue());
+    }
+
+    private void roll() {
+        if (segment != null) {
+            segment.force();
+        }
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+        try {
+            segment = map(file, FileChannel.MapMode.READ_WRITE, (long) recordsPerSegment * RECORD_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create journal segment " + file, e);
+        }
+        segmentRecords = recordsPerSegment;
+        position = 0;
+    }
+
+    /**
+     * Read the postings after a sequence in order, up to the last group completely written when the call started
+     *
+     * @param afterSequence Sequence to start after, 0 reads the whole journal
+     * @param consumer Receives every posting
+     * @return Sequence of the last posting read, afterSequence if there was none
+     * @throws IOException if a segment cannot be read
+     * @throws IllegalStateException if a posting before the end is corrupt or missing
+     */
+    public long read(long afterSequence, Consumer<JournalEntry> consumer) throws IOException {
+        long end = lastSequence;
+        long expected = afterSequence + 1;
+        ByteBuffer entry = ByteBuffer.allocate(RECORD_SIZE);
+        CRC32C crc = new CRC32C();
+        for (Path file : segments()) {
+            long first = firstSequence(file);
+            long records = Files.size(file) / RECORD_SIZE;
+            if (expected > end) {
+                break;
+            }
+            if (first > expected) {
+                throw new IllegalStateException("Journal is missing postings " + expected + " to " + (first - 1));
+            }
+            if (first + records <= expected) {
+                continue;
+            }
+
+            // A segment can end before it is full when the next group did not fit, reading continues in the next one
+            MappedByteBuffer buffer = map(file, FileChannel.MapMode.READ_ONLY, records * RECORD_SIZE);
+            for (int index = (int) (expected - first); index < records && expected <= end; index++, expected++) {
+                buffer.get(index * RECORD_SIZE, entry.array());
+                if (!isValid(entry, expected, crc)) {
+                    break;
+                }
+                consumer.accept(decode(entry));
+            }
+        }
+        if (expected <= end) {
+            throw new IllegalStateException("Journal posting " + expected + " is missing or corrupt");
+        }
+        return expected - 1;
+    }
+
+    private static boolean isValid(ByteBuffer entry, long expectedSequence, CRC32C crc) {
+        if (entry.getLong(SEQUENCE) != expectedSequence) {
+            return false;
+        }
+        crc.reset();
+        crc.update(entry.array(), 0, CHECKSUM);
+        return (int) crc.getValue() == entry.getInt(CHECKSUM);
+    }
+
+    private static JournalEntry decode(ByteBuffer entry) {
+        byte flags = entry.get(FLAGS);
+        if ((flags & MARKER) != 0) {
+            return new JournalEntry(entry.getLong(SEQUENCE), entry.getLong(TIMESTAMP), null, null, 0, 0, true,
+                    (flags & COMMITTED) != 0, entry.getLong(AMOUNT));
+        }
+        return new JournalEntry(
+                entry.getLong(SEQUENCE),
+                entry.getLong(TIMESTAMP),
+                KINDS[entry.get(KIND)],
+                new String(entry.array(), ACCOUNT, entry.get(ACCOUNT_LENGTH), StandardCharsets.US_ASCII),
+                entry.getLong(AMOUNT),
+                entry.getLong(BALANCE),
+                (flags & LAST_OF_GROUP) != 0,
+                (flags & COMMITTED) != 0,
+                0);
+    }
+
+    /**
+     * Sequence of the last completely written group, 0 for an empty journal
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Sequence of the last group when the journal was opened. Groups up to it that were appended pending and are
+     * still unresolved belong to transactions of an earlier process and never committed.
+     */
+    public long getOpenedAt() {
+        return openedAt;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Flush the current segment to disk and release the directory. Reading still works after close, appending throws.
+     */
+    @Override
+    public synchronized void close() {
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        }
+        unlock();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            // Fixed width sequence numbers make the name order the sequence order
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static MappedByteBuffer map(Path file, FileChannel.MapMode mode, long size) throws IOException {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = mode == FileChannel.MapMode.READ_ONLY
+                ? FileChannel.open(file, StandardOpenOption.READ)
+                : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            return channel.map(mode, 0, size);
+        }
+    }
+}
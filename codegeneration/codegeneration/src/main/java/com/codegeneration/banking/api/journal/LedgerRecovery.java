@@ -0,0 +1,78 @@
+package com.codegeneration.banking.api.journal;
+
+import com.codegeneration.banking.api.journal.BalanceSnapshotStore.BalanceSnapshot;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rebuilds account balances from the newest snapshot plus the committed journal postings after it. Every posting
+ * carries the balance after it and postings of one account are journaled in the order their balance updates
+ * committed, so the committed posting of an account with the highest sequence is its balance.
+ * <p>
+ * A group appended inside a transaction is held back until its commit marker and dropped at a rollback marker. Groups
+ * of an earlier process without a marker never committed. Groups of this process can still get one, so the returned
+ * sequence stops before the oldest of them: a snapshot taken from the result reads them again after a restart.
+ */
+public final class LedgerRecovery {
+
+    private LedgerRecovery() {
+    }
+
+    /**
+     * @return Balances after the committed postings of the journal
+     * @throws IOException if the snapshot directory or the journal cannot be read
+     */
+    public static BalanceSnapshot recover(LedgerJournal journal, BalanceSnapshotStore snapshots) throws IOException {
+        BalanceSnapshot base = snapshots.latest().orElse(BalanceSnapshot.empty());
+        Map<String, Long> balances = new HashMap<>(base.balances());
+        // Sequence of the posting each balance was read from, a group committing late must not override a later one
+        Map<String, Long> balanceSequences = new HashMap<>();
+        // Unresolved groups by the sequence of their last posting, in journal order
+        Map<Long, List<JournalEntry>> pending = new LinkedHashMap<>();
+        List<JournalEntry> group = new ArrayList<>();
+
+        long sequence = journal.read(base.sequence(), entry -> {
+            if (entry.isMarker()) {
+                List<JournalEntry> resolved = pending.remove(entry.resolvedGroup());
+                if (resolved != null && entry.committed()) {
+                    apply(resolved, balances, balanceSequences);
+                }
+                return;
+            }
+            group.add(entry);
+            if (entry.lastOfGroup()) {
+                List<JournalEntry> postings = new ArrayList<>(group);
+                group.clear();
+                if (entry.committed()) {
+                    apply(postings, balances, balanceSequences);
+                } else {
+                    pending.put(entry.sequence(), postings);
+                }
+            }
+        });
+
+        for (List<JournalEntry> postings : pending.values()) {
+            if (postings.get(postings.size() - 1).sequence() > journal.getOpenedAt()) {
+                sequence = Math.min(sequence, postings.get(0).sequence() - 1);
+                break;
+            }
+        }
+        return new BalanceSnapshot(sequence, balances);
+    }
+
+    private static void apply(List<JournalEntry> postings, Map<String, Long> balances,
+                              Map<String, Long> balanceSequences) {
+        for (JournalEntry posting : postings) {
+            Long previous = balanceSequences.get(posting.accountNumber());
+            if (previous == null || previous < posting.sequence()) {
+                balances.put(posting.accountNumber(), posting.balanceUnits());
+                balanceSequences.put(posting.accountNumber(), posting.sequence());
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.codegeneration.banking.api.metrics;
+
+import com.codegeneration.banking.api.enums.LimitType;
+import com.codegeneration.banking.api.service.implementations.ExchangeRateRefresher;
+import com.codegeneration.banking.api.service.implementations.TokenBlacklistService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Domain metrics on top of the per endpoint http.server.requests timers. All meters start with banking. so
+ * percentile histograms can be switched on for them in one property.
+ */
+@Component
+public class BankingMetrics {
+
+    /**
+     * Steps of a transfer that are timed separately
+     */
+    public enum TransferPhase {
+        VALIDATION, CONVERSION, PERSISTENCE
+    }
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_REJECTED = "rejected";
+    public static final String OUTCOME_ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary filterResults;
+
+    public BankingMetrics(MeterRegistry meterRegistry, TokenBlacklistService tokenBlacklistService,
+                          ExchangeRateRefresher exchangeRateRefresher) {
+        this.meterRegistry = meterRegistry;
+        this.filterResults = DistributionSummary.builder("banking.transaction.filter.results")
+                .description("Transactions returned per filter request")
+                .baseUnit("transactions")
+                .register(meterRegistry);
+        Gauge.builder("banking.auth.blacklist.size", tokenBlacklistService, TokenBlacklistService::size)
+                .description("Revoked tokens kept until they expire")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        TimeGauge.builder("banking.rates.age", exchangeRateRefresher, TimeUnit.MILLISECONDS,
+                        ExchangeRateRefresher::getRateAgeMillis)
+                .description("Time since the published exchange rates were fetched")
+                .register(meterRegistry);
+        TimeGauge.builder("banking.rates.refresh.latency", exchangeRateRefresher, TimeUnit.NANOSECONDS,
+                        ExchangeRateRefresher::getLastRefreshLatencyNanos)
+                .description("Duration of the last exchange rate refresh, successful or not")
+                .register(meterRegistry);
+        FunctionCounter.builder("banking.rates.refresh.failures", exchangeRateRefresher,
+                        ExchangeRateRefresher::getRefreshFailures)
+                .description("Exchange rate refreshes that failed or were rejected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start timing a transfer phase, stop it with {@link #recordTransferPhase}
+     */
+    public Timer.Sample startTimer() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * @param outcome One of the OUTCOME_ constants
+     */
+    public void recordTransferPhase(Timer.Sample sample, TransferPhase phase, String outcome) {
+        sample.stop(Timer.builder("banking.transfer.phase")
+                .description("Time spent in each phase of a transfer")
+                .tag("phase", phase.name().toLowerCase(Locale.ROOT))
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Count an ATM operation rejected by the single or daily limit
+     *
+     * @param operation deposit or withdrawal
+     * @param window single or daily
+     */
+    public void recordAtmLimitRejection(String operation, LimitType type, String window) {
+        Counter.builder("banking.atm.limit.rejections")
+                .description("ATM operations rejected by account limits")
+                .tag("operation", operation)
+                .tag("limit", type.name().toLowerCase(Locale.ROOT))
+                .tag("window", window)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordFilterResults(int results) {
+        filterResults.record(results);
+    }
+}
@@ -0,0 +1,68 @@
+package com.codegeneration.banking.api.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the responses of endpoints that answer conditional GETs and the CPU time the request thread spent on them,
+ * serialization included. The share of not_modified responses is the hit rate, and the difference in mean CPU time
+ * between modified and not_modified responses times the not_modified count is the CPU they saved.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class ConditionalGetMetricsFilter extends OncePerRequestFilter {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!"GET".equals(request.getMethod()) || !THREADS.isCurrentThreadCpuTimeSupported()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long cpuStart = THREADS.getCurrentThreadCpuTime();
+        filterChain.doFilter(request, response);
+        // Another thread may be writing an async response, its headers cannot be read here
+        if (request.isAsyncStarted() || response.getHeader(HttpHeaders.ETAG) == null) {
+            return;
+        }
+        long cpu = THREADS.getCurrentThreadCpuTime() - cpuStart;
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : "UNKNOWN";
+        String result = response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED ? "not_modified" : "modified";
+        Counter.builder("banking.conditional.requests")
+                .description("GET requests of endpoints that send an ETag, by whether the client's copy was current")
+                .tag("uri", route)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+        Timer.builder("banking.conditional.cpu")
+                .description("CPU time of the request thread for GET requests of endpoints that send an ETag")
+                .tag("uri", route)
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(cpu, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,104 @@
+package com.codegeneration.banking.api.metrics;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * JDBC work done on behalf of one HTTP request. Bound to the request thread by {@link SqlStatsFilter} and filled in
+ * by {@link SqlStatementListener}; statements run outside a request, such as scheduled jobs, are not counted.
+ */
+public final class SqlRequestStats {
+
+    private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+    private static final String REQUEST_ATTRIBUTE = SqlRequestStats.class.getName();
+
+    private final HttpServletRequest request;
+    private int statements;
+    private int idAllocations;
+    private long rows;
+    private long jdbcTimeMs;
+
+    private SqlRequestStats(HttpServletRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * Start counting for a request on the current thread
+     */
+    static SqlRequestStats begin(HttpServletRequest request) {
+        SqlRequestStats stats = new SqlRequestStats(request);
+        CURRENT.set(stats);
+        request.setAttribute(REQUEST_ATTRIBUTE, stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Stats of the request running on the current thread, or null outside a request
+     */
+    public static SqlRequestStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stats of a request, complete once the request has finished, or null if the request was not counted
+     */
+    public static SqlRequestStats of(ServletRequest request) {
+        return (SqlRequestStats) request.getAttribute(REQUEST_ATTRIBUTE);
+    }
+
+    void recordStatement(long elapsedMs, long affectedRows) {
+        statements++;
+        jdbcTimeMs += elapsedMs;
+        rows += affectedRows;
+    }
+
+    void recordIdAllocation() {
+        idAllocations++;
+    }
+
+    void recordRowRead() {
+        rows++;
+    }
+
+    /**
+     * JDBC executions, a batch counts once
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    /**
+     * Statements that fetched the next block of sequence ids, included in {@link #getStatements()}. One runs every
+     * allocation size inserts, so which request pays for it depends on what ran before.
+     */
+    public int getIdAllocations() {
+        return idAllocations;
+    }
+
+    /**
+     * Rows read from result sets plus rows changed by updates
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Time spent executing statements, without the time spent reading result sets
+     */
+    public long getJdbcTimeMs() {
+        return jdbcTimeMs;
+    }
+
+    /**
+     * Method and mapped route of the request, or the raw path before a handler has been selected
+     */
+    public String getEndpoint() {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+}
@@ -0,0 +1,97 @@
+package com.codegeneration.banking.api.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Counts statements, rows and JDBC time into the current {@link SqlRequestStats} and writes statements slower than
+ * the threshold to the slow query log together with the endpoint that issued them.
+ */
+public class SqlStatementListener implements QueryExecutionListener, MethodExecutionListener {
+
+    /**
+     * Logger routed to its own file by logback-spring.xml
+     */
+    public static final String SLOW_QUERY_LOGGER = "slow-query";
+
+    private static final Logger slowQueryLog = LoggerFactory.getLogger(SLOW_QUERY_LOGGER);
+
+    private final long slowQueryThresholdMs;
+
+    public SqlStatementListener(long slowQueryThresholdMs) {
+        this.slowQueryThresholdMs = slowQueryThresholdMs;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        SqlRequestStats stats = SqlRequestStats.current();
+        if (stats != null) {
+            stats.recordStatement(execInfo.getElapsedTime(), affectedRows(execInfo.getResult()));
+            if (isIdAllocation(queryInfoList)) {
+                stats.recordIdAllocation();
+            }
+        }
+        if (execInfo.getElapsedTime() >= slowQueryThresholdMs) {
+            slowQueryLog.warn("{} ms, endpoint={}, success={}, batchSize={}, sql={}",
+                    execInfo.getElapsedTime(),
+                    stats != null ? stats.getEndpoint() : "none (" + Thread.currentThread().getName() + ")",
+                    execInfo.isSuccess(),
+                    execInfo.getBatchSize(),
+                    queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; ")));
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    /**
+     * Rows of a query are only known while they are read, so every successful ResultSet.next() counts one
+     */
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet
+                && "next".equals(executionContext.getMethod().getName())
+                && Boolean.TRUE.equals(executionContext.getResult())) {
+            SqlRequestStats stats = SqlRequestStats.current();
+            if (stats != null) {
+                stats.recordRowRead();
+            }
+        }
+    }
+
+    private static boolean isIdAllocation(List<QueryInfo> queryInfoList) {
+        return queryInfoList.size() == 1
+                && queryInfoList.get(0).getQuery().regionMatches(true, 0, "select next value for ", 0, 22);
+    }
+
+    private static long affectedRows(Object result) {
+        if (result instanceof Integer count) {
+            return Math.max(count, 0);
+        }
+        if (result instanceof Long count) {
+            return Math.max(count, 0);
+        }
+        if (result instanceof int[] counts) {
+            long total = 0;
+            for (int count : counts) {
+                total += Math.max(count, 0);
+            }
+            return total;
+        }
+        return 0;
+    }
+}
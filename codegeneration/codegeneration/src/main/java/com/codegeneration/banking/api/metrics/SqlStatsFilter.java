@@ -0,0 +1,67 @@
+package com.codegeneration.banking.api.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the JDBC work of every request, including the user lookup done by the security filters, and records it
+ * per endpoint. Runs before every other filter so the whole request is covered.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlRequestStats stats = SqlRequestStats.begin(request);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlRequestStats.end();
+            record(stats, request);
+        }
+    }
+
+    private void record(SqlRequestStats stats, HttpServletRequest request) {
+        String method = request.getMethod();
+        // Raw paths of unmapped requests would give every 404 its own meter
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("banking.sql.statements")
+                .description("JDBC statements executed per request")
+                .tag("method", method)
+                .tag("uri", route)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        DistributionSummary.builder("banking.sql.rows")
+                .description("Rows read or changed per request")
+                .tag("method", method)
+                .tag("uri", route)
+                .register(meterRegistry)
+                .record(stats.getRows());
+        Timer.builder("banking.sql.time")
+                .description("Time spent executing JDBC statements per request")
+                .tag("method", method)
+                .tag("uri", route)
+                .register(meterRegistry)
+                .record(stats.getJdbcTimeMs(), TimeUnit.MILLISECONDS);
+    }
+}
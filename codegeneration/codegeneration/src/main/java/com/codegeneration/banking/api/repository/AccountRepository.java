@@ -3,8 +3,13 @@ package com.codegeneration.banking.api.repository;
 import com.codegeneration.banking.api.entity.Account;
 import com.codegeneration.banking.api.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -53,4 +58,38 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
      */
     Optional<Account> findByAccountNumberAndUserUsername(String accountNumber, String username);
 
+    /**
+     * Subtract an amount from the balance if the account is enabled and the balance covers it, in one statement
+     *
+     * @param id The account id
+     * @param amount Amount to subtract (positive value)
+     * @param now Time stored as the account's last update
+     * @return Number of updated rows, 0 if the balance is insufficient or the account is disabled or missing
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.updatedAt = :now " +
+            "WHERE a.id = :id AND a.balance >= :amount AND a.disabled = false")
+    int debit(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    /**
+     * Add an amount to the balance if the account is enabled, in one statement
+     *
+     * @param id The account id
+     * @param amount Amount to add (positive value)
+     * @param now Time stored as the account's last update
+     * @return Number of updated rows, 0 if the account is disabled or missing
+     */
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.updatedAt = :now " +
+            "WHERE a.id = :id AND a.disabled = false")
+    int credit(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    /**
+     * Read the current balance of an account without loading the entity
+     *
+     * @param id The account id
+     * @return The balance as stored in the database
+     */
+    @Query("SELECT a.balance FROM Account a WHERE a.id = :id")
+    BigDecimal findBalanceById(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.codegeneration.banking.api.repository;
+
+import com.codegeneration.banking.api.dto.FieldSelection;
+import com.codegeneration.banking.api.dto.transaction.TransactionDTO;
+
+import java.util.List;
+
+/**
+ * Transaction listings that select only the columns behind the requested {@link TransactionDTO} fields. The account
+ * tables are only joined when a field needs them.
+ */
+public interface TransactionFieldsRepository {
+
+    /**
+     * Transactions of all accounts of the user, a transfer between two of them is returned once
+     *
+     * @return DTOs with only the selected fields set, ordered by id
+     */
+    List<TransactionDTO> findFieldsByUsername(String username, FieldSelection fields);
+
+    /**
+     * Transactions where the account is either the source or destination
+     *
+     * @return DTOs with only the selected fields set, ordered by id
+     */
+    List<TransactionDTO> findFieldsByAccountId(Long accountId, FieldSelection fields);
+}
@@ -0,0 +1,171 @@
+package com.codegeneration.banking.api.repository;
+
+import com.codegeneration.banking.api.dto.FieldSelection;
+import com.codegeneration.banking.api.dto.transaction.TransactionDTO;
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Transaction;
+import com.codegeneration.banking.api.enums.Currency;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.criteria.Subquery;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+class TransactionFieldsRepositoryImpl implements TransactionFieldsRepository {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /** Builds the where clause of a listing */
+    private interface Restriction {
+        Predicate toPredicate(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Transaction> transaction);
+    }
+
+    @Override
+    public List<TransactionDTO> findFieldsByUsername(String username, FieldSelection fields) {
+        return find(fields, (cb, query, transaction) -> cb.or(
+                transaction.get("sourceAccount").get("id").in(accountIds(cb, query, username)),
+                transaction.get("destinationAccount").get("id").in(accountIds(cb, query, username))));
+    }
+
+    @Override
+    public List<TransactionDTO> findFieldsByAccountId(Long accountId, FieldSelection fields) {
+        return find(fields, (cb, query, transaction) -> cb.or(
+                cb.equal(transaction.get("sourceAccount").get("id"), accountId),
+                cb.equal(transaction.get("destinationAccount").get("id"), accountId)));
+    }
+
+    private static Subquery<Long> accountIds(CriteriaBuilder cb, CriteriaQuery<?> query, String username) {
+        Subquery<Long> accountIds = query.subquery(Long.class);
+        Root<Account> account = accountIds.from(Account.class);
+        return accountIds.select(account.get("id"))
+                .where(cb.equal(account.get("user").get("username"), username));
+    }
+
+    private List<TransactionDTO> find(FieldSelection fields, Restriction restriction) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Transaction> transaction = query.from(Transaction.class);
+        Columns columns = new Columns();
+
+        if (fields.includes("id")) {
+            columns.add(transaction.get("id"), (dto, row, at) -> dto.setId((Long) row[at]));
+        }
+        if (fields.includes("transactionReference")) {
+            columns.add(transaction.get("transactionReference"),
+                    (dto, row, at) -> dto.setTransactionReference((String) row[at]));
+        }
+        // The currencies of both accounts tell whether the transaction was a currency exchange
+        boolean exchange = fields.includes("isCurrencyExchange");
+        Join<Transaction, Account> source = fields.includes("sourceAccount") || exchange
+                ? transaction.join("sourceAccount") : null;
+        Join<Transaction, Account> destination = fields.includes("destinationAccount") || exchange
+                ? transaction.join("destinationAccount") : null;
+        if (fields.includes("sourceAccount")) {
+            columns.addAccount(source, TransactionDTO::setSourceAccount);
+        }
+        if (fields.includes("destinationAccount")) {
+            columns.addAccount(destination, TransactionDTO::setDestinationAccount);
+        }
+        if (fields.includes("amount")) {
+            columns.add(transaction.get("amount"), (dto, row, at) -> dto.setAmount((BigDecimal) row[at]));
+        }
+        if (fields.includes("currency")) {
+            columns.add(transaction.get("currency"), (dto, row, at) -> dto.setCurrency((Currency) row[at]));
+        }
+        if (fields.includes("description")) {
+            columns.add(transaction.get("description"), (dto, row, at) -> dto.setDescription((String) row[at]));
+        }
+        if (fields.includes("transactionStatus")) {
+            columns.add(transaction.get("status"),
+                    (dto, row, at) -> dto.setTransactionStatus(((Transaction.TransactionStatus) row[at]).name()));
+        }
+        if (fields.includes("transactionType")) {
+            columns.add(transaction.get("type"),
+                    (dto, row, at) -> dto.setTransactionType(((Transaction.TransactionType) row[at]).name()));
+        }
+        if (fields.includes("createAt")) {
+            columns.add(transaction.get("createdAt"),
+                    (dto, row, at) -> dto.setCreateAt(((LocalDateTime) row[at]).format(FORMATTER)));
+        }
+        if (fields.includes("completedAt")) {
+            columns.add(transaction.get("completedAt"), (dto, row, at) -> dto.setCompletedAt(row[at] != null
+                    ? ((LocalDateTime) row[at]).format(FORMATTER)
+                    : null));
+        }
+        if (exchange) {
+            columns.add(List.of(source.get("currency"), destination.get("currency")),
+                    (dto, row, at) -> dto.setIsCurrencyExchange(!row[at].equals(row[at + 1])));
+        }
+
+        query.select(cb.array(columns.selections.toArray(Selection[]::new)))
+                .where(restriction.toPredicate(cb, query, transaction))
+                .orderBy(cb.asc(transaction.get("id")));
+        List<Object[]> rows = entityManager.createQuery(query).getResultList();
+        List<TransactionDTO> transactions = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            transactions.add(columns.read(row));
+        }
+        return transactions;
+    }
+
+    /** Sets a field of the DTO from the columns of a row that start at the given index */
+    private interface Setter {
+        void set(TransactionDTO dto, Object[] row, int at);
+    }
+
+    /**
+     * The selected columns and how each field is set from its part of a row
+     */
+    private static final class Columns {
+
+        private final List<Selection<?>> selections = new ArrayList<>();
+        private final List<Setter> setters = new ArrayList<>();
+        private final int[] offsets = new int[TransactionDTO.FIELDS.size()];
+
+        void add(Expression<?> column, Setter setter) {
+            add(List.of(column), setter);
+        }
+
+        void add(List<? extends Expression<?>> columns, Setter setter) {
+            offsets[setters.size()] = selections.size();
+            selections.addAll(columns);
+            setters.add(setter);
+        }
+
+        void addAccount(Path<Account> account, BiConsumer<TransactionDTO, TransactionDTO.AccountDTO> setter) {
+            add(List.of(account.get("id"), account.get("accountNumber"), account.get("accountName"),
+                    account.get("accountType"), account.get("currency")), (dto, row, at) ->
+                    setter.accept(dto, TransactionDTO.AccountDTO.builder()
+                            .id((Long) row[at])
+                            .accountNumber((String) row[at + 1])
+                            .accountName((String) row[at + 2])
+                            .accountType((String) row[at + 3])
+                            .currency((Currency) row[at + 4])
+                            .build()));
+        }
+
+        TransactionDTO read(Object[] row) {
+            TransactionDTO dto = new TransactionDTO();
+            for (int i = 0; i < setters.size(); i++) {
+                setters.get(i).set(dto, row, offsets[i]);
+            }
+            return dto;
+        }
+    }
+}
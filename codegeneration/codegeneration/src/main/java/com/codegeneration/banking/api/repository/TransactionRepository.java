@@ -2,21 +2,26 @@ package com.codegeneration.banking.api.repository;
 
 import com.codegeneration.banking.api.entity.Account;
 import com.codegeneration.banking.api.entity.Transaction;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionFieldsRepository {
     
     /**
      * Find transactions where the account is either the source or destination
      *
      * @param sourceAccount The source account
      * @param destinationAccount The destination account
-     * @return List of transactions
+     * @return List of transactions, with both accounts loaded in the same query
      */
+    @EntityGraph(attributePaths = {"sourceAccount", "destinationAccount"})
     List<Transaction> findBySourceAccountOrDestinationAccount(Account sourceAccount, Account destinationAccount);
 
     /**
@@ -27,6 +32,7 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     /**
      * Find all transactions where the specified username is either the source or destination account owner
      */
+    @EntityGraph(attributePaths = {"sourceAccount", "destinationAccount"})
     List<Transaction> findAllBySourceAccountUserUsernameOrDestinationAccountUserUsername(
             String sourceUsername, String destinationUsername);
     
@@ -35,4 +41,16 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
      */
     List<Transaction> findAllBySourceAccountAccountNumberOrDestinationAccountAccountNumber(
             String sourceAccountNumber, String destinationAccountNumber);
+
+    /**
+     * Find a transaction with both accounts loaded in the same query
+     */
+    @EntityGraph(attributePaths = {"sourceAccount", "destinationAccount"})
+    Optional<Transaction> findWithAccountsById(Long id);
+
+    /**
+     * Find transactions made from an account since a point in time, excluding the given statuses
+     */
+    List<Transaction> findBySourceAccountIdAndCreatedAtGreaterThanEqualAndStatusNotIn(
+            Long sourceAccountId, LocalDateTime since, Collection<Transaction.TransactionStatus> statuses);
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.codegeneration.banking.api.repository;
 
 import com.codegeneration.banking.api.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,6 +21,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByUsername(String username);
 
+    /**
+     * Find the id of a user without loading the user
+     *
+     * @param username The username to search for
+     * @return Optional containing the id if found
+     */
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
 
     /**
      * Find a user by email
@@ -43,29 +55,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     boolean existsByEmail(String email);
 
-    /**
-     * Find users by username (partial match, case insensitive)
-     *
-     * @param username The username to search for
-     * @return List of users matching the search criteria
-     */
-    List<User> findByUsernameContainingIgnoreCase(String username);
-
     /**
      * Find users by name (partial match, case insensitive)
      *
-     * @param name The name to search for
-     * @return List of users matching the search criteria
+     * @param id The id to search for
+     * @return User matching specified id
      */
-    List<User> findByNameContainingIgnoreCase(String name);
+    List<User> findById(Number id);
 
     /**
-     * Find users by name (partial match, case insensitive)
+     * Find all users with their accounts, loaded in the same query
      *
-     * @param id The id to search for
-     * @return User matching specified id
+     * @return List of all users
      */
-    List<User> findById(Number id);
+    @EntityGraph(attributePaths = "accounts")
+    @Query("SELECT u FROM User u")
+    List<User> findAllWithAccounts();
 
     /**
      * Find users by enabled status with pagination
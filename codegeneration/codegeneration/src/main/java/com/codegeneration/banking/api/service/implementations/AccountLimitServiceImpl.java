@@ -0,0 +1,61 @@
+package com.codegeneration.banking.api.service.implementations;
+
+import com.codegeneration.banking.api.dto.account.AccountLimitSnapshot;
+import com.codegeneration.banking.api.dto.currency.RateSnapshot;
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.service.interfaces.AccountLimitService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+public class AccountLimitServiceImpl implements AccountLimitService {
+
+    private final ExchangeRateRefresher exchangeRateRefresher;
+
+    private final Map<Long, AccountLimitSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    @Override
+    public AccountLimitSnapshot getLimitSnapshot(Account account) {
+        RateSnapshot rates = exchangeRateRefresher.current();
+        if (account.getId() == null) {
+            // Unsaved account, nothing stable to cache it under
+            return build(account, rates);
+        }
+
+        AccountLimitSnapshot snapshot = snapshots.get(account.getId());
+        // A request that loaded the account before an edit committed may have cached the old limits after the
+        // invalidation, so the limits are checked as well as the rates
+        if (snapshot == null || snapshot.getRateVersion() != rates.getVersion() || !snapshot.hasLimitsOf(account)) {
+            snapshot = build(account, rates);
+            snapshots.put(account.getId(), snapshot);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void invalidate(Long accountId) {
+        if (accountId == null) {
+            return;
+        }
+        snapshots.remove(accountId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A request may rebuild from the old limits before the edit commits, drop that snapshot as well
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    snapshots.remove(accountId);
+                }
+            });
+        }
+    }
+
+    private AccountLimitSnapshot build(Account account, RateSnapshot rates) {
+        return AccountLimitSnapshot.of(account, rates);
+    }
+}
@@ -3,11 +3,17 @@ package com.codegeneration.banking.api.service.implementations;
 import com.codegeneration.banking.api.entity.Account;
 import com.codegeneration.banking.api.entity.User;
 import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.events.DomainEvent.AccountChange;
+import com.codegeneration.banking.api.enums.PostingKind;
 import com.codegeneration.banking.api.exception.InsufficientFundsException;
 import com.codegeneration.banking.api.exception.ResourceNotFoundException;
 import com.codegeneration.banking.api.repository.AccountRepository;
 import com.codegeneration.banking.api.repository.UserRepository;
+import com.codegeneration.banking.api.service.interfaces.AccountLimitService;
 import com.codegeneration.banking.api.service.interfaces.AccountService;
+import com.codegeneration.banking.api.service.interfaces.DataVersionService;
+import com.codegeneration.banking.api.service.interfaces.DomainEventService;
+import com.codegeneration.banking.api.service.interfaces.LedgerJournalService;
 import com.codegeneration.banking.api.dto.account.CreateAccountRequest;
 import com.codegeneration.banking.api.dto.LimitUpdateRequest;
 import lombok.RequiredArgsConstructor;
@@ -28,6 +34,10 @@ public class AccountServiceImpl implements AccountService {
 
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
+    private final AccountLimitService accountLimitService;
+    private final LedgerJournalService ledgerJournalService;
+    private final DataVersionService dataVersionService;
+    private final DomainEventService domainEventService;
 
     @Override
     @Transactional(readOnly = true)
@@ -64,23 +74,18 @@ public class AccountServiceImpl implements AccountService {
             throw new IllegalArgumentException("Amount must be positive");
         }
         
-        // Check if withdrawal is allowed (limits)
-        if (!account.isWithdrawalAllowed(amount)) {
-            throw new InsufficientFundsException("Withdrawal exceeds daily or single transaction limits");
-        }
-        
-        // Check if sufficient balance
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException("Insufficient balance. Available: " + 
-                account.getBalance() + ", Requested: " + amount);
+        // Sufficiency is checked and applied in one statement, limits and usage are handled by the caller
+        if (accountRepository.debit(account.getId(), amount, LocalDateTime.now()) == 0) {
+            if (account.isDisabled()) {
+                throw new IllegalArgumentException("Account is disabled: " + account.getAccountNumber());
+            }
+            throw new InsufficientFundsException("Insufficient balance. Available: " +
+                accountRepository.findBalanceById(account.getId()) + ", Requested: " + amount);
         }
-        
-        // Update balance and withdrawal usage
-        account.setBalance(account.getBalance().subtract(amount));
-        account.updateWithdrawalUsed(amount);
-        
-        // Save the updated account
-        accountRepository.save(account);
+
+        account.setBalance(accountRepository.findBalanceById(account.getId()));
+        ledgerJournalService.recordPosting(account, PostingKind.WITHDRAWAL, amount);
+        dataVersionService.accountsChanged(account);
     }
 
     @Override
@@ -90,11 +95,13 @@ public class AccountServiceImpl implements AccountService {
             throw new IllegalArgumentException("Amount must be positive");
         }
         
-        // Update balance
-        account.setBalance(account.getBalance().add(amount));
-        
-        // Save the updated account
-        accountRepository.save(account);
+        if (accountRepository.credit(account.getId(), amount, LocalDateTime.now()) == 0) {
+            throw new IllegalArgumentException("Account is disabled or does not exist: " + account.getAccountNumber());
+        }
+
+        account.setBalance(accountRepository.findBalanceById(account.getId()));
+        ledgerJournalService.recordPosting(account, PostingKind.DEPOSIT, amount);
+        dataVersionService.accountsChanged(account);
     }
 
     @Override
@@ -136,6 +143,8 @@ public class AccountServiceImpl implements AccountService {
             
             // Save the account
             Account savedAccount = accountRepository.save(account);
+            dataVersionService.accountsChanged(savedAccount);
+            domainEventService.accountChanged(savedAccount, AccountChange.OPENED);
             
             System.out.println("Account created successfully with number: " + accountNumber + " for user: " + user.getUsername());
             
@@ -153,6 +162,8 @@ public class AccountServiceImpl implements AccountService {
             Account account = accountRepository.findByAccountNumber(accountNumber).get();
             account.setDisabled(true);
             accountRepository.save(account);
+            dataVersionService.accountsChanged(account);
+            domainEventService.accountChanged(account, AccountChange.DISABLED);
             return account;
 
         } catch (Exception e) {
@@ -192,7 +203,13 @@ public class AccountServiceImpl implements AccountService {
             account.setSingleTransferLimit(BigDecimal.valueOf(limitUpdateRequest.getSingleTransferLimit()));
             account.setDailyWithdrawalLimit(BigDecimal.valueOf(limitUpdateRequest.getDailyWithdrawalLimit()));
             account.setSingleWithdrawalLimit(BigDecimal.valueOf(limitUpdateRequest.getSingleWithdrawalLimit()));
+            if (limitUpdateRequest.getLimitWindowMode() != null) {
+                account.setLimitWindowMode(limitUpdateRequest.getLimitWindowMode());
+            }
             accountRepository.save(account);
+            accountLimitService.invalidate(account.getId());
+            dataVersionService.accountsChanged(account);
+            domainEventService.accountChanged(account, AccountChange.LIMITS_CHANGED);
             return account;
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -202,6 +219,7 @@ public class AccountServiceImpl implements AccountService {
     @Override
 @Transactional
 public Account saveAccount(Account account) {
+    dataVersionService.accountsChanged(account);
     return accountRepository.save(account);
 }
 }
\ No newline at end of file
@@ -0,0 +1,467 @@
+package com.codegeneration.banking.api.service.implementations;
+
+import com.codegeneration.banking.api.dto.stream.AccountChangedDTO;
+import com.codegeneration.banking.api.dto.stream.BalanceUpdateDTO;
+import com.codegeneration.banking.api.dto.stream.TransactionPostedDTO;
+import com.codegeneration.banking.api.dto.transaction.TransactionDTO;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.events.DomainEvent;
+import com.codegeneration.banking.api.events.DomainEventListener;
+import com.codegeneration.banking.api.exception.ResourceNotFoundException;
+import com.codegeneration.banking.api.repository.TransactionRepository;
+import com.codegeneration.banking.api.repository.UserRepository;
+import com.codegeneration.banking.api.service.interfaces.AccountStreamService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Feeds the account streams from the domain event bus. Streams are async servlet responses, an idle stream holds no
+ * thread, only its connection and emitter. The consumer thread of the bus and the scheduler only queue events, a pool
+ * of send-threads writes them to the connections. A connection with more than max-pending unsent events is too slow
+ * to follow and is closed, its client resumes with Last-Event-ID once it reconnects.
+ * <p>
+ * The last replay-size events of every user with a stream are kept to resume from, also for retention-ms after their
+ * last stream closed. A transaction event costs one query, and only when one of its owners has a stream.
+ * <p>
+ * Open streams are async requests the graceful shutdown of the web server would wait for until its timeout, they are
+ * completed as soon as the context starts closing.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AccountStreamServiceImpl implements AccountStreamService, DomainEventListener,
+        ApplicationListener<ContextClosedEvent> {
+
+    private final UserRepository userRepository;
+    private final TransactionRepository transactionRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.stream.reconnect-ms:3000}")
+    private long reconnectMs;
+
+    @Value("${app.stream.replay-size:100}")
+    private int replaySize;
+
+    @Value("${app.stream.retention-ms:300000}")
+    private long retentionMs;
+
+    @Value("${app.stream.send-threads:4}")
+    private int sendThreads;
+
+    @Value("${app.stream.max-pending:1000}")
+    private int maxPending;
+
+    private final Map<Long, UserStream> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private TransactionTemplate primaryReads;
+    private ExecutorService senders;
+    private volatile boolean closed;
+
+    /**
+     * Sequence of the domain event being handled, a stream opened now has seen everything up to it
+     */
+    private volatile long lastSequence = -1;
+
+    /** An event as sent, kept to replay it */
+    private record Message(long id, String name, Object data) {
+    }
+
+    @PostConstruct
+    public void start() {
+        // A read-write transaction is routed to the primary, the replica may not have the transaction yet
+        primaryReads = new TransactionTemplate(transactionManager);
+        AtomicInteger senderCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(sendThreads, task -> {
+            Thread thread = new Thread(task, "account-stream-sender-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("banking.stream.connections", connections, AtomicInteger::get)
+                .description("Open account streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Published before the web server stops, see the class comment
+     */
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        closed = true;
+        streams.values().forEach(UserStream::close);
+        // Lets the queued events and completions go out, a write blocked on a stalled client is not waited for
+        senders.shutdown();
+    }
+
+    @Override
+    public SseEmitter open(String username, String lastEventId) {
+        Long userId = userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        Long lastId = parseEventId(lastEventId);
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        boolean[] created = new boolean[1];
+        UserStream stream = streams.compute(userId, (id, existing) -> {
+            UserStream opened = existing;
+            if (opened == null) {
+                opened = new UserStream();
+                created[0] = true;
+            }
+            opened.opening();
+            return opened;
+        });
+        if (created[0]) {
+            // Read after the stream was added: every later event is handled by a consumer that can see the stream
+            stream.startAfter(lastSequence);
+        }
+        Connection connection = new Connection(emitter, stream);
+        emitter.onCompletion(() -> stream.detach(connection));
+        emitter.onError(e -> stream.detach(connection));
+        emitter.onTimeout(emitter::complete);
+        stream.attach(connection, lastId);
+        if (closed) {
+            // Opened while the streams were being closed, the close may not have seen it
+            stream.close();
+        }
+        return emitter;
+    }
+
+    @Override
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    @Override
+    public void onEvent(DomainEvent event, boolean endOfBatch) {
+        lastSequence = event.getSequence();
+        if (event.getType() == DomainEvent.Type.TRANSACTION_POSTED) {
+            transactionPosted(event);
+        } else {
+            UserStream stream = streams.get(event.getUserId());
+            if (stream != null) {
+                stream.publish(new Message(event.getSequence(), "account", AccountChangedDTO.builder()
+                        .accountId(event.getAccountId())
+                        .change(event.getAccountChange().name())
+                        .build()));
+            }
+        }
+    }
+
+    @Override
+    public void onEventsLost(long count) {
+        long upTo = lastSequence + count;
+        lastSequence = upTo;
+        log.warn("Account streams missed {} events, clients have to resync", count);
+        streams.values().forEach(stream -> stream.resync(upTo));
+    }
+
+    /**
+     * Keep idle connections from being closed by proxies, notice closed ones and drop streams that have been
+     * without a connection for longer than the retention
+     */
+    @Scheduled(initialDelayString = "${app.stream.heartbeat-ms:15000}",
+            fixedDelayString = "${app.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        long cutoff = System.currentTimeMillis() - retentionMs;
+        for (Long userId : streams.keySet()) {
+            UserStream stream = streams.computeIfPresent(userId, (id, existing) ->
+                    existing.isIdleSince(cutoff) ? null : existing);
+            if (stream != null) {
+                stream.heartbeat();
+            }
+        }
+    }
+
+    private void transactionPosted(DomainEvent event) {
+        boolean sameUser = event.getSourceUserId() == event.getDestinationUserId();
+        UserStream source = streams.get(event.getSourceUserId());
+        UserStream destination = sameUser ? null : streams.get(event.getDestinationUserId());
+        if (source == null && destination == null) {
+            return;
+        }
+        long sequence = event.getSequence();
+        long sourceBalance = event.getSourceBalanceUnits();
+        long destinationBalance = event.getDestinationBalanceUnits();
+        boolean sameAccount = event.getSourceAccountId() == event.getDestinationAccountId();
+        TransactionDTO transaction = primaryReads.execute(status -> transactionRepository
+                .findWithAccountsById(event.getTransactionId())
+                .map(TransactionDTO::fromEntity)
+                .orElse(null));
+        if (transaction == null) {
+            return;
+        }
+
+        BalanceUpdateDTO debited = balance(transaction.getSourceAccount(), sourceBalance);
+        BalanceUpdateDTO credited = balance(transaction.getDestinationAccount(), destinationBalance);
+        if (source != null) {
+            List<BalanceUpdateDTO> balances = sameAccount ? List.of(credited)
+                    : sameUser ? List.of(debited, credited) : List.of(debited);
+            source.publish(new Message(sequence, "transaction", new TransactionPostedDTO(transaction, balances)));
+        }
+        if (destination != null) {
+            destination.publish(new Message(sequence, "transaction",
+                    new TransactionPostedDTO(transaction, List.of(credited))));
+        }
+    }
+
+    private static BalanceUpdateDTO balance(TransactionDTO.AccountDTO account, long units) {
+        return BalanceUpdateDTO.builder()
+                .accountNumber(account.getAccountNumber())
+                .balance(Money.fromUnits(units))
+                .currency(account.getCurrency())
+                .build();
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            // Not one of ours, the client cannot know what it missed
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * A client that went away is only noticed when writing to it. The container completes the request after a failed
+     * write, completing it here as well would throw.
+     */
+    private static boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Account stream closed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder resyncEvent() {
+        return SseEmitter.event().name("resync").data(Map.of(), MediaType.APPLICATION_JSON);
+    }
+
+    private static SseEmitter.SseEventBuilder toEvent(Message message) {
+        return SseEmitter.event()
+                .id(Long.toString(message.id()))
+                .name(message.name())
+                .data(message.data(), MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * The connections and the replay buffer of one user. All methods hold the lock of the stream, so a client that
+     * resumes gets the replayed events before any new one.
+     */
+    private final class UserStream {
+
+        private final List<Connection> attached = new ArrayList<>();
+        private final ArrayDeque<Message> replay = new ArrayDeque<>();
+        /** Every event after this sequence is in the replay buffer */
+        private long since = Long.MIN_VALUE;
+        private int opening;
+        private long idleSince = System.currentTimeMillis();
+
+        synchronized void opening() {
+            opening++;
+        }
+
+        synchronized void startAfter(long sequence) {
+            since = Math.max(since, sequence);
+        }
+
+        /**
+         * Called before the emitter is returned, sending only buffers the events until the request thread commits
+         * the response with them. Later events are written by the senders.
+         */
+        synchronized void attach(Connection connection, Long lastId) {
+            opening--;
+            SseEmitter emitter = connection.emitter;
+            // Commits the response, the client knows the stream is open before the first event
+            if (!send(emitter, SseEmitter.event().comment("connected").reconnectTime(reconnectMs))) {
+                return;
+            }
+            if (lastId != null) {
+                if (lastId < since) {
+                    if (!send(emitter, resyncEvent())) {
+                        return;
+                    }
+                } else {
+                    for (Message message : replay) {
+                        if (message.id() > lastId && !send(emitter, toEvent(message))) {
+                            return;
+                        }
+                    }
+                }
+            }
+            attached.add(connection);
+            connections.incrementAndGet();
+        }
+
+        synchronized void detach(Connection connection) {
+            if (attached.remove(connection)) {
+                connections.decrementAndGet();
+                if (attached.isEmpty()) {
+                    idleSince = System.currentTimeMillis();
+                }
+            }
+        }
+
+        synchronized void publish(Message message) {
+            replay.addLast(message);
+            while (replay.size() > replaySize) {
+                since = replay.removeFirst().id();
+            }
+            queueToAll(() -> toEvent(message));
+        }
+
+        synchronized void resync(long upTo) {
+            replay.clear();
+            since = Math.max(since, upTo);
+            queueToAll(AccountStreamServiceImpl::resyncEvent);
+        }
+
+        synchronized void heartbeat() {
+            queueToAll(() -> SseEmitter.event().comment("heartbeat"));
+        }
+
+        synchronized boolean isIdleSince(long cutoff) {
+            return attached.isEmpty() && opening == 0 && idleSince < cutoff;
+        }
+
+        synchronized void close() {
+            new ArrayList<>(attached).forEach(Connection::close);
+        }
+
+        /**
+         * A builder can only be sent once, every connection gets one of its own
+         */
+        private void queueToAll(Supplier<SseEmitter.SseEventBuilder> event) {
+            for (Connection connection : new ArrayList<>(attached)) {
+                queue(connection, event.get());
+            }
+        }
+
+        private void queue(Connection connection, SseEmitter.SseEventBuilder event) {
+            if (!connection.offer(event)) {
+                detach(connection);
+            }
+        }
+    }
+
+    /**
+     * The events of one connection that are not written yet. At most one sender drains a connection at a time, so
+     * its events are written in the order they were queued.
+     */
+    private final class Connection implements Runnable {
+
+        private final SseEmitter emitter;
+        private final UserStream stream;
+        private final ArrayDeque<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+
+        Connection(SseEmitter emitter, UserStream stream) {
+            this.emitter = emitter;
+            this.stream = stream;
+        }
+
+        /**
+         * @return false if the connection is closed, also when this event would have been one too many
+         */
+        synchronized boolean offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return false;
+            }
+            if (pending.size() >= maxPending) {
+                log.debug("Account stream has {} unsent events, closing it", pending.size());
+                close();
+                return false;
+            }
+            pending.addLast(event);
+            drain();
+            return !closed;
+        }
+
+        /**
+         * Complete the emitter once the write in progress, if any, has finished
+         */
+        synchronized void close() {
+            closed = true;
+            pending.clear();
+            drain();
+        }
+
+        private void drain() {
+            if (draining) {
+                return;
+            }
+            try {
+                senders.execute(this);
+                draining = true;
+            } catch (RejectedExecutionException e) {
+                // The context is closing, nothing is sent anymore
+                closed = true;
+                pending.clear();
+                emitter.complete();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                SseEmitter.SseEventBuilder event;
+                boolean complete;
+                synchronized (this) {
+                    event = pending.pollFirst();
+                    complete = event == null && closed;
+                    if (event == null) {
+                        draining = false;
+                    }
+                }
+                if (complete) {
+                    emitter.complete();
+                }
+                if (event == null) {
+                    return;
+                }
+                if (!send(emitter, event)) {
+                    synchronized (this) {
+                        closed = true;
+                        pending.clear();
+                        draining = false;
+                    }
+                    stream.detach(this);
+                    return;
+                }
+            }
+        }
+    }
+}
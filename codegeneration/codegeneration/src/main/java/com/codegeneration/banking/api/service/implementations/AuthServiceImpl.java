@@ -12,6 +12,7 @@ import com.codegeneration.banking.api.exception.UnauthorizedException;
 import com.codegeneration.banking.api.repository.UserRepository;
 import com.codegeneration.banking.api.security.JwtTokenProvider;
 import com.codegeneration.banking.api.service.interfaces.AuthService;
+import com.codegeneration.banking.api.service.interfaces.UserDirectoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.DisabledException;
@@ -34,6 +35,7 @@ public class AuthServiceImpl implements AuthService {
     private final JwtTokenProvider jwtTokenProvider;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserDirectoryService userDirectoryService;
 
     @Override
     public LoginResponse login(LoginRequest loginRequest) {
@@ -109,6 +111,7 @@ public class AuthServiceImpl implements AuthService {
                 .build();
 
         User savedUser = userRepository.save(newUser);
+        userDirectoryService.index(savedUser);
 
         return UserDTO.fromEntity(savedUser);
     }
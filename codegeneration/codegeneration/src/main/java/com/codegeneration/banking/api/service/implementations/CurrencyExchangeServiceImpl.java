@@ -1,53 +1,27 @@
 package com.codegeneration.banking.api.service.implementations;
 
+import com.codegeneration.banking.api.dto.currency.CurrencyConversionRequest;
+import com.codegeneration.banking.api.dto.currency.CurrencyExchangeDTO;
+import com.codegeneration.banking.api.dto.currency.RateSnapshot;
+import com.codegeneration.banking.api.dto.currency.RateStatusDTO;
+import com.codegeneration.banking.api.entity.Money;
 import com.codegeneration.banking.api.enums.Currency;
 import com.codegeneration.banking.api.service.interfaces.CurrencyExchangeService;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.function.Consumer;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class CurrencyExchangeServiceImpl implements CurrencyExchangeService {
 
-    // Hardcoded exchange rates (EUR as base currency)
-    private static final Map<String, BigDecimal> EXCHANGE_RATES = new HashMap<>();
-
-    static {
-        // EUR to other currencies (Euro)
-        EXCHANGE_RATES.put("EUR_USD", new BigDecimal("1.08"));
-        EXCHANGE_RATES.put("EUR_GBP", new BigDecimal("0.86"));
-        EXCHANGE_RATES.put("EUR_CHF", new BigDecimal("0.95"));
-        EXCHANGE_RATES.put("EUR_PLN", new BigDecimal("4.23"));
-
-        // USD to other currencies (American Dollar)
-        EXCHANGE_RATES.put("USD_EUR", new BigDecimal("0.93"));
-        EXCHANGE_RATES.put("USD_GBP", new BigDecimal("0.80"));
-        EXCHANGE_RATES.put("USD_CHF", new BigDecimal("0.88"));
-        EXCHANGE_RATES.put("USD_PLN", new BigDecimal("3.92"));
-
-        // GBP to other currencies (British Pound)
-        EXCHANGE_RATES.put("GBP_EUR", new BigDecimal("1.16"));
-        EXCHANGE_RATES.put("GBP_USD", new BigDecimal("1.25"));
-        EXCHANGE_RATES.put("GBP_CHF", new BigDecimal("1.10"));
-        EXCHANGE_RATES.put("GBP_PLN", new BigDecimal("4.91"));
-
-        // CHF to other currencies (Swiss Franc)
-        EXCHANGE_RATES.put("CHF_EUR", new BigDecimal("1.05"));
-        EXCHANGE_RATES.put("CHF_USD", new BigDecimal("1.14"));
-        EXCHANGE_RATES.put("CHF_GBP", new BigDecimal("0.91"));
-        EXCHANGE_RATES.put("CHF_PLN", new BigDecimal("4.45"));
-
-        // PLN to other currencies (Polish Zloty)
-        EXCHANGE_RATES.put("PLN_EUR", new BigDecimal("0.24"));
-        EXCHANGE_RATES.put("PLN_USD", new BigDecimal("0.26"));
-        EXCHANGE_RATES.put("PLN_GBP", new BigDecimal("0.20"));
-        EXCHANGE_RATES.put("PLN_CHF", new BigDecimal("0.22"));
-    }
+    private final ExchangeRateRefresher exchangeRateRefresher;
 
     @Override
     public BigDecimal getExchangeRate(Currency fromCurrency, Currency toCurrency) {
@@ -59,8 +33,8 @@ public class CurrencyExchangeServiceImpl implements CurrencyExchangeService {
             return BigDecimal.ONE;
         }
 
-        String rateKey = fromCurrency.name() + "_" + toCurrency.name();
-        BigDecimal rate = EXCHANGE_RATES.get(rateKey);
+        // Always read the last published snapshot, refreshes never block lookups
+        BigDecimal rate = exchangeRateRefresher.current().getRate(fromCurrency, toCurrency);
 
         if (rate == null) {
             log.error("Exchange rate not found for {} to {}", fromCurrency, toCurrency);
@@ -87,8 +61,68 @@ public class CurrencyExchangeServiceImpl implements CurrencyExchangeService {
         return convertedAmount.setScale(4, RoundingMode.HALF_UP);
     }
 
+    @Override
+    public Money convert(Money amount, Currency toCurrency) {
+        if (amount == null || amount.isNegative()) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        if (toCurrency == null) {
+            throw new IllegalArgumentException("Currencies cannot be null");
+        }
+
+        if (amount.getCurrency() == toCurrency) {
+            return amount;
+        }
+
+        long units = exchangeRateRefresher.current().convertUnits(amount.getUnits(), amount.getCurrency(), toCurrency);
+        return Money.ofUnits(units, toCurrency);
+    }
+
     @Override
     public boolean isConversionNeeded(Currency fromCurrency, Currency toCurrency) {
         return fromCurrency != null && toCurrency != null && !fromCurrency.equals(toCurrency);
     }
-}
\ No newline at end of file
+
+    @Override
+    public RateStatusDTO getRateStatus() {
+        return exchangeRateRefresher.getStatus();
+    }
+
+    @Override
+    public RateSnapshot getRateSnapshot() {
+        return exchangeRateRefresher.current();
+    }
+
+    @Override
+    public void convertBatch(RateSnapshot snapshot, List<CurrencyConversionRequest> conversions,
+                             Consumer<CurrencyExchangeDTO> consumer) {
+        int size = Currency.values().length;
+        // Rate info strings are built once per currency pair instead of once per item
+        String[] rateInfos = new String[size * size];
+
+        for (CurrencyConversionRequest conversion : conversions) {
+            Currency from = conversion.getFromCurrency();
+            Currency to = conversion.getToCurrency();
+            BigDecimal rate = snapshot.getRate(from, to);
+            BigDecimal convertedAmount = from == to
+                    ? conversion.getAmount()
+                    : conversion.getAmount().multiply(rate).setScale(4, RoundingMode.HALF_UP);
+
+            int pair = from.ordinal() * size + to.ordinal();
+            String rateInfo = rateInfos[pair];
+            if (rateInfo == null) {
+                rateInfo = String.format("1 %s = %s %s", from, rate, to);
+                rateInfos[pair] = rateInfo;
+            }
+
+            consumer.accept(CurrencyExchangeDTO.builder()
+                    .fromCurrency(from)
+                    .toCurrency(to)
+                    .rate(rate)
+                    .originalAmount(conversion.getAmount())
+                    .convertedAmount(convertedAmount)
+                    .rateInfo(rateInfo)
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.codegeneration.banking.api.service.implementations;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.repository.UserRepository;
+import com.codegeneration.banking.api.service.interfaces.DataVersionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a counter per user in memory. Versions start over when the application starts, so every ETag also carries
+ * the start time and ETags handed out before a restart never match again.
+ * <p>
+ * User ids are looked up once per username and kept, a conditional request of a known user needs no query at all.
+ */
+@Service
+@RequiredArgsConstructor
+public class DataVersionServiceImpl implements DataVersionService {
+
+    private final UserRepository userRepository;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, Long> userIds = new ConcurrentHashMap<>();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    @Override
+    public String getETag(String username, String listing) {
+        Long userId = userIds.get(username);
+        if (userId == null) {
+            Optional<Long> found = userRepository.findIdByUsername(username);
+            if (found.isEmpty()) {
+                return null;
+            }
+            userId = found.get();
+            userIds.put(username, userId);
+        }
+        return "\"" + listing + "-" + epoch + "-" + versions.getOrDefault(userId, 0L) + "\"";
+    }
+
+    @Override
+    public void accountsChanged(Account... accounts) {
+        for (Account account : accounts) {
+            // The id of a lazy user proxy is known without loading the user
+            if (account != null && account.getUser() != null) {
+                userChanged(account.getUser().getId());
+            }
+        }
+    }
+
+    @Override
+    public void userChanged(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    // A rollback changes nothing, bumping anyway only costs the next poll a full response
+                    bump(userId);
+                }
+            });
+        } else {
+            bump(userId);
+        }
+    }
+
+    private void bump(Long userId) {
+        versions.merge(userId, 1L, Long::sum);
+    }
+}
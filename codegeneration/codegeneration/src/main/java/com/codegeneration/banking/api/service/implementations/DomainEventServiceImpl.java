@@ -0,0 +1,164 @@
+package com.codegeneration.banking.api.service.implementations;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.entity.Transaction;
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.events.DomainEvent;
+import com.codegeneration.banking.api.events.DomainEvent.AccountChange;
+import com.codegeneration.banking.api.events.DomainEventBus;
+import com.codegeneration.banking.api.events.DomainEventListener;
+import com.codegeneration.banking.api.service.interfaces.DomainEventService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+/**
+ * Publishes through one {@link DomainEventBus}. Inside a transaction the slot is claimed in beforeCommit, while the
+ * transaction still holds the row locks of the accounts it changed, and published after the commit. That is what puts
+ * the events of an account in commit order.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DomainEventServiceImpl implements DomainEventService {
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<DomainEventListener> listeners;
+
+    @Value("${app.events.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.events.ring-size:65536}")
+    private int ringSize;
+
+    @Value("${app.events.max-batch:256}")
+    private int maxBatch;
+
+    private DomainEventBus bus;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        bus = new DomainEventBus(ringSize, maxBatch);
+        FunctionCounter.builder("banking.events.published", bus, DomainEventBus::getPublishedCount)
+                .description("Domain events published after their transaction committed")
+                .register(meterRegistry);
+        listeners.orderedStream().forEach(listener -> subscribe(listener.getClass().getSimpleName(), listener));
+        log.info("Domain events go through a ring of {} slots", ringSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (bus != null) {
+            bus.close();
+        }
+    }
+
+    @Override
+    public void transactionPosted(Transaction transaction, Money debitAmount, Money creditAmount) {
+        if (bus == null) {
+            return;
+        }
+        // Taken now, the entities may change before the commit
+        long transactionId = transaction.getId();
+        String reference = transaction.getTransactionReference();
+        Transaction.TransactionType type = transaction.getType();
+        Account source = transaction.getSourceAccount();
+        Account destination = transaction.getDestinationAccount();
+        long sourceId = source.getId();
+        long destinationId = destination.getId();
+        long sourceUserId = userId(source);
+        long destinationUserId = userId(destination);
+        long sourceBalance = units(source.getBalance());
+        long destinationBalance = units(destination.getBalance());
+        long debitUnits = debitAmount != null ? debitAmount.getUnits() : 0;
+        Currency debitCurrency = debitAmount != null ? debitAmount.getCurrency() : null;
+        long creditUnits = creditAmount != null ? creditAmount.getUnits() : 0;
+        Currency creditCurrency = creditAmount != null ? creditAmount.getCurrency() : null;
+
+        publish(event -> event.transactionPosted(transactionId, reference, type, sourceId, destinationId,
+                sourceUserId, destinationUserId, debitUnits, debitCurrency, creditUnits, creditCurrency,
+                sourceBalance, destinationBalance));
+    }
+
+    @Override
+    public void accountChanged(Account account, AccountChange change) {
+        if (bus == null) {
+            return;
+        }
+        long accountId = account.getId();
+        long userId = userId(account);
+        publish(event -> event.accountChanged(accountId, userId, change));
+    }
+
+    @Override
+    public DomainEventBus.Subscription subscribe(String name, DomainEventListener listener) {
+        if (bus == null) {
+            return null;
+        }
+        DomainEventBus.Subscription subscription = bus.subscribe(name, listener);
+        Gauge.builder("banking.events.lag", subscription, DomainEventBus.Subscription::getLag)
+                .description("Events the subscriber has not read yet")
+                .tag("subscriber", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("banking.events.lost", subscription, DomainEventBus.Subscription::getLostCount)
+                .description("Events overwritten before the subscriber read them")
+                .tag("subscriber", name)
+                .register(meterRegistry);
+        return subscription;
+    }
+
+    private void publish(Consumer<DomainEvent> fill) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            long sequence = bus.claim();
+            fill.accept(bus.get(sequence));
+            bus.publish(sequence);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long sequence = -1;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                sequence = bus.claim();
+                fill.accept(bus.get(sequence));
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (sequence < 0) {
+                    return;
+                }
+                if (status == STATUS_COMMITTED) {
+                    bus.publish(sequence);
+                } else {
+                    bus.cancel(sequence);
+                }
+            }
+        });
+    }
+
+    private static long userId(Account account) {
+        // The id of a lazy user proxy is known without loading the user
+        return account.getUser() != null ? account.getUser().getId() : 0;
+    }
+
+    private static long units(BigDecimal amount) {
+        return amount != null ? Money.toUnits(amount) : 0;
+    }
+}
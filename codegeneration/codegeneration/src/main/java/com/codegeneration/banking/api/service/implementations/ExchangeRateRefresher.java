@@ -0,0 +1,192 @@
+package com.codegeneration.banking.api.service.implementations;
+
+import com.codegeneration.banking.api.dto.currency.RateSnapshot;
+import com.codegeneration.banking.api.dto.currency.RateStatusDTO;
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.service.interfaces.RateProvider;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Polls the configured {@link RateProvider} in the background and publishes validated rate snapshots.
+ * Readers always get the last good snapshot without blocking, a failed or rejected refresh keeps the previous one.
+ * A table that moved further than app.rates.max-change-ratio is published once app.rates.confirmations fetches in a
+ * row agree with it, and the first table of the configured provider replaces a bootstrap from the file unchecked.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ExchangeRateRefresher {
+
+    private final List<RateProvider> providers;
+
+    private final AtomicReference<RateSnapshot> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private volatile long lastRefreshLatencyNanos;
+    private volatile Instant lastAttemptAt;
+    private volatile String lastError;
+
+    @Value("${app.rates.provider:file}")
+    private String providerName;
+
+    // Reject a new table if any quoted rate moved by more than this fraction since the last good snapshot
+    @Value("${app.rates.max-change-ratio:0.5}")
+    private BigDecimal maxChangeRatio;
+
+    @Value("${app.rates.confirmations:3}")
+    private int requiredConfirmations;
+
+    // Last fetched table that moved too far from the published one and the number of fetches in a row that agree with it
+    private RateSnapshot unconfirmed;
+    private int confirmations;
+
+    @PostConstruct
+    public void init() {
+        refresh();
+        if (current.get() == null && !FileRateProvider.NAME.equals(providerName)) {
+            // Bootstrap from the bundled file so conversions work until the remote source recovers
+            log.warn("Initial rate load from '{}' failed, bootstrapping from file provider", providerName);
+            refreshFrom(findProvider(FileRateProvider.NAME));
+        }
+        if (current.get() == null) {
+            throw new IllegalStateException("No exchange rates could be loaded: " + lastError);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.rates.refresh-interval-ms:60000}",
+            fixedDelayString = "${app.rates.refresh-interval-ms:60000}")
+    public void refresh() {
+        refreshFrom(findProvider(providerName));
+    }
+
+    /**
+     * Get the last published snapshot
+     *
+     * @return Snapshot, never null once the application has started
+     */
+    public RateSnapshot current() {
+        return current.get();
+    }
+
+    /**
+     * Get rate age and refresh statistics
+     *
+     * @return Status of the rate table
+     */
+    public RateStatusDTO getStatus() {
+        RateSnapshot snapshot = current.get();
+        return RateStatusDTO.builder()
+                .provider(providerName)
+                .version(snapshot.getVersion())
+                .source(snapshot.getSource())
+                .fetchedAt(snapshot.getFetchedAt())
+                .ageMillis(getRateAgeMillis())
+                .lastRefreshLatencyMillis(lastRefreshLatencyNanos / 1_000_000.0)
+                .lastAttemptAt(lastAttemptAt)
+                .refreshFailures(refreshFailures.get())
+                .lastError(lastError)
+                .build();
+    }
+
+    /**
+     * Milliseconds since the published snapshot was fetched
+     */
+    public long getRateAgeMillis() {
+        RateSnapshot snapshot = current.get();
+        return snapshot == null ? -1 : Duration.between(snapshot.getFetchedAt(), Instant.now()).toMillis();
+    }
+
+    /**
+     * Duration of the last refresh attempt in nanoseconds, successful or not
+     */
+    public long getLastRefreshLatencyNanos() {
+        return lastRefreshLatencyNanos;
+    }
+
+    public long getRefreshFailures() {
+        return refreshFailures.get();
+    }
+
+    private synchronized void refreshFrom(RateProvider provider) {
+        long start = System.nanoTime();
+        lastAttemptAt = Instant.now();
+        try {
+            Map<String, BigDecimal> rates = provider.fetchRates();
+            RateSnapshot candidate = RateSnapshot.of(versions.incrementAndGet(), Instant.now(), provider.getName(), rates);
+            validateChange(current.get(), candidate);
+            unconfirmed = null;
+            confirmations = 0;
+            current.set(candidate);
+            lastError = null;
+            log.debug("Published exchange rate snapshot v{} from {}", candidate.getVersion(), provider.getName());
+        } catch (Exception e) {
+            refreshFailures.incrementAndGet();
+            lastError = e.getMessage();
+            log.error("Exchange rate refresh from {} failed, keeping previous snapshot: {}", provider.getName(), e.getMessage());
+        } finally {
+            lastRefreshLatencyNanos = System.nanoTime() - start;
+        }
+    }
+
+    private void validateChange(RateSnapshot previous, RateSnapshot candidate) {
+        // A table of another provider is the configured one taking over from the file bootstrap
+        if (previous == null || !previous.getSource().equals(candidate.getSource())) {
+            return;
+        }
+        String move = findExcessiveMove(previous, candidate);
+        if (move == null) {
+            return;
+        }
+        if (unconfirmed == null || findExcessiveMove(unconfirmed, candidate) != null) {
+            confirmations = 0;
+        }
+        unconfirmed = candidate;
+        confirmations++;
+        if (confirmations < requiredConfirmations) {
+            throw new IllegalArgumentException(String.format("%s, exceeds allowed change (confirmed by %d of %d fetches)",
+                    move, confirmations, requiredConfirmations));
+        }
+        log.warn("{}, publishing it after {} fetches in a row confirmed it", move, confirmations);
+    }
+
+    /**
+     * @return Description of the first quoted rate that moved further than the allowed ratio, null if none did
+     */
+    private String findExcessiveMove(RateSnapshot previous, RateSnapshot candidate) {
+        for (Currency from : Currency.values()) {
+            for (Currency to : Currency.values()) {
+                if (from == to || !candidate.isQuoted(from, to)) {
+                    continue;
+                }
+                BigDecimal oldRate = previous.getRate(from, to);
+                BigDecimal change = candidate.getRate(from, to).subtract(oldRate).abs()
+                        .divide(oldRate, 6, RoundingMode.HALF_UP);
+                if (change.compareTo(maxChangeRatio) > 0) {
+                    return String.format("Rate %s_%s moved from %s to %s", from, to, oldRate, candidate.getRate(from, to));
+                }
+            }
+        }
+        return null;
+    }
+
+    private RateProvider findProvider(String name) {
+        return providers.stream()
+                .filter(provider -> provider.getName().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown rate provider: " + name));
+    }
+}
@@ -0,0 +1,50 @@
+package com.codegeneration.banking.api.service.implementations;
+
+import com.codegeneration.banking.api.service.interfaces.RateProvider;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Reads rates from a properties file (EUR_USD=1.08), either on the classpath or on disk.
+ * The file is re-read on every refresh so edits are picked up without a restart.
+ */
+@Component
+@RequiredArgsConstructor
+public class FileRateProvider implements RateProvider {
+
+    public static final String NAME = "file";
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${app.rates.file:classpath:exchange-rates.properties}")
+    private String location;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Map<String, BigDecimal> fetchRates() throws Exception {
+        Resource resource = resourceLoader.getResource(location);
+        Properties properties = new Properties();
+        try (InputStream in = resource.getInputStream()) {
+            properties.load(in);
+        }
+
+        Map<String, BigDecimal> rates = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            rates.put(key.trim(), new BigDecimal(properties.getProperty(key).trim()));
+        }
+        return rates;
+    }
+}
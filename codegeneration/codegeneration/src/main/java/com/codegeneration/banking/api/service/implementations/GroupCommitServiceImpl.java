@@ -0,0 +1,259 @@
+package com.codegeneration.banking.api.service.implementations;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.entity.Posting;
+import com.codegeneration.banking.api.entity.Transaction;
+import com.codegeneration.banking.api.entity.Transaction.TransactionType;
+import com.codegeneration.banking.api.enums.PostingKind;
+import com.codegeneration.banking.api.exception.InsufficientFundsException;
+import com.codegeneration.banking.api.groupcommit.GroupCommitter;
+import com.codegeneration.banking.api.service.interfaces.DomainEventService;
+import com.codegeneration.banking.api.service.interfaces.GroupCommitService;
+import com.codegeneration.banking.api.service.interfaces.LedgerJournalService;
+import com.codegeneration.banking.api.service.interfaces.PostingService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies transfers and ATM transactions through one {@link GroupCommitter} writer when app.group-commit.enabled is
+ * set. The balance updates run per request behind a savepoint, the transaction rows and their postings of a whole
+ * batch are inserted as two JDBC batches and committed together. The batch is journaled after the inserts and only
+ * counts once it committed, a batch retried request by request is journaled by the retries alone.
+ * <p>
+ * The writer owns a connection taken from the pool at startup. With open-in-view every waiting request holds a
+ * pooled connection, a writer that borrowed one per batch could be starved by the requests it is serving.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GroupCommitServiceImpl implements GroupCommitService {
+
+    private static final String DEBIT_SQL = "UPDATE accounts SET balance = balance - ?, updated_at = ? "
+            + "WHERE id = ? AND balance >= ? AND disabled = FALSE";
+    private static final String CREDIT_SQL = "UPDATE accounts SET balance = balance + ?, updated_at = ? "
+            + "WHERE id = ? AND disabled = FALSE";
+    private static final String BALANCE_SQL = "SELECT balance FROM accounts WHERE id = ?";
+    private static final String TRANSACTION_SQL = "INSERT INTO transactions (transaction_reference, amount, currency, "
+            + "description, status, type, source_account_id, destination_account_id, created_at, completed_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final PostingService postingService;
+    private final LedgerJournalService ledgerJournalService;
+    private final DomainEventService domainEventService;
+
+    @Value("${app.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.group-commit.window-us:50}")
+    private long windowMicros;
+
+    @Value("${app.group-commit.max-batch:64}")
+    private int maxBatch;
+
+    @Value("${app.group-commit.queue-capacity:4096}")
+    private int queueCapacity;
+
+    private Connection connection;
+    private JdbcTemplate jdbcTemplate;
+    private GroupCommitter<BalanceWrite, Transaction> committer;
+
+    /** A balance change waiting for the writer, ATM transactions only have one of the two amounts */
+    private record BalanceWrite(Transaction transaction, Money debitAmount, Money creditAmount) {
+    }
+
+    @PostConstruct
+    public void start() throws SQLException {
+        if (!enabled) {
+            return;
+        }
+        connection = dataSource.getConnection();
+        SingleConnectionDataSource writerDataSource = new SingleConnectionDataSource(connection, true);
+        jdbcTemplate = new JdbcTemplate(writerDataSource);
+        committer = new GroupCommitter<>("group-commit-writer",
+                new TransactionTemplate(new DataSourceTransactionManager(writerDataSource)), new BalanceWriter(),
+                TimeUnit.MICROSECONDS.toNanos(windowMicros), maxBatch, queueCapacity);
+        log.info("Group commit enabled with a window of {} us and at most {} requests per transaction",
+                windowMicros, maxBatch);
+    }
+
+    @PreDestroy
+    public void stop() throws SQLException {
+        if (committer == null) {
+            return;
+        }
+        committer.close();
+        connection.close();
+        log.info("Group commit writer committed {} requests in {} transactions",
+                committer.getRequestCount(), committer.getBatchCount());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return committer != null;
+    }
+
+    @Override
+    public Transaction executeTransfer(Transaction transaction, Money debitAmount, Money creditAmount) {
+        return committer().submit(new BalanceWrite(transaction, debitAmount, creditAmount));
+    }
+
+    @Override
+    public Transaction executeAtmTransaction(Transaction transaction, Money amount) {
+        boolean deposit = transaction.getType() == TransactionType.ATM_DEPOSIT;
+        return committer().submit(new BalanceWrite(transaction, deposit ? null : amount, deposit ? amount : null));
+    }
+
+    private GroupCommitter<BalanceWrite, Transaction> committer() {
+        if (committer == null) {
+            throw new IllegalStateException("Group commit is disabled");
+        }
+        return committer;
+    }
+
+    private class BalanceWriter implements GroupCommitter.BatchHandler<BalanceWrite, Transaction> {
+
+        @Override
+        public void apply(BalanceWrite write) {
+            Transaction transaction = write.transaction();
+            Account source = transaction.getSourceAccount();
+            Account destination = transaction.getDestinationAccount();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+            if (write.debitAmount() != null) {
+                BigDecimal amount = write.debitAmount().toBigDecimal();
+                if (jdbcTemplate.update(DEBIT_SQL, amount, now, source.getId(), amount) == 0) {
+                    throw debitRejected(transaction, source, amount);
+                }
+                source.setBalance(balanceOf(source));
+            }
+            if (write.creditAmount() != null
+                    && jdbcTemplate.update(CREDIT_SQL, write.creditAmount().toBigDecimal(), now, destination.getId()) == 0) {
+                throw new IllegalArgumentException(transaction.getType() == TransactionType.TRANSFER
+                        ? "Destination account is disabled: " + destination.getAccountNumber()
+                        : "Account is disabled or does not exist: " + destination.getAccountNumber());
+            }
+            if (write.creditAmount() != null) {
+                destination.setBalance(balanceOf(destination));
+            }
+        }
+
+        @Override
+        public List<Transaction> complete(List<BalanceWrite> applied) {
+            LocalDateTime now = LocalDateTime.now();
+            List<Transaction> transactions = new ArrayList<>(applied.size());
+            for (BalanceWrite write : applied) {
+                Transaction transaction = write.transaction();
+                transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
+                transaction.setCompletedAt(now);
+                if (transaction.getCreatedAt() == null) {
+                    transaction.setCreatedAt(now);
+                }
+                transactions.add(transaction);
+            }
+            insertTransactions(transactions);
+
+            List<Posting> legs = new ArrayList<>(applied.size() * 2);
+            for (BalanceWrite write : applied) {
+                legs.addAll(write.transaction().getType() == TransactionType.TRANSFER
+                        ? postingService.transferLegs(write.transaction(), write.debitAmount(), write.creditAmount())
+                        : postingService.atmLegs(write.transaction(), write.debitAmount() != null
+                                ? write.debitAmount() : write.creditAmount()));
+            }
+            PostingServiceImpl.insert(jdbcTemplate, legs);
+            // Journaled once nothing of the batch can fail anymore but the commit, which resolves the postings
+            for (BalanceWrite write : applied) {
+                journal(write);
+            }
+            // The writer commits batches one after the other, so their events are in commit order as well
+            for (BalanceWrite write : applied) {
+                domainEventService.transactionPosted(write.transaction(), write.debitAmount(), write.creditAmount());
+            }
+            return transactions;
+        }
+
+        private void journal(BalanceWrite write) {
+            Transaction transaction = write.transaction();
+            switch (transaction.getType()) {
+                case TRANSFER -> ledgerJournalService.recordTransfer(transaction.getSourceAccount(),
+                        transaction.getDestinationAccount(), write.debitAmount(), write.creditAmount());
+                case ATM_DEPOSIT -> ledgerJournalService.recordPosting(transaction.getDestinationAccount(),
+                        PostingKind.DEPOSIT, write.creditAmount().toBigDecimal());
+                case ATM_WITHDRAWAL -> ledgerJournalService.recordPosting(transaction.getSourceAccount(),
+                        PostingKind.WITHDRAWAL, write.debitAmount().toBigDecimal());
+                default -> throw new IllegalArgumentException("Not a balance changing transaction: "
+                        + transaction.getType());
+            }
+        }
+
+        private RuntimeException debitRejected(Transaction transaction, Account source, BigDecimal amount) {
+            boolean transfer = transaction.getType() == TransactionType.TRANSFER;
+            if (source.isDisabled()) {
+                return new IllegalArgumentException((transfer ? "Source account is disabled: " : "Account is disabled: ")
+                        + source.getAccountNumber());
+            }
+            return new InsufficientFundsException(transfer
+                    ? "Insufficient balance for transfer from " + source.getAccountNumber()
+                    : "Insufficient balance. Available: " + balanceOf(source) + ", Requested: " + amount);
+        }
+
+        private BigDecimal balanceOf(Account account) {
+            return jdbcTemplate.queryForObject(BALANCE_SQL, BigDecimal.class, account.getId());
+        }
+
+        /**
+         * Insert all rows as one batch and read their generated ids back
+         */
+        private void insertTransactions(List<Transaction> transactions) {
+            jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                try (PreparedStatement statement = con.prepareStatement(TRANSACTION_SQL, new String[]{"id"})) {
+                    for (Transaction transaction : transactions) {
+                        statement.setString(1, transaction.getTransactionReference());
+                        statement.setBigDecimal(2, transaction.getAmount());
+                        statement.setInt(3, transaction.getCurrency().ordinal());
+                        statement.setString(4, transaction.getDescription());
+                        statement.setString(5, transaction.getStatus().name());
+                        statement.setString(6, transaction.getType().name());
+                        statement.setLong(7, transaction.getSourceAccount().getId());
+                        statement.setLong(8, transaction.getDestinationAccount().getId());
+                        statement.setTimestamp(9, Timestamp.valueOf(transaction.getCreatedAt()));
+                        statement.setTimestamp(10, Timestamp.valueOf(transaction.getCompletedAt()));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (Transaction transaction : transactions) {
+                            if (!keys.next()) {
+                                throw new SQLException("Missing generated id for " + transaction.getTransactionReference());
+                            }
+                            transaction.setId(keys.getLong(1));
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+    }
+}
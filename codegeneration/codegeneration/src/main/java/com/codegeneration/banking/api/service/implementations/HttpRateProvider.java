@@ -0,0 +1,63 @@
+package com.codegeneration.banking.api.service.implementations;
+
+import com.codegeneration.banking.api.service.interfaces.RateProvider;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Fetches rates as a flat JSON object ({"EUR_USD": 1.08, ...}) from an HTTP endpoint.
+ * Fetches from the {@link StandInRateFeed} instead when app.rates.stand-in.enabled is set, so the refresh path can be
+ * exercised offline.
+ */
+@Component
+@RequiredArgsConstructor
+public class HttpRateProvider implements RateProvider {
+
+    public static final String NAME = "http";
+
+    private final ObjectMapper objectMapper;
+    private final Optional<StandInRateFeed> standInFeed;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    @Value("${app.rates.http.url:http://localhost:8089/rates}")
+    private String url;
+
+    @Value("${app.rates.http.timeout-ms:2000}")
+    private long timeoutMs;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Map<String, BigDecimal> fetchRates() throws Exception {
+        String url = standInFeed.map(StandInRateFeed::getUrl).orElse(this.url);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Rate endpoint " + url + " returned HTTP " + response.statusCode());
+        }
+
+        return objectMapper.readValue(response.body(), new TypeReference<Map<String, BigDecimal>>() { });
+    }
+}
@@ -0,0 +1,175 @@
+package com.codegeneration.banking.api.service.implementations;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.enums.PostingKind;
+import com.codegeneration.banking.api.journal.BalanceSnapshotStore;
+import com.codegeneration.banking.api.journal.BalanceSnapshotStore.BalanceSnapshot;
+import com.codegeneration.banking.api.journal.LedgerJournal;
+import com.codegeneration.banking.api.journal.LedgerRecovery;
+import com.codegeneration.banking.api.service.interfaces.LedgerJournalService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journals every balance change to the ledger journal in app.journal.directory and snapshots the balances every
+ * app.journal.snapshot-interval-ms. The accounts table lives in an in-memory database, on startup the balances of
+ * journaled accounts are restored from the newest snapshot and the journal postings after it.
+ * <p>
+ * Postings are appended inside the transaction of the balance update while its row lock is held, so postings of one
+ * account are journaled in commit order. A failed append rolls the update back. Once the transaction completes its
+ * outcome is appended as a marker, recovery skips postings whose transaction rolled back or never finished.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerJournalServiceImpl implements LedgerJournalService {
+
+    private static final String RESTORE_SQL = "UPDATE accounts SET balance = ? WHERE account_number = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.journal.directory:data/journal}")
+    private Path directory;
+
+    @Value("${app.journal.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${app.journal.force:false}")
+    private boolean force;
+
+    @Value("${app.journal.retained-snapshots:2}")
+    private int retainedSnapshots;
+
+    private LedgerJournal journal;
+    private BalanceSnapshotStore snapshots;
+    private volatile long snapshotSequence;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            log.info("Ledger journal is disabled");
+            return;
+        }
+        journal = LedgerJournal.open(directory, segmentSizeMb * 1024 * 1024, force);
+        snapshots = new BalanceSnapshotStore(directory, retainedSnapshots);
+        snapshotSequence = snapshots.latest().map(BalanceSnapshot::sequence).orElse(0L);
+        log.info("Ledger journal opened in {} at posting {}, latest snapshot at posting {}",
+                directory.toAbsolutePath(), journal.getLastSequence(), snapshotSequence);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Override
+    public void recordTransfer(Account source, Account destination, Money debitAmount, Money creditAmount) {
+        if (journal == null) {
+            return;
+        }
+        append(List.of(
+                posting(source, PostingKind.TRANSFER_DEBIT, -debitAmount.getUnits()),
+                posting(destination, PostingKind.TRANSFER_CREDIT, creditAmount.getUnits())));
+    }
+
+    @Override
+    public void recordPosting(Account account, PostingKind kind, BigDecimal amount) {
+        if (journal == null) {
+            return;
+        }
+        long units = Money.toUnits(amount);
+        append(List.of(posting(account, kind, kind == PostingKind.WITHDRAWAL ? -units : units)));
+    }
+
+    private void append(List<LedgerJournal.Posting> postings) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The balance update committed on its own already
+            journal.appendCommitted(postings);
+            return;
+        }
+        long group = journal.append(postings);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                journal.resolve(group, status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private static LedgerJournal.Posting posting(Account account, PostingKind kind, long amountUnits) {
+        return new LedgerJournal.Posting(kind, account.getAccountNumber(), amountUnits,
+                Money.toUnits(account.getBalance()));
+    }
+
+    @Override
+    public int recoverBalances() {
+        if (journal == null) {
+            return 0;
+        }
+        long started = System.nanoTime();
+        BalanceSnapshot recovered = recover();
+
+        List<Object[]> rows = new ArrayList<>(recovered.balances().size());
+        for (Map.Entry<String, Long> balance : recovered.balances().entrySet()) {
+            rows.add(new Object[]{Money.fromUnits(balance.getValue()), balance.getKey()});
+        }
+        int restored = 0;
+        for (int updated : jdbcTemplate.batchUpdate(RESTORE_SQL, rows)) {
+            restored += updated > 0 ? 1 : 0;
+        }
+
+        log.info("Restored balances of {} accounts up to posting {} in {} ms, {} journaled accounts do not exist",
+                restored, recovered.sequence(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                rows.size() - restored);
+        return restored;
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${app.journal.snapshot-interval-ms:300000}",
+            fixedDelayString = "${app.journal.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        if (journal == null || journal.getLastSequence() == snapshotSequence) {
+            return;
+        }
+        try {
+            BalanceSnapshot snapshot = recover();
+            snapshots.write(snapshot);
+            snapshotSequence = snapshot.sequence();
+            log.debug("Wrote balance snapshot of {} accounts at posting {}", snapshot.balances().size(),
+                    snapshot.sequence());
+        } catch (IOException | RuntimeException e) {
+            log.error("Writing balance snapshot failed, retrying on next interval: {}", e.getMessage());
+        }
+    }
+
+    private BalanceSnapshot recover() {
+        try {
+            return LedgerRecovery.recover(journal, snapshots);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the ledger journal in " + directory, e);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.codegeneration.banking.api.service.implementations;
+
+import com.codegeneration.banking.api.dto.ledger.AccountBalanceMismatch;
+import com.codegeneration.banking.api.dto.ledger.LedgerVerificationResult;
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.entity.Posting;
+import com.codegeneration.banking.api.entity.Transaction;
+import com.codegeneration.banking.api.enums.LedgerAccount;
+import com.codegeneration.banking.api.enums.PostingSide;
+import com.codegeneration.banking.api.service.interfaces.PostingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the double-entry legs of transfers and ATM transactions to the postings table, each transaction's legs in one
+ * JDBC batch, and reconciles the cached account balances against them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PostingServiceImpl implements PostingService {
+
+    private static final String INSERT_SQL = "INSERT INTO postings (transaction_id, account_id, ledger, side, currency, "
+            + "amount, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // The bank side goes first, the customer side marks the account as posted
+    private static final String OPENING_BANK_SQL = "INSERT INTO postings (transaction_id, account_id, ledger, side, "
+            + "currency, amount, created_at) SELECT NULL, NULL, 'OPENING_BALANCE', "
+            + "CASE WHEN a.balance > 0 THEN 'DEBIT' ELSE 'CREDIT' END, a.currency, ABS(a.balance), ? FROM accounts a "
+            + "WHERE a.balance <> 0 AND NOT EXISTS (SELECT 1 FROM postings p WHERE p.account_id = a.id)";
+    private static final String OPENING_CUSTOMER_SQL = "INSERT INTO postings (transaction_id, account_id, ledger, side, "
+            + "currency, amount, created_at) SELECT NULL, a.id, 'CUSTOMER', "
+            + "CASE WHEN a.balance > 0 THEN 'CREDIT' ELSE 'DEBIT' END, a.currency, ABS(a.balance), ? FROM accounts a "
+            + "WHERE a.balance <> 0 AND NOT EXISTS (SELECT 1 FROM postings p WHERE p.account_id = a.id)";
+
+    private static final String SIGNED_AMOUNT = "CASE WHEN side = 'CREDIT' THEN amount ELSE -amount END";
+    private static final String MISMATCH_SQL = "SELECT a.id, a.account_number, a.balance, COALESCE(l.total, 0) "
+            + "FROM accounts a LEFT JOIN (SELECT account_id, SUM(" + SIGNED_AMOUNT + ") AS total FROM postings "
+            + "WHERE ledger = 'CUSTOMER' GROUP BY account_id) l ON l.account_id = a.id "
+            + "WHERE a.balance <> COALESCE(l.total, 0) ORDER BY a.id";
+    private static final String UNBALANCED_SQL = "SELECT DISTINCT transaction_id FROM (SELECT transaction_id FROM postings "
+            + "WHERE transaction_id IS NOT NULL GROUP BY transaction_id, currency HAVING SUM(" + SIGNED_AMOUNT + ") <> 0) t "
+            + "ORDER BY transaction_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void postTransfer(Transaction transaction, Money debitAmount, Money creditAmount) {
+        post(transferLegs(transaction, debitAmount, creditAmount));
+    }
+
+    @Override
+    public void postAtmTransaction(Transaction transaction, Money amount) {
+        post(atmLegs(transaction, amount));
+    }
+
+    @Override
+    public List<Posting> transferLegs(Transaction transaction, Money debitAmount, Money creditAmount) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Posting> legs = new ArrayList<>(4);
+        legs.add(leg(transaction, transaction.getSourceAccount(), LedgerAccount.CUSTOMER, PostingSide.DEBIT,
+                debitAmount, now));
+        legs.add(leg(transaction, transaction.getDestinationAccount(), LedgerAccount.CUSTOMER, PostingSide.CREDIT,
+                creditAmount, now));
+        if (debitAmount.getCurrency() != creditAmount.getCurrency()) {
+            // The bank takes the source currency in and pays the destination currency out
+            legs.add(leg(transaction, null, LedgerAccount.FX_POSITION, PostingSide.CREDIT, debitAmount, now));
+            legs.add(leg(transaction, null, LedgerAccount.FX_POSITION, PostingSide.DEBIT, creditAmount, now));
+        }
+        return legs;
+    }
+
+    @Override
+    public List<Posting> atmLegs(Transaction transaction, Money amount) {
+        boolean deposit = transaction.getType() == Transaction.TransactionType.ATM_DEPOSIT;
+        LocalDateTime now = LocalDateTime.now();
+        return List.of(
+                leg(transaction, transaction.getSourceAccount(), LedgerAccount.CUSTOMER,
+                        deposit ? PostingSide.CREDIT : PostingSide.DEBIT, amount, now),
+                leg(transaction, null, LedgerAccount.ATM_CASH,
+                        deposit ? PostingSide.DEBIT : PostingSide.CREDIT, amount, now));
+    }
+
+    @Override
+    public void post(List<Posting> legs) {
+        insert(jdbcTemplate, legs);
+    }
+
+    /**
+     * Insert the legs as one JDBC batch on the connection of the given template
+     */
+    static void insert(JdbcTemplate jdbcTemplate, List<Posting> legs) {
+        List<Object[]> rows = new ArrayList<>(legs.size());
+        for (Posting leg : legs) {
+            rows.add(new Object[]{leg.getTransaction().getId(),
+                    leg.getAccount() == null ? null : leg.getAccount().getId(),
+                    leg.getLedger().name(), leg.getSide().name(), leg.getCurrency().ordinal(), leg.getAmount(),
+                    Timestamp.valueOf(leg.getCreatedAt())});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    private static Posting leg(Transaction transaction, Account account, LedgerAccount ledger, PostingSide side,
+                               Money amount, LocalDateTime now) {
+        return Posting.builder()
+                .transaction(transaction)
+                .account(account)
+                .ledger(ledger)
+                .side(side)
+                .currency(amount.getCurrency())
+                .amount(amount.toBigDecimal())
+                .createdAt(now)
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public int postOpeningBalances() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(OPENING_BANK_SQL, now);
+        int accounts = jdbcTemplate.update(OPENING_CUSTOMER_SQL, now);
+        if (accounts > 0) {
+            log.info("Posted opening balances of {} accounts", accounts);
+        }
+        return accounts;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LedgerVerificationResult verify() {
+        Long accounts = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM accounts", Long.class);
+        List<AccountBalanceMismatch> mismatches = jdbcTemplate.query(MISMATCH_SQL, (rs, row) ->
+                AccountBalanceMismatch.builder()
+                        .accountId(rs.getLong(1))
+                        .accountNumber(rs.getString(2))
+                        .cachedBalance(rs.getBigDecimal(3))
+                        .ledgerBalance(rs.getBigDecimal(4))
+                        .build());
+        List<Long> unbalanced = jdbcTemplate.queryForList(UNBALANCED_SQL, Long.class);
+        return LedgerVerificationResult.builder()
+                .accountsChecked(accounts == null ? 0 : accounts)
+                .mismatches(mismatches)
+                .unbalancedTransactionIds(unbalanced)
+                .build();
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${app.ledger.verify-interval-ms:600000}",
+            fixedDelayString = "${app.ledger.verify-interval-ms:600000}")
+    public void verifyAndReport() {
+        LedgerVerificationResult result = verify();
+        if (result.isConsistent()) {
+            log.debug("Ledger reconciles for {} accounts", result.getAccountsChecked());
+            return;
+        }
+        log.error("Ledger does not reconcile: {} of {} account balances differ from their postings, {} transactions "
+                        + "are unbalanced", result.getMismatches().size(), result.getAccountsChecked(),
+                result.getUnbalancedTransactionIds().size());
+        result.getMismatches().stream().limit(20).forEach(mismatch ->
+                log.error("Account {} has a cached balance of {} but postings of {}", mismatch.getAccountNumber(),
+                        mismatch.getCachedBalance(), mismatch.getLedgerBalance()));
+        if (!result.getUnbalancedTransactionIds().isEmpty()) {
+            log.error("Unbalanced transactions: {}", result.getUnbalancedTransactionIds().stream().limit(20).toList());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.codegeneration.banking.api.service.implementations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Local stand-in for the real rate feed: serves the rates of the file provider as the JSON object
+ * {@link HttpRateProvider} reads, on localhost:app.rates.stand-in.port/rates. While it is enabled the http provider
+ * fetches from it instead of app.rates.http.url, so the HTTP refresh path runs offline.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rates.stand-in.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class StandInRateFeed {
+
+    public static final String PATH = "/rates";
+
+    private final FileRateProvider fileRateProvider;
+    private final ObjectMapper objectMapper;
+
+    // Served instead of the file while set
+    private volatile Map<String, BigDecimal> rates;
+    private HttpServer server;
+
+    // 0 picks a free port
+    @Value("${app.rates.stand-in.port:8089}")
+    private int port;
+
+    @PostConstruct
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext(PATH, this::handle);
+        server.start();
+        log.info("Stand-in rate feed serving {}", getUrl());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + PATH;
+    }
+
+    /**
+     * Serve these rates instead of the file's, null serves the file again
+     */
+    public void setRates(Map<String, BigDecimal> rates) {
+        this.rates = rates;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            int status;
+            byte[] body;
+            try {
+                Map<String, BigDecimal> served = rates;
+                body = objectMapper.writeValueAsBytes(served != null ? served : fileRateProvider.fetchRates());
+                status = 200;
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+            } catch (Exception e) {
+                body = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+                status = 503;
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -33,6 +33,13 @@ public class TokenBlacklistService {
         return blacklistedTokens.containsKey(token);
     }
 
+    /**
+     * Number of blacklisted tokens that have not been cleaned up yet
+     */
+    public int size() {
+        return blacklistedTokens.size();
+    }
+
     /**
      * Clean up expired tokens from the blacklist
      * This method runs every hour
@@ -2,6 +2,7 @@ package com.codegeneration.banking.api.service.implementations;
 
 import com.codegeneration.banking.api.dto.transactionfilter.TransactionFilterRequest;
 import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
 import com.codegeneration.banking.api.entity.Transaction;
 import com.codegeneration.banking.api.service.interfaces.AccountService;
 import com.codegeneration.banking.api.service.interfaces.TransactionFilterService;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -30,9 +32,10 @@ public class TransactionFilterServiceImpl implements TransactionFilterService {
             return transactions;
         }
 
+        AmountBounds amountBounds = AmountBounds.of(filterRequest);
         return transactions.stream()
                 .filter(transaction -> matchesDateFilter(transaction, filterRequest))
-                .filter(transaction -> matchesAmountFilter(transaction, filterRequest))
+                .filter(transaction -> amountBounds.matches(transaction.getAmount()))
                 .filter(transaction -> matchesIbanFilter(transaction, filterRequest))
                 .filter(transaction -> matchesTypeFilter(transaction, filterRequest))
                 .filter(transaction -> matchesStatusFilter(transaction, filterRequest))
@@ -77,28 +80,6 @@ public class TransactionFilterServiceImpl implements TransactionFilterService {
         return true;
     }
 
-    private boolean matchesAmountFilter(Transaction transaction, TransactionFilterRequest filterRequest) {
-        BigDecimal amount = transaction.getAmount();
-
-        if (filterRequest.getAmountEqualTo() != null) {
-            return amount.compareTo(filterRequest.getAmountEqualTo()) == 0;
-        }
-
-        if (filterRequest.getAmountLessThan() != null) {
-            if (amount.compareTo(filterRequest.getAmountLessThan()) >= 0) {
-                return false;
-            }
-        }
-
-        if (filterRequest.getAmountGreaterThan() != null) {
-            if (amount.compareTo(filterRequest.getAmountGreaterThan()) <= 0) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
     private boolean matchesIbanFilter(Transaction transaction, TransactionFilterRequest filterRequest) {
         if (filterRequest.getIban() == null || filterRequest.getIban().trim().isEmpty()) {
             return true;
@@ -139,4 +120,61 @@ public class TransactionFilterServiceImpl implements TransactionFilterService {
 
         return description.toLowerCase().contains(filterRequest.getDescription().trim().toLowerCase());
     }
-}
\ No newline at end of file
+
+    /**
+     * Amount filter bounds rounded to the money scale once per request. Amounts loaded from the NUMERIC(19, 4) columns
+     * have the same scale, and BigDecimal compares two values of one scale by their unscaled longs, so no transaction
+     * amount is converted. Bounds are rounded towards the side that keeps the comparison exact for amounts stored at
+     * the money scale.
+     */
+    private static final class AmountBounds {
+
+        private static final AmountBounds NONE = new AmountBounds(null, null, null);
+        private static final AmountBounds NOTHING = new AmountBounds(null, null, null);
+
+        // Null when there is no such filter
+        private final BigDecimal equalTo;
+        private final BigDecimal greaterThan;
+        private final BigDecimal lessThan;
+
+        private AmountBounds(BigDecimal equalTo, BigDecimal greaterThan, BigDecimal lessThan) {
+            this.equalTo = equalTo;
+            this.greaterThan = greaterThan;
+            this.lessThan = lessThan;
+        }
+
+        static AmountBounds of(TransactionFilterRequest filterRequest) {
+            BigDecimal equalTo = filterRequest.getAmountEqualTo();
+            if (equalTo != null) {
+                // An amount with more decimals than the money scale can never equal a stored amount
+                return equalTo.stripTrailingZeros().scale() > Money.SCALE
+                        ? NOTHING
+                        : new AmountBounds(equalTo.setScale(Money.SCALE, RoundingMode.UNNECESSARY), null, null);
+            }
+            if (filterRequest.getAmountGreaterThan() == null && filterRequest.getAmountLessThan() == null) {
+                return NONE;
+            }
+            return new AmountBounds(null,
+                    scaled(filterRequest.getAmountGreaterThan(), RoundingMode.FLOOR),
+                    scaled(filterRequest.getAmountLessThan(), RoundingMode.CEILING));
+        }
+
+        boolean matches(BigDecimal amount) {
+            if (this == NONE) {
+                return true;
+            }
+            if (this == NOTHING) {
+                return false;
+            }
+            if (equalTo != null) {
+                return amount.compareTo(equalTo) == 0;
+            }
+            return (greaterThan == null || amount.compareTo(greaterThan) > 0)
+                    && (lessThan == null || amount.compareTo(lessThan) < 0);
+        }
+
+        private static BigDecimal scaled(BigDecimal bound, RoundingMode roundingMode) {
+            return bound == null ? null : bound.setScale(Money.SCALE, roundingMode);
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package com.codegeneration.banking.api.service.implementations;
 
+import com.codegeneration.banking.api.dto.FieldSelection;
+import com.codegeneration.banking.api.dto.transaction.TransactionDTO;
 import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
 import com.codegeneration.banking.api.entity.Transaction;
 import com.codegeneration.banking.api.entity.Transaction.TransactionType;
+import com.codegeneration.banking.api.exception.InsufficientFundsException;
 import com.codegeneration.banking.api.repository.AccountRepository;
 import com.codegeneration.banking.api.repository.TransactionRepository;
+import com.codegeneration.banking.api.service.interfaces.AccountService;
+import com.codegeneration.banking.api.service.interfaces.DataVersionService;
+import com.codegeneration.banking.api.service.interfaces.DomainEventService;
+import com.codegeneration.banking.api.service.interfaces.GroupCommitService;
+import com.codegeneration.banking.api.service.interfaces.LedgerJournalService;
+import com.codegeneration.banking.api.service.interfaces.PostingService;
 import com.codegeneration.banking.api.service.interfaces.TransactionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -13,7 +23,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -23,20 +32,18 @@ public class TransactionServiceImpl implements TransactionService {
 
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
+    private final AccountService accountService;
+    private final LedgerJournalService ledgerJournalService;
+    private final PostingService postingService;
+    private final GroupCommitService groupCommitService;
+    private final DataVersionService dataVersionService;
+    private final DomainEventService domainEventService;
 
     @Override
     @Transactional(readOnly = true)
     public List<Transaction> getAllTransactionsByUsername(String username) {
-
-        List<Account> userAccounts = accountRepository.findByUserUsername(username);
-
-        List<Transaction> allTransactions = new ArrayList<>();
-        for (Account account : userAccounts) {
-
-            allTransactions.addAll(transactionRepository.findBySourceAccountOrDestinationAccount(account, account));
-        }
-
-        return allTransactions;
+        // One query for all accounts of the user, a transfer between two of them is returned once
+        return transactionRepository.findAllBySourceAccountUserUsernameOrDestinationAccountUserUsername(username, username);
     }
 
     @Override
@@ -46,6 +53,18 @@ public class TransactionServiceImpl implements TransactionService {
         return transactionRepository.findBySourceAccountOrDestinationAccount(account, account);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionDTO> getTransactionFieldsByUsername(String username, FieldSelection fields) {
+        return transactionRepository.findFieldsByUsername(username, fields);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionDTO> getTransactionFieldsByAccount(Account account, FieldSelection fields) {
+        return transactionRepository.findFieldsByAccountId(account.getId(), fields);
+    }
+
     @Override
     @Transactional
     public Transaction createAtmTransaction(Account account, double amount, TransactionType type, String description) {
@@ -84,10 +103,61 @@ public class TransactionServiceImpl implements TransactionService {
                     "ATM Deposit" : "ATM Withdrawal");
         }
         
-        // Save and return
-        return transactionRepository.save(transaction);
+        // The balance change, the transaction and its postings commit together
+        Money money = Money.of(BigDecimal.valueOf(amount), account.getCurrency());
+        if (groupCommitService.isEnabled()) {
+            dataVersionService.accountsChanged(account);
+            return groupCommitService.executeAtmTransaction(transaction, money);
+        }
+        if (type == TransactionType.ATM_DEPOSIT) {
+            accountService.increaseBalance(account, money.toBigDecimal());
+        } else {
+            accountService.decreaseBalance(account, money.toBigDecimal());
+        }
+        // Sequence ids defer the insert to the flush, the postings reference the row from plain JDBC
+        Transaction savedTransaction = transactionRepository.saveAndFlush(transaction);
+        postingService.postAtmTransaction(savedTransaction, money);
+        domainEventService.transactionPosted(savedTransaction, type == TransactionType.ATM_WITHDRAWAL ? money : null,
+                type == TransactionType.ATM_DEPOSIT ? money : null);
+        return savedTransaction;
     }
     
+    @Override
+    @Transactional
+    public Transaction executeTransfer(Transaction transaction, Money debitAmount, Money creditAmount) {
+        // Both owners see the transfer in their listings
+        dataVersionService.accountsChanged(transaction.getSourceAccount(), transaction.getDestinationAccount());
+        if (groupCommitService.isEnabled()) {
+            return groupCommitService.executeTransfer(transaction, debitAmount, creditAmount);
+        }
+        Account source = transaction.getSourceAccount();
+        Account destination = transaction.getDestinationAccount();
+        LocalDateTime now = LocalDateTime.now();
+
+        // Sufficiency is checked and applied in the same statement, a failed credit rolls the debit back
+        if (accountRepository.debit(source.getId(), debitAmount.toBigDecimal(), now) == 0) {
+            if (source.isDisabled()) {
+                throw new IllegalArgumentException("Source account is disabled: " + source.getAccountNumber());
+            }
+            throw new InsufficientFundsException("Insufficient balance for transfer from " + source.getAccountNumber());
+        }
+        if (accountRepository.credit(destination.getId(), creditAmount.toBigDecimal(), now) == 0) {
+            throw new IllegalArgumentException("Destination account is disabled: " + destination.getAccountNumber());
+        }
+
+        transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
+        transaction.setCompletedAt(now);
+        // Sequence ids defer the insert to the flush, the postings reference the row from plain JDBC
+        Transaction savedTransaction = transactionRepository.saveAndFlush(transaction);
+        postingService.postTransfer(savedTransaction, debitAmount, creditAmount);
+
+        source.setBalance(accountRepository.findBalanceById(source.getId()));
+        destination.setBalance(accountRepository.findBalanceById(destination.getId()));
+        ledgerJournalService.recordTransfer(source, destination, debitAmount, creditAmount);
+        domainEventService.transactionPosted(savedTransaction, debitAmount, creditAmount);
+        return savedTransaction;
+    }
+
     /**
      * Generates a unique transaction reference with format: TRX-{TYPE}-{TIMESTAMP}-{RANDOM}
      * @param type The transaction type
@@ -0,0 +1,367 @@
+package com.codegeneration.banking.api.service.implementations;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.entity.Transaction;
+import com.codegeneration.banking.api.entity.UsageWindow;
+import com.codegeneration.banking.api.enums.LimitType;
+import com.codegeneration.banking.api.enums.LimitWindowMode;
+import com.codegeneration.banking.api.repository.TransactionRepository;
+import com.codegeneration.banking.api.service.interfaces.DataVersionService;
+import com.codegeneration.banking.api.service.interfaces.UsageCounterService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongPredicate;
+
+/**
+ * Keeps daily limit usage per account in memory, in hourly buckets of lock-free counters.
+ * Postings no longer rewrite the account row to bump usage, changed counters are written to the accounts table in
+ * one batch every app.usage.flush-interval-ms, together with the hourly windows and the time of the flush. The first
+ * time an account is used after startup its counters are read back from those windows, and the transactions created
+ * since the flush are added from the ledger. Accounts that were never flushed are rebuilt from their transactions of the
+ * last 24 hours.
+ * Accounts that have not been saved yet have no ledger, their entity counters are used as they are.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UsageCounterServiceImpl implements UsageCounterService {
+
+    private static final Set<Transaction.TransactionStatus> NOT_COUNTED =
+            EnumSet.of(Transaction.TransactionStatus.FAILED, Transaction.TransactionStatus.CANCELLED);
+
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+
+    private static final String FLUSH_SQL = "UPDATE accounts SET transfer_used_today = ?, withdrawal_used_today = ?, "
+            + "last_limit_reset_date = ?, transfer_window = ?, withdrawal_window = ?, usage_flushed_at = ? WHERE id = ?";
+
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataVersionService dataVersionService;
+
+    private final Map<Long, AccountUsage> usage = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public Money getUsage(Account account, LimitType type) {
+        return Money.ofUnits(usageUnits(account, type), account.getCurrency());
+    }
+
+    @Override
+    public long tryRecord(Account account, LimitType type, Money amount, LongPredicate withinLimit) {
+        long units = amount.getUnits();
+        long now = System.currentTimeMillis();
+        long hour = UsageWindow.hourOf(now);
+        if (account.getId() == null) {
+            return withinLimit.test(Math.addExact(usageUnits(account, type), units)) ? hour : NOT_RECORDED;
+        }
+
+        UsageRing ring = usageOf(account).ring(type);
+
+        // Add first and check the total afterwards: two concurrent postings can both be refused near the limit,
+        // but never both accepted past it
+        ring.add(hour, units);
+        if (!withinLimit.test(ring.sum(windowStart(account, now), hour))) {
+            ring.add(hour, -units);
+            return NOT_RECORDED;
+        }
+        dirty.add(account.getId());
+        return hour;
+    }
+
+    @Override
+    public void release(Account account, LimitType type, Money amount, long hour) {
+        if (account.getId() == null || hour == NOT_RECORDED) {
+            return;
+        }
+        if (usageOf(account).ring(type).release(hour, amount.getUnits())) {
+            dirty.add(account.getId());
+        }
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${app.usage.flush-interval-ms:1000}",
+            fixedDelayString = "${app.usage.flush-interval-ms:1000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        long hour = UsageWindow.hourOf(now);
+        evictExpired(hour - UsageWindow.HOURS + 1);
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        long midnight = UsageWindow.hourOf(startOfToday());
+        Timestamp resetDate = Timestamp.valueOf(LocalDate.now().atStartOfDay());
+        // Taken before the counters are read, a restart adds the transactions created after it from the ledger
+        Timestamp flushedAt = new Timestamp(now);
+
+        List<Long> ids = new ArrayList<>();
+        Set<Long> owners = new HashSet<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (Long id : dirty) {
+            // Remove before reading so a concurrent posting marks the account dirty again for the next flush
+            dirty.remove(id);
+            AccountUsage accountUsage = usage.get(id);
+            if (accountUsage == null) {
+                // Evicted while a posting still held it, the posting's transaction is read back from the ledger
+                continue;
+            }
+            ids.add(id);
+            if (accountUsage.userId != null) {
+                owners.add(accountUsage.userId);
+            }
+            rows.add(new Object[]{
+                    Money.fromUnits(accountUsage.transfer.sum(midnight, hour)),
+                    Money.fromUnits(accountUsage.withdrawal.sum(midnight, hour)),
+                    resetDate,
+                    accountUsage.transfer.toWindow().toBytes(),
+                    accountUsage.withdrawal.toWindow().toBytes(),
+                    flushedAt,
+                    id
+            });
+        }
+
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, rows);
+            log.debug("Flushed usage counters of {} accounts", rows.size());
+            // The flushed columns are part of the account listing
+            owners.forEach(dataVersionService::userChanged);
+        } catch (Exception e) {
+            dirty.addAll(ids);
+            log.error("Flushing usage counters failed, retrying on next flush: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop the counters of accounts that have nothing left to flush and were neither used nor read in the last 24 hours,
+     * they are rebuilt when the account is used again
+     */
+    private void evictExpired(long firstHour) {
+        int before = usage.size();
+        usage.forEach((id, accountUsage) -> {
+            if (!dirty.contains(id) && accountUsage.isExpired(firstHour)) {
+                usage.remove(id, accountUsage);
+            }
+        });
+        int evicted = before - usage.size();
+        if (evicted > 0) {
+            log.debug("Evicted usage counters of {} idle accounts", evicted);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private long usageUnits(Account account, LimitType type) {
+        if (account.getId() == null) {
+            return Money.toUnits(type == LimitType.TRANSFER
+                    ? account.transferUsedInWindow() : account.withdrawalUsedInWindow());
+        }
+        long now = System.currentTimeMillis();
+        return usageOf(account).ring(type).sum(windowStart(account, now), UsageWindow.hourOf(now));
+    }
+
+    private AccountUsage usageOf(Account account) {
+        AccountUsage existing = usage.get(account.getId());
+        if (existing == null) {
+            // Rebuilt outside the map so the ledger query holds no map lock, a concurrent rebuild of the same account loses
+            AccountUsage rebuilt = rebuild(account);
+            existing = usage.putIfAbsent(account.getId(), rebuilt);
+            if (existing == null) {
+                existing = rebuilt;
+            }
+        }
+        existing.touch(UsageWindow.hourOf(System.currentTimeMillis()));
+        return existing;
+    }
+
+    private AccountUsage rebuild(Account account) {
+        long now = System.currentTimeMillis();
+        long firstHour = UsageWindow.hourOf(now) - UsageWindow.HOURS + 1;
+        LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(firstHour * MILLIS_PER_HOUR), ZoneId.systemDefault());
+
+        AccountUsage accountUsage = new AccountUsage(account.getUser() == null ? null : account.getUser().getId());
+        LocalDateTime flushedAt = account.getUsageFlushedAt();
+        if (flushedAt != null) {
+            // The windows hold the usage recorded up to the flush, only later transactions are read from the ledger
+            accountUsage.transfer.load(account.getTransferWindow(), firstHour);
+            accountUsage.withdrawal.load(account.getWithdrawalWindow(), firstHour);
+            if (flushedAt.isAfter(since)) {
+                since = flushedAt;
+            }
+        }
+        for (Transaction transaction : transactionRepository
+                .findBySourceAccountIdAndCreatedAtGreaterThanEqualAndStatusNotIn(account.getId(), since, NOT_COUNTED)) {
+            long createdAt = transaction.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            LimitType type = transaction.getType() == Transaction.TransactionType.ATM_WITHDRAWAL
+                    ? LimitType.WITHDRAWAL : LimitType.TRANSFER;
+            accountUsage.ring(type).add(UsageWindow.hourOf(createdAt), Money.toUnits(transaction.getAmount()));
+        }
+        return accountUsage;
+    }
+
+    private static long windowStart(Account account, long now) {
+        if (account.getLimitWindowMode() == LimitWindowMode.ROLLING_24H) {
+            return UsageWindow.hourOf(now) - UsageWindow.HOURS + 1;
+        }
+        return UsageWindow.hourOf(startOfToday());
+    }
+
+    private static long startOfToday() {
+        return LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class AccountUsage {
+        private final Long userId;
+        private final UsageRing transfer = new UsageRing();
+        private final UsageRing withdrawal = new UsageRing();
+        private volatile long lastUsedHour;
+
+        AccountUsage(Long userId) {
+            this.userId = userId;
+        }
+
+        UsageRing ring(LimitType type) {
+            return type == LimitType.TRANSFER ? transfer : withdrawal;
+        }
+
+        void touch(long hour) {
+            // Written once an hour at most so reads on the hot path do not contend on the field
+            if (lastUsedHour != hour) {
+                lastUsedHour = hour;
+            }
+        }
+
+        boolean isExpired(long firstHour) {
+            return lastUsedHour < firstHour && transfer.isExpired(firstHour) && withdrawal.isExpired(firstHour);
+        }
+    }
+
+    /**
+     * 24 hourly buckets indexed by epoch hour. A slot is claimed for a new hour by swapping in a fresh bucket,
+     * amounts are added to the bucket's LongAdder without locking.
+     */
+    private static final class UsageRing {
+        private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(UsageWindow.HOURS);
+
+        void add(long hour, long units) {
+            bucket(hour).units.add(units);
+        }
+
+        /**
+         * Take units back from the bucket of the given hour. A bucket that has left the ring is no longer counted,
+         * there is nothing to take back from it.
+         *
+         * @return false if the hour has left the ring
+         */
+        boolean release(long hour, long units) {
+            Bucket bucket = buckets.get((int) (hour % UsageWindow.HOURS));
+            if (bucket == null || bucket.hour != hour) {
+                return false;
+            }
+            bucket.units.add(-units);
+            return true;
+        }
+
+        long sum(long fromHour, long toHour) {
+            long sum = 0;
+            for (int i = 0; i < UsageWindow.HOURS; i++) {
+                Bucket bucket = buckets.get(i);
+                if (bucket != null && bucket.hour >= fromHour && bucket.hour <= toHour) {
+                    sum += bucket.units.sum();
+                }
+            }
+            return sum;
+        }
+
+        /**
+         * @return true if every bucket is older than the given hour
+         */
+        boolean isExpired(long firstHour) {
+            for (int i = 0; i < UsageWindow.HOURS; i++) {
+                Bucket bucket = buckets.get(i);
+                if (bucket != null && bucket.hour >= firstHour) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Add the usage of a persisted window from the given hour up to the current one
+         */
+        void load(UsageWindow window, long fromHour) {
+            if (window == null) {
+                return;
+            }
+            long toHour = fromHour + UsageWindow.HOURS - 1;
+            for (long hour = fromHour; hour <= toHour; hour++) {
+                long units = window.unitsOf(hour);
+                if (units != 0) {
+                    add(hour, units);
+                }
+            }
+        }
+
+        UsageWindow toWindow() {
+            long[] hours = new long[UsageWindow.HOURS];
+            long[] units = new long[UsageWindow.HOURS];
+            for (int i = 0; i < UsageWindow.HOURS; i++) {
+                Bucket bucket = buckets.get(i);
+                if (bucket != null) {
+                    hours[i] = bucket.hour;
+                    units[i] = bucket.units.sum();
+                }
+            }
+            return UsageWindow.of(hours, units);
+        }
+
+        private Bucket bucket(long hour) {
+            int slot = (int) (hour % UsageWindow.HOURS);
+            while (true) {
+                Bucket bucket = buckets.get(slot);
+                if (bucket != null && bucket.hour >= hour) {
+                    // Only a posting stalled for a whole day sees a newer hour, it must not evict the live bucket
+                    return bucket;
+                }
+                Bucket fresh = new Bucket(hour);
+                if (buckets.compareAndSet(slot, bucket, fresh)) {
+                    return fresh;
+                }
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private final long hour;
+        private final LongAdder units = new LongAdder();
+
+        Bucket(long hour) {
+            this.hour = hour;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.codegeneration.banking.api.service.implementations;
+
+import com.codegeneration.banking.api.directory.UserDirectory;
+import com.codegeneration.banking.api.dto.user.UserDirectoryEntryDTO;
+import com.codegeneration.banking.api.dto.user.UserDirectoryResponse;
+import com.codegeneration.banking.api.entity.User;
+import com.codegeneration.banking.api.service.interfaces.UserDirectoryService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the search index of {@link UserDirectory} in the users' database and reads the directory from it
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserDirectoryServiceImpl implements UserDirectoryService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.directory.max-limit:100}")
+    private int maxLimit;
+
+    @Value("${app.directory.index-batch-size:1000}")
+    private int indexBatchSize;
+
+    @Value("${app.directory.export-batch-size:1000}")
+    private int exportBatchSize;
+
+    private UserDirectory directory;
+    private TransactionTemplate writes;
+    private TransactionTemplate reads;
+
+    @PostConstruct
+    public void start() {
+        directory = new UserDirectory(jdbcTemplate);
+        directory.createSchema();
+        writes = new TransactionTemplate(transactionManager);
+        reads = new TransactionTemplate(transactionManager);
+        reads.setReadOnly(true);
+    }
+
+    @Override
+    @Transactional
+    public void index(User user) {
+        directory.index(List.of(UserDirectoryEntryDTO.fromEntity(user)));
+    }
+
+    @Override
+    public int indexUnindexedUsers() {
+        int indexed = 0;
+        long after = 0;
+        while (true) {
+            long from = after;
+            List<UserDirectoryEntryDTO> users = writes.execute(status ->
+                    directory.indexUnindexed(from, indexBatchSize));
+            indexed += users.size();
+            if (users.size() < indexBatchSize) {
+                break;
+            }
+            after = users.get(users.size() - 1).getId();
+        }
+        if (indexed > 0) {
+            log.info("Indexed {} users for the user directory", indexed);
+        }
+        return indexed;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserDirectoryResponse search(String search, Long after, int limit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + maxLimit);
+        }
+        if (after != null && after < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        // One more user than asked for tells whether there is a next page
+        List<UserDirectoryEntryDTO> users = directory.find(search, after == null ? 0 : after, limit + 1);
+        Long nextCursor = null;
+        if (users.size() > limit) {
+            users = users.subList(0, limit);
+            nextCursor = users.get(limit - 1).getId();
+        }
+        return UserDirectoryResponse.builder()
+                .users(users)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Override
+    public void export(String search, Consumer<UserDirectoryEntryDTO> consumer) {
+        long after = 0;
+        while (true) {
+            long from = after;
+            List<UserDirectoryEntryDTO> users = reads.execute(status ->
+                    directory.find(search, from, exportBatchSize));
+            users.forEach(consumer);
+            if (users.size() < exportBatchSize) {
+                return;
+            }
+            after = users.get(users.size() - 1).getId();
+        }
+    }
+}
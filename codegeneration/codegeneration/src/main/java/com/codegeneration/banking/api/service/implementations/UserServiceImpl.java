@@ -30,8 +30,7 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional(readOnly = true)
     public List<User> getAllUsers() {
-        System.out.println(userRepository.findAll());
-        return userRepository.findAll();
+        return userRepository.findAllWithAccounts();
     }
 
     @Override
@@ -0,0 +1,23 @@
+package com.codegeneration.banking.api.service.interfaces;
+
+import com.codegeneration.banking.api.dto.account.AccountLimitSnapshot;
+import com.codegeneration.banking.api.entity.Account;
+
+public interface AccountLimitService {
+
+    /**
+     * Get the account's limits normalized to EUR.
+     * Snapshots are cached per account and rebuilt when the limits are edited or a new rate snapshot is published.
+     *
+     * @param account The account to get limits for
+     * @return Snapshot of the account's limits in EUR
+     */
+    AccountLimitSnapshot getLimitSnapshot(Account account);
+
+    /**
+     * Drop the cached snapshot of an account, called whenever its limits change
+     *
+     * @param accountId The account id
+     */
+    void invalidate(Long accountId);
+}
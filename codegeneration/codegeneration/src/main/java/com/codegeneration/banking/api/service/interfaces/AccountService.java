@@ -48,20 +48,20 @@ public interface AccountService {
     Account getAccountByNumberAndUser(String accountNumber, User user);
     
     /**
-     * Increase account balance
+     * Increase account balance in a single update statement and refresh the balance on the given entity
      *
      * @param account The account to update
      * @param amount Amount to increase (positive value)
-     * @throws IllegalArgumentException if amount is negative
+     * @throws IllegalArgumentException if amount is negative or the account is disabled
      */
     void increaseBalance(Account account, BigDecimal amount);
     
     /**
-     * Decrease account balance
+     * Decrease account balance in a single conditional update statement and refresh the balance on the given entity
      *
      * @param account The account to update
      * @param amount Amount to decrease (positive value)
-     * @throws IllegalArgumentException if amount is negative
+     * @throws IllegalArgumentException if amount is negative or the account is disabled
      * @throws InsufficientFundsException if amount exceeds available balance
      */
     void decreaseBalance(Account account, BigDecimal amount);
@@ -0,0 +1,25 @@
+package com.codegeneration.banking.api.service.interfaces;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-sent events of committed changes to the accounts of a user: a "transaction" event with the transaction and
+ * the new balances of the user's accounts for every transfer or ATM transaction, and an "account" event when an
+ * account was opened, disabled or got new limits. Every event carries the id of the domain event it came from.
+ */
+public interface AccountStreamService {
+
+    /**
+     * Open a stream for the user. With the id of the last event the client received, the events it missed are sent
+     * first. If they are no longer kept the stream starts with a "resync" event and the client has to fetch its
+     * listings again.
+     *
+     * @param lastEventId Value of the Last-Event-ID header, or null for a new stream
+     */
+    SseEmitter open(String username, String lastEventId);
+
+    /**
+     * Number of open streams
+     */
+    int getConnectionCount();
+}
@@ -1,8 +1,15 @@
 package com.codegeneration.banking.api.service.interfaces;
 
+import com.codegeneration.banking.api.dto.currency.CurrencyConversionRequest;
+import com.codegeneration.banking.api.dto.currency.CurrencyExchangeDTO;
+import com.codegeneration.banking.api.dto.currency.RateSnapshot;
+import com.codegeneration.banking.api.dto.currency.RateStatusDTO;
+import com.codegeneration.banking.api.entity.Money;
 import com.codegeneration.banking.api.enums.Currency;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface CurrencyExchangeService {
 
@@ -25,6 +32,15 @@ public interface CurrencyExchangeService {
      */
     BigDecimal convertAmount(BigDecimal amount, Currency fromCurrency, Currency toCurrency);
 
+    /**
+     * Convert money to another currency in money units, rounded like {@link #convertAmount}
+     *
+     * @param amount Money to convert (positive value)
+     * @param toCurrency Target currency
+     * @return Converted money
+     */
+    Money convert(Money amount, Currency toCurrency);
+
     /**
      * Check if currency conversion is needed
      *
@@ -33,4 +49,28 @@ public interface CurrencyExchangeService {
      * @return true if conversion is needed, false otherwise
      */
     boolean isConversionNeeded(Currency fromCurrency, Currency toCurrency);
-}
\ No newline at end of file
+
+    /**
+     * Get age and refresh statistics of the exchange rate table in use
+     *
+     * @return Rate table status
+     */
+    RateStatusDTO getRateStatus();
+
+    /**
+     * Get the exchange rate snapshot currently in use
+     *
+     * @return Rate snapshot
+     */
+    RateSnapshot getRateSnapshot();
+
+    /**
+     * Convert many amounts against one rate snapshot, in request order
+     *
+     * @param snapshot Rate snapshot every conversion is priced against
+     * @param conversions Validated conversions to perform
+     * @param consumer Receives each result as soon as it is computed
+     */
+    void convertBatch(RateSnapshot snapshot, List<CurrencyConversionRequest> conversions,
+                      Consumer<CurrencyExchangeDTO> consumer);
+}
@@ -0,0 +1,32 @@
+package com.codegeneration.banking.api.service.interfaces;
+
+import com.codegeneration.banking.api.entity.Account;
+
+/**
+ * Version of the accounts and transactions a user can see, used as the ETag of the listing endpoints. The version
+ * changes whenever a balance, a posting or an account of the user changes, so an unchanged version means an unchanged
+ * listing.
+ */
+public interface DataVersionService {
+
+    /**
+     * Strong ETag of a listing of the user, quoted as in the ETag header
+     *
+     * @param username Owner of the listing
+     * @param listing Name of the listing and of the representation asked for, so the ETag of one listing or
+     *                representation never matches another
+     * @return The ETag, or null if the user does not exist
+     */
+    String getETag(String username, String listing);
+
+    /**
+     * Move the version of the owners of the accounts on. Inside a transaction this happens once it has completed, so
+     * a listing read before the commit never carries the new version.
+     */
+    void accountsChanged(Account... accounts);
+
+    /**
+     * Move the version of the user on, once the current transaction has completed if there is one
+     */
+    void userChanged(Long userId);
+}
@@ -0,0 +1,37 @@
+package com.codegeneration.banking.api.service.interfaces;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.entity.Transaction;
+import com.codegeneration.banking.api.events.DomainEvent.AccountChange;
+import com.codegeneration.banking.api.events.DomainEventBus;
+import com.codegeneration.banking.api.events.DomainEventListener;
+
+/**
+ * Stream of committed balance and account changes for caches, rollups and notifications. Events are only published
+ * once the transaction that made the change has committed, a rolled back change is never seen.
+ */
+public interface DomainEventService {
+
+    /**
+     * Publish a TRANSACTION_POSTED event once the current transaction commits, or right away outside of one. The
+     * balances are taken from the accounts of the transaction, so they have to be read back after the change.
+     *
+     * @param debitAmount Amount taken from the source account, null for an ATM deposit
+     * @param creditAmount Amount added to the destination account, null for an ATM withdrawal
+     */
+    void transactionPosted(Transaction transaction, Money debitAmount, Money creditAmount);
+
+    /**
+     * Publish an ACCOUNT_CHANGED event once the current transaction commits, or right away outside of one
+     */
+    void accountChanged(Account account, AccountChange change);
+
+    /**
+     * Feed every event published from now on to the listener on a consumer thread of its own. Beans implementing
+     * {@link DomainEventListener} are subscribed at startup.
+     *
+     * @return The subscription, or null if events are disabled
+     */
+    DomainEventBus.Subscription subscribe(String name, DomainEventListener listener);
+}
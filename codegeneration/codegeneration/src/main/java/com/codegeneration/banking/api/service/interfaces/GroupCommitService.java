@@ -0,0 +1,36 @@
+package com.codegeneration.banking.api.service.interfaces;
+
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.entity.Transaction;
+
+public interface GroupCommitService {
+
+    /**
+     * Whether balance changes go through the group commit writer, see app.group-commit.enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Queue a transfer for the writer and wait until the batch it is part of has committed. The transfer is applied
+     * like {@link TransactionService#executeTransfer}: debited, credited, stored as completed and posted.
+     *
+     * @param transaction The transfer record to store
+     * @param debitAmount Amount taken from the source account in its currency
+     * @param creditAmount Amount added to the destination account in its currency
+     * @return The stored transaction, with the balances of its accounts as they were after it
+     * @throws com.codegeneration.banking.api.exception.InsufficientFundsException if the source balance is too low
+     * @throws IllegalArgumentException if one of the accounts is disabled
+     */
+    Transaction executeTransfer(Transaction transaction, Money debitAmount, Money creditAmount);
+
+    /**
+     * Queue an ATM deposit or withdrawal for the writer and wait until the batch it is part of has committed
+     *
+     * @param transaction The ATM transaction record to store, its source and destination are the account
+     * @param amount Amount paid in or out in the account currency
+     * @return The stored transaction, with the balance of its account as it was after it
+     * @throws com.codegeneration.banking.api.exception.InsufficientFundsException if a withdrawal exceeds the balance
+     * @throws IllegalArgumentException if the account is disabled
+     */
+    Transaction executeAtmTransaction(Transaction transaction, Money amount);
+}
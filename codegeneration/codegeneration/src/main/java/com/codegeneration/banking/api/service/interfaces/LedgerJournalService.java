@@ -0,0 +1,43 @@
+package com.codegeneration.banking.api.service.interfaces;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.enums.PostingKind;
+
+import java.math.BigDecimal;
+
+public interface LedgerJournalService {
+
+    /**
+     * Journal the debit and credit of a transfer as one group. Call after both balance updates, inside their
+     * transaction, with the balances of both accounts refreshed. The group counts once the transaction commits.
+     *
+     * @param source The debited account
+     * @param destination The credited account
+     * @param debitAmount Amount taken from the source in its currency
+     * @param creditAmount Amount added to the destination in its currency
+     */
+    void recordTransfer(Account source, Account destination, Money debitAmount, Money creditAmount);
+
+    /**
+     * Journal a deposit or withdrawal. Call after the balance update, inside its transaction, with the balance of the
+     * account refreshed. The posting counts once the transaction commits.
+     *
+     * @param account The account
+     * @param kind DEPOSIT or WITHDRAWAL
+     * @param amount Amount of the posting (positive value)
+     */
+    void recordPosting(Account account, PostingKind kind, BigDecimal amount);
+
+    /**
+     * Restore the balances of the accounts in the database from the newest snapshot and the journal
+     *
+     * @return Number of accounts whose balance was restored
+     */
+    int recoverBalances();
+
+    /**
+     * Write a balance snapshot if postings were journaled since the last one
+     */
+    void snapshot();
+}
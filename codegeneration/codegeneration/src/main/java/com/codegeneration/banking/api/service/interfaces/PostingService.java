@@ -0,0 +1,65 @@
+package com.codegeneration.banking.api.service.interfaces;
+
+import com.codegeneration.banking.api.dto.ledger.LedgerVerificationResult;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.entity.Posting;
+import com.codegeneration.banking.api.entity.Transaction;
+
+import java.util.List;
+
+public interface PostingService {
+
+    /**
+     * Post the legs of a completed transfer. A cross-currency transfer also posts a leg pair on the FX position, so
+     * both currencies balance. Call in the transaction that updates the balances.
+     *
+     * @param transaction The saved transfer
+     * @param debitAmount Amount taken from the source account in its currency
+     * @param creditAmount Amount added to the destination account in its currency
+     */
+    void postTransfer(Transaction transaction, Money debitAmount, Money creditAmount);
+
+    /**
+     * Post the legs of an ATM deposit or withdrawal against the ATM cash ledger. Call in the transaction that updates
+     * the balance.
+     *
+     * @param transaction The saved ATM transaction
+     * @param amount Amount paid in or out in the account currency
+     */
+    void postAtmTransaction(Transaction transaction, Money amount);
+
+    /**
+     * Build the legs {@link #postTransfer} posts without writing them, so several transactions can be posted at once
+     */
+    List<Posting> transferLegs(Transaction transaction, Money debitAmount, Money creditAmount);
+
+    /**
+     * Build the legs {@link #postAtmTransaction} posts without writing them
+     */
+    List<Posting> atmLegs(Transaction transaction, Money amount);
+
+    /**
+     * Insert legs built by {@link #transferLegs} or {@link #atmLegs} as one batch. The transactions must be saved.
+     */
+    void post(List<Posting> legs);
+
+    /**
+     * Post the balance of every account without postings as its opening balance, so accounts loaded with a balance
+     * reconcile. Accounts that already have postings are left alone.
+     *
+     * @return Number of accounts that got an opening balance
+     */
+    int postOpeningBalances();
+
+    /**
+     * Check that every cached account balance matches its postings and that the legs of every transaction balance
+     *
+     * @return The accounts and transactions that do not reconcile
+     */
+    LedgerVerificationResult verify();
+
+    /**
+     * Run {@link #verify()} and log what does not reconcile
+     */
+    void verifyAndReport();
+}
@@ -0,0 +1,26 @@
+package com.codegeneration.banking.api.service.interfaces;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Source of exchange rates polled by the rate refresher.
+ * Implementations only fetch and parse, validation and publishing happen in the refresher.
+ */
+public interface RateProvider {
+
+    /**
+     * Name used to select this provider through app.rates.provider
+     *
+     * @return Provider name
+     */
+    String getName();
+
+    /**
+     * Fetch the current rate table
+     *
+     * @return Rates keyed as FROM_TO (for example EUR_USD)
+     * @throws Exception if the source could not be read or parsed
+     */
+    Map<String, BigDecimal> fetchRates() throws Exception;
+}
@@ -1,7 +1,11 @@
 package com.codegeneration.banking.api.service.interfaces;
 
+import com.codegeneration.banking.api.dto.FieldSelection;
+import com.codegeneration.banking.api.dto.transaction.TransactionDTO;
 import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
 import com.codegeneration.banking.api.entity.Transaction;
+import com.codegeneration.banking.api.exception.InsufficientFundsException;
 import com.codegeneration.banking.api.entity.Transaction.TransactionType;
 
 import java.util.List;
@@ -23,9 +27,28 @@ public interface TransactionService {
      * @return List of transactions
      */
     List<Transaction> getTransactionsByAccount(Account account);
+
+    /**
+     * Get all transactions for a user with only the selected fields read from the database
+     *
+     * @param username The username to get transactions for
+     * @param fields The fields to read
+     * @return DTOs with only the selected fields set
+     */
+    List<TransactionDTO> getTransactionFieldsByUsername(String username, FieldSelection fields);
+
+    /**
+     * Get transactions for a specific account with only the selected fields read from the database
+     *
+     * @param account The account to get transactions for
+     * @param fields The fields to read
+     * @return DTOs with only the selected fields set
+     */
+    List<TransactionDTO> getTransactionFieldsByAccount(Account account, FieldSelection fields);
     
     /**
-     * Create an ATM transaction (deposit or withdrawal)
+     * Create an ATM transaction (deposit or withdrawal). The account balance, the transaction record and its postings
+     * are written in one database transaction.
      *
      * @param account The account involved in the transaction
      * @param amount The transaction amount (positive value)
@@ -33,6 +56,20 @@ public interface TransactionService {
      * @param description Optional description of the transaction
      * @return The created transaction record
      * @throws IllegalArgumentException if invalid transaction type or amount
+     * @throws InsufficientFundsException if a withdrawal exceeds the balance
      */
     Transaction createAtmTransaction(Account account, double amount, TransactionType type, String description);
-}
\ No newline at end of file
+
+    /**
+     * Debit the source, credit the destination and store the transfer as completed, all in one database transaction.
+     * The debit only succeeds if the source balance covers it, so concurrent transfers cannot overdraw the account.
+     *
+     * @param transaction The transfer record to store
+     * @param debitAmount Amount to take from the source account, in its currency
+     * @param creditAmount Amount to add to the destination account, in its currency
+     * @return The stored transaction
+     * @throws InsufficientFundsException if the source balance does not cover the debit
+     * @throws IllegalArgumentException if either account is disabled
+     */
+    Transaction executeTransfer(Transaction transaction, Money debitAmount, Money creditAmount);
+}
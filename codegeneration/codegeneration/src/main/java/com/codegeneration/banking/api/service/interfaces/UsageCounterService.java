@@ -0,0 +1,51 @@
+package com.codegeneration.banking.api.service.interfaces;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.enums.LimitType;
+
+import java.util.function.LongPredicate;
+
+public interface UsageCounterService {
+
+    /**
+     * Returned by {@link #tryRecord} when the usage was not recorded
+     */
+    long NOT_RECORDED = -1;
+
+    /**
+     * Get the usage counted against a daily limit in the account's window mode
+     *
+     * @param account The account
+     * @param type The limit the usage counts against
+     * @return Usage in the account currency
+     */
+    Money getUsage(Account account, LimitType type);
+
+    /**
+     * Record usage if the new total passes the limit check. Concurrent calls never push the total past the limit.
+     *
+     * @param account The account
+     * @param type The limit the usage counts against
+     * @param amount Amount to record in the account currency (positive value)
+     * @param withinLimit Check applied to the total including the amount, in account currency money units
+     * @return The epoch hour the usage was recorded in, to pass to {@link #release}, or {@link #NOT_RECORDED} if it
+     * would exceed the limit
+     */
+    long tryRecord(Account account, LimitType type, Money amount, LongPredicate withinLimit);
+
+    /**
+     * Take back usage recorded by {@link #tryRecord} when the posting fails afterwards
+     *
+     * @param account The account
+     * @param type The limit the usage was counted against
+     * @param amount Amount to take back (positive value)
+     * @param hour The hour {@link #tryRecord} returned, usage recorded before midnight is taken back from that day
+     */
+    void release(Account account, LimitType type, Money amount, long hour);
+
+    /**
+     * Write changed counters to the accounts table and drop the counters of accounts unused for 24 hours
+     */
+    void flush();
+}
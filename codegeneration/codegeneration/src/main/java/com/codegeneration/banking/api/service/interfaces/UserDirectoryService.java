@@ -0,0 +1,45 @@
+package com.codegeneration.banking.api.service.interfaces;
+
+import com.codegeneration.banking.api.dto.user.UserDirectoryEntryDTO;
+import com.codegeneration.banking.api.dto.user.UserDirectoryResponse;
+import com.codegeneration.banking.api.entity.User;
+
+import java.util.function.Consumer;
+
+/**
+ * Directory of all users for employees, searchable by the words of their name, username and email and paged by
+ * user id
+ */
+public interface UserDirectoryService {
+
+    /**
+     * Add a new or changed user to the search index, in the transaction that saves the user
+     *
+     * @param user The saved user, with its id
+     */
+    void index(User user);
+
+    /**
+     * Index the users that were inserted without the application, in batches that commit on their own
+     *
+     * @return The number of users indexed
+     */
+    int indexUnindexedUsers();
+
+    /**
+     * Get a page of users matching the search
+     *
+     * @param search Words that all have to match, the start of a word for one or two characters and anywhere in a
+     *               word for longer ones. Every user matches an empty search.
+     * @param after The nextCursor of the previous page, null for the first page
+     * @param limit The maximum number of users on the page
+     * @return The users in id order and the cursor of the next page
+     */
+    UserDirectoryResponse search(String search, Long after, int limit);
+
+    /**
+     * Pass every user matching the search to the consumer in id order. Users are read in batches, each in a read-only
+     * transaction of its own, so no transaction stays open while the consumer writes them out.
+     */
+    void export(String search, Consumer<UserDirectoryEntryDTO> consumer);
+}
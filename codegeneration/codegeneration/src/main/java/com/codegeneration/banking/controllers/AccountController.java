@@ -1,5 +1,6 @@
 package com.codegeneration.banking.controllers;
 
+import com.codegeneration.banking.api.dto.FieldSelection;
 import com.codegeneration.banking.api.dto.UsernameRequest;
 import com.codegeneration.banking.api.dto.LimitUpdateRequest;
 import com.codegeneration.banking.api.dto.account.*;
@@ -11,6 +12,8 @@ import com.codegeneration.banking.api.repository.UserRepository;
 import com.codegeneration.banking.api.security.JwtAuthenticationFilter;
 import com.codegeneration.banking.api.security.JwtTokenProvider;
 import com.codegeneration.banking.api.service.interfaces.AccountService;
+import com.codegeneration.banking.api.service.interfaces.AccountStreamService;
+import com.codegeneration.banking.api.service.interfaces.DataVersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -22,13 +25,18 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.sql.Array;
@@ -45,21 +53,29 @@ import java.util.stream.Collectors;
 public class AccountController extends BaseController {
 
     private final AccountService accountService;
+    private final DataVersionService dataVersionService;
+    private final AccountStreamService accountStreamService;
     private final JwtTokenProvider jwtTokenProvider;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
 
-    @Operation(summary = "Get all accounts", description = "Returns all accounts belonging to the authenticated user")
+    @Operation(summary = "Get all accounts", description = "Returns all accounts belonging to the authenticated user. "
+            + "fields selects the account properties to return")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved accounts",
                     content = @Content(schema = @Schema(implementation = AccountResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Unchanged since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Unknown field"),
             @ApiResponse(responseCode = "401", description = "Not authenticated"),
             @ApiResponse(responseCode = "403", description = "Forbidden"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/getall")
-    public ResponseEntity<AccountResponse> getAllAccounts() {
+    public ResponseEntity<MappingJacksonValue> getAllAccounts(
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request) {
         try {
             // Get username from authenticated user
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -72,6 +88,22 @@ public class AccountController extends BaseController {
             String username = authentication.getName();
             log.info("Processing GET /account/getall for user: {}", username);
 
+            // A user has a handful of accounts, the selection only trims the response
+            FieldSelection selection;
+            try {
+                selection = FieldSelection.parse(fields, AccountDTO.FIELDS);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            // The version is read before the data, a change in between only costs the next poll a full response
+            MediaType format = negotiate(accept);
+            String eTag = dataVersionService.getETag(username, "accounts;fields=" + selection.canonical()
+                    + ";" + format.getSubtype());
+            if (eTag != null && request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+            }
+
             List<Account> accounts = accountService.getAccountsByUsername(username);
 
             List<AccountDTO> accountDTOs = accounts.stream()
@@ -82,13 +114,40 @@ public class AccountController extends BaseController {
                     .accounts(accountDTOs)
                     .build();
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).contentType(format)
+                    .body(selection.apply(response, AccountDTO.FILTER));
         } catch (Exception e) {
             log.error("Error in GET /account/getall", e);
             throw e;
         }
     }
 
+    @Operation(summary = "Stream account updates",
+            description = "Server-sent events of the authenticated user: a 'transaction' event with the transaction "
+                    + "and the new balances for every committed transfer or ATM transaction, an 'account' event when "
+                    + "an account was opened, disabled or got new limits. A client that reconnects with Last-Event-ID "
+                    + "gets the events it missed, or a 'resync' event if it has to fetch its listings again. "
+                    + "EventSource cannot send the Authorization header, use a fetch based client.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream opened"),
+            @ApiResponse(responseCode = "401", description = "Not authenticated")
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAccountUpdates(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !authentication.isAuthenticated()) {
+            log.warn("No authentication found for GET /account/stream");
+            return ResponseEntity.status(401).build();
+        }
+
+        // Proxies must not buffer the stream
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .body(accountStreamService.open(authentication.getName(), lastEventId));
+    }
+
     @Operation(summary = "Get account details", description = "Returns details for a specific account")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved account details",
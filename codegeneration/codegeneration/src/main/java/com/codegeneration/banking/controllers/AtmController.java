@@ -2,15 +2,19 @@ package com.codegeneration.banking.controllers;
 
 import com.codegeneration.banking.api.dto.atm.AtmTransactionRequest;
 import com.codegeneration.banking.api.dto.atm.AtmTransactionResponse;
+import com.codegeneration.banking.api.dto.account.AccountLimitSnapshot;
 import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
 import com.codegeneration.banking.api.entity.Transaction;
 import com.codegeneration.banking.api.entity.Transaction.TransactionType;
-import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.enums.LimitType;
 import com.codegeneration.banking.api.exception.InsufficientFundsException;
 import com.codegeneration.banking.api.exception.ResourceNotFoundException;
+import com.codegeneration.banking.api.metrics.BankingMetrics;
+import com.codegeneration.banking.api.service.interfaces.AccountLimitService;
 import com.codegeneration.banking.api.service.interfaces.AccountService;
 import com.codegeneration.banking.api.service.interfaces.TransactionService;
-import com.codegeneration.banking.api.service.interfaces.CurrencyExchangeService;
+import com.codegeneration.banking.api.service.interfaces.UsageCounterService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -29,6 +33,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.math.BigDecimal;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/atm")
@@ -39,7 +44,9 @@ public class AtmController extends BaseController {
 
     private final AccountService accountService;
     private final TransactionService transactionService;
-    private final CurrencyExchangeService currencyExchangeService;
+    private final AccountLimitService accountLimitService;
+    private final UsageCounterService usageCounterService;
+    private final BankingMetrics bankingMetrics;
 
     @Operation(summary = "Deposit money", description = "Deposit money into an account via ATM")
     @ApiResponses(value = {
@@ -83,22 +90,27 @@ public class AtmController extends BaseController {
             // Step 1: Validate authentication and get account
             Account account = validateAndGetAccount(request.getAccountNumber(), operationType);
             
-            // Step 2: Validate transaction limits
-            BigDecimal amount = BigDecimal.valueOf(request.getAmount());
-            validateTransactionLimits(account, amount, transactionType);
-            
-            // Step 3: Process the transaction
-            processAccountTransaction(account, amount, transactionType);
-            
-            // Step 4: Create transaction record
-            Transaction transaction = transactionService.createAtmTransaction(
-                    account, 
-                    request.getAmount(), 
-                    transactionType, 
-                    request.getDescription()
-            );
+            // Step 2: Validate transaction limits, this also records the usage
+            Money amount = Money.of(BigDecimal.valueOf(request.getAmount()), account.getCurrency());
+            LimitType limitType = transactionType == TransactionType.ATM_WITHDRAWAL
+                    ? LimitType.WITHDRAWAL : LimitType.TRANSFER;
+            long usageHour = validateTransactionLimits(account, amount, limitType, transactionType);
+
+            Transaction transaction;
+            try {
+                // Step 3: Apply the balance change and create the transaction record
+                transaction = transactionService.createAtmTransaction(
+                        account,
+                        request.getAmount(),
+                        transactionType,
+                        request.getDescription()
+                );
+            } catch (RuntimeException e) {
+                usageCounterService.release(account, limitType, amount, usageHour);
+                throw e;
+            }
             
-            // Step 5: Build and return success response
+            // Step 4: Build and return success response
             return buildSuccessResponse(transaction, account);
             
         } catch (InsufficientFundsException e) {
@@ -134,83 +146,46 @@ public class AtmController extends BaseController {
     }
 
     /**
-     * Validates transaction limits based on transaction type
+     * Validates transaction limits based on transaction type and records the usage when they pass
+     *
+     * @return The hour the usage was recorded in, for releasing it when the transaction fails
      */
-    private void validateTransactionLimits(Account account, BigDecimal amount, TransactionType transactionType) {
-        // Convert amount to EUR standard using xaffs currency exchange service
-        BigDecimal amountInEur = currencyExchangeService.convertAmount(amount, account.getCurrency(), Currency.EUR);
-        
+    private long validateTransactionLimits(Account account, Money amount, LimitType limitType,
+                                           TransactionType transactionType) {
+        // Limits are kept normalized to EUR units, only the amount and the new daily total are converted per request
+        AccountLimitSnapshot limits = accountLimitService.getLimitSnapshot(account);
+
         if (transactionType == TransactionType.ATM_DEPOSIT) {
-            validateDepositLimits(account, amount, amountInEur);
+            return validateLimits(account, amount, limitType, limits, "transfer", "Deposit");
         } else if (transactionType == TransactionType.ATM_WITHDRAWAL) {
-            validateWithdrawalLimits(account, amount, amountInEur);
+            return validateLimits(account, amount, limitType, limits, "withdrawal", "Withdrawal");
         }
-    }
-
-    /**
-     * Validates deposit limits
-     */
-    private void validateDepositLimits(Account account, BigDecimal amount, BigDecimal amountInEur) {
-        BigDecimal singleLimitInEur = currencyExchangeService.convertAmount(
-                account.getSingleTransferLimit(), account.getCurrency(), Currency.EUR);
-        BigDecimal dailyLimitInEur = currencyExchangeService.convertAmount(
-                account.getDailyTransferLimit(), account.getCurrency(), Currency.EUR);
-        BigDecimal transferUsedInEur = currencyExchangeService.convertAmount(
-                account.getTransferUsedToday(), account.getCurrency(), Currency.EUR);
-        
-        validateLimits(amountInEur, singleLimitInEur, dailyLimitInEur, transferUsedInEur, 
-                "transfer", "Deposit");
-    }
-
-    /**
-     * Validates withdrawal limits
-     */
-    private void validateWithdrawalLimits(Account account, BigDecimal amount, BigDecimal amountInEur) {
-        BigDecimal singleLimitInEur = currencyExchangeService.convertAmount(
-                account.getSingleWithdrawalLimit(), account.getCurrency(), Currency.EUR);
-        BigDecimal dailyLimitInEur = currencyExchangeService.convertAmount(
-                account.getDailyWithdrawalLimit(), account.getCurrency(), Currency.EUR);
-        BigDecimal withdrawalUsedInEur = currencyExchangeService.convertAmount(
-                account.getWithdrawalUsedToday(), account.getCurrency(), Currency.EUR);
-        
-        validateLimits(amountInEur, singleLimitInEur, dailyLimitInEur, withdrawalUsedInEur, 
-                "withdrawal", "Withdrawal");
+        return UsageCounterService.NOT_RECORDED;
     }
 
     /**
      * Common limit validation logic
      */
-    private void validateLimits(BigDecimal amountInEur, BigDecimal singleLimitInEur, 
-                               BigDecimal dailyLimitInEur, BigDecimal usedTodayInEur, 
-                               String limitType, String operationType) {
+    private long validateLimits(Account account, Money amount, LimitType type, AccountLimitSnapshot limits,
+                                String limitType, String operationType) {
         // Check single transaction limit
-        if (amountInEur.compareTo(singleLimitInEur) > 0) {
+        if (!limits.isWithinSingleLimit(type, amount)) {
+            bankingMetrics.recordAtmLimitRejection(operationType.toLowerCase(Locale.ROOT), type, "single");
             throw new IllegalArgumentException(String.format(
                     "%s amount exceeds single %s limit of %s EUR equivalent", 
-                    operationType, limitType, singleLimitInEur));
+                    operationType, limitType, limits.getSingleLimitEur(type).toBigDecimal()));
         }
         
-        // Check daily limit
-        BigDecimal newTotalInEur = usedTodayInEur.add(amountInEur);
-        if (newTotalInEur.compareTo(dailyLimitInEur) > 0) {
+        // Check daily limit, the usage counter applies the check atomically with recording the amount
+        long usageHour = usageCounterService.tryRecord(account, type, amount,
+                newTotal -> limits.isWithinDailyLimit(type, newTotal));
+        if (usageHour == UsageCounterService.NOT_RECORDED) {
+            bankingMetrics.recordAtmLimitRejection(operationType.toLowerCase(Locale.ROOT), type, "daily");
             throw new IllegalArgumentException(String.format(
                     "%s amount exceeds daily %s limit of %s EUR equivalent", 
-                    operationType, limitType, dailyLimitInEur));
-        }
-    }
-
-    /**
-     * Processes the account transaction based on type
-     */
-    private void processAccountTransaction(Account account, BigDecimal amount, TransactionType transactionType) {
-        if (transactionType == TransactionType.ATM_DEPOSIT) {
-            accountService.increaseBalance(account, amount);
-            account.updateTransferUsed(amount);
-        } else if (transactionType == TransactionType.ATM_WITHDRAWAL) {
-            accountService.decreaseBalance(account, amount);
-            account.updateWithdrawalUsed(amount);
+                    operationType, limitType, limits.getDailyLimitEur(type).toBigDecimal()));
         }
-        accountService.saveAccount(account);
+        return usageHour;
     }
 
     /**
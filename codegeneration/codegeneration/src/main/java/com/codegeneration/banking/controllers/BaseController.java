@@ -1,8 +1,13 @@
 package com.codegeneration.banking.controllers;
 
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.RequestMethod;
 
+import java.util.List;
+
 @CrossOrigin(
         origins = {
                 "http://localhost:3000",
@@ -16,4 +21,31 @@ import org.springframework.web.bind.annotation.RequestMethod;
         maxAge = 3600
 )
 public class BaseController {
+
+    /**
+     * The format of a response whose content type has to be known before it is written, because the response is
+     * written outside the message converters or its ETag depends on it: CBOR when the client prefers it to JSON, JSON
+     * otherwise
+     */
+    protected static MediaType negotiate(String accept) {
+        if (accept == null) {
+            return MediaType.APPLICATION_JSON;
+        }
+        try {
+            List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+            // Orders by quality first, then by specificity
+            MimeTypeUtils.sortBySpecificity(accepted);
+            for (MediaType type : accepted) {
+                if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    return MediaType.APPLICATION_JSON;
+                }
+                if (type.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                    return MediaType.APPLICATION_CBOR;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // Answered as if there was no Accept header
+        }
+        return MediaType.APPLICATION_JSON;
+    }
 }
@@ -1,6 +1,10 @@
 package com.codegeneration.banking.controllers;
 
+import com.codegeneration.banking.api.dto.currency.BatchConversionRequest;
+import com.codegeneration.banking.api.dto.currency.CurrencyConversionRequest;
 import com.codegeneration.banking.api.dto.currency.CurrencyExchangeDTO;
+import com.codegeneration.banking.api.dto.currency.RateSnapshot;
+import com.codegeneration.banking.api.dto.currency.RateStatusDTO;
 import com.codegeneration.banking.api.enums.Currency;
 import com.codegeneration.banking.api.service.interfaces.CurrencyExchangeService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -8,13 +12,25 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/currency")
@@ -24,6 +40,11 @@ import java.math.BigDecimal;
 public class CurrencyController extends BaseController {
 
     private final CurrencyExchangeService currencyExchangeService;
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Value("${app.currency.batch.max-size:100000}")
+    private int maxBatchSize;
 
     @Operation(summary = "Get exchange rate", description = "Get exchange rate between two currencies")
     @ApiResponses(value = {
@@ -100,4 +121,75 @@ public class CurrencyController extends BaseController {
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Get exchange rate status", description = "Returns the age, source and refresh latency of the exchange rates in use")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved rate status",
+                    content = @Content(schema = @Schema(implementation = RateStatusDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated")
+    })
+    @GetMapping("/rates/status")
+    public ResponseEntity<RateStatusDTO> getRateStatus() {
+        return ResponseEntity.ok(currencyExchangeService.getRateStatus());
+    }
+
+    @Operation(summary = "Convert amounts in batch",
+            description = "Convert many amounts in one pass against one consistent rate snapshot. Results are streamed in request order. "
+                    + "The request can be sent and the response requested as application/cbor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully converted amounts"),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters or batch too large"),
+            @ApiResponse(responseCode = "401", description = "Not authenticated"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/convert/batch")
+    public ResponseEntity<StreamingResponseBody> convertBatch(
+            @RequestBody BatchConversionRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        List<CurrencyConversionRequest> conversions = request.getConversions();
+
+        if (conversions == null || conversions.isEmpty() || conversions.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        for (CurrencyConversionRequest conversion : conversions) {
+            if (conversion == null || conversion.getFromCurrency() == null || conversion.getToCurrency() == null
+                    || conversion.getAmount() == null || conversion.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        log.info("Converting batch of {} amounts", conversions.size());
+
+        // Pin one snapshot for the whole batch so a concurrent refresh cannot mix rate tables
+        RateSnapshot snapshot = currencyExchangeService.getRateSnapshot();
+        MediaType contentType = negotiate(accept);
+        ObjectMapper mapper = MediaType.APPLICATION_CBOR.equals(contentType)
+                ? cborConverter.getObjectMapper()
+                : objectMapper;
+        ObjectWriter itemWriter = mapper.writerFor(CurrencyExchangeDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                generator.writeNumberField("rateVersion", snapshot.getVersion());
+                generator.writeNumberField("count", conversions.size());
+                generator.writeArrayFieldStart("conversions");
+                currencyExchangeService.convertBatch(snapshot, conversions, result -> {
+                    try {
+                        itemWriter.writeValue(generator, result);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .body(body);
+    }
+}
@@ -1,5 +1,7 @@
 package com.codegeneration.banking.controllers;
 
+import com.codegeneration.banking.api.dto.FieldSelection;
+import com.codegeneration.banking.api.dto.account.AccountLimitSnapshot;
 import com.codegeneration.banking.api.dto.currency.CurrencyExchangeDTO;
 import com.codegeneration.banking.api.dto.transaction.TransactionDTO;
 import com.codegeneration.banking.api.dto.transactionfilter.TransactionFilterRequest;
@@ -7,13 +9,17 @@ import com.codegeneration.banking.api.dto.transaction.TransactionResponse;
 import com.codegeneration.banking.api.dto.transaction.TransferRequest;
 import com.codegeneration.banking.api.dto.transaction.TransferResponseDTO;
 import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
 import com.codegeneration.banking.api.entity.Transaction;
 import com.codegeneration.banking.api.entity.User;
+import com.codegeneration.banking.api.enums.LimitType;
 import com.codegeneration.banking.api.enums.UserRole;
+import com.codegeneration.banking.api.exception.InsufficientFundsException;
 import com.codegeneration.banking.api.exception.ResourceNotFoundException;
-import com.codegeneration.banking.api.repository.AccountRepository;
-import com.codegeneration.banking.api.repository.TransactionRepository;
+import com.codegeneration.banking.api.metrics.BankingMetrics;
+import com.codegeneration.banking.api.metrics.BankingMetrics.TransferPhase;
 import com.codegeneration.banking.api.service.interfaces.*;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -23,11 +29,15 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -44,23 +54,33 @@ import java.util.stream.Collectors;
 public class TransactionController extends BaseController {
 
     private final TransactionService transactionService;
+    private final DataVersionService dataVersionService;
     private final TransactionFilterService transactionFilterService;
     private final AccountService accountService;
+    private final AccountLimitService accountLimitService;
+    private final UsageCounterService usageCounterService;
     private final UserService userService;
     private final CurrencyExchangeService currencyExchangeService;
-    private final TransactionRepository transactionRepository;
-    private final AccountRepository accountRepository;
+    private final BankingMetrics bankingMetrics;
 
-    @Operation(summary = "Get all transactions", description = "Returns all transactions belonging to the authenticated user")
+    @Operation(summary = "Get all transactions", description = "Returns all transactions belonging to the authenticated user. "
+            + "fields selects the transaction properties to return, shape=normalized returns every account once "
+            + "in accounts and references it by id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved transactions",
                     content = @Content(schema = @Schema(implementation = TransactionResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Unchanged since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Unknown field or shape"),
             @ApiResponse(responseCode = "401", description = "Not authenticated"),
             @ApiResponse(responseCode = "403", description = "Forbidden"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/getall")
-    public ResponseEntity<TransactionResponse> getAllTransactions() {
+    public ResponseEntity<MappingJacksonValue> getAllTransactions(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String shape,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request) {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
@@ -72,33 +92,54 @@ public class TransactionController extends BaseController {
             String username = authentication.getName();
             log.info("Processing GET /transaction/getall for user: {}", username);
 
-            List<Transaction> transactions = transactionService.getAllTransactionsByUsername(username);
+            FieldSelection selection;
+            boolean normalized;
+            try {
+                selection = FieldSelection.parse(fields, TransactionDTO.FIELDS);
+                normalized = isNormalized(shape);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
 
-            List<TransactionDTO> transactionDTOs = transactions.stream()
-                    .map(TransactionDTO::fromEntity)
-                    .collect(Collectors.toList());
+            // Answered from the data version alone while the client's copy is current. Every selection, shape and
+            // format is a representation of its own.
+            MediaType format = negotiate(accept);
+            String eTag = dataVersionService.getETag(username, "transactions;fields=" + selection.canonical()
+                    + (normalized ? ";shape=normalized" : "") + ";" + format.getSubtype());
+            if (eTag != null && request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+            }
 
-            TransactionResponse response = TransactionResponse.builder()
-                    .transactions(transactionDTOs)
-                    .build();
+            List<TransactionDTO> transactionDTOs;
+            if (selection.isAll() && !normalized) {
+                transactionDTOs = transactionService.getAllTransactionsByUsername(username).stream()
+                        .map(TransactionDTO::fromEntity)
+                        .collect(Collectors.toList());
+            } else {
+                transactionDTOs = transactionService.getTransactionFieldsByUsername(username, selection);
+            }
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).contentType(format)
+                    .body(listing(transactionDTOs, selection, normalized));
         } catch (Exception e) {
             log.error("Error in GET /transaction/getall", e);
             throw e;
         }
     }
 
-    @Operation(summary = "Get filtered transactions", description = "Returns filtered transactions belonging to the authenticated user")
+    @Operation(summary = "Get filtered transactions", description = "Returns filtered transactions belonging to the authenticated user. "
+            + "fields selects the transaction properties to return, shape=normalized returns every account once "
+            + "in accounts and references it by id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved filtered transactions",
                     content = @Content(schema = @Schema(implementation = TransactionResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown field or shape"),
             @ApiResponse(responseCode = "401", description = "Not authenticated"),
             @ApiResponse(responseCode = "403", description = "Forbidden"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/filter")
-    public ResponseEntity<TransactionResponse> getFilteredTransactions(
+    public ResponseEntity<MappingJacksonValue> getFilteredTransactions(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) BigDecimal amountLessThan,
@@ -107,7 +148,9 @@ public class TransactionController extends BaseController {
             @RequestParam(required = false) String iban,
             @RequestParam(required = false) String transactionType,
             @RequestParam(required = false) String transactionStatus,
-            @RequestParam(required = false) String description) {
+            @RequestParam(required = false) String description,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String shape) {
 
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -120,6 +163,15 @@ public class TransactionController extends BaseController {
             String username = authentication.getName();
             log.info("Processing GET /transaction/filter for user: {}", username);
 
+            FieldSelection selection;
+            boolean normalized;
+            try {
+                selection = FieldSelection.parse(fields, TransactionDTO.FIELDS);
+                normalized = isNormalized(shape);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+
             TransactionFilterRequest filterRequest = TransactionFilterRequest.builder()
                     .startDate(startDate)
                     .endDate(endDate)
@@ -133,33 +185,36 @@ public class TransactionController extends BaseController {
                     .build();
 
             List<Transaction> transactions = transactionFilterService.getFilteredTransactionsByUsername(username, filterRequest);
+            bankingMetrics.recordFilterResults(transactions.size());
 
             List<TransactionDTO> transactionDTOs = transactions.stream()
                     .map(TransactionDTO::fromEntity)
                     .collect(Collectors.toList());
 
-            TransactionResponse response = TransactionResponse.builder()
-                    .transactions(transactionDTOs)
-                    .build();
-
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(listing(transactionDTOs, selection, normalized));
         } catch (Exception e) {
             log.error("Error in GET /transaction/filter", e);
             throw e;
         }
     }
 
-    @Operation(summary = "Get transactions by account number", description = "Returns all transactions for a specific account")
+    @Operation(summary = "Get transactions by account number", description = "Returns all transactions for a specific account. "
+            + "fields selects the transaction properties to return, shape=normalized returns every account once "
+            + "in accounts and references it by id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved transactions",
                     content = @Content(schema = @Schema(implementation = TransactionResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown field or shape"),
             @ApiResponse(responseCode = "401", description = "Not authenticated"),
             @ApiResponse(responseCode = "403", description = "Forbidden"),
             @ApiResponse(responseCode = "404", description = "Account not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/byaccount/{accountNumber}")
-    public ResponseEntity<TransactionResponse> getTransactionsByAccount(@PathVariable String accountNumber) {
+    public ResponseEntity<MappingJacksonValue> getTransactionsByAccount(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String shape) {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
@@ -171,6 +226,15 @@ public class TransactionController extends BaseController {
             String username = authentication.getName();
             log.info("Processing GET /transaction/byaccount/{} for user: {}", accountNumber, username);
 
+            FieldSelection selection;
+            boolean normalized;
+            try {
+                selection = FieldSelection.parse(fields, TransactionDTO.FIELDS);
+                normalized = isNormalized(shape);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+
             Account account = null;
             //check if user is an employee
             if (authentication.getAuthorities().stream().anyMatch(auth -> "ROLE_EMPLOYEE".equals(auth.getAuthority()))) {
@@ -184,34 +248,36 @@ public class TransactionController extends BaseController {
                 throw new ResourceNotFoundException("Account not found with number: " + accountNumber);
             }
 
-            List<Transaction> transactions = transactionService.getTransactionsByAccount(account);
-
-            List<TransactionDTO> transactionDTOs = transactions.stream()
-                    .map(TransactionDTO::fromEntity)
-                    .collect(Collectors.toList());
-
-            TransactionResponse response = TransactionResponse.builder()
-                    .transactions(transactionDTOs)
-                    .build();
+            List<TransactionDTO> transactionDTOs;
+            if (selection.isAll() && !normalized) {
+                transactionDTOs = transactionService.getTransactionsByAccount(account).stream()
+                        .map(TransactionDTO::fromEntity)
+                        .collect(Collectors.toList());
+            } else {
+                transactionDTOs = transactionService.getTransactionFieldsByAccount(account, selection);
+            }
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(listing(transactionDTOs, selection, normalized));
         } catch (Exception e) {
             log.error("Error in GET /transaction/byaccount/{}", e);
             throw e;
         }
     }
 
-    @Operation(summary = "Get filtered transactions by account", description = "Returns filtered transactions for a specific account")
+    @Operation(summary = "Get filtered transactions by account", description = "Returns filtered transactions for a specific account. "
+            + "fields selects the transaction properties to return, shape=normalized returns every account once "
+            + "in accounts and references it by id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved filtered transactions",
                     content = @Content(schema = @Schema(implementation = TransactionResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown field or shape"),
             @ApiResponse(responseCode = "401", description = "Not authenticated"),
             @ApiResponse(responseCode = "403", description = "Forbidden"),
             @ApiResponse(responseCode = "404", description = "Account not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/byaccount/{accountNumber}/filter")
-    public ResponseEntity<TransactionResponse> getFilteredTransactionsByAccount(
+    public ResponseEntity<MappingJacksonValue> getFilteredTransactionsByAccount(
             @PathVariable String accountNumber,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
@@ -221,7 +287,9 @@ public class TransactionController extends BaseController {
             @RequestParam(required = false) String iban,
             @RequestParam(required = false) String transactionType,
             @RequestParam(required = false) String transactionStatus,
-            @RequestParam(required = false) String description) {
+            @RequestParam(required = false) String description,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String shape) {
 
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -234,6 +302,15 @@ public class TransactionController extends BaseController {
             String username = authentication.getName();
             log.info("Processing GET /transaction/byaccount/{}/filter for user: {}", accountNumber, username);
 
+            FieldSelection selection;
+            boolean normalized;
+            try {
+                selection = FieldSelection.parse(fields, TransactionDTO.FIELDS);
+                normalized = isNormalized(shape);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+
             TransactionFilterRequest filterRequest = TransactionFilterRequest.builder()
                     .startDate(startDate)
                     .endDate(endDate)
@@ -252,17 +329,43 @@ public class TransactionController extends BaseController {
                     .map(TransactionDTO::fromEntity)
                     .collect(Collectors.toList());
 
-            TransactionResponse response = TransactionResponse.builder()
-                    .transactions(transactionDTOs)
-                    .build();
-
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(listing(transactionDTOs, selection, normalized));
         } catch (Exception e) {
             log.error("Error in GET /transaction/byaccount/{}/filter", e);
             throw e;
         }
     }
 
+    /**
+     * Whether the shape parameter of a listing asks for the normalized shape
+     *
+     * @throws IllegalArgumentException For an unknown shape
+     */
+    private static boolean isNormalized(String shape) {
+        if (shape == null || shape.isBlank() || "nested".equals(shape)) {
+            return false;
+        }
+        if ("normalized".equals(shape)) {
+            return true;
+        }
+        throw new IllegalArgumentException("Unknown shape: " + shape);
+    }
+
+    /**
+     * Listing body with only the selected fields written. In the normalized shape the accounts are replaced by their
+     * ids, so those are written instead.
+     */
+    private static MappingJacksonValue listing(List<TransactionDTO> transactions, FieldSelection fields,
+                                               boolean normalized) {
+        if (!normalized) {
+            return fields.apply(TransactionResponse.builder().transactions(transactions).build(), TransactionDTO.FILTER);
+        }
+        return fields.expand(TransactionDTO.FIELDS)
+                .rename("sourceAccount", "sourceAccountId")
+                .rename("destinationAccount", "destinationAccountId")
+                .apply(TransactionResponse.normalized(transactions), TransactionDTO.FILTER);
+    }
+
     /**
      * Validate transfer request with proper handling for foreign accounts
      */
@@ -304,8 +407,10 @@ public class TransactionController extends BaseController {
             throw new IllegalArgumentException("Insufficient funds");
         }
 
-        // Validate transfer limits
-        if (!sourceAccount.isTransferAllowed(transferRequest.getAmount())) {
+        // Validate transfer limits against the EUR normalized limits
+        Money amount = Money.of(transferRequest.getAmount(), sourceAccount.getCurrency());
+        if (!accountLimitService.getLimitSnapshot(sourceAccount).isTransferAllowed(amount,
+                usageCounterService.getUsage(sourceAccount, LimitType.TRANSFER))) {
             throw new IllegalArgumentException("Transfer amount exceeds daily or single transaction limits");
         }
 
@@ -449,14 +554,19 @@ public class TransactionController extends BaseController {
 
             // Validate transfer request
             TransferValidationResult validation;
+            Timer.Sample validationTimer = bankingMetrics.startTimer();
+            String validationOutcome = BankingMetrics.OUTCOME_REJECTED;
             try {
                 validation = validateTransferRequest(transferRequest, username);
+                validationOutcome = BankingMetrics.OUTCOME_SUCCESS;
             } catch (IllegalArgumentException e) {
                 log.warn("Invalid transfer request: {}", e.getMessage());
                 return ResponseEntity.badRequest().build();
             } catch (ResourceNotFoundException e) {
                 log.warn("Resource not found in transfer: {}", e.getMessage());
                 throw e;
+            } finally {
+                bankingMetrics.recordTransferPhase(validationTimer, TransferPhase.VALIDATION, validationOutcome);
             }
 
             Account sourceAccount = validation.sourceAccount;
@@ -464,16 +574,19 @@ public class TransactionController extends BaseController {
             boolean isOwnAccount = validation.isOwnAccount;
 
             // Check if currency conversion is needed
+            Timer.Sample conversionTimer = bankingMetrics.startTimer();
             boolean conversionNeeded = currencyExchangeService.isConversionNeeded(
                     sourceAccount.getCurrency(), destinationAccount.getCurrency());
 
+            // Transfer math runs in money units, the decimal form is only needed for the response
+            Money debit = Money.of(transferRequest.getAmount(), sourceAccount.getCurrency());
+            Money credit = currencyExchangeService.convert(debit, destinationAccount.getCurrency());
             BigDecimal amountToCredit = transferRequest.getAmount();
             CurrencyExchangeDTO exchangeInfo = null;
 
             if (conversionNeeded) {
                 // Calculate converted amount for destination account
-                amountToCredit = currencyExchangeService.convertAmount(
-                        transferRequest.getAmount(), sourceAccount.getCurrency(), destinationAccount.getCurrency());
+                amountToCredit = credit.toBigDecimal();
 
                 BigDecimal exchangeRate = currencyExchangeService.getExchangeRate(
                         sourceAccount.getCurrency(), destinationAccount.getCurrency());
@@ -488,6 +601,7 @@ public class TransactionController extends BaseController {
                                 sourceAccount.getCurrency(), exchangeRate, destinationAccount.getCurrency()))
                         .build();
             }
+            bankingMetrics.recordTransferPhase(conversionTimer, TransferPhase.CONVERSION, BankingMetrics.OUTCOME_SUCCESS);
 
             // Generate a unique transaction reference
             String transactionReference = generateTransactionReference();
@@ -523,21 +637,33 @@ public class TransactionController extends BaseController {
                     .createdAt(LocalDateTime.now())
                     .build();
 
-            // Update account balances
-            sourceAccount.setBalance(sourceAccount.getBalance().subtract(transferRequest.getAmount()));
-            sourceAccount.updateTransferUsed(transferRequest.getAmount());
-
-            destinationAccount.setBalance(destinationAccount.getBalance().add(amountToCredit));
-
-            // Save transaction and updated accounts
-            Transaction savedTransaction = transactionRepository.save(transaction);
-            accountRepository.save(sourceAccount);
-            accountRepository.save(destinationAccount);
+            // Record the transfer against the daily limit, re-checked atomically with concurrent transfers
+            AccountLimitSnapshot limits = accountLimitService.getLimitSnapshot(sourceAccount);
+            long usageHour = usageCounterService.tryRecord(sourceAccount, LimitType.TRANSFER, debit,
+                    newTotal -> limits.isWithinDailyLimit(LimitType.TRANSFER, newTotal));
+            if (usageHour == UsageCounterService.NOT_RECORDED) {
+                log.warn("Transfer from {} exceeds the daily transfer limit", sourceAccount.getAccountNumber());
+                return ResponseEntity.badRequest().build();
+            }
 
-            // Mark as completed after successful processing
-            savedTransaction.setStatus(Transaction.TransactionStatus.COMPLETED);
-            savedTransaction.setCompletedAt(LocalDateTime.now());
-            savedTransaction = transactionRepository.save(savedTransaction);
+            Transaction savedTransaction;
+            Timer.Sample persistenceTimer = bankingMetrics.startTimer();
+            String persistenceOutcome = BankingMetrics.OUTCOME_ERROR;
+            try {
+                // Debit, credit and record the transfer in one database transaction
+                savedTransaction = transactionService.executeTransfer(transaction, debit, credit);
+                persistenceOutcome = BankingMetrics.OUTCOME_SUCCESS;
+            } catch (InsufficientFundsException e) {
+                persistenceOutcome = BankingMetrics.OUTCOME_REJECTED;
+                usageCounterService.release(sourceAccount, LimitType.TRANSFER, debit, usageHour);
+                log.warn("Transfer from {} rejected: {}", sourceAccount.getAccountNumber(), e.getMessage());
+                return ResponseEntity.badRequest().build();
+            } catch (RuntimeException e) {
+                usageCounterService.release(sourceAccount, LimitType.TRANSFER, debit, usageHour);
+                throw e;
+            } finally {
+                bankingMetrics.recordTransferPhase(persistenceTimer, TransferPhase.PERSISTENCE, persistenceOutcome);
+            }
 
             // Build response message
             String message;
@@ -1,12 +1,19 @@
 package com.codegeneration.banking.controllers;
 
 import com.codegeneration.banking.api.service.interfaces.AuthService;
+import com.codegeneration.banking.api.service.interfaces.UserDirectoryService;
 import com.codegeneration.banking.api.service.implementations.UserServiceImpl;
 import com.codegeneration.banking.api.dto.user.UserResponse;
 import com.codegeneration.banking.api.dto.user.UserDTO;
+import com.codegeneration.banking.api.dto.user.UserDirectoryEntryDTO;
+import com.codegeneration.banking.api.dto.user.UserDirectoryResponse;
 import com.codegeneration.banking.api.entity.User;
 import com.codegeneration.banking.api.security.JwtAuthenticationFilter;
 import com.codegeneration.banking.api.security.JwtTokenProvider;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -19,13 +26,17 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
@@ -41,6 +52,8 @@ public class UserController extends BaseController {
 
     private final AuthService authService;
     private final UserServiceImpl userService;
+    private final UserDirectoryService userDirectoryService;
+    private final ObjectMapper objectMapper;
     private final JwtTokenProvider jwtTokenProvider;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
@@ -190,6 +203,100 @@ public class UserController extends BaseController {
         }
     }
 
+    @Operation(summary = "Search the user directory", description = "Returns users whose name, username or email contain "
+            + "every word of the search, ignoring case and accents. Words of one or two characters match the start of a "
+            + "word. Users are ordered by id, pass nextCursor as after to get the next page. Only employees can access "
+            + "this endpoint.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully searched users",
+                    content = @Content(schema = @Schema(implementation = UserDirectoryResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid or missing token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - employee role required"),
+            @ApiResponse(responseCode = "400", description = "Bad request - invalid limit or cursor"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/directory")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> searchDirectory(@RequestParam(required = false) String search,
+                                             @RequestParam(required = false) Long after,
+                                             @RequestParam(defaultValue = "50") int limit) {
+        try {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+            if (authentication == null || !authentication.isAuthenticated()) {
+                log.warn("No authentication found for GET /users/directory");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+
+            // Check if user has EMPLOYEE role
+            if (!authentication.getAuthorities().stream().anyMatch(auth -> "ROLE_EMPLOYEE".equals(auth.getAuthority()))) {
+                log.warn("Non-employee user attempted to search the user directory");
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+
+            log.info("Processing GET /users/directory for employee: {}", authentication.getName());
+
+            try {
+                return ResponseEntity.ok(userDirectoryService.search(search, after, limit));
+            } catch (ResponseStatusException e) {
+                log.info("Error searching the user directory: {}", e.getMessage());
+                return ResponseEntity.status(e.getStatusCode().value()).body(e.getReason());
+            }
+        } catch (Exception e) {
+            log.error("Error in GET /users/directory", e);
+            throw e;
+        }
+    }
+
+    @Operation(summary = "Export the user directory", description = "Streams every user matching the search, or every "
+            + "user without one, as one JSON document in id order. Only employees can access this endpoint.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Users streamed"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - invalid or missing token"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - employee role required"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/directory/export")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> exportDirectory(@RequestParam(required = false) String search) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !authentication.isAuthenticated()) {
+            log.warn("No authentication found for GET /users/directory/export");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        // Check if user has EMPLOYEE role
+        if (!authentication.getAuthorities().stream().anyMatch(auth -> "ROLE_EMPLOYEE".equals(auth.getAuthority()))) {
+            log.warn("Non-employee user attempted to export the user directory");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        log.info("Processing GET /users/directory/export for employee: {}", authentication.getName());
+
+        ObjectWriter userWriter = objectMapper.writerFor(UserDirectoryEntryDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("users");
+                userDirectoryService.export(search, user -> {
+                    try {
+                        userWriter.writeValue(generator, user);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     @Operation(summary = "Enable a user account", description = "Enables a disabled user account, allowing them to log in. Only employees can perform this action.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User account successfully enabled",
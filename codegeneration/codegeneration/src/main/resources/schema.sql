@@ -0,0 +1,5 @@
+-- Id sequences of the entities with pooled ids. They are created before Hibernate updates the schema, so the id
+-- columns can default to them for rows inserted with plain JDBC. The increment matches the entities' allocationSize.
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS accounts_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS transactions_seq START WITH 1 INCREMENT BY 50;
@@ -0,0 +1,120 @@
+package com.codegeneration.banking.account;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.entity.Transaction;
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.exception.InsufficientFundsException;
+import com.codegeneration.banking.api.repository.AccountRepository;
+import com.codegeneration.banking.api.service.interfaces.AccountService;
+import com.codegeneration.banking.api.service.interfaces.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class BalanceUpdateConcurrencyTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+    @Autowired AccountService accountService;
+    @Autowired TransactionService transactionService;
+    @Autowired AccountRepository accountRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentWithdrawalsNeverOverdraw() throws Exception {
+        List<Account> accounts = enabledAccounts();
+        Long id = accounts.get(0).getId();
+        setBalance(id, "1000.00");
+
+        int succeeded = runConcurrently(40, () -> {
+            accountService.decreaseBalance(accountRepository.findById(id).orElseThrow(), AMOUNT);
+            return true;
+        });
+
+        assertEquals(10, succeeded);
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findBalanceById(id)));
+    }
+
+    @Test
+    void concurrentTransfersNeverOverdraw() throws Exception {
+        List<Account> accounts = enabledAccounts();
+        Long sourceId = accounts.get(1).getId();
+        Long destinationId = accounts.get(2).getId();
+        setBalance(sourceId, "500.00");
+        BigDecimal destinationBefore = accountRepository.findBalanceById(destinationId);
+
+        int succeeded = runConcurrently(20, () -> {
+            Transaction transaction = Transaction.builder()
+                    .transactionReference("TRX-TEST-" + UUID.randomUUID())
+                    .sourceAccount(accountRepository.findById(sourceId).orElseThrow())
+                    .destinationAccount(accountRepository.findById(destinationId).orElseThrow())
+                    .amount(AMOUNT)
+                    .currency(Currency.EUR)
+                    .status(Transaction.TransactionStatus.PENDING)
+                    .type(Transaction.TransactionType.TRANSFER)
+                    .build();
+            transactionService.executeTransfer(transaction, Money.of(AMOUNT, Currency.EUR), Money.of(AMOUNT, Currency.EUR));
+            return true;
+        });
+
+        assertEquals(5, succeeded);
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountRepository.findBalanceById(sourceId)));
+        assertEquals(0, destinationBefore.add(new BigDecimal("500.00"))
+                .compareTo(accountRepository.findBalanceById(destinationId)));
+    }
+
+    private List<Account> enabledAccounts() {
+        return accountRepository.findAll().stream().filter(account -> !account.isDisabled()).toList();
+    }
+
+    private void setBalance(Long id, String balance) {
+        jdbcTemplate.update("UPDATE accounts SET balance = ? WHERE id = ?", new BigDecimal(balance), id);
+    }
+
+    /**
+     * Runs the operation from many threads at once and returns how many calls succeeded
+     */
+    private int runConcurrently(int calls, Callable<Boolean> operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    return operation.call();
+                } catch (InsufficientFundsException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                succeeded++;
+            }
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        return succeeded;
+    }
+}
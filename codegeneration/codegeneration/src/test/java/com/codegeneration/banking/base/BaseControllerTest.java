@@ -20,7 +20,6 @@ import java.math.BigDecimal;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -118,36 +117,22 @@ public abstract class BaseControllerTest {
         when(accountService.getAccountByNumberAndUsername(eq(TEST_ACCOUNT_NUMBER), eq(TEST_USERNAME)))
             .thenReturn(account);
 
+        // The transaction service applies the balance change together with the transaction record
         when(transactionService.createAtmTransaction(any(), eq(100.0), eq(TransactionType.ATM_DEPOSIT), anyString()))
-            .thenReturn(depositTx);
-        
+            .thenAnswer(invocation -> applyBalanceChange(invocation.getArgument(0), new BigDecimal("100.0"), depositTx));
+
         when(transactionService.createAtmTransaction(any(), eq(50.0), eq(TransactionType.ATM_WITHDRAWAL), anyString()))
-            .thenReturn(withdrawTx);        // Mock balance updates - simulate actual balance changes
-        doAnswer(invocation -> {
-            Account acc = invocation.getArgument(0);
-            BigDecimal amount = invocation.getArgument(1);
-            try {
-                BigDecimal currentBalance = (BigDecimal) getField(acc, "balance");
-                setField(acc, "balance", currentBalance.add(amount));
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-            return null;
-        }).when(accountService).increaseBalance(any(), any(BigDecimal.class));        doAnswer(invocation -> {
-            Account acc = invocation.getArgument(0);
-            BigDecimal amount = invocation.getArgument(1);
-            try {
-                BigDecimal currentBalance = (BigDecimal) getField(acc, "balance");
-                setField(acc, "balance", currentBalance.subtract(amount));
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-            return null;
-        }).when(accountService).decreaseBalance(any(), any(BigDecimal.class));
+            .thenAnswer(invocation -> applyBalanceChange(invocation.getArgument(0), new BigDecimal("-50.0"), withdrawTx));
 
         when(accountService.saveAccount(any(Account.class))).thenAnswer(invocation -> {
             return invocation.getArgument(0); // Return the same account that was passed in
         });
     }
-}
 
+    /** Simulates the balance change of an ATM transaction on the mocked account */
+    private Transaction applyBalanceChange(Account account, BigDecimal delta, Transaction transaction) throws Exception {
+        BigDecimal currentBalance = (BigDecimal) getField(account, "balance");
+        setField(account, "balance", currentBalance.add(delta));
+        return transaction;
+    }
+}
@@ -0,0 +1,41 @@
+package com.codegeneration.banking.base;
+
+import com.codegeneration.banking.api.metrics.SqlRequestStats;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Assertions on the SQL statements a MockMvc call executed, counted by SqlStatsFilter for the whole request
+ * including the JWT user lookup. Sequence id allocations are left out, only every allocation size inserts runs one.
+ */
+public final class QueryCount {
+
+    private QueryCount() {
+    }
+
+    /** Statements executed by the request. */
+    public static int statements(MvcResult result) {
+        SqlRequestStats stats = SqlRequestStats.of(result.getRequest());
+        assertNotNull(stats, "SQL statements were not counted for " + result.getRequest().getRequestURI());
+        return stats.getStatements() - stats.getIdAllocations();
+    }
+
+    /** Expects exactly this many statements. */
+    public static ResultMatcher exactly(int expected) {
+        return result -> assertEquals(expected, statements(result),
+                "SQL statements executed by " + result.getRequest().getRequestURI());
+    }
+
+    /** Expects at most this many statements. */
+    public static ResultMatcher atMost(int max) {
+        return result -> {
+            int actual = statements(result);
+            assertTrue(actual <= max, "Expected at most " + max + " SQL statements for "
+                    + result.getRequest().getRequestURI() + " but " + actual + " were executed");
+        };
+    }
+}
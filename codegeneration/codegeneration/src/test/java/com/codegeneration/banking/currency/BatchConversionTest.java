@@ -0,0 +1,129 @@
+package com.codegeneration.banking.currency;
+
+import com.codegeneration.banking.api.dto.currency.RateSnapshot;
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.security.JwtTokenProvider;
+import com.codegeneration.banking.api.service.interfaces.CurrencyExchangeService;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /api/currency/convert/batch streams the results in request order against one rate snapshot and rejects
+ * invalid batches before converting anything
+ */
+@SpringBootTest(properties = "app.currency.batch.max-size=3")
+@AutoConfigureMockMvc
+public class BatchConversionTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired JwtTokenProvider jwtTokenProvider;
+    @SpyBean CurrencyExchangeService currencyExchangeService;
+
+    @Test
+    void convertsInRequestOrderAgainstOneSnapshot() throws Exception {
+        clearInvocations(currencyExchangeService);
+        List<Map<String, Object>> conversions = List.of(
+                conversion(100, "EUR", "USD"),
+                conversion(25.5, "USD", "GBP"),
+                conversion(7, "PLN", "PLN"));
+
+        MvcResult started = mockMvc.perform(post("/api/currency/convert/batch")
+                        .header("Authorization", bearer())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("conversions", conversions))))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode body = objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                .readTree(mockMvc.perform(asyncDispatch(started)).andReturn().getResponse().getContentAsByteArray());
+
+        verify(currencyExchangeService, times(1)).getRateSnapshot();
+        ArgumentCaptor<RateSnapshot> snapshot = ArgumentCaptor.forClass(RateSnapshot.class);
+        verify(currencyExchangeService, times(1)).convertBatch(snapshot.capture(), anyList(), any());
+
+        assertEquals(snapshot.getValue().getVersion(), body.get("rateVersion").asLong());
+        assertEquals(3, body.get("count").asInt());
+        assertEquals(3, body.get("conversions").size());
+        for (int i = 0; i < conversions.size(); i++) {
+            JsonNode result = body.get("conversions").get(i);
+            Currency from = Currency.valueOf((String) conversions.get(i).get("fromCurrency"));
+            Currency to = Currency.valueOf((String) conversions.get(i).get("toCurrency"));
+            assertEquals(from.name(), result.get("fromCurrency").asText());
+            assertEquals(to.name(), result.get("toCurrency").asText());
+            assertEquals(0, new BigDecimal(conversions.get(i).get("amount").toString())
+                    .compareTo(result.get("originalAmount").decimalValue()));
+            // Every rate comes from the pinned snapshot
+            assertEquals(0, snapshot.getValue().getRate(from, to).compareTo(result.get("rate").decimalValue()));
+        }
+    }
+
+    @Test
+    void rejectsInvalidBatches() throws Exception {
+        clearInvocations(currencyExchangeService);
+        Map<String, Object> nullItem = new HashMap<>();
+        nullItem.put("conversions", Collections.singletonList(null));
+        Map<String, Object> missingAmount = new HashMap<>(conversion(1, "EUR", "USD"));
+        missingAmount.remove("amount");
+        List<Map<String, Object>> tooMany = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tooMany.add(conversion(1, "EUR", "USD"));
+        }
+
+        for (Object request : List.of(
+                Map.of(),
+                Map.of("conversions", List.of()),
+                Map.of("conversions", tooMany),
+                nullItem,
+                Map.of("conversions", List.of(missingAmount)),
+                Map.of("conversions", List.of(conversion(1, "EUR", "USD"), conversion(0, "EUR", "USD"))),
+                Map.of("conversions", List.of(conversion(-5, "EUR", "USD"))))) {
+            mockMvc.perform(post("/api/currency/convert/batch")
+                            .header("Authorization", bearer())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isBadRequest());
+        }
+
+        verify(currencyExchangeService, never()).getRateSnapshot();
+        verify(currencyExchangeService, never()).convertBatch(any(), anyList(), any());
+    }
+
+    private static Map<String, Object> conversion(Number amount, String from, String to) {
+        return Map.of("amount", amount, "fromCurrency", from, "toCurrency", to);
+    }
+
+    private String bearer() {
+        return "Bearer " + jwtTokenProvider.generateToken(new UsernamePasswordAuthenticationToken(
+                "user1", null, List.of(new SimpleGrantedAuthority("ROLE_CLIENT"))));
+    }
+}
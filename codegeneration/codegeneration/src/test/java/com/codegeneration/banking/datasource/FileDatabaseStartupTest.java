@@ -0,0 +1,41 @@
+package com.codegeneration.banking.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * The application starts on a new file database, which Boot does not treat as embedded, and ids of rows inserted with
+ * plain JDBC come from the entities' sequences
+ */
+@SpringBootTest
+public class FileDatabaseStartupTest {
+
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void fileDatabase(DynamicPropertyRegistry registry) throws IOException {
+        Path directory = Files.createTempDirectory("file-database");
+        registry.add("spring.datasource.url", () -> "jdbc:h2:file:" + directory.resolve("bank"));
+        registry.add("app.journal.directory", () -> directory.resolve("journal").toString());
+    }
+
+    @Test
+    void startsOnAFileDatabase() {
+        assertEquals(6, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+
+        jdbcTemplate.update("INSERT INTO users (username, password, name, email, role, enabled) "
+                + "VALUES ('filedb', '{noop}unused', 'File Database', 'filedb@example.com', 'CLIENT', TRUE)");
+        assertNotNull(jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'filedb'", Long.class));
+    }
+}
@@ -0,0 +1,92 @@
+package com.codegeneration.banking.datasource;
+
+import com.codegeneration.banking.api.datasource.ReadWriteRoutingDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two H2 databases stand in for the primary and the replica, each knows its own name
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private static final long READ_YOUR_WRITES_MS = 200;
+
+    private SingleConnectionDataSource primary;
+    private SingleConnectionDataSource replica;
+    private ReadWriteRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        routing = new ReadWriteRoutingDataSource(primary, replica, READ_YOUR_WRITES_MS);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        for (SingleConnectionDataSource database : List.of(primary, replica)) {
+            new JdbcTemplate(database).execute("SHUTDOWN");
+            database.destroy();
+        }
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertEquals("replica", readOnly.execute(status -> role()));
+        assertEquals("primary", readWrite.execute(status -> role()));
+        // Statements outside a transaction may write, they stay on the primary
+        assertEquals("primary", role());
+    }
+
+    @Test
+    void readsFollowTheUsersWritesForAWhile() throws InterruptedException {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("user1", null, List.of()));
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE role SET writes = writes + 1"));
+
+        assertTrue(routing.isPinned("user1"));
+        assertFalse(routing.isPinned("user2"));
+        assertEquals("primary", readOnly.execute(status -> role()));
+
+        Thread.sleep(READ_YOUR_WRITES_MS + 50);
+        assertFalse(routing.isPinned("user1"));
+        assertEquals("replica", readOnly.execute(status -> role()));
+    }
+
+    private String role() {
+        return jdbcTemplate.queryForObject("SELECT name FROM role", String.class);
+    }
+
+    private static SingleConnectionDataSource database(String name) {
+        SingleConnectionDataSource database = new SingleConnectionDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "", true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE role (name VARCHAR(16), writes INT)");
+        jdbcTemplate.update("INSERT INTO role VALUES (?, 0)", name);
+        return database;
+    }
+}
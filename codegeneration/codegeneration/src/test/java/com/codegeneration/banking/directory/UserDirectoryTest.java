@@ -0,0 +1,145 @@
+package com.codegeneration.banking.directory;
+
+import com.codegeneration.banking.api.security.JwtTokenProvider;
+import com.codegeneration.banking.api.service.interfaces.UserDirectoryService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The employee user directory against the seeded users and users inserted with plain JDBC, which the directory only
+ * finds once they are indexed
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class UserDirectoryTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired JwtTokenProvider jwtTokenProvider;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired UserDirectoryService userDirectoryService;
+
+    private final List<Long> pagedUsers = new ArrayList<>();
+
+    @BeforeAll
+    void insertUsers() {
+        for (int i = 0; i < 7; i++) {
+            pagedUsers.add(insertUser("dirpaged" + i, "Paged Xyzzyq " + i));
+        }
+        insertUser("dirzoe", "Zoë Ångström");
+        insertUser("dirtrigram", "Bcaxcab Qwerty");
+        assertTrue(userDirectoryService.indexUnindexedUsers() >= 9);
+    }
+
+    @Test
+    void searchIgnoresCaseAndAccentsAndMatchesEveryWord() throws Exception {
+        assertEquals(List.of("user1", "user2"), usernames(search("JAN")));
+        assertEquals(List.of("user1"), usernames(search("jan kowal")));
+        assertEquals(List.of("dirzoe"), usernames(search("zoe ÅNGST")));
+        assertEquals(List.of("dirzoe"), usernames(search("ngstr")));
+        // Short words only match the start of a word
+        assertEquals(List.of("user2"), usernames(search("sm")));
+        assertEquals(List.of(), usernames(search("mi jane")));
+        // Both trigrams of bcab are in bcaxcab, the word itself is not
+        assertEquals(List.of(), usernames(search("bcab")));
+        assertEquals(List.of("dirtrigram"), usernames(search("bcax")));
+    }
+
+    @Test
+    void pagesFollowTheCursorUntilTheLastPage() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        String after = null;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/users/directory")
+                    .param("search", "xyzzyq").param("limit", "3");
+            if (after != null) {
+                request.param("after", after);
+            }
+            JsonNode page = getJson(request);
+            page.get("users").forEach(user -> ids.add(user.get("id").asLong()));
+            sizes.add(page.get("users").size());
+            after = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (after != null);
+
+        assertEquals(pagedUsers, ids);
+        assertEquals(List.of(3, 3, 1), sizes);
+    }
+
+    @Test
+    void exportStreamsEveryUserInIdOrder() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/users/directory/export")
+                        .header("Authorization", bearer("employee", "ROLE_EMPLOYEE")))
+                .andExpect(status().isOk())
+                .andReturn();
+        JsonNode export = objectMapper.readTree(mockMvc.perform(asyncDispatch(started))
+                .andReturn().getResponse().getContentAsByteArray());
+
+        List<Long> ids = new ArrayList<>();
+        export.get("users").forEach(user -> ids.add(user.get("id").asLong()));
+        assertEquals(jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class), ids);
+        assertFalse(export.get("users").get(0).has("accounts"));
+    }
+
+    @Test
+    void onlyEmployeesWithAValidLimitCanSearch() throws Exception {
+        mockMvc.perform(get("/api/users/directory").header("Authorization", bearer("user1", "ROLE_CLIENT")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/users/directory/export").header("Authorization", bearer("user1", "ROLE_CLIENT")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/users/directory").param("limit", "101")
+                        .header("Authorization", bearer("employee", "ROLE_EMPLOYEE")))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode search(String search) throws Exception {
+        return getJson(get("/api/users/directory").param("search", search).param("limit", "100")).get("users");
+    }
+
+    private JsonNode getJson(MockHttpServletRequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request.header("Authorization", bearer("employee", "ROLE_EMPLOYEE")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static List<String> usernames(JsonNode users) {
+        List<String> usernames = new ArrayList<>();
+        users.forEach(user -> usernames.add(user.get("username").asText()));
+        return usernames;
+    }
+
+    private long insertUser(String username, String name) {
+        jdbcTemplate.update("INSERT INTO users (username, password, name, email, role, enabled) VALUES (?, ?, ?, ?, ?, ?)",
+                username, "{noop}unused", name, username + "@directory.example.com", "CLIENT", true);
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+    }
+
+    private String bearer(String username, String role) {
+        return "Bearer " + jwtTokenProvider.generateToken(new UsernamePasswordAuthenticationToken(
+                username, null, List.of(new SimpleGrantedAuthority(role))));
+    }
+}
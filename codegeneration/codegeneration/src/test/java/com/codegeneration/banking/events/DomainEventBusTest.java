@@ -0,0 +1,142 @@
+package com.codegeneration.banking.events;
+
+import com.codegeneration.banking.api.events.DomainEvent;
+import com.codegeneration.banking.api.events.DomainEvent.AccountChange;
+import com.codegeneration.banking.api.events.DomainEventBus;
+import com.codegeneration.banking.api.events.DomainEventListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DomainEventBusTest {
+
+    private DomainEventBus bus;
+
+    @AfterEach
+    void tearDown() {
+        if (bus != null) {
+            bus.close();
+        }
+    }
+
+    @Test
+    void everySubscriberSeesEveryAccountInOrder() throws InterruptedException {
+        // Large enough that no subscriber can be lapped
+        bus = new DomainEventBus(32_768, 32);
+        List<List<Long>> received = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            List<Long> events = Collections.synchronizedList(new ArrayList<>());
+            received.add(events);
+            bus.subscribe("subscriber-" + i, (event, endOfBatch) ->
+                    events.add(event.getAccountId() * 1_000_000 + event.getUserId()));
+        }
+
+        // Every producer owns one account and numbers its events
+        List<Thread> producers = new ArrayList<>();
+        for (int account = 1; account <= 4; account++) {
+            long accountId = account;
+            producers.add(new Thread(() -> {
+                for (int n = 0; n < 5_000; n++) {
+                    long sequence = bus.claim();
+                    bus.get(sequence).accountChanged(accountId, n, AccountChange.LIMITS_CHANGED);
+                    bus.publish(sequence);
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        bus.close();
+
+        for (List<Long> events : received) {
+            assertEquals(20_000, events.size());
+            long[] next = new long[5];
+            for (long event : events) {
+                int account = (int) (event / 1_000_000);
+                assertEquals(next[account]++, event % 1_000_000, "Out of order for account " + account);
+            }
+        }
+    }
+
+    @Test
+    void unpublishedSlotsHoldBackLaterEventsAndCancelledOnesAreSkipped() {
+        bus = new DomainEventBus(16, 16);
+        List<Long> received = Collections.synchronizedList(new ArrayList<>());
+        bus.subscribe("subscriber", (event, endOfBatch) -> received.add(event.getAccountId()));
+
+        long committing = bus.claim();
+        bus.get(committing).accountChanged(1, 0, AccountChange.OPENED);
+        long rolledBack = bus.claim();
+        bus.get(rolledBack).accountChanged(2, 0, AccountChange.OPENED);
+        long later = bus.claim();
+        bus.get(later).accountChanged(3, 0, AccountChange.OPENED);
+        bus.publish(later);
+        bus.cancel(rolledBack);
+
+        assertEquals(List.of(), received);
+        bus.publish(committing);
+        await(() -> received.size() == 2);
+        assertEquals(List.of(1L, 3L), received);
+    }
+
+    @Test
+    void slowSubscribersLoseEventsInsteadOfBlockingProducers() throws InterruptedException {
+        bus = new DomainEventBus(16, 4);
+        CountDownLatch release = new CountDownLatch(1);
+        DomainEventBus.Subscription slow = bus.subscribe("slow", (event, endOfBatch) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        List<Long> lost = Collections.synchronizedList(new ArrayList<>());
+        DomainEventBus.Subscription fast = bus.subscribe("fast", new LossRecorder(lost));
+
+        for (int i = 0; i < 100; i++) {
+            long sequence = bus.claim();
+            bus.get(sequence).accountChanged(1, i, AccountChange.LIMITS_CHANGED);
+            bus.publish(sequence);
+            // Lets the fast subscriber keep up with the ring
+            await(() -> fast.getLag() == 0);
+        }
+        release.countDown();
+
+        await(() -> slow.getDeliveredCount() + slow.getLostCount() == 100);
+        assertTrue(slow.getLostCount() >= 100 - 16 - 1, "Lost " + slow.getLostCount());
+        assertEquals(100, fast.getDeliveredCount());
+        assertEquals(List.of(), lost);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out");
+            }
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    private record LossRecorder(List<Long> lost) implements DomainEventListener {
+
+        @Override
+        public void onEvent(DomainEvent event, boolean endOfBatch) {
+        }
+
+        @Override
+        public void onEventsLost(long count) {
+            lost.add(count);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.codegeneration.banking.fields;
+
+import com.codegeneration.banking.api.dto.transaction.TransactionDTO;
+import com.codegeneration.banking.api.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The fields and shape parameters of the listings, against the transactions the data loader creates for user1
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SparseFieldsTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired JwtTokenProvider jwtTokenProvider;
+
+    @Test
+    void onlyTheSelectedFieldsAreWritten() throws Exception {
+        JsonNode transactions = getJson("/api/transaction/getall?fields=id,amount").get("transactions");
+        assertFalse(transactions.isEmpty());
+        for (JsonNode transaction : transactions) {
+            assertEquals(Set.of("id", "amount"), names(transaction));
+        }
+
+        JsonNode accounts = getJson("/api/account/getall?fields=accountNumber,balance").get("accounts");
+        assertFalse(accounts.isEmpty());
+        for (JsonNode account : accounts) {
+            assertEquals(Set.of("accountNumber", "balance"), names(account));
+        }
+    }
+
+    @Test
+    void selectingEveryFieldMatchesTheFullListing() throws Exception {
+        JsonNode full = getJson("/api/transaction/getall").get("transactions");
+        JsonNode selected = getJson("/api/transaction/getall?fields=" + String.join(",", TransactionDTO.FIELDS))
+                .get("transactions");
+        assertEquals(byId(full), byId(selected));
+    }
+
+    @Test
+    void theNormalizedShapeWritesEveryAccountOnce() throws Exception {
+        JsonNode full = getJson("/api/transaction/getall").get("transactions");
+        JsonNode normalized = getJson("/api/transaction/getall?shape=normalized");
+
+        Set<String> referenced = new HashSet<>();
+        Map<Long, JsonNode> fullById = byId(full);
+        for (JsonNode transaction : normalized.get("transactions")) {
+            assertFalse(transaction.has("sourceAccount"));
+            JsonNode original = fullById.get(transaction.get("id").asLong());
+            JsonNode source = normalized.get("accounts").get(transaction.get("sourceAccountId").asText());
+            JsonNode destination = normalized.get("accounts").get(transaction.get("destinationAccountId").asText());
+            assertEquals(original.get("sourceAccount"), source);
+            assertEquals(original.get("destinationAccount"), destination);
+            referenced.add(transaction.get("sourceAccountId").asText());
+            referenced.add(transaction.get("destinationAccountId").asText());
+        }
+        assertEquals(referenced, names(normalized.get("accounts")));
+        assertTrue(referenced.size() < 2 * full.size());
+    }
+
+    @Test
+    void everySelectionAndShapeHasItsOwnETag() throws Exception {
+        String full = eTag("/api/transaction/getall");
+        String selected = eTag("/api/transaction/getall?fields=id,amount");
+        assertEquals(selected, eTag("/api/transaction/getall?fields=amount,id"));
+        for (String listing : List.of("/api/transaction/getall", "/api/transaction/getall?shape=normalized")) {
+            mockMvc.perform(get(listing).header("Authorization", bearer()).header(HttpHeaders.IF_NONE_MATCH, selected))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/api/transaction/getall?fields=id").header("Authorization", bearer())
+                        .header(HttpHeaders.IF_NONE_MATCH, full))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/account/getall?fields=balance").header("Authorization", bearer())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag("/api/account/getall")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void unknownFieldsAndShapesAreRejected() throws Exception {
+        for (String listing : List.of("/api/transaction/getall?fields=id,balance",
+                "/api/transaction/filter?shape=flat", "/api/account/getall?fields=user")) {
+            mockMvc.perform(get(listing).header("Authorization", bearer()))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    private String eTag(String uri) throws Exception {
+        return mockMvc.perform(get(uri).header("Authorization", bearer()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private JsonNode getJson(String uri) throws Exception {
+        String body = mockMvc.perform(get(uri).header("Authorization", bearer()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private String bearer() {
+        return "Bearer " + jwtTokenProvider.generateToken(new UsernamePasswordAuthenticationToken(
+                "user1", null, List.of(new SimpleGrantedAuthority("ROLE_CLIENT"))));
+    }
+
+    private static Set<String> names(JsonNode node) {
+        Set<String> names = new HashSet<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private static Map<Long, JsonNode> byId(JsonNode transactions) {
+        Map<Long, JsonNode> byId = new TreeMap<>();
+        transactions.forEach(transaction -> byId.put(transaction.get("id").asLong(), transaction));
+        return byId;
+    }
+}
@@ -0,0 +1,133 @@
+package com.codegeneration.banking.groupcommit;
+
+import com.codegeneration.banking.api.groupcommit.GroupCommitter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GroupCommitterTest {
+
+    // Fails while applying, after its update ran
+    private static final long REJECTED = -1;
+    // Applies, but fails the batch it is part of when it is written
+    private static final long POISON = 13;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private GroupCommitter<Long, Long> committer;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:groupcommit-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE balance (id INT PRIMARY KEY, total BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE entries (id BIGINT AUTO_INCREMENT PRIMARY KEY, amount BIGINT)");
+        jdbcTemplate.update("INSERT INTO balance VALUES (1, 0)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (committer != null) {
+            committer.close();
+        }
+        jdbcTemplate.execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+
+    @Test
+    void concurrentRequestsShareTransactions() throws Exception {
+        committer = start(TimeUnit.MILLISECONDS.toNanos(20));
+        int threads = 32;
+        List<Future<Long>> results = submitConcurrently(threads, i -> 1L);
+
+        for (Future<Long> result : results) {
+            assertEquals(1L, result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(threads, total());
+        assertEquals(threads, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM entries", Long.class));
+        assertTrue(committer.getBatchCount() < threads, "Every request got its own transaction");
+    }
+
+    @Test
+    void failedRequestsDoNotFailTheirBatch() throws Exception {
+        committer = start(TimeUnit.MILLISECONDS.toNanos(20));
+        List<Future<Long>> results = submitConcurrently(12, i -> i == 3 ? REJECTED : i == 7 ? POISON : 10L);
+
+        for (int i = 0; i < results.size(); i++) {
+            Future<Long> result = results.get(i);
+            if (i == 3 || i == 7) {
+                assertThrows(Exception.class, () -> result.get(10, TimeUnit.SECONDS));
+            } else {
+                assertEquals(10L, result.get(10, TimeUnit.SECONDS));
+            }
+        }
+        // The update of the rejected request was rolled back, the poisoned one never committed
+        assertEquals(100, total());
+        assertEquals(10, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM entries", Long.class));
+        assertThrows(IllegalArgumentException.class, () -> committer.submit(REJECTED));
+    }
+
+    private GroupCommitter<Long, Long> start(long windowNanos) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        return new GroupCommitter<>("test-writer", transactionTemplate, new GroupCommitter.BatchHandler<>() {
+            @Override
+            public void apply(Long amount) {
+                jdbcTemplate.update("UPDATE balance SET total = total + ? WHERE id = 1", amount);
+                if (amount == REJECTED) {
+                    throw new IllegalArgumentException("Rejected");
+                }
+            }
+
+            @Override
+            public List<Long> complete(List<Long> applied) {
+                if (applied.contains(POISON)) {
+                    throw new IllegalStateException("Poisoned batch");
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO entries (amount) VALUES (?)",
+                        applied.stream().map(amount -> new Object[]{amount}).toList());
+                return applied;
+            }
+        }, windowNanos, 64, 1024);
+    }
+
+    private List<Future<Long>> submitConcurrently(int count, IntFunction<Long> amounts)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long amount = amounts.apply(i);
+            results.add(executor.submit(() -> {
+                start.await();
+                return committer.submit(amount);
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        return results;
+    }
+
+    private long total() {
+        return jdbcTemplate.queryForObject("SELECT total FROM balance WHERE id = 1", Long.class);
+    }
+}
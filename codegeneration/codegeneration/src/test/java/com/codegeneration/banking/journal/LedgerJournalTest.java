@@ -0,0 +1,190 @@
+package com.codegeneration.banking.journal;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.enums.PostingKind;
+import com.codegeneration.banking.api.journal.BalanceSnapshotStore;
+import com.codegeneration.banking.api.journal.BalanceSnapshotStore.BalanceSnapshot;
+import com.codegeneration.banking.api.journal.JournalEntry;
+import com.codegeneration.banking.api.journal.LedgerJournal;
+import com.codegeneration.banking.api.journal.LedgerJournal.Posting;
+import com.codegeneration.banking.api.journal.LedgerRecovery;
+import com.codegeneration.banking.api.service.implementations.LedgerJournalServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LedgerJournalTest {
+
+    // Three records per segment, so transfers regularly do not fit and roll to the next segment
+    private static final int SEGMENT_BYTES = 240;
+
+    @TempDir Path directory;
+
+    @Test
+    void recoversBalancesFromSnapshotAndJournalAfterReopen() throws IOException {
+        BalanceSnapshotStore snapshots = new BalanceSnapshotStore(directory, 2);
+        try (LedgerJournal journal = LedgerJournal.open(directory, SEGMENT_BYTES, false)) {
+            journal.appendCommitted(List.of(new Posting(PostingKind.DEPOSIT, "NL01", 500, 1500)));
+            transfer(journal, "NL01", "NL02", 200, 1300, 700);
+            snapshots.write(LedgerRecovery.recover(journal, snapshots));
+            transfer(journal, "NL02", "NL03", 100, 600, 100);
+            journal.appendCommitted(List.of(new Posting(PostingKind.WITHDRAWAL, "NL01", -300, 1000)));
+        }
+
+        try (LedgerJournal reopened = LedgerJournal.open(directory, SEGMENT_BYTES, false)) {
+            assertEquals(6, reopened.getLastSequence());
+            BalanceSnapshot recovered = LedgerRecovery.recover(reopened, snapshots);
+            assertEquals(6, recovered.sequence());
+            assertEquals(1000L, recovered.balances().get("NL01"));
+            assertEquals(600L, recovered.balances().get("NL02"));
+            assertEquals(100L, recovered.balances().get("NL03"));
+
+            List<JournalEntry> entries = new ArrayList<>();
+            reopened.read(0, entries::add);
+            assertEquals(6, entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                assertEquals(i + 1, entries.get(i).sequence());
+            }
+            assertEquals(PostingKind.TRANSFER_CREDIT, entries.get(2).kind());
+            assertEquals(-200, entries.get(1).amountUnits());
+        }
+    }
+
+    @Test
+    void opensADirectoryOnlyOnce() throws IOException {
+        LedgerJournal journal = LedgerJournal.open(directory, SEGMENT_BYTES, false);
+        journal.appendCommitted(List.of(new Posting(PostingKind.DEPOSIT, "NL01", 500, 500)));
+        // A second journal would append with its own sequences, it fails before touching the segments
+        assertThrows(IllegalStateException.class, () -> LedgerJournal.open(directory, SEGMENT_BYTES, false));
+        assertThrows(IllegalStateException.class, () -> LedgerJournal.open(directory.resolve("."), SEGMENT_BYTES, false));
+        assertTrue(Files.exists(directory.resolve("journal.lock")));
+
+        journal.close();
+        assertThrows(IllegalStateException.class,
+                () -> journal.appendCommitted(List.of(new Posting(PostingKind.DEPOSIT, "NL01", 1, 501))));
+        try (LedgerJournal reopened = LedgerJournal.open(directory, SEGMENT_BYTES, false)) {
+            assertEquals(1, reopened.getLastSequence());
+        }
+    }
+
+    @Test
+    void discardsGroupInterruptedByCrash() throws IOException {
+        try (LedgerJournal journal = LedgerJournal.open(directory, SEGMENT_BYTES, false)) {
+            journal.appendCommitted(List.of(new Posting(PostingKind.DEPOSIT, "NL01", 500, 500)));
+            transfer(journal, "NL01", "NL02", 200, 300, 200);
+        }
+        // The transfer credit never made it to the file
+        Path segment = lastSegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(80), 2 * 80);
+        }
+
+        try (LedgerJournal reopened = LedgerJournal.open(directory, SEGMENT_BYTES, false)) {
+            assertEquals(1, reopened.getLastSequence());
+            BalanceSnapshot recovered = LedgerRecovery.recover(reopened, new BalanceSnapshotStore(directory, 2));
+            assertEquals(500L, recovered.balances().get("NL01"));
+            assertTrue(!recovered.balances().containsKey("NL02"));
+
+            // The sequence of the discarded debit is used again, the stale record must not resurface
+            assertEquals(2, reopened.appendCommitted(List.of(new Posting(PostingKind.WITHDRAWAL, "NL01", -100, 400))));
+        }
+        try (LedgerJournal reopened = LedgerJournal.open(directory, SEGMENT_BYTES, false)) {
+            assertEquals(2, reopened.getLastSequence());
+        }
+    }
+
+    @Test
+    void recoversOnlyGroupsWithACommitMarker() throws IOException {
+        BalanceSnapshotStore snapshots = new BalanceSnapshotStore(directory, 2);
+        try (LedgerJournal journal = LedgerJournal.open(directory, SEGMENT_BYTES, false)) {
+            journal.appendCommitted(List.of(new Posting(PostingKind.DEPOSIT, "NL01", 500, 500)));
+            long rolledBack = journal.append(List.of(new Posting(PostingKind.WITHDRAWAL, "NL01", -200, 300)));
+            journal.resolve(rolledBack, false);
+            long committed = journal.append(List.of(
+                    new Posting(PostingKind.TRANSFER_DEBIT, "NL01", -100, 400),
+                    new Posting(PostingKind.TRANSFER_CREDIT, "NL02", 100, 100)));
+            journal.append(List.of(new Posting(PostingKind.DEPOSIT, "NL02", 50, 150)));
+            journal.resolve(committed, true);
+
+            // The unresolved deposit may still commit, a snapshot must not get past it
+            BalanceSnapshot recovered = LedgerRecovery.recover(journal, snapshots);
+            assertEquals(5, recovered.sequence());
+            assertEquals(400L, recovered.balances().get("NL01"));
+            assertEquals(100L, recovered.balances().get("NL02"));
+        }
+
+        // After a restart the deposit never committed
+        try (LedgerJournal reopened = LedgerJournal.open(directory, SEGMENT_BYTES, false)) {
+            BalanceSnapshot recovered = LedgerRecovery.recover(reopened, snapshots);
+            assertEquals(7, recovered.sequence());
+            assertEquals(400L, recovered.balances().get("NL01"));
+            assertEquals(100L, recovered.balances().get("NL02"));
+        }
+    }
+
+    @Test
+    void skipsPostingsOfARolledBackTransaction() throws IOException {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:journal-rollback;DB_CLOSE_DELAY=-1", "sa", "", true);
+        LedgerJournalServiceImpl service = new LedgerJournalServiceImpl(new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "directory", directory);
+        ReflectionTestUtils.setField(service, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(service, "retainedSnapshots", 2);
+        service.open();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        Account account = Account.builder().accountNumber("NL01").balance(new BigDecimal("10.00")).build();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    service.recordPosting(account, PostingKind.DEPOSIT, new BigDecimal("10.00")));
+            assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+                account.setBalance(new BigDecimal("4.00"));
+                service.recordPosting(account, PostingKind.WITHDRAWAL, new BigDecimal("6.00"));
+                throw new IllegalStateException("Saving the transaction failed");
+            }));
+        } finally {
+            service.close();
+            new JdbcTemplate(dataSource).execute("SHUTDOWN");
+            dataSource.destroy();
+        }
+
+        try (LedgerJournal reopened = LedgerJournal.open(directory, SEGMENT_BYTES, false)) {
+            BalanceSnapshot recovered = LedgerRecovery.recover(reopened, new BalanceSnapshotStore(directory, 2));
+            assertEquals(Money.toUnits(new BigDecimal("10.00")), recovered.balances().get("NL01"));
+        }
+    }
+
+    private static void transfer(LedgerJournal journal, String from, String to, long amount, long fromBalance,
+                                 long toBalance) {
+        journal.appendCommitted(List.of(
+                new Posting(PostingKind.TRANSFER_DEBIT, from, -amount, fromBalance),
+                new Posting(PostingKind.TRANSFER_CREDIT, to, amount, toBalance)));
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("journal-")).sorted()
+                    .reduce((first, second) -> second).orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.codegeneration.banking.ledger;
+
+import com.codegeneration.banking.api.dto.ledger.AccountBalanceMismatch;
+import com.codegeneration.banking.api.dto.ledger.LedgerVerificationResult;
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.entity.Transaction;
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.repository.AccountRepository;
+import com.codegeneration.banking.api.service.interfaces.PostingService;
+import com.codegeneration.banking.api.service.interfaces.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class PostingLedgerTest {
+
+    @Autowired PostingService postingService;
+    @Autowired TransactionService transactionService;
+    @Autowired AccountRepository accountRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void postingsReconcileWithCachedBalances() {
+        long userId = insertUser("ledger" + UUID.randomUUID().toString().substring(0, 8));
+        long eurId = insertAccount(userId, Currency.EUR, "250.00");
+        long usdId = insertAccount(userId, Currency.USD, "0");
+        assertTrue(postingService.postOpeningBalances() >= 1);
+
+        List<Long> transactionIds = new ArrayList<>();
+        transactionIds.add(transactionService.createAtmTransaction(account(eurId), 100.0,
+                Transaction.TransactionType.ATM_DEPOSIT, "Ledger deposit").getId());
+        transactionIds.add(transactionService.executeTransfer(transfer(eurId, usdId, "50.00"),
+                Money.of(new BigDecimal("50.00"), Currency.EUR), Money.of(new BigDecimal("54.25"), Currency.USD)).getId());
+        transactionIds.add(transactionService.createAtmTransaction(account(usdId), 20.0,
+                Transaction.TransactionType.ATM_WITHDRAWAL, "Ledger withdrawal").getId());
+
+        assertEquals(0, new BigDecimal("300").compareTo(accountRepository.findBalanceById(eurId)));
+        assertEquals(0, new BigDecimal("34.25").compareTo(accountRepository.findBalanceById(usdId)));
+        // Customer and cash legs of the ATM transactions, customer and FX legs of the transfer
+        assertEquals(8, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM postings WHERE transaction_id IN (?, ?, ?)",
+                Integer.class, transactionIds.toArray()));
+
+        LedgerVerificationResult result = postingService.verify();
+        assertTrue(result.getMismatches().stream().noneMatch(m -> Set.of(eurId, usdId).contains(m.getAccountId())));
+        assertTrue(result.getUnbalancedTransactionIds().stream().noneMatch(transactionIds::contains));
+    }
+
+    @Test
+    void verifierReportsDriftedBalance() {
+        long accountId = insertAccount(insertUser("ledger" + UUID.randomUUID().toString().substring(0, 8)),
+                Currency.EUR, "80.00");
+        postingService.postOpeningBalances();
+        jdbcTemplate.update("UPDATE accounts SET balance = balance + 1 WHERE id = ?", accountId);
+
+        AccountBalanceMismatch mismatch = postingService.verify().getMismatches().stream()
+                .filter(m -> m.getAccountId() == accountId)
+                .findFirst()
+                .orElseThrow();
+        assertEquals(0, new BigDecimal("81").compareTo(mismatch.getCachedBalance()));
+        assertEquals(0, new BigDecimal("80").compareTo(mismatch.getLedgerBalance()));
+    }
+
+    private Account account(long id) {
+        return accountRepository.findById(id).orElseThrow();
+    }
+
+    private Transaction transfer(long sourceId, long destinationId, String amount) {
+        return Transaction.builder()
+                .transactionReference("TRX-LEDGER-" + UUID.randomUUID())
+                .sourceAccount(account(sourceId))
+                .destinationAccount(account(destinationId))
+                .amount(new BigDecimal(amount))
+                .currency(Currency.EUR)
+                .status(Transaction.TransactionStatus.PENDING)
+                .type(Transaction.TransactionType.TRANSFER)
+                .build();
+    }
+
+    private long insertUser(String username) {
+        jdbcTemplate.update("INSERT INTO users (username, password, name, email, role, enabled) VALUES (?, ?, ?, ?, ?, ?)",
+                username, "{noop}unused", "Ledger " + username, username + "@ledger.example.com", "CLIENT", true);
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+    }
+
+    private long insertAccount(long userId, Currency currency, String balance) {
+        String accountNumber = "NL00LDGR" + UUID.randomUUID().toString().replace("-", "").substring(0, 10);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO accounts (account_number, account_name, account_type, balance, currency, "
+                        + "daily_transfer_limit, daily_withdrawal_limit, single_transfer_limit, single_withdrawal_limit, "
+                        + "transfer_used_today, withdrawal_used_today, last_limit_reset_date, limit_window_mode, disabled, "
+                        + "user_id, created_at, updated_at) "
+                        + "VALUES (?, 'Ledger', 'CHECKING', ?, ?, 5000, 5000, 3000, 500, 0, 0, ?, 'CALENDAR_DAY', "
+                        + "FALSE, ?, ?, ?)",
+                accountNumber, new BigDecimal(balance), currency.ordinal(), now, userId, now, now);
+        return jdbcTemplate.queryForObject("SELECT id FROM accounts WHERE account_number = ?", Long.class, accountNumber);
+    }
+}
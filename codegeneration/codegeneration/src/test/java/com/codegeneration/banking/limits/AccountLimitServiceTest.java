@@ -0,0 +1,37 @@
+package com.codegeneration.banking.limits;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.enums.LimitType;
+import com.codegeneration.banking.api.service.interfaces.AccountLimitService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+public class AccountLimitServiceTest {
+
+    @Autowired AccountLimitService accountLimitService;
+
+    @Test
+    void snapshotOfLimitsLoadedBeforeAnEditIsNotServedAfterIt() {
+        Account stale = Account.builder().id(-28L).currency(Currency.EUR).build();
+        Account edited = Account.builder().id(-28L).currency(Currency.EUR)
+                .singleTransferLimit(new BigDecimal("100.0000")).build();
+
+        accountLimitService.getLimitSnapshot(edited);
+        // A request that read the account before the edit committed caches its limits after the invalidation
+        accountLimitService.invalidate(edited.getId());
+        accountLimitService.getLimitSnapshot(stale);
+
+        assertEquals(Money.of(new BigDecimal("100"), Currency.EUR),
+                accountLimitService.getLimitSnapshot(edited).getSingleLimitEur(LimitType.TRANSFER));
+        assertEquals(Money.of(new BigDecimal("3000"), Currency.EUR),
+                accountLimitService.getLimitSnapshot(stale).getSingleLimitEur(LimitType.TRANSFER));
+    }
+}
@@ -0,0 +1,160 @@
+package com.codegeneration.banking.limits;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.entity.UsageWindow;
+import com.codegeneration.banking.api.enums.LimitType;
+import com.codegeneration.banking.api.repository.AccountRepository;
+import com.codegeneration.banking.api.repository.TransactionRepository;
+import com.codegeneration.banking.api.service.implementations.UsageCounterServiceImpl;
+import com.codegeneration.banking.api.service.interfaces.DataVersionService;
+import com.codegeneration.banking.api.service.interfaces.UsageCounterService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class UsageCounterServiceTest {
+
+    @Autowired UsageCounterService usageCounterService;
+    @Autowired AccountRepository accountRepository;
+    @Autowired TransactionRepository transactionRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired DataVersionService dataVersionService;
+
+    @Test
+    void concurrentPostingsNeverExceedLimit() throws Exception {
+        Account account = accountRepository.findAll().get(0);
+        Money before = usageCounterService.getUsage(account, LimitType.WITHDRAWAL);
+        Money limit = before.plus(Money.of(new BigDecimal("1000"), account.getCurrency()));
+        Money amount = Money.of(new BigDecimal("100"), account.getCurrency());
+
+        int threads = 16;
+        int attempts = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return usageCounterService.tryRecord(account, LimitType.WITHDRAWAL, amount,
+                        total -> total <= limit.getUnits()) != UsageCounterService.NOT_RECORDED;
+            }));
+        }
+        start.countDown();
+
+        int accepted = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                accepted++;
+            }
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Money after = usageCounterService.getUsage(account, LimitType.WITHDRAWAL);
+        assertTrue(after.compareTo(limit) <= 0, "usage must never pass the limit");
+        assertEquals(before.getUnits() + amount.getUnits() * accepted, after.getUnits());
+    }
+
+    @Test
+    void flushWritesCountersAndRestartRebuildsFromLedger() {
+        Account account = accountRepository.findAll().get(1);
+        UsageCounterService restarted = new UsageCounterServiceImpl(transactionRepository, jdbcTemplate, dataVersionService);
+        Money fromLedger = restarted.getUsage(account, LimitType.TRANSFER);
+        assertEquals(fromLedger, usageCounterService.getUsage(account, LimitType.TRANSFER));
+
+        assertNotEquals(UsageCounterService.NOT_RECORDED, usageCounterService.tryRecord(account, LimitType.TRANSFER,
+                Money.of(new BigDecimal("12.3456"), account.getCurrency()), total -> true));
+        usageCounterService.flush();
+
+        BigDecimal stored = jdbcTemplate.queryForObject(
+                "SELECT transfer_used_today FROM accounts WHERE id = ?", BigDecimal.class, account.getId());
+        assertEquals(0, usageCounterService.getUsage(account, LimitType.TRANSFER).toBigDecimal().compareTo(stored));
+    }
+
+    @Test
+    void restartReadsTheFlushedWindowsBack() {
+        Account account = accountRepository.findAll().get(3);
+        // Usage without a transaction behind it, only the flushed window knows about it
+        usageCounterService.tryRecord(account, LimitType.WITHDRAWAL,
+                Money.of(new BigDecimal("3.25"), account.getCurrency()), total -> true);
+        Money live = usageCounterService.getUsage(account, LimitType.WITHDRAWAL);
+        usageCounterService.flush();
+
+        Account reloaded = accountRepository.findById(account.getId()).orElseThrow();
+        UsageCounterService restarted = new UsageCounterServiceImpl(transactionRepository, jdbcTemplate, dataVersionService);
+        assertNotNull(reloaded.getUsageFlushedAt());
+        assertEquals(live, restarted.getUsage(reloaded, LimitType.WITHDRAWAL));
+        assertEquals(usageCounterService.getUsage(account, LimitType.TRANSFER),
+                restarted.getUsage(reloaded, LimitType.TRANSFER));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushEvictsAccountsUnusedForADay() {
+        UsageCounterService counters = new UsageCounterServiceImpl(transactionRepository, jdbcTemplate, dataVersionService);
+        Account idle = accountRepository.findAll().stream()
+                .filter(account -> counters.getUsage(account, LimitType.TRANSFER).getUnits() == 0
+                        && counters.getUsage(account, LimitType.WITHDRAWAL).getUnits() == 0)
+                .findFirst().orElseThrow();
+        Account used = accountRepository.findAll().stream()
+                .filter(account -> !account.getId().equals(idle.getId()))
+                .findFirst().orElseThrow();
+        Map<Long, Object> usage = (Map<Long, Object>) ReflectionTestUtils.getField(counters, "usage");
+
+        // Read within the last day, kept
+        counters.flush();
+        assertTrue(usage.containsKey(idle.getId()));
+
+        long hour = UsageWindow.hourOf(System.currentTimeMillis());
+        usage.values().forEach(accountUsage -> ReflectionTestUtils.setField(accountUsage, "lastUsedHour", hour - 24));
+        Money amount = Money.of(new BigDecimal("5"), used.getCurrency());
+        long recorded = counters.tryRecord(used, LimitType.TRANSFER, amount, total -> true);
+        counters.release(used, LimitType.TRANSFER, amount, recorded);
+        ReflectionTestUtils.setField(usage.get(used.getId()), "lastUsedHour", hour - 24);
+        counters.flush();
+        counters.flush();
+
+        // Last read a day ago without usage since: dropped, a bucket of this hour keeps the other one
+        assertFalse(usage.containsKey(idle.getId()));
+        assertTrue(usage.containsKey(used.getId()));
+        assertEquals(0, counters.getUsage(idle, LimitType.TRANSFER).getUnits());
+        assertTrue(usage.containsKey(idle.getId()));
+    }
+
+    @Test
+    void releaseTakesUsageBackFromTheHourItWasRecordedIn() {
+        Account account = accountRepository.findAll().get(2);
+        Money before = usageCounterService.getUsage(account, LimitType.TRANSFER);
+        Money amount = Money.of(new BigDecimal("7"), account.getCurrency());
+
+        long hour = usageCounterService.tryRecord(account, LimitType.TRANSFER, amount, total -> true);
+        usageCounterService.release(account, LimitType.TRANSFER, amount, hour);
+        assertEquals(before, usageCounterService.getUsage(account, LimitType.TRANSFER));
+
+        // Usage recorded a day ago has left the window, releasing it must not lower today's usage
+        usageCounterService.tryRecord(account, LimitType.TRANSFER, amount, total -> true);
+        usageCounterService.release(account, LimitType.TRANSFER, amount, hour - 24);
+        assertEquals(before.plus(amount), usageCounterService.getUsage(account, LimitType.TRANSFER));
+        usageCounterService.release(account, LimitType.TRANSFER, amount, hour);
+    }
+}
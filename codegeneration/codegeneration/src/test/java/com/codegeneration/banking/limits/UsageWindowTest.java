@@ -0,0 +1,97 @@
+package com.codegeneration.banking.limits;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.UsageWindow;
+import com.codegeneration.banking.api.enums.LimitWindowMode;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class UsageWindowTest {
+
+    private static final long HOUR = 3_600_000L;
+    // Ten minutes into an hour
+    private static final long NOW = 480_000L * HOUR + 600_000L;
+
+    @Test
+    void bucketsRollOverHourlyAndExpireAfterADay() {
+        UsageWindow window = UsageWindow.empty()
+                .add(new BigDecimal("10"), NOW - 23 * HOUR)
+                .add(new BigDecimal("5"), NOW - HOUR)
+                .add(new BigDecimal("2.5"), NOW)
+                .add(new BigDecimal("0.0001"), NOW + 1000);
+
+        assertEquals(new BigDecimal("17.5001"), window.total(NOW));
+        // The bucket of 23 hours ago leaves the window at the next hour
+        assertEquals(new BigDecimal("7.5001"), window.total(NOW + HOUR));
+        assertEquals(new BigDecimal("2.5001"), window.total(NOW + 23 * HOUR));
+        assertEquals(new BigDecimal("0.0000"), window.total(NOW + 24 * HOUR));
+        // Buckets newer than the time asked for are not counted
+        assertEquals(new BigDecimal("15.0000"), window.total(NOW - HOUR));
+
+        // Usage 24 hours later takes over the slot of the expired bucket
+        UsageWindow nextDay = window.add(new BigDecimal("1"), NOW + HOUR);
+        assertEquals(new BigDecimal("8.5001"), nextDay.total(NOW + HOUR));
+        assertEquals(new BigDecimal("17.5001"), window.total(NOW), "add must not change the original window");
+    }
+
+    @Test
+    void binaryFormatRoundTripsLiveBuckets() {
+        UsageWindow window = UsageWindow.empty()
+                .add(new BigDecimal("10"), NOW - 30 * HOUR)
+                .add(new BigDecimal("5"), NOW - 3 * HOUR)
+                .add(new BigDecimal("2.5"), NOW);
+
+        byte[] data = window.toBytes();
+        // Header plus the two live buckets, the one of 30 hours ago is dropped
+        assertEquals(10 + 2 * 9, data.length);
+        UsageWindow read = UsageWindow.fromBytes(data);
+        assertEquals(window.total(NOW), read.total(NOW));
+        assertArrayEquals(data, read.toBytes());
+
+        assertSame(UsageWindow.empty(), UsageWindow.fromBytes(null));
+        assertSame(UsageWindow.empty(), UsageWindow.fromBytes(new byte[0]));
+        assertEquals(UsageWindow.empty(), UsageWindow.fromBytes(UsageWindow.empty().toBytes()));
+    }
+
+    @Test
+    void rejectsDataOfAnotherVersionOrLength() {
+        byte[] data = UsageWindow.empty().add(new BigDecimal("5"), NOW).toBytes();
+
+        byte[] otherVersion = data.clone();
+        otherVersion[0] = 2;
+        assertThrows(IllegalArgumentException.class, () -> UsageWindow.fromBytes(otherVersion));
+        assertThrows(IllegalArgumentException.class, () -> UsageWindow.fromBytes(Arrays.copyOf(data, data.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> UsageWindow.fromBytes(Arrays.copyOf(data, data.length + 9)));
+        assertThrows(IllegalArgumentException.class, () -> UsageWindow.fromBytes(Arrays.copyOf(data, 5)));
+    }
+
+    @Test
+    void rollingWindowCountsTheLast24HoursAndCalendarDayCountsToday() {
+        long now = System.currentTimeMillis();
+        UsageWindow window = UsageWindow.empty()
+                .add(new BigDecimal("40"), now - 25 * HOUR)
+                .add(new BigDecimal("30"), now - 20 * HOUR);
+        Account account = Account.builder()
+                .transferWindow(window)
+                .transferUsedToday(new BigDecimal("12"))
+                .lastLimitResetDate(LocalDateTime.now())
+                .build();
+
+        account.setLimitWindowMode(LimitWindowMode.ROLLING_24H);
+        assertEquals(0, new BigDecimal("30").compareTo(account.transferUsedInWindow()));
+
+        account.setLimitWindowMode(LimitWindowMode.CALENDAR_DAY);
+        assertEquals(0, new BigDecimal("12").compareTo(account.transferUsedInWindow()));
+        // The calendar day counter starts over once the day of the last reset is over
+        account.setLastLimitResetDate(LocalDateTime.now().minusDays(2));
+        assertEquals(0, BigDecimal.ZERO.compareTo(account.transferUsedInWindow()));
+    }
+}
@@ -0,0 +1,95 @@
+package com.codegeneration.banking.money;
+
+import com.codegeneration.banking.api.entity.Money;
+import com.codegeneration.banking.api.enums.Currency;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Rounding and overflow of the fixed point money arithmetic
+ */
+public class MoneyTest {
+
+    @Test
+    void toUnitsRoundsHalfUpAndRejectsOverflow() {
+        assertEquals(10001, Money.toUnits(new BigDecimal("1.00005")));
+        assertEquals(10000, Money.toUnits(new BigDecimal("1.00004")));
+        assertEquals(-10001, Money.toUnits(new BigDecimal("-1.00005")));
+        assertEquals(12_3400, Money.toUnits(new BigDecimal("12.34")));
+        assertEquals(0, Money.toUnits(new BigDecimal("1E-10")));
+
+        // Long.MAX_VALUE units is the largest amount
+        assertEquals(Long.MAX_VALUE, Money.toUnits(new BigDecimal("922337203685477.5807")));
+        assertThrows(ArithmeticException.class, () -> Money.toUnits(new BigDecimal("922337203685477.5808")));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("-1E15"), Currency.EUR));
+        assertEquals(new BigDecimal("12.3400"), Money.fromUnits(12_3400));
+    }
+
+    @Test
+    void convertUnitsRoundsHalfAwayFromZero() {
+        assertEquals(2, Money.convertUnits(15, 1, 10));
+        assertEquals(-2, Money.convertUnits(-15, 1, 10));
+        assertEquals(-1, Money.convertUnits(-14, 1, 10));
+        assertEquals(-1, Money.convertUnits(-5, 1, 10));
+
+        // Same result as the BigDecimal conversion for amounts of either sign
+        long[] amounts = {1, 5, 9999, 12_3456, 100_0000_0000L};
+        long[] rates = {108, 85_2300, 4_3299_0000_00L};
+        long[] divisors = {100, 1_0000_00, 1_0000_0000_00L};
+        for (long amount : amounts) {
+            for (int i = 0; i < rates.length; i++) {
+                assertEquals(viaBigDecimal(amount, rates[i], divisors[i]), Money.convertUnits(amount, rates[i], divisors[i]));
+                assertEquals(viaBigDecimal(-amount, rates[i], divisors[i]), Money.convertUnits(-amount, rates[i], divisors[i]));
+            }
+        }
+    }
+
+    @Test
+    void convertUnitsFallsBackToBigDecimalOnOverflow() {
+        long units = Long.MAX_VALUE / 2;
+        assertEquals(viaBigDecimal(units, 3, 4), Money.convertUnits(units, 3, 4));
+        assertEquals(viaBigDecimal(-units, 3, 4), Money.convertUnits(-units, 3, 4));
+        // A result that does not fit in a long still throws
+        assertThrows(ArithmeticException.class, () -> Money.convertUnits(Long.MAX_VALUE, 2, 1));
+        assertEquals(Money.ofUnits(viaBigDecimal(units, 3, 4), Currency.USD),
+                Money.ofUnits(units, Currency.EUR).convert(Currency.USD, 3, 4));
+    }
+
+    @Test
+    void plusAndMinusThrowOnOverflow() {
+        Money max = Money.ofUnits(Long.MAX_VALUE, Currency.EUR);
+        Money min = Money.ofUnits(Long.MIN_VALUE, Currency.EUR);
+        Money one = Money.ofUnits(1, Currency.EUR);
+
+        assertThrows(ArithmeticException.class, () -> max.plus(one));
+        assertThrows(ArithmeticException.class, () -> min.minus(one));
+        assertThrows(ArithmeticException.class, () -> one.minus(min));
+        assertEquals(Money.ofUnits(Long.MAX_VALUE - 1, Currency.EUR), max.minus(one));
+        assertEquals(Money.ofUnits(-1, Currency.EUR), max.plus(min));
+    }
+
+    @Test
+    void rejectsMixedCurrencies() {
+        Money euro = Money.of(BigDecimal.ONE, Currency.EUR);
+        Money dollar = Money.of(BigDecimal.ONE, Currency.USD);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> euro.plus(dollar));
+        assertEquals("Currency mismatch: EUR and USD", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> euro.minus(dollar));
+        assertThrows(IllegalArgumentException.class, () -> euro.compareTo(dollar));
+        assertThrows(IllegalArgumentException.class, () -> euro.isGreaterThan(dollar));
+        assertThrows(NullPointerException.class, () -> Money.zero(null));
+    }
+
+    private static long viaBigDecimal(long units, long rateUnscaled, long rateDivisor) {
+        return BigDecimal.valueOf(units)
+                .multiply(BigDecimal.valueOf(rateUnscaled))
+                .divide(BigDecimal.valueOf(rateDivisor), 0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+}
@@ -0,0 +1,100 @@
+package com.codegeneration.banking.negotiation;
+
+import com.codegeneration.banking.api.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Listings and the batch conversion in application/cbor carry the same values as in JSON
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class CborNegotiationTest {
+
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired JwtTokenProvider jwtTokenProvider;
+
+    @Test
+    void listingsAreWrittenAsCborWhenAskedFor() throws Exception {
+        for (String listing : List.of("/api/transaction/getall", "/api/transaction/getall?fields=id,amount",
+                "/api/account/getall")) {
+            MockHttpServletResponse json = mockMvc.perform(get(listing).header("Authorization", bearer()))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            MockHttpServletResponse binary = mockMvc.perform(get(listing).header("Authorization", bearer())
+                            .accept(MediaType.APPLICATION_CBOR))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+
+            assertEquals(MediaType.APPLICATION_JSON_VALUE, json.getContentType());
+            assertEquals(MediaType.APPLICATION_CBOR_VALUE, binary.getContentType());
+            // CBOR writes amounts as decimal fractions, JSON numbers are read as doubles unless asked otherwise
+            assertEquals(objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                    .readTree(json.getContentAsByteArray()), cbor.readTree(binary.getContentAsByteArray()));
+
+            // Both formats are representations of their own to caches and conditional requests
+            assertTrue(json.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+            assertTrue(binary.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+            assertNotEquals(json.getHeader(HttpHeaders.ETAG), binary.getHeader(HttpHeaders.ETAG));
+            mockMvc.perform(get(listing).header("Authorization", bearer()).accept(MediaType.APPLICATION_CBOR)
+                            .header(HttpHeaders.IF_NONE_MATCH, json.getHeader(HttpHeaders.ETAG)))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get(listing).header("Authorization", bearer()).accept(MediaType.APPLICATION_CBOR)
+                            .header(HttpHeaders.IF_NONE_MATCH, binary.getHeader(HttpHeaders.ETAG)))
+                    .andExpect(status().isNotModified());
+        }
+    }
+
+    @Test
+    void batchConversionsAreReadAndWrittenAsCbor() throws Exception {
+        Map<String, Object> request = Map.of("conversions", List.of(
+                Map.of("amount", 100, "fromCurrency", "EUR", "toCurrency", "USD"),
+                Map.of("amount", 25.5, "fromCurrency", "USD", "toCurrency", "EUR")));
+
+        MvcResult started = mockMvc.perform(post("/api/currency/convert/batch")
+                        .header("Authorization", bearer())
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cbor.writeValueAsBytes(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+        MockHttpServletResponse response = mockMvc.perform(asyncDispatch(started)).andReturn().getResponse();
+
+        assertEquals(MediaType.APPLICATION_CBOR_VALUE, response.getContentType());
+        JsonNode body = cbor.readTree(response.getContentAsByteArray());
+        assertEquals(2, body.get("count").asInt());
+        assertEquals("USD", body.at("/conversions/0/toCurrency").asText());
+    }
+
+    private String bearer() {
+        return "Bearer " + jwtTokenProvider.generateToken(new UsernamePasswordAuthenticationToken(
+                "user1", null, List.of(new SimpleGrantedAuthority("ROLE_CLIENT"))));
+    }
+}
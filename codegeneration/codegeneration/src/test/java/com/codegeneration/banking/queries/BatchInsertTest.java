@@ -0,0 +1,146 @@
+package com.codegeneration.banking.queries;
+
+import com.codegeneration.banking.api.entity.Account;
+import com.codegeneration.banking.api.entity.Transaction;
+import com.codegeneration.banking.api.entity.User;
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.enums.UserRole;
+import com.codegeneration.banking.api.repository.AccountRepository;
+import com.codegeneration.banking.api.repository.TransactionRepository;
+import com.codegeneration.banking.api.repository.UserRepository;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Saves rows in bulk through the repositories, as DataLoader does, and counts the JDBC executions that reach the
+ * database. With pooled sequence ids the inserts of one saveAll go out as batches of hibernate.jdbc.batch_size.
+ */
+@SpringBootTest
+public class BatchInsertTest {
+
+    private static final int ROWS = 120;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired DataSource dataSource;
+    @Autowired UserRepository userRepository;
+    @Autowired AccountRepository accountRepository;
+    @Autowired TransactionRepository transactionRepository;
+
+    private final List<String> statements = new ArrayList<>();
+    private final Thread testThread = Thread.currentThread();
+    private final QueryExecutionListener recorder = new QueryExecutionListener() {
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (Thread.currentThread() == testThread) {
+                statements.add(queryInfoList.get(0).getQuery().toLowerCase(Locale.ROOT));
+            }
+        }
+    };
+
+    @BeforeEach
+    void record() {
+        ((ProxyDataSource) dataSource).getProxyConfig().getQueryListener().addListener(recorder);
+    }
+
+    @AfterEach
+    void stopRecording() {
+        ((ProxyDataSource) dataSource).getProxyConfig().getQueryListener().getListeners().remove(recorder);
+    }
+
+    @Test
+    void saveAllInsertsInBatches() {
+        String prefix = "batch" + UUID.randomUUID().toString().substring(0, 8);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            users.add(User.builder()
+                    .username(prefix + i)
+                    .password("{noop}unused")
+                    .name("Batch " + i)
+                    .email(prefix + i + "@batch.example.com")
+                    .role(UserRole.CLIENT)
+                    .enabled(true)
+                    .build());
+        }
+        statements.clear();
+        userRepository.saveAll(users);
+        assertBatched("users");
+
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            accounts.add(Account.builder()
+                    .accountNumber(String.format("NL00BTCH%s%02d", prefix.substring(5), i))
+                    .accountName("Batch " + i)
+                    .accountType("CHECKING")
+                    .balance(BigDecimal.ZERO)
+                    .currency(Currency.EUR)
+                    .dailyTransferLimit(new BigDecimal("5000.00"))
+                    .dailyWithdrawalLimit(new BigDecimal("5000.00"))
+                    .singleTransferLimit(new BigDecimal("3000.00"))
+                    .singleWithdrawalLimit(new BigDecimal("500.00"))
+                    .transferUsedToday(BigDecimal.ZERO)
+                    .withdrawalUsedToday(BigDecimal.ZERO)
+                    .lastLimitResetDate(now)
+                    .user(users.get(i))
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        }
+        statements.clear();
+        accountRepository.saveAll(accounts);
+        assertBatched("accounts");
+
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            transactions.add(Transaction.builder()
+                    .transactionReference("TRX-" + prefix + "-" + i)
+                    .sourceAccount(accounts.get(i))
+                    .destinationAccount(accounts.get((i + 1) % ROWS))
+                    .amount(BigDecimal.ONE)
+                    .currency(Currency.EUR)
+                    .status(Transaction.TransactionStatus.COMPLETED)
+                    .type(Transaction.TransactionType.TRANSFER)
+                    .createdAt(now)
+                    .completedAt(now)
+                    .build());
+        }
+        statements.clear();
+        transactionRepository.saveAll(transactions);
+        assertBatched("transactions");
+    }
+
+    /**
+     * One execution per batch, plus at most one sequence call per allocation of batch size ids and the initial one
+     */
+    private void assertBatched(String table) {
+        long inserts = statements.stream().filter(sql -> sql.startsWith("insert into " + table + " ")).count();
+        long allocations = statements.stream().filter(sql -> sql.startsWith("select next value for")).count();
+        int batches = (ROWS + BATCH_SIZE - 1) / BATCH_SIZE;
+        assertEquals(batches, inserts, "Inserts into " + table + " were not batched");
+        assertTrue(allocations <= batches + 1, allocations + " sequence calls for " + ROWS + " " + table);
+        assertEquals(inserts + allocations, statements.size(), "Unexpected statements: " + statements);
+    }
+}
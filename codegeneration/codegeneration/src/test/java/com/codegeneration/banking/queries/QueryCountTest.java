@@ -0,0 +1,384 @@
+package com.codegeneration.banking.queries;
+
+import com.codegeneration.banking.api.enums.LimitType;
+import com.codegeneration.banking.api.metrics.SqlRequestStats;
+import com.codegeneration.banking.api.metrics.SqlStatsResponseAdvice;
+import com.codegeneration.banking.api.repository.AccountRepository;
+import com.codegeneration.banking.api.security.JwtTokenProvider;
+import com.codegeneration.banking.api.service.interfaces.DataVersionService;
+import com.codegeneration.banking.api.service.interfaces.UsageCounterService;
+import com.codegeneration.banking.base.QueryCount;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs every endpoint against a user with little data and a user with a lot of data and fails when the number of SQL
+ * statements differs, so per-row queries show up as soon as they are introduced. Counts include the JWT user lookup.
+ * Usage counters are rebuilt from the transactions the first time an account is used and the user id behind the
+ * listing ETags is looked up once per user, both are warmed up front so the counts do not depend on the order the tests
+ * run in.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class QueryCountTest {
+
+    private static final int PEER_ACCOUNTS = 20;
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired JwtTokenProvider jwtTokenProvider;
+    @Autowired AccountRepository accountRepository;
+    @Autowired UsageCounterService usageCounterService;
+    @Autowired DataVersionService dataVersionService;
+
+    private Dataset small;
+    private Dataset large;
+    private String employeeToken;
+    private long userSequence;
+
+    /** A client with accounts and transactions, the first account is used for single-account endpoints. */
+    private record Dataset(String username, String token, List<String> accounts, String spareAccount, String peerAccount) {
+    }
+
+    @BeforeAll
+    void seed() {
+        LocalDateTime now = LocalDateTime.now();
+        long peerId = insertUser("qcpeer", true);
+        List<Long> peerAccounts = new ArrayList<>();
+        for (int i = 0; i < PEER_ACCOUNTS; i++) {
+            peerAccounts.add(insertAccount(peerId, "NL00QCPE" + String.format("%010d", i), now));
+        }
+        small = dataset("qcsmall", 1, 2, peerAccounts, now);
+        large = dataset("qclarge", 4, 60, peerAccounts, now);
+        // Enough users for the first page to be full, so the page count query always runs
+        insertUser("qcdisabled" + (userSequence++), false);
+        insertUser("qcdisabled" + (userSequence++), false);
+        employeeToken = token("employee", "ROLE_EMPLOYEE");
+    }
+
+    // Transactions
+
+    @Test
+    void transactionsGetAll() throws Exception {
+        assertSameCount(2, data -> get("/api/transaction/getall").header("Authorization", bearer(data)));
+    }
+
+    @Test
+    void transactionsFilter() throws Exception {
+        assertSameCount(2, data -> get("/api/transaction/filter")
+                .param("startDate", "2000-01-01")
+                .header("Authorization", bearer(data)));
+    }
+
+    @Test
+    void transactionsByAccount() throws Exception {
+        assertSameCount(3, data -> get("/api/transaction/byaccount/" + data.accounts().get(0))
+                .header("Authorization", bearer(data)));
+    }
+
+    @Test
+    void transactionsByAccountFilter() throws Exception {
+        assertSameCount(3, data -> get("/api/transaction/byaccount/" + data.accounts().get(0) + "/filter")
+                .param("amountGreaterThan", "1")
+                .header("Authorization", bearer(data)));
+    }
+
+    @Test
+    void transactionsGetAllSelectedFields() throws Exception {
+        assertSameCount(2, data -> get("/api/transaction/getall")
+                .param("fields", "id,amount,sourceAccount,destinationAccount,isCurrencyExchange")
+                .param("shape", "normalized")
+                .header("Authorization", bearer(data)));
+    }
+
+    @Test
+    void transactionsByAccountSelectedFields() throws Exception {
+        assertSameCount(3, data -> get("/api/transaction/byaccount/" + data.accounts().get(0))
+                .param("fields", "transactionReference,amount,createAt")
+                .header("Authorization", bearer(data)));
+    }
+
+    @Test
+    void transferPreview() throws Exception {
+        assertSameCount(4, data -> post("/api/transaction/transfer/preview")
+                .header("Authorization", bearer(data))
+                .contentType("application/json")
+                .content(json(Map.of("fromAccount", data.accounts().get(0), "toAccount", data.peerAccount(),
+                        "amount", 1))));
+    }
+
+    @Test
+    void transfer() throws Exception {
+        assertSameCount(10, data -> post("/api/transaction/transfer")
+                .header("Authorization", bearer(data))
+                .contentType("application/json")
+                .content(json(Map.of("fromAccount", data.accounts().get(0), "toAccount", data.peerAccount(),
+                        "amount", 1, "acceptExchangeRate", true))));
+    }
+
+    // Accounts
+
+    @Test
+    void accountsGetAll() throws Exception {
+        assertSameCount(2, data -> get("/api/account/getall").header("Authorization", bearer(data)));
+    }
+
+    @Test
+    void statementCountsAreReturnedAsHeaders() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/account/details/" + small.accounts().get(0))
+                        .header("Authorization", bearer(small)))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(String.valueOf(SqlRequestStats.of(result.getRequest()).getStatements()),
+                result.getResponse().getHeader(SqlStatsResponseAdvice.STATEMENTS_HEADER));
+    }
+
+    @Test
+    void unchangedListingsOnlyLookUpTheUser() throws Exception {
+        // A scheduled flush of the usage counters the other tests left would move the version in between
+        usageCounterService.flush();
+        for (Dataset data : List.of(small, large)) {
+            for (String listing : List.of("/api/account/getall", "/api/transaction/getall")) {
+                String eTag = mockMvc.perform(get(listing).header("Authorization", bearer(data)))
+                        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+                mockMvc.perform(get(listing).header("Authorization", bearer(data))
+                                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                        .andExpect(status().isNotModified())
+                        .andExpect(QueryCount.atMost(1));
+            }
+        }
+    }
+
+    @Test
+    void accountDetails() throws Exception {
+        assertSameCount(2, data -> get("/api/account/details/" + data.accounts().get(0))
+                .header("Authorization", bearer(data)));
+    }
+
+    @Test
+    void accountNumbersByUsername() throws Exception {
+        assertSameCount(2, data -> post("/api/account/getIBANByUsername")
+                .header("Authorization", bearer(data))
+                .contentType("application/json")
+                .content(json(Map.of("token", data.token(), "username", data.username()))));
+    }
+
+    @Test
+    void accountSearch() throws Exception {
+        assertSameCount(3, data -> get("/api/account/search")
+                .param("term", data.username())
+                .header("Authorization", bearer(data)));
+    }
+
+    @Test
+    void createAccount() throws Exception {
+        assertSameCount(4, data -> post("/api/account/create")
+                .header("Authorization", bearer(data))
+                .contentType("application/json")
+                .content(json(Map.of("accountName", "Query count", "accountType", "SAVINGS", "currency", "EUR"))));
+    }
+
+    @Test
+    void disableAccount() throws Exception {
+        assertSameCount(4, data -> put("/api/account/disable/" + data.spareAccount())
+                .header("Authorization", bearer(data)));
+    }
+
+    @Test
+    void updateLimits() throws Exception {
+        assertSameCount(3, data -> put("/api/account/limits")
+                .header("Authorization", "Bearer " + employeeToken)
+                .contentType("application/json")
+                .content(json(Map.of("accountNumber", data.accounts().get(0),
+                        "dailyTransferLimit", 6000, "singleTransferLimit", 3000,
+                        "dailyWithdrawalLimit", 6000, "singleWithdrawalLimit", 500))));
+    }
+
+    // ATM
+
+    @Test
+    void atmDeposit() throws Exception {
+        assertSameCount(6, data -> post("/api/atm/deposit")
+                .header("Authorization", bearer(data))
+                .contentType("application/json")
+                .content(json(Map.of("accountNumber", data.accounts().get(0), "amount", 10.0))));
+    }
+
+    @Test
+    void atmWithdraw() throws Exception {
+        assertSameCount(6, data -> post("/api/atm/withdraw")
+                .header("Authorization", bearer(data))
+                .contentType("application/json")
+                .content(json(Map.of("accountNumber", data.accounts().get(0), "amount", 10.0))));
+    }
+
+    // Users, the dataset is the number of users in the bank
+
+    @Test
+    void usersGetAll() throws Exception {
+        assertSameCountAsUsersGrow(2, () -> get("/api/users/getall"));
+    }
+
+    @Test
+    void usersByPage() throws Exception {
+        assertSameCountAsUsersGrow(4, () -> get("/api/users").param("limit", "2").param("page", "1"));
+    }
+
+    @Test
+    void userById() throws Exception {
+        long id = insertUser("qcbyid" + (userSequence++), true);
+        assertSameCountAsUsersGrow(3, () -> get("/api/users/" + id));
+    }
+
+    @Test
+    void disabledUsers() throws Exception {
+        assertSameCountAsUsersGrow(4, () -> get("/api/users/disabled").param("limit", "2").param("page", "1"));
+    }
+
+    @Test
+    void enableUser() throws Exception {
+        assertSameCountAsUsersGrow(4, () -> put("/api/users/" + insertUser("qcenable" + (userSequence++), false)
+                + "/enable"));
+    }
+
+    @Test
+    void userDirectorySearch() throws Exception {
+        assertSameCountAsUsersGrow(2, () -> get("/api/users/directory").param("search", "jan").param("limit", "1"));
+    }
+
+    @Test
+    void userDirectoryPage() throws Exception {
+        assertSameCountAsUsersGrow(2, () -> get("/api/users/directory").param("after", "1").param("limit", "2"));
+    }
+
+    /**
+     * Runs the request for the small and the large dataset and expects the same statement count, at most max
+     */
+    private void assertSameCount(int max, Function<Dataset, RequestBuilder> request) throws Exception {
+        int smallCount = perform(request.apply(small), max);
+        int largeCount = perform(request.apply(large), max);
+        assertEquals(smallCount, largeCount, "SQL statements grow with the amount of data");
+    }
+
+    private void assertSameCountAsUsersGrow(int max, RequestSupplier request) throws Exception {
+        int before = perform(withEmployee(request.get()), max);
+        for (int i = 0; i < 25; i++) {
+            insertUser("qcgrow" + (userSequence++), i % 2 == 0);
+        }
+        int after = perform(withEmployee(request.get()), max);
+        assertEquals(before, after, "SQL statements grow with the number of users");
+    }
+
+    private RequestBuilder withEmployee(MockHttpServletRequestBuilder builder) {
+        return builder.header("Authorization", "Bearer " + employeeToken);
+    }
+
+    private int perform(RequestBuilder request, int max) throws Exception {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(QueryCount.atMost(max))
+                .andReturn();
+        return QueryCount.statements(result);
+    }
+
+    @FunctionalInterface
+    private interface RequestSupplier {
+        MockHttpServletRequestBuilder get() throws Exception;
+    }
+
+    private Dataset dataset(String username, int accounts, int transactions, List<Long> peerAccounts,
+                            LocalDateTime now) {
+        long userId = insertUser(username, true);
+        List<Long> accountIds = new ArrayList<>();
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            String number = "NL00QC" + username.substring(2, 4).toUpperCase() + String.format("%010d", i);
+            accountIds.add(insertAccount(userId, number, now));
+            accountNumbers.add(number);
+        }
+        String spare = "NL00QC" + username.substring(2, 4).toUpperCase() + "9999999999";
+        insertAccount(userId, spare, now);
+        for (int i = 0; i < transactions; i++) {
+            // Every transaction has a different counterparty so lazy loading would show up as extra queries
+            long own = accountIds.get(i % accounts);
+            long peer = peerAccounts.get(i % peerAccounts.size());
+            boolean outgoing = i % 2 == 0;
+            Timestamp at = Timestamp.valueOf(now.minusDays(i + 1));
+            jdbcTemplate.update("INSERT INTO transactions (transaction_reference, amount, currency, description, status, "
+                            + "type, source_account_id, destination_account_id, created_at, completed_at) "
+                            + "VALUES (?, ?, 0, ?, 'COMPLETED', 'TRANSFER', ?, ?, ?, ?)",
+                    "TRX-QC-" + username + "-" + i, new BigDecimal("25.00"), "Query count " + i,
+                    outgoing ? own : peer, outgoing ? peer : own, at, at);
+        }
+        accountRepository.findAllById(accountIds)
+                .forEach(account -> usageCounterService.getUsage(account, LimitType.TRANSFER));
+        dataVersionService.getETag(username, "accounts");
+        return new Dataset(username, token(username, "ROLE_CLIENT"), accountNumbers, spare,
+                "NL00QCPE" + String.format("%010d", 0));
+    }
+
+    private long insertUser(String username, boolean enabled) {
+        jdbcTemplate.update("INSERT INTO users (username, password, name, email, role, enabled) VALUES (?, ?, ?, ?, ?, ?)",
+                username, "{noop}unused", "Query Count " + username, username + "@querycount.example.com", "CLIENT", enabled);
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+    }
+
+    private long insertAccount(long userId, String accountNumber, LocalDateTime now) {
+        Timestamp at = Timestamp.valueOf(now.minusDays(1));
+        jdbcTemplate.update("INSERT INTO accounts (account_number, account_name, account_type, balance, currency, "
+                        + "daily_transfer_limit, daily_withdrawal_limit, single_transfer_limit, single_withdrawal_limit, "
+                        + "transfer_used_today, withdrawal_used_today, last_limit_reset_date, limit_window_mode, disabled, "
+                        + "user_id, created_at, updated_at) "
+                        + "VALUES (?, 'Query count', 'CHECKING', 100000, 0, 5000, 5000, 3000, 500, 0, 0, ?, 'CALENDAR_DAY', "
+                        + "FALSE, ?, ?, ?)",
+                accountNumber, at, userId, at, at);
+        return jdbcTemplate.queryForObject("SELECT id FROM accounts WHERE account_number = ?", Long.class, accountNumber);
+    }
+
+    private String token(String username, String role) {
+        return jwtTokenProvider.generateToken(new UsernamePasswordAuthenticationToken(
+                username, null, List.of(new SimpleGrantedAuthority(role))));
+    }
+
+    private String bearer(Dataset data) {
+        return "Bearer " + data.token();
+    }
+
+    private String json(Map<String, Object> body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
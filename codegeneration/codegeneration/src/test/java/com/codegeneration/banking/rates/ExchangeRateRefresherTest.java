@@ -0,0 +1,139 @@
+package com.codegeneration.banking.rates;
+
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.service.implementations.ExchangeRateRefresher;
+import com.codegeneration.banking.api.service.implementations.FileRateProvider;
+import com.codegeneration.banking.api.service.interfaces.RateProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The refresher against a stub provider named "stub" and the bundled rate file
+ */
+public class ExchangeRateRefresherTest {
+
+    private final StubRateProvider stub = new StubRateProvider();
+
+    @Test
+    void movesPastTheChangeRatioNeedConsecutiveConfirmations() {
+        ExchangeRateRefresher refresher = refresher(stub.name);
+        stub.rates = rates("1.08");
+        refresher.init();
+
+        stub.rates = rates("2.00");
+        refresher.refresh();
+        refresher.refresh();
+        assertEquals(new BigDecimal("1.08"), usd(refresher));
+        assertEquals(2, refresher.getRefreshFailures());
+
+        // A table that disagrees with the rejected one starts counting again
+        stub.rates = rates("4.00");
+        refresher.refresh();
+        refresher.refresh();
+        assertEquals(new BigDecimal("1.08"), usd(refresher));
+        refresher.refresh();
+        assertEquals(new BigDecimal("4.00"), usd(refresher));
+
+        // Small moves are published right away
+        stub.rates = rates("4.10");
+        refresher.refresh();
+        assertEquals(new BigDecimal("4.10"), usd(refresher));
+        assertEquals(4, refresher.getRefreshFailures());
+    }
+
+    @Test
+    void invalidTablesAndFailedFetchesKeepTheLastGoodSnapshot() {
+        ExchangeRateRefresher refresher = refresher(stub.name);
+        stub.rates = rates("1.08");
+        refresher.init();
+        long version = refresher.current().getVersion();
+
+        stub.rates = Map.of("EUR_USD", new BigDecimal("1.08"));
+        refresher.refresh();
+        stub.rates = null;
+        refresher.refresh();
+
+        assertEquals(version, refresher.current().getVersion());
+        assertEquals(2, refresher.getRefreshFailures());
+        assertEquals("Stub source is down", refresher.getStatus().getLastError());
+    }
+
+    @Test
+    void bootstrapsFromTheFileAndSwitchesOnceTheProviderAnswers() {
+        ExchangeRateRefresher refresher = refresher(stub.name);
+        stub.rates = null;
+        refresher.init();
+        assertEquals(FileRateProvider.NAME, refresher.current().getSource());
+
+        // Far from the file's 1.08, but the first table of the configured provider is not compared to the bootstrap
+        stub.rates = rates("2.00");
+        refresher.refresh();
+        assertEquals(stub.name, refresher.current().getSource());
+        assertEquals(new BigDecimal("2.00"), usd(refresher));
+    }
+
+    @Test
+    void failsToStartWithoutAnyRates() {
+        ExchangeRateRefresher refresher = new ExchangeRateRefresher(List.of(stub));
+        ReflectionTestUtils.setField(refresher, "providerName", stub.name);
+        stub.rates = null;
+        assertThrows(IllegalStateException.class, refresher::init);
+    }
+
+    private ExchangeRateRefresher refresher(String providerName) {
+        FileRateProvider file = new FileRateProvider(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(file, "location", "classpath:exchange-rates.properties");
+
+        ExchangeRateRefresher refresher = new ExchangeRateRefresher(List.of(stub, file));
+        ReflectionTestUtils.setField(refresher, "providerName", providerName);
+        ReflectionTestUtils.setField(refresher, "maxChangeRatio", new BigDecimal("0.5"));
+        ReflectionTestUtils.setField(refresher, "requiredConfirmations", 3);
+        return refresher;
+    }
+
+    private static BigDecimal usd(ExchangeRateRefresher refresher) {
+        return refresher.current().getRate(Currency.EUR, Currency.USD);
+    }
+
+    /**
+     * EUR legs of every currency with the given EUR_USD rate
+     */
+    private static Map<String, BigDecimal> rates(String eurUsd) {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        rates.put("EUR_USD", new BigDecimal(eurUsd));
+        rates.put("EUR_GBP", new BigDecimal("0.86"));
+        rates.put("EUR_CHF", new BigDecimal("0.95"));
+        rates.put("EUR_PLN", new BigDecimal("4.23"));
+        return rates;
+    }
+
+    private static class StubRateProvider implements RateProvider {
+
+        final String name = "stub";
+        // Null fails the fetch
+        volatile Map<String, BigDecimal> rates;
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Map<String, BigDecimal> fetchRates() throws IOException {
+            if (rates == null) {
+                throw new IOException("Stub source is down");
+            }
+            return rates;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.codegeneration.banking.rates;
+
+import com.codegeneration.banking.api.enums.Currency;
+import com.codegeneration.banking.api.dto.currency.RateSnapshot;
+import com.codegeneration.banking.api.service.implementations.FileRateProvider;
+import com.codegeneration.banking.api.service.implementations.HttpRateProvider;
+import com.codegeneration.banking.api.service.implementations.StandInRateFeed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The http provider against the stand-in feed on a free port
+ */
+public class HttpRateProviderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private FileRateProvider file;
+    private StandInRateFeed feed;
+
+    @BeforeEach
+    void startFeed() throws Exception {
+        file = new FileRateProvider(new DefaultResourceLoader());
+        ReflectionTestUtils.setField(file, "location", "classpath:exchange-rates.properties");
+        feed = new StandInRateFeed(file, objectMapper);
+        ReflectionTestUtils.setField(feed, "port", 0);
+        feed.start();
+    }
+
+    @AfterEach
+    void stopFeed() {
+        feed.stop();
+    }
+
+    @Test
+    void readsTheRatesTheFeedServes() throws Exception {
+        HttpRateProvider provider = provider(Optional.of(feed), null);
+        assertEquals(file.fetchRates(), provider.fetchRates());
+
+        // Numbers are read exactly as sent, the snapshot rounds them
+        feed.setRates(Map.of("EUR_USD", new BigDecimal("0.00123456789012345678"), "EUR_GBP", new BigDecimal("0.86"),
+                "EUR_CHF", new BigDecimal("0.95"), "EUR_PLN", new BigDecimal("4.23")));
+        Map<String, BigDecimal> rates = provider.fetchRates();
+        assertEquals(new BigDecimal("0.00123456789012345678"), rates.get("EUR_USD"));
+        assertEquals(1_2346, RateSnapshot.of(1, Instant.now(), provider.getName(), rates)
+                .convertUnits(1000_0000, Currency.EUR, Currency.USD));
+    }
+
+    @Test
+    void failsOnAnythingButAJsonObjectWithStatus200() {
+        String root = feed.getUrl().replace(StandInRateFeed.PATH, "");
+        assertThrows(IllegalStateException.class, () -> provider(Optional.empty(), root + "/missing").fetchRates());
+
+        feed.setRates(null);
+        ReflectionTestUtils.setField(file, "location", "classpath:missing-rates.properties");
+        assertThrows(IllegalStateException.class, () -> provider(Optional.empty(), feed.getUrl()).fetchRates());
+    }
+
+    private HttpRateProvider provider(Optional<StandInRateFeed> standIn, String url) {
+        HttpRateProvider provider = new HttpRateProvider(objectMapper, standIn);
+        ReflectionTestUtils.setField(provider, "url", url);
+        ReflectionTestUtils.setField(provider, "timeoutMs", 2000L);
+        return provider;
+    }
+}
@@ -0,0 +1,82 @@
+package com.codegeneration.banking.rates;
+
+import com.codegeneration.banking.api.dto.currency.RateSnapshot;
+import com.codegeneration.banking.api.enums.Currency;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validation, rounding and triangulation of rate tables, with rates quoted from EUR only unless a test adds more
+ */
+public class RateSnapshotTest {
+
+    @Test
+    void rejectsInvalidTables() {
+        assertThrows(IllegalArgumentException.class, () -> snapshot(Map.of("EUR_USD", BigDecimal.ZERO)));
+        assertThrows(IllegalArgumentException.class, () -> snapshot(Map.of("EUR_USD", new BigDecimal("-1.08"))));
+        assertThrows(IllegalArgumentException.class, () -> snapshot(Map.of("EURUSD", new BigDecimal("1.08"))));
+        assertThrows(IllegalArgumentException.class, () -> snapshot(Map.of("EUR_XXX", new BigDecimal("1.08"))));
+        // Rounds to zero at ten decimals
+        assertThrows(IllegalArgumentException.class, () -> snapshot(Map.of("EUR_USD", new BigDecimal("0.00000000001"))));
+        assertThrows(IllegalArgumentException.class, () -> snapshot(Map.of("EUR_USD", new BigDecimal("1E19"))));
+
+        Map<String, BigDecimal> withoutPln = fromEur();
+        withoutPln.remove("EUR_PLN");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> RateSnapshot.of(1, Instant.now(), "test", withoutPln));
+        assertEquals("No EUR rate available for PLN", e.getMessage());
+    }
+
+    @Test
+    void roundsRatesWithManyDecimalsAndStillConverts() {
+        Map<String, BigDecimal> rates = new HashMap<>(Map.of("EUR_USD", new BigDecimal("0.00123456789012345678")));
+        RateSnapshot snapshot = snapshot(rates);
+
+        assertEquals(new BigDecimal("0.0012345679"), snapshot.getRate(Currency.EUR, Currency.USD));
+        // 1000.0000 EUR is 1.234568 USD, half up to 1.2346
+        assertEquals(1_2346, snapshot.convertUnits(1000_0000, Currency.EUR, Currency.USD));
+        assertEquals(5_0000, snapshot(Map.of("EUR_USD", new BigDecimal("5E+0"))).convertUnits(1_0000, Currency.EUR, Currency.USD));
+    }
+
+    @Test
+    void triangulatesThroughEurOnceAndCachesTheRate() {
+        RateSnapshot snapshot = snapshot(Map.of());
+
+        assertFalse(snapshot.isQuoted(Currency.USD, Currency.GBP));
+        assertTrue(snapshot.isQuoted(Currency.EUR, Currency.GBP));
+        // USD to EUR is the inverse of EUR_USD (0.925926), times EUR_GBP
+        BigDecimal rate = snapshot.getRate(Currency.USD, Currency.GBP);
+        assertEquals(new BigDecimal("0.796296"), rate);
+        assertSame(rate, snapshot.getRate(Currency.USD, Currency.GBP));
+        assertEquals(7963, snapshot.convertUnits(1_0000, Currency.USD, Currency.GBP));
+        assertEquals(BigDecimal.ONE, snapshot.getRate(Currency.PLN, Currency.PLN));
+    }
+
+    /**
+     * The EUR legs plus the given rates
+     */
+    private static RateSnapshot snapshot(Map<String, BigDecimal> rates) {
+        Map<String, BigDecimal> table = fromEur();
+        table.putAll(rates);
+        return RateSnapshot.of(1, Instant.now(), "test", table);
+    }
+
+    private static Map<String, BigDecimal> fromEur() {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        rates.put("EUR_USD", new BigDecimal("1.08"));
+        rates.put("EUR_GBP", new BigDecimal("0.86"));
+        rates.put("EUR_CHF", new BigDecimal("0.95"));
+        rates.put("EUR_PLN", new BigDecimal("4.23"));
+        return rates;
+    }
+}
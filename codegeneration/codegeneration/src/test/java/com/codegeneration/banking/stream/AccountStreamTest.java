@@ -0,0 +1,229 @@
+package com.codegeneration.banking.stream;
+
+import com.codegeneration.banking.api.service.interfaces.AccountStreamService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streams are opened over real connections, MockMvc has no sockets to hold open
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class AccountStreamTest {
+
+    private static final String EUR_ACCOUNT = "NL99BANK823345941";
+    private static final String USD_ACCOUNT = "NL99BANK000333444";
+    private static final int IDLE_CONNECTIONS = 1000;
+
+    @LocalServerPort int port;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired AccountStreamService accountStreamService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<Stream<String>> openStreams = new ArrayList<>();
+
+    @AfterEach
+    void closeStreams() {
+        openStreams.forEach(Stream::close);
+    }
+
+    @Test
+    void committedTransfersArePushedAndReplayedOnResume() throws Exception {
+        String token = login();
+        int connected = accountStreamService.getConnectionCount();
+        BlockingQueue<String> lines = stream(token, null);
+        await(() -> accountStreamService.getConnectionCount() == connected + 1);
+
+        HttpResponse<String> transfer = client.send(HttpRequest.newBuilder(uri("/api/transaction/transfer"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(Map.of(
+                        "fromAccount", EUR_ACCOUNT, "toAccount", USD_ACCOUNT,
+                        "amount", 1, "acceptExchangeRate", true))))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, transfer.statusCode(), transfer.body());
+        String reference = objectMapper.readTree(transfer.body()).at("/transaction/transactionReference").asText();
+
+        String[] event = nextEvent(lines, "transaction");
+        JsonNode data = objectMapper.readTree(event[1]);
+        assertEquals(reference, data.at("/transaction/transactionReference").asText());
+        assertEquals(1, data.get("balances").size(), "Only the balance of the user's own account");
+        assertEquals(EUR_ACCOUNT, data.at("/balances/0/accountNumber").asText());
+
+        // A client that reconnects gets the events after the last one it received
+        long id = Long.parseLong(event[0]);
+        String[] replayed = nextEvent(stream(token, Long.toString(id - 1)), "transaction");
+        assertEquals(event[0], replayed[0]);
+        assertEquals(reference, objectMapper.readTree(replayed[1]).at("/transaction/transactionReference").asText());
+
+        // One that cannot be resumed is told to fetch its listings again
+        nextEvent(stream(token, "unknown"), "resync");
+    }
+
+    @Test
+    void idleStreamsHoldNoThreadAndLittleMemory() throws Exception {
+        String token = login();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long before = usedHeap(memory);
+
+        List<Socket> sockets = new ArrayList<>(IDLE_CONNECTIONS);
+        try {
+            for (int i = 0; i < IDLE_CONNECTIONS; i++) {
+                Socket socket = new Socket("localhost", port);
+                OutputStream out = socket.getOutputStream();
+                out.write(("GET /api/account/stream HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n"
+                        + "Authorization: Bearer " + token + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                sockets.add(socket);
+            }
+            // Streams of the other test are only dropped once a heartbeat fails, the count alone cannot tell
+            for (Socket socket : sockets) {
+                awaitConnected(socket);
+            }
+            assertTrue(accountStreamService.getConnectionCount() >= IDLE_CONNECTIONS);
+            long perConnection = (usedHeap(memory) - before) / IDLE_CONNECTIONS;
+            int threads = Thread.activeCount();
+
+            // About 100 KB are the request and response buffers Tomcat keeps for every open request. The client
+            // sockets live in the same heap, so this is an upper bound.
+            assertTrue(perConnection < 160 * 1024, "Heap per idle stream: " + perConnection);
+            // The worker pool grew with the burst of requests, but no thread is held by a stream
+            assertTrue(threads < IDLE_CONNECTIONS / 2, threads + " threads for " + IDLE_CONNECTIONS + " streams");
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    private String login() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"user2\",\"password\":\"user123\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        String token = objectMapper.readTree(response.body()).path("token").asText(null);
+        assertNotNull(token, response.body());
+        return token;
+    }
+
+    /**
+     * Open a stream and collect its lines on a background thread
+     */
+    private BlockingQueue<String> stream(String token, String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri("/api/account/stream"))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = client.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        openStreams.add(response.body());
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> {
+            try {
+                response.body().forEach(lines::add);
+            } catch (UncheckedIOException e) {
+                // Closed after the test
+            }
+        });
+        reader.setDaemon(true);
+        reader.start();
+        return lines;
+    }
+
+    /**
+     * Read the raw response until the comment that opens every stream
+     */
+    private static void awaitConnected(Socket socket) throws IOException {
+        socket.setSoTimeout(60_000);
+        InputStream in = socket.getInputStream();
+        StringBuilder received = new StringBuilder();
+        byte[] buffer = new byte[1024];
+        while (received.indexOf(":connected") < 0) {
+            int read = in.read(buffer);
+            assertTrue(read > 0, "Stream closed before it was connected: " + received);
+            received.append(new String(buffer, 0, read, StandardCharsets.US_ASCII));
+        }
+    }
+
+    /**
+     * Read lines until an event of the given name is complete
+     *
+     * @return Its id and data
+     */
+    private static String[] nextEvent(BlockingQueue<String> lines, String name) throws InterruptedException {
+        String id = null;
+        String event = null;
+        String data = null;
+        while (true) {
+            String line = lines.poll(10, TimeUnit.SECONDS);
+            assertNotNull(line, "No " + name + " event");
+            if (line.isEmpty()) {
+                if (name.equals(event)) {
+                    return new String[]{id, data};
+                }
+                id = null;
+                event = null;
+                data = null;
+            } else if (line.startsWith("id:")) {
+                id = line.substring(3);
+            } else if (line.startsWith("event:")) {
+                event = line.substring(6);
+            } else if (line.startsWith("data:")) {
+                data = line.substring(5);
+            }
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static long usedHeap(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out");
+            }
+            Thread.sleep(20);
+        }
+    }
+}